@@ -1,24 +1,37 @@
 package com.beema.kernel.api.v1.agreement;
 
+import com.beema.kernel.api.v1.agreement.dto.AgreementHistoryPageResponse;
 import com.beema.kernel.api.v1.agreement.dto.AgreementRequest;
 import com.beema.kernel.api.v1.agreement.dto.AgreementResponse;
 import com.beema.kernel.api.v1.agreement.dto.TemporalQueryParams;
 import com.beema.kernel.domain.agreement.Agreement;
 import com.beema.kernel.domain.agreement.AgreementStatus;
 import com.beema.kernel.domain.agreement.MarketContext;
+import com.beema.kernel.repository.agreement.AgreementAttributeProjection;
+import com.beema.kernel.repository.base.KeysetPage;
+import com.beema.kernel.service.agreement.AgreementImportFormat;
+import com.beema.kernel.service.agreement.AgreementImportReport;
+import com.beema.kernel.service.agreement.AgreementImportService;
 import com.beema.kernel.service.agreement.AgreementService;
 import com.beema.kernel.service.security.WriteShieldService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -29,6 +42,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,12 +53,23 @@ import java.util.UUID;
 @Tag(name = "Agreements", description = "Agreement management with bitemporal versioning")
 public class AgreementController {
 
+    private static final Logger log = LoggerFactory.getLogger(AgreementController.class);
+
+    private static final int STREAM_PAGE_SIZE = 200;
+
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
     private final AgreementService agreementService;
+    private final AgreementImportService agreementImportService;
     private final WriteShieldService writeShieldService;
+    private final ObjectMapper objectMapper;
 
-    public AgreementController(AgreementService agreementService, WriteShieldService writeShieldService) {
+    public AgreementController(AgreementService agreementService, AgreementImportService agreementImportService,
+                               WriteShieldService writeShieldService, ObjectMapper objectMapper) {
         this.agreementService = agreementService;
+        this.agreementImportService = agreementImportService;
         this.writeShieldService = writeShieldService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -62,12 +87,34 @@ public class AgreementController {
         return ResponseEntity.status(HttpStatus.CREATED).body(AgreementResponse.fromEntity(saved));
     }
 
+    @PostMapping(value = "/import", consumes = {NDJSON_MEDIA_TYPE, "text/csv"})
+    @Operation(summary = "Bulk import agreements",
+            description = "Imports agreements from an NDJSON or CSV request body using the create-agreement field names. "
+                    + "Rows are validated against their agreement type schema; rejected rows are listed in the report "
+                    + "and do not stop the import")
+    @ApiResponse(responseCode = "200", description = "Import report with per-row errors")
+    public ResponseEntity<AgreementImportReport> importAgreements(
+            @Parameter(description = "Tenant ID", required = true) @RequestParam UUID tenantId,
+            @Parameter(description = "User role for write permissions (CUSTOMER, BROKER, UNDERWRITER, ADMIN)")
+            @RequestParam(defaultValue = "CUSTOMER") String userRole,
+            @Parameter(description = "Recorded as creator of the imported agreements")
+            @RequestParam(defaultValue = "bulk-import") String createdBy,
+            HttpServletRequest request) throws IOException {
+        AgreementImportFormat format = request.getContentType() != null
+                && request.getContentType().startsWith("text/csv")
+                ? AgreementImportFormat.CSV : AgreementImportFormat.NDJSON;
+        AgreementImportReport report = agreementImportService.importAgreements(
+                request.getInputStream(), format, tenantId, userRole, createdBy);
+        return ResponseEntity.ok(report);
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update an agreement", description = "Creates a new bitemporal version of the agreement")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Agreement updated"),
             @ApiResponse(responseCode = "404", description = "Agreement not found"),
-            @ApiResponse(responseCode = "400", description = "Validation error")
+            @ApiResponse(responseCode = "400", description = "Validation error"),
+            @ApiResponse(responseCode = "409", description = "Agreement was updated concurrently")
     })
     public ResponseEntity<AgreementResponse> updateAgreement(
             @Parameter(description = "Agreement ID") @PathVariable UUID id,
@@ -138,6 +185,66 @@ public class AgreementController {
         return ResponseEntity.ok(history);
     }
 
+    @GetMapping("/{id}/history/page")
+    @Operation(summary = "Get a page of agreement history",
+            description = "Keyset-paginated version history in transaction-time order; pass nextCursor to fetch the following page")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page of agreement versions"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    })
+    public ResponseEntity<AgreementHistoryPageResponse> getAgreementHistoryPage(
+            @Parameter(description = "Agreement ID") @PathVariable UUID id,
+            @Parameter(description = "Tenant ID", required = true) @RequestParam String tenantId,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 500)") @RequestParam(defaultValue = "50") int size) {
+        KeysetPage<Agreement> page = agreementService.getAgreementHistoryPage(id, tenantId, cursor, size);
+        return ResponseEntity.ok(AgreementHistoryPageResponse.fromPage(page));
+    }
+
+    @GetMapping(value = "/{id}/history/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Stream agreement history",
+            description = "Streams the full version history as a JSON array in transaction-time order. "
+                    + "Versions are read page by page, so memory use does not grow with history length. "
+                    + "If reading a later page fails, the array ends with an object holding an \"error\" "
+                    + "field instead of a version, since the response status has already been sent")
+    @ApiResponse(responseCode = "200", description = "JSON array of agreement versions")
+    public void streamAgreementHistory(
+            @Parameter(description = "Agreement ID") @PathVariable UUID id,
+            @Parameter(description = "Tenant ID", required = true) @RequestParam String tenantId,
+            HttpServletResponse response) throws IOException {
+        // A failure on the first page still gets a regular error response
+        KeysetPage<Agreement> page = agreementService.getAgreementHistoryPage(id, tenantId, null, STREAM_PAGE_SIZE);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            while (true) {
+                for (Agreement version : page.items()) {
+                    objectMapper.writeValue(generator, AgreementResponse.fromEntity(version));
+                }
+                // Push each page to the client before reading the next one
+                generator.flush();
+                if (page.nextCursor() == null) {
+                    break;
+                }
+                try {
+                    page = agreementService.getAgreementHistoryPage(id, tenantId, page.nextCursor(), STREAM_PAGE_SIZE);
+                } catch (RuntimeException e) {
+                    // The 200 is already on the wire: end the array with a marker, not a truncated
+                    // array a client would take for the whole history
+                    log.error("Agreement history stream for {} failed after a partial response", id, e);
+                    generator.writeStartObject();
+                    generator.writeStringField("error", "Internal Server Error");
+                    generator.writeStringField("message", "History stream interrupted; the versions above are incomplete");
+                    generator.writeEndObject();
+                    break;
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+
     @GetMapping
     @Operation(summary = "List agreements", description = "Retrieves current agreements filtered by tenant and market context or status")
     @ApiResponse(responseCode = "200", description = "Page of agreements")
@@ -161,6 +268,24 @@ public class AgreementController {
         return ResponseEntity.ok(page);
     }
 
+    @GetMapping("/projection")
+    @Operation(summary = "List agreements with selected attributes",
+            description = "Retrieves current agreements with only the requested attribute paths extracted from the "
+                    + "attributes document, e.g. fields=vehicleMake,driver.licenceNumber")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page of agreement projections"),
+            @ApiResponse(responseCode = "400", description = "Missing or invalid attribute paths")
+    })
+    public ResponseEntity<Page<AgreementAttributeProjection>> listAgreementProjections(
+            @Parameter(description = "Tenant ID", required = true) @RequestParam String tenantId,
+            @Parameter(description = "Comma-separated attribute paths", required = true) @RequestParam List<String> fields,
+            @Parameter(description = "Filter by market context") @RequestParam(required = false) MarketContext marketContext,
+            @Parameter(description = "Filter by status") @RequestParam(required = false) AgreementStatus status,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(agreementService.getAgreementProjections(
+                tenantId, marketContext, status, fields, pageable));
+    }
+
     @PostMapping("/{id}/validate")
     @Operation(summary = "Validate agreement attributes", description = "Validates attributes against the agreement type schema without persisting")
     @ApiResponse(responseCode = "200", description = "Validation result")
@@ -0,0 +1,40 @@
+package com.beema.kernel.api.v1.agreement.dto;
+
+import com.beema.kernel.domain.agreement.Agreement;
+import com.beema.kernel.repository.base.KeysetPage;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "One page of an agreement's version history, in transaction-time order")
+public class AgreementHistoryPageResponse {
+
+    @Schema(description = "Agreement versions on this page")
+    private List<AgreementResponse> items;
+
+    @Schema(description = "Opaque cursor for the next page; absent on the last page")
+    private String nextCursor;
+
+    public static AgreementHistoryPageResponse fromPage(KeysetPage<Agreement> page) {
+        AgreementHistoryPageResponse response = new AgreementHistoryPageResponse();
+        response.setItems(page.items().stream().map(AgreementResponse::fromEntity).toList());
+        response.setNextCursor(page.nextCursor());
+        return response;
+    }
+
+    public List<AgreementResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<AgreementResponse> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -1,7 +1,10 @@
 package com.beema.kernel.api.v1.batch;
 
+import com.beema.kernel.config.TemporalConfig;
 import com.beema.kernel.workflow.batch.BatchOrchestratorWorkflow;
+import com.beema.kernel.workflow.batch.BatchProgress;
 import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowNotFoundException;
 import io.temporal.client.WorkflowOptions;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -40,7 +43,7 @@ public class BatchJobController {
                 BatchOrchestratorWorkflow.class,
                 WorkflowOptions.newBuilder()
                         .setWorkflowId(workflowId)
-                        .setTaskQueue("batch-queue")
+                        .setTaskQueue(TemporalConfig.BATCH_TASK_QUEUE)
                         .build()
         );
 
@@ -55,4 +58,21 @@ public class BatchJobController {
                         "message", "Batch job started successfully"
                 ));
     }
+
+    /**
+     * Returns the latest progress of a batch job workflow.
+     *
+     * @param workflowId Workflow ID returned by the trigger endpoint
+     * @return Progress reported by the running job, or 404 if the workflow does not exist
+     */
+    @GetMapping("/workflows/{workflowId}/progress")
+    public ResponseEntity<BatchProgress> getProgress(@PathVariable String workflowId) {
+        BatchOrchestratorWorkflow workflow = workflowClient.newWorkflowStub(
+                BatchOrchestratorWorkflow.class, workflowId);
+        try {
+            return ResponseEntity.ok(workflow.getProgress());
+        } catch (WorkflowNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
 }
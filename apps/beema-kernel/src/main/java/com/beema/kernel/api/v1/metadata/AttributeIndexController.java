@@ -0,0 +1,42 @@
+package com.beema.kernel.api.v1.metadata;
+
+import com.beema.kernel.service.search.AttributeIndexManager;
+import com.beema.kernel.service.search.AttributeIndexStatus;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/metadata/search-indexes")
+@Tag(name = "Attribute Search Indexes", description = "Expression and GIN indexes for searchable agreement attributes")
+public class AttributeIndexController {
+
+    private final AttributeIndexManager attributeIndexManager;
+
+    public AttributeIndexController(AttributeIndexManager attributeIndexManager) {
+        this.attributeIndexManager = attributeIndexManager;
+    }
+
+    @GetMapping
+    @Operation(summary = "List managed attribute indexes", description = "Returns each managed index with its build status")
+    @ApiResponse(responseCode = "200", description = "Index status list")
+    public ResponseEntity<List<AttributeIndexStatus>> getStatus() {
+        return ResponseEntity.ok(attributeIndexManager.getStatus());
+    }
+
+    @PostMapping("/reconcile")
+    @Operation(summary = "Reconcile attribute indexes",
+            description = "Builds indexes for newly searchable attributes and drops indexes for attributes that are no " +
+                    "longer searchable. Indexes are built concurrently, so this call can take a while on large tables")
+    @ApiResponse(responseCode = "200", description = "Index status after reconcile")
+    public ResponseEntity<List<AttributeIndexStatus>> reconcile() {
+        return ResponseEntity.ok(attributeIndexManager.reconcile());
+    }
+}
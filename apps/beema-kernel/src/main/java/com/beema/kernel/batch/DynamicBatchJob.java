@@ -1,17 +1,27 @@
 package com.beema.kernel.batch;
 
+import com.beema.kernel.batch.partition.PerPartitionStepHandler;
+import com.beema.kernel.batch.partition.SqlKeyPartitioner;
+import com.beema.kernel.batch.partition.SqlKeyPartitioner.PartitionQuery;
 import com.beema.kernel.domain.batch.BatchJobConfig;
 import com.beema.kernel.service.expression.JexlExpressionEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecutionListener;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.database.builder.JdbcCursorItemReaderBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.PlatformTransactionManager;
 
@@ -23,9 +33,14 @@ import java.util.Map;
  * Generic batch job that reads from SQL and processes with JEXL.
  *
  * Flow:
- * 1. Reader: Execute SQL query to fetch records
- * 2. Processor: Apply JEXL script to transform each record
- * 3. Writer: Update records in database
+ * 1. Reader: Execute SQL query to fetch records, through one cursor or, with reader key
+ *    columns configured, in keyset pages (see {@link KeysetItemReader})
+ * 2. Processor: Apply the compiled JEXL script to each record, see {@link JexlItemProcessor}
+ * 3. Writer: Write each chunk with one JDBC batch, see {@link DynamicJdbcItemWriter}
+ *
+ * Partitioned configs run a manager step that splits the reader SQL with
+ * {@link SqlKeyPartitioner} and executes one worker step per partition on the
+ * batch partition executor.
  */
 @Component
 public class DynamicBatchJob {
@@ -34,64 +49,95 @@ public class DynamicBatchJob {
     private final PlatformTransactionManager transactionManager;
     private final DataSource dataSource;
     private final JexlExpressionEngine jexlEngine;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TaskExecutor partitionExecutor;
 
     public DynamicBatchJob(
             JobRepository jobRepository,
             PlatformTransactionManager transactionManager,
             DataSource dataSource,
-            JexlExpressionEngine jexlEngine) {
+            JexlExpressionEngine jexlEngine,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Qualifier("batchPartitionExecutor") TaskExecutor partitionExecutor) {
         this.jobRepository = jobRepository;
         this.transactionManager = transactionManager;
         this.dataSource = dataSource;
         this.jexlEngine = jexlEngine;
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.partitionExecutor = partitionExecutor;
     }
 
     /**
      * Creates a batch job from configuration.
      */
-    public Job createJob(BatchJobConfig config) {
-        return new JobBuilder(config.getJobName(), jobRepository)
-                .start(createStep(config))
-                .build();
+    public Job createJob(BatchJobConfig config, JobExecutionListener... listeners) {
+        JobBuilder builder = new JobBuilder(config.getJobName(), jobRepository);
+        for (JobExecutionListener listener : listeners) {
+            builder.listener(listener);
+        }
+        return builder.start(createStep(config)).build();
     }
 
     private Step createStep(BatchJobConfig config) {
+        config.requireRestartablePartitions();
+        if (!config.isPartitioned()) {
+            return createWorkerStep(config, config.getJobName() + "-step", new ExecutionContext());
+        }
+
+        // Fail on a bad script or writer config now rather than in every partition
+        createProcessor(config);
+        createWriter(config);
+
+        SqlKeyPartitioner partitioner = new SqlKeyPartitioner(new JdbcTemplate(dataSource),
+                config.getReaderSql(), config.getPartitionColumn(), config.getPartitionStrategy(),
+                config.getPartitionCount());
+        String workerName = config.getJobName() + "-worker";
+        PerPartitionStepHandler handler = new PerPartitionStepHandler(partitionExecutor,
+                context -> createWorkerStep(config, workerName, context), config.getPartitionCount());
+
         return new StepBuilder(config.getJobName() + "-step", jobRepository)
+                .partitioner(workerName, partitioner)
+                .partitionHandler(handler)
+                .build();
+    }
+
+    private Step createWorkerStep(BatchJobConfig config, String name, ExecutionContext partition) {
+        return new StepBuilder(name, jobRepository)
                 .<Map<String, Object>, Map<String, Object>>chunk(config.getChunkSize(), transactionManager)
-                .reader(createReader(config))
+                .reader(createReader(config, partition))
                 .processor(createProcessor(config))
                 .writer(createWriter(config))
                 .build();
     }
 
-    private ItemReader<Map<String, Object>> createReader(BatchJobConfig config) {
+    private ItemReader<Map<String, Object>> createReader(BatchJobConfig config, ExecutionContext partition) {
+        if (config.isKeysetPaged()) {
+            PartitionQuery query = SqlKeyPartitioner.filterFor(config.getReaderSql(), partition);
+            return new KeysetItemReader<>(config.getJobName() + "-reader", dataSource, query.sql(), query.args(),
+                    KeysetItemReader.keyColumns(config.getReaderKeyColumns()), config.getChunkSize(), mapRowMapper());
+        }
+        PartitionQuery query = SqlKeyPartitioner.queryFor(config.getReaderSql(), partition);
         return new JdbcCursorItemReaderBuilder<Map<String, Object>>()
                 .name(config.getJobName() + "-reader")
                 .dataSource(dataSource)
-                .sql(config.getReaderSql())
+                .sql(query.sql())
+                .queryArguments(query.args())
                 .rowMapper(mapRowMapper())
                 .build();
     }
 
-    @SuppressWarnings("unchecked")
-    private ItemProcessor<Map<String, Object>, Map<String, Object>> createProcessor(BatchJobConfig config) {
-        return item -> {
-            // Apply JEXL transformation (note: evaluate takes record first, then script)
-            Object result = jexlEngine.evaluate(item, config.getProcessorJexl());
-            if (result instanceof Map) {
-                return (Map<String, Object>) result;
-            }
-            return item;
-        };
+    private JexlItemProcessor createProcessor(BatchJobConfig config) {
+        // One processor per worker step, so the script is compiled once per step execution
+        return new JexlItemProcessor(config.getProcessorJexl(), jexlEngine, meterRegistry, config.getJobName());
     }
 
     private ItemWriter<Map<String, Object>> createWriter(BatchJobConfig config) {
-        // Generic writer - for now just log
-        // Can be enhanced to do SQL updates based on config
-        return items -> {
-            items.forEach(item ->
-                System.out.println("Processed item: " + item));
-        };
+        return DynamicJdbcItemWriter.from(config, jdbcTemplate, objectMapper, meterRegistry);
     }
 
     private RowMapper<Map<String, Object>> mapRowMapper() {
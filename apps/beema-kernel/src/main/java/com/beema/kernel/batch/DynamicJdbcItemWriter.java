@@ -0,0 +1,320 @@
+package com.beema.kernel.batch;
+
+import com.beema.kernel.domain.batch.BatchJobConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Writer for {@link DynamicBatchJob} configured from {@link BatchJobConfig}: sends each chunk as
+ * one parameterized JDBC batch, in the chunk's transaction, like {@code JdbcBatchItemWriter}.
+ *
+ * The statement is the configured writer SQL (named parameters bound from item fields), or is
+ * generated from the target table: a column UPDATE by key, an INSERT ... ON CONFLICT upsert, or
+ * a merge of the item fields into a JSONB column. Without explicit writer columns the fields of
+ * the first item, minus the key columns, define the statement for the whole step.
+ *
+ * Rows written and chunk timings are accumulated in the step's {@link ExecutionContext} once the
+ * chunk's transaction commits, so a chunk that rolls back and is retried is counted once. The
+ * context is persisted with every chunk commit, which makes a chunk's figures reach the job
+ * repository with the next chunk, or when the step ends; the Temporal activity reports them
+ * from there without access to this instance.
+ */
+public class DynamicJdbcItemWriter implements ItemWriter<Map<String, Object>>, StepExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(DynamicJdbcItemWriter.class);
+
+    public static final String ROWS_WRITTEN_KEY = "writer.rowsWritten";
+    public static final String CHUNKS_KEY = "writer.chunks";
+    public static final String WRITE_MILLIS_KEY = "writer.writeMillis";
+    public static final String MAX_CHUNK_MILLIS_KEY = "writer.maxChunkMillis";
+
+    static final String JSONB_FIELDS_PARAM = "beema_fields";
+
+    // Table and column names from metadata are inlined into SQL; only allow plain identifiers
+    private static final Pattern IDENTIFIER = Pattern.compile("^[A-Za-z_][A-Za-z0-9_]{0,62}$");
+    private static final Pattern TABLE_NAME =
+            Pattern.compile("^([A-Za-z_][A-Za-z0-9_]{0,62}\\.)?[A-Za-z_][A-Za-z0-9_]{0,62}$");
+
+    enum Mode { SQL, UPDATE, UPSERT, JSONB_MERGE }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Timer chunkTimer;
+    private final Mode mode;
+    private final String table;
+    private final List<String> keyColumns;
+    private final List<String> columns;
+    private final String jsonbColumn;
+
+    private volatile String sql;
+    private volatile List<String> writeColumns;
+    private StepExecution stepExecution;
+
+    DynamicJdbcItemWriter(NamedParameterJdbcTemplate jdbcTemplate, ObjectMapper objectMapper, Timer chunkTimer,
+                          Mode mode, String sql, String table, List<String> keyColumns, List<String> columns,
+                          String jsonbColumn) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.chunkTimer = chunkTimer;
+        this.mode = mode;
+        this.sql = sql;
+        this.table = table;
+        this.keyColumns = keyColumns;
+        this.columns = columns;
+        this.jsonbColumn = jsonbColumn;
+        this.writeColumns = columns;
+    }
+
+    /**
+     * Builds the writer described by the job config.
+     *
+     * @throws IllegalArgumentException if the config names no writer target or uses unsafe identifiers
+     */
+    public static DynamicJdbcItemWriter from(BatchJobConfig config, NamedParameterJdbcTemplate jdbcTemplate,
+                                             ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        Timer chunkTimer = Timer.builder("batch.writer.chunk")
+                .description("Time to write one chunk of a dynamic batch job")
+                .tag("job", config.getJobName())
+                .register(meterRegistry);
+
+        if (config.getWriterSql() != null && !config.getWriterSql().isBlank()) {
+            return new DynamicJdbcItemWriter(jdbcTemplate, objectMapper, chunkTimer, Mode.SQL,
+                    config.getWriterSql(), null, List.of(), null, null);
+        }
+
+        String table = config.getWriterTable();
+        if (table == null || table.isBlank()) {
+            throw new IllegalArgumentException("Batch job " + config.getJobName() +
+                    " has no writer: set writer_sql or writer_table");
+        }
+        if (!TABLE_NAME.matcher(table).matches()) {
+            throw new IllegalArgumentException("Invalid writer table name: " + table);
+        }
+        List<String> keys = identifiers(config.getWriterKeyColumns());
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("Batch job " + config.getJobName() +
+                    " writes to " + table + " but has no writer_key_columns");
+        }
+        List<String> columns = identifiers(config.getWriterColumns());
+
+        String jsonbColumn = config.getWriterJsonbColumn();
+        Mode mode;
+        if (jsonbColumn != null && !jsonbColumn.isBlank()) {
+            requireIdentifier(jsonbColumn);
+            mode = Mode.JSONB_MERGE;
+        } else {
+            jsonbColumn = null;
+            mode = Boolean.TRUE.equals(config.getWriterUpsert()) ? Mode.UPSERT : Mode.UPDATE;
+        }
+
+        DynamicJdbcItemWriter writer = new DynamicJdbcItemWriter(jdbcTemplate, objectMapper, chunkTimer, mode,
+                null, table, keys, columns.isEmpty() ? null : columns, jsonbColumn);
+        if (!columns.isEmpty()) {
+            writer.sql = writer.generateSql(columns);
+        }
+        return writer;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        this.stepExecution = stepExecution;
+    }
+
+    @Override
+    public void write(Chunk<? extends Map<String, Object>> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        String statement = statementFor(chunk.getItems().get(0));
+
+        SqlParameterSource[] params = new SqlParameterSource[chunk.size()];
+        int i = 0;
+        for (Map<String, Object> item : chunk) {
+            params[i++] = parametersFor(item);
+        }
+
+        long start = System.nanoTime();
+        int[] counts = jdbcTemplate.batchUpdate(statement, params);
+        long elapsedNanos = System.nanoTime() - start;
+        chunkTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        long rows = 0;
+        for (int count : counts) {
+            rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        recordAfterCommit(rows, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        log.debug("Wrote chunk of {} items ({} rows) in {} ms", chunk.size(), rows,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+    }
+
+    String statementFor(Map<String, Object> firstItem) {
+        String current = sql;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (sql == null) {
+                List<String> inferred = firstItem.keySet().stream()
+                        .filter(column -> keyColumns.stream().noneMatch(column::equalsIgnoreCase))
+                        .toList();
+                if (inferred.isEmpty()) {
+                    throw new IllegalArgumentException("Batch item has no fields to write besides the key columns");
+                }
+                inferred.forEach(DynamicJdbcItemWriter::requireIdentifier);
+                writeColumns = inferred;
+                sql = generateSql(inferred);
+                log.info("Generated batch writer statement: {}", sql);
+            }
+            return sql;
+        }
+    }
+
+    String generateSql(List<String> writeColumns) {
+        String keyPredicate = keyColumns.stream()
+                .map(key -> key + " = :" + key)
+                .collect(Collectors.joining(" AND "));
+        return switch (mode) {
+            case SQL -> sql;
+            case UPDATE -> "UPDATE " + table + " SET " +
+                    writeColumns.stream().map(c -> c + " = :" + c).collect(Collectors.joining(", ")) +
+                    " WHERE " + keyPredicate;
+            case UPSERT -> {
+                List<String> all = new ArrayList<>(keyColumns);
+                all.addAll(writeColumns);
+                yield "INSERT INTO " + table + " (" + String.join(", ", all) + ") VALUES (" +
+                        all.stream().map(c -> ":" + c).collect(Collectors.joining(", ")) + ")" +
+                        " ON CONFLICT (" + String.join(", ", keyColumns) + ") DO UPDATE SET " +
+                        writeColumns.stream().map(c -> c + " = EXCLUDED." + c).collect(Collectors.joining(", "));
+            }
+            case JSONB_MERGE -> "UPDATE " + table + " SET " + jsonbColumn + " = COALESCE(" + jsonbColumn +
+                    ", '{}'::jsonb) || CAST(:" + JSONB_FIELDS_PARAM + " AS jsonb) WHERE " + keyPredicate;
+        };
+    }
+
+    /**
+     * Binds the statement's key and write columns from the item; a column the item lacks is
+     * bound as null rather than failing the chunk, and fields the statement does not use are
+     * not bound at all. The parameters of configured writer SQL are not known up front, so
+     * there every item field is bound and any other parameter reads as null.
+     */
+    private SqlParameterSource parametersFor(Map<String, Object> item) {
+        if (mode == Mode.SQL) {
+            MapSqlParameterSource params = new NullForMissingParameterSource();
+            item.forEach((name, value) -> addValue(params, name, value));
+            return params;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        for (String key : keyColumns) {
+            addValue(params, key, item.get(key));
+        }
+        if (mode == Mode.JSONB_MERGE) {
+            Map<String, Object> fields = new LinkedHashMap<>();
+            for (String column : writeColumns) {
+                fields.put(column, item.get(column));
+            }
+            params.addValue(JSONB_FIELDS_PARAM, toJson(fields));
+            return params;
+        }
+        for (String column : writeColumns) {
+            addValue(params, column, item.get(column));
+        }
+        return params;
+    }
+
+    private void addValue(MapSqlParameterSource params, String name, Object value) {
+        if (value instanceof Map<?, ?> || value instanceof List<?>) {
+            // Sent untyped so Postgres coerces it to the json/jsonb column type
+            params.addValue(name, toJson(value), Types.OTHER);
+        } else {
+            params.addValue(name, value);
+        }
+    }
+
+    private void recordAfterCommit(long rows, long elapsedMillis) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(rows, elapsedMillis);
+                }
+            });
+        } else {
+            record(rows, elapsedMillis);
+        }
+    }
+
+    private void record(long rows, long elapsedMillis) {
+        if (stepExecution == null) {
+            return;
+        }
+        ExecutionContext context = stepExecution.getExecutionContext();
+        context.putLong(ROWS_WRITTEN_KEY, context.getLong(ROWS_WRITTEN_KEY, 0) + rows);
+        context.putLong(CHUNKS_KEY, context.getLong(CHUNKS_KEY, 0) + 1);
+        context.putLong(WRITE_MILLIS_KEY, context.getLong(WRITE_MILLIS_KEY, 0) + elapsedMillis);
+        context.putLong(MAX_CHUNK_MILLIS_KEY, Math.max(context.getLong(MAX_CHUNK_MILLIS_KEY, 0), elapsedMillis));
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Batch item value is not serializable: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class NullForMissingParameterSource extends MapSqlParameterSource {
+
+        @Override
+        public boolean hasValue(String paramName) {
+            return true;
+        }
+
+        @Override
+        public Object getValue(String paramName) {
+            return super.hasValue(paramName) ? super.getValue(paramName) : null;
+        }
+    }
+
+    private static List<String> identifiers(String commaSeparated) {
+        if (commaSeparated == null || commaSeparated.isBlank()) {
+            return List.of();
+        }
+        List<String> names = Arrays.stream(commaSeparated.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+        names.forEach(DynamicJdbcItemWriter::requireIdentifier);
+        return names;
+    }
+
+    private static void requireIdentifier(String name) {
+        if (!IDENTIFIER.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid writer column name: " + name);
+        }
+    }
+}
@@ -1,20 +1,26 @@
 package com.beema.kernel.batch;
 
+import com.beema.kernel.batch.partition.SqlKeyPartitioner;
+import com.beema.kernel.batch.partition.SqlKeyPartitioner.PartitionQuery;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
-import org.springframework.batch.item.database.JdbcCursorItemReader;
 import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
 import org.springframework.batch.item.database.builder.JdbcCursorItemReaderBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.transaction.PlatformTransactionManager;
 
@@ -31,9 +37,18 @@ import java.util.Map;
  *
  * Job Parameters:
  * - readerSql: SQL query to read data
+ * - readerKeyColumns: optional unique key of the reader SQL; read in keyset pages of chunkSize
  * - processorScript: JEXL script to transform data
+ * - jobName: name of the batch job config, used to tag processor metrics
  * - writerSql: SQL statement to write data
  * - chunkSize: Number of items to process in each chunk (default: 1000)
+ * - partitionColumn, partitionStrategy, partitionCount: optional, split the reader SQL with
+ *   {@link SqlKeyPartitioner} and run the partitions on the batch partition executor;
+ *   partitioned runs need readerKeyColumns
+ *
+ * universal-step is a partition manager; without partition parameters it runs a single
+ * partition over the whole reader SQL. Reader, processor and writer are step scoped, so each
+ * partition gets its own instances.
  */
 @Configuration
 public class UniversalBatchJobConfig {
@@ -42,63 +57,105 @@ public class UniversalBatchJobConfig {
     private final PlatformTransactionManager transactionManager;
     private final DataSource dataSource;
     private final JexlExpressionEngine jexlEngine;
+    private final MeterRegistry meterRegistry;
 
     public UniversalBatchJobConfig(
             JobRepository jobRepository,
             PlatformTransactionManager transactionManager,
             DataSource dataSource,
-            JexlExpressionEngine jexlEngine) {
+            JexlExpressionEngine jexlEngine,
+            MeterRegistry meterRegistry) {
         this.jobRepository = jobRepository;
         this.transactionManager = transactionManager;
         this.dataSource = dataSource;
         this.jexlEngine = jexlEngine;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
      * Universal batch job that uses parameter-driven components.
      */
     @Bean(name = "universalBatchJob")
-    public Job universalBatchJob() {
+    public Job universalBatchJob(@Qualifier("universalStep") Step universalStep) {
         return new JobBuilder("universalBatchJob", jobRepository)
-                .start(universalStep())
+                .start(universalStep)
                 .build();
     }
 
     @Bean
-    public Step universalStep() {
+    public Step universalStep(@Qualifier("batchPartitionExecutor") TaskExecutor batchPartitionExecutor) {
         return new StepBuilder("universal-step", jobRepository)
+                .partitioner("universal-worker", universalPartitioner(null, null, null, null))
+                .step(universalWorkerStep())
+                .taskExecutor(batchPartitionExecutor)
+                .build();
+    }
+
+    @Bean
+    public Step universalWorkerStep() {
+        return new StepBuilder("universal-worker", jobRepository)
                 .<Map<String, Object>, Map<String, Object>>chunk(1000, transactionManager)
-                .reader(universalReader(null))
-                .processor(universalProcessor(null))
+                .reader(universalReader(null, null, null, null))
+                .processor(universalProcessor(null, null))
                 .writer(universalWriter(null))
                 .build();
     }
 
     /**
-     * JDBC Reader with @StepScope for late binding of readerSql parameter.
+     * Partitioner with @StepScope for late binding of the partition parameters.
+     */
+    @Bean
+    @StepScope
+    public SqlKeyPartitioner universalPartitioner(
+            @Value("#{jobParameters['readerSql']}") String readerSql,
+            @Value("#{jobParameters['partitionColumn']}") String partitionColumn,
+            @Value("#{jobParameters['partitionStrategy']}") String partitionStrategy,
+            @Value("#{jobParameters['partitionCount']}") Long partitionCount) {
+
+        return new SqlKeyPartitioner(new JdbcTemplate(dataSource), readerSql, partitionColumn,
+                partitionStrategy, partitionCount == null ? 1 : partitionCount.intValue());
+    }
+
+    /**
+     * JDBC Reader with @StepScope for late binding of readerSql parameter and the partition
+     * assigned to this worker. Keyset-paged when readerKeyColumns is set.
      */
     @Bean
     @StepScope
-    public JdbcCursorItemReader<Map<String, Object>> universalReader(
-            @Value("#{jobParameters['readerSql']}") String readerSql) {
+    public ItemStreamReader<Map<String, Object>> universalReader(
+            @Value("#{jobParameters['readerSql']}") String readerSql,
+            @Value("#{jobParameters['readerKeyColumns']}") String readerKeyColumns,
+            @Value("#{jobParameters['chunkSize']}") Long chunkSize,
+            @Value("#{stepExecution.executionContext}") ExecutionContext partition) {
 
+        if (readerKeyColumns != null && !readerKeyColumns.isBlank()) {
+            PartitionQuery query = SqlKeyPartitioner.filterFor(readerSql, partition);
+            return new KeysetItemReader<>("universal-reader", dataSource, query.sql(), query.args(),
+                    KeysetItemReader.keyColumns(readerKeyColumns),
+                    chunkSize != null ? chunkSize.intValue() : 1000, new ColumnMapRowMapper());
+        }
+        PartitionQuery query = SqlKeyPartitioner.queryFor(readerSql, partition);
         return new JdbcCursorItemReaderBuilder<Map<String, Object>>()
                 .name("universal-reader")
                 .dataSource(dataSource)
-                .sql(readerSql)
+                .sql(query.sql())
+                .queryArguments(query.args())
                 .rowMapper(new ColumnMapRowMapper())
                 .build();
     }
 
     /**
-     * JEXL Processor with @StepScope for late binding of processorScript parameter.
+     * JEXL Processor with @StepScope for late binding of processorScript parameter. Declared
+     * as {@link JexlItemProcessor} so the step-scoped proxy is also registered as a step
+     * listener and reports its metrics.
      */
     @Bean
     @StepScope
-    public ItemProcessor<Map<String, Object>, Map<String, Object>> universalProcessor(
-            @Value("#{jobParameters['processorScript']}") String processorScript) {
+    public JexlItemProcessor universalProcessor(
+            @Value("#{jobParameters['processorScript']}") String processorScript,
+            @Value("#{jobParameters['jobName']}") String jobName) {
 
-        return new JexlItemProcessor(processorScript, jexlEngine);
+        return new JexlItemProcessor(processorScript, jexlEngine, meterRegistry, jobName);
     }
 
     /**
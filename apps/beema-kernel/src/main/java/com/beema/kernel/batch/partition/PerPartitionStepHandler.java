@@ -0,0 +1,69 @@
+package com.beema.kernel.batch.partition;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.partition.support.AbstractPartitionHandler;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+
+/**
+ * Like {@link org.springframework.batch.core.partition.support.TaskExecutorPartitionHandler},
+ * but builds a fresh worker {@link Step} for each partition from its {@link ExecutionContext}.
+ *
+ * Used by jobs whose components are created programmatically rather than as
+ * {@code @StepScope} beans: every partition gets its own reader, processor and writer
+ * instances, so none of them is shared between threads.
+ */
+public class PerPartitionStepHandler extends AbstractPartitionHandler {
+
+    private final TaskExecutor taskExecutor;
+    private final Function<ExecutionContext, Step> stepFactory;
+
+    public PerPartitionStepHandler(TaskExecutor taskExecutor, Function<ExecutionContext, Step> stepFactory,
+                                   int gridSize) {
+        this.taskExecutor = taskExecutor;
+        this.stepFactory = stepFactory;
+        setGridSize(gridSize);
+    }
+
+    @Override
+    protected Set<StepExecution> doHandle(StepExecution managerStepExecution,
+                                          Set<StepExecution> partitionStepExecutions) throws Exception {
+        List<Future<StepExecution>> tasks = new ArrayList<>(partitionStepExecutions.size());
+        Set<StepExecution> result = new HashSet<>();
+
+        for (StepExecution partition : partitionStepExecutions) {
+            Step step = stepFactory.apply(partition.getExecutionContext());
+            FutureTask<StepExecution> task = new FutureTask<>(() -> {
+                step.execute(partition);
+                return partition;
+            });
+            try {
+                taskExecutor.execute(task);
+                tasks.add(task);
+            } catch (TaskRejectedException e) {
+                ExitStatus exitStatus = ExitStatus.FAILED
+                        .addExitDescription("TaskExecutor rejected the task for this step.");
+                partition.setStatus(BatchStatus.FAILED);
+                partition.setExitStatus(exitStatus);
+                result.add(partition);
+            }
+        }
+
+        for (Future<StepExecution> task : tasks) {
+            result.add(task.get());
+        }
+        return result;
+    }
+}
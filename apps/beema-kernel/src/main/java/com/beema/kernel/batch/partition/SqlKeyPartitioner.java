@@ -0,0 +1,247 @@
+package com.beema.kernel.batch.partition;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a batch job's reader SQL into partitions on one key column, so the partitions can be
+ * read, processed and written concurrently:
+ *
+ * <ul>
+ *   <li>{@code RANGE}: equal-width ranges between min and max of an integer key</li>
+ *   <li>{@code HASH}: {@code hashtext(key) mod N}, for keys of any type such as UUIDs</li>
+ *   <li>{@code VALUE}: one partition per distinct value, e.g. per tenant_id</li>
+ * </ul>
+ *
+ * Rows whose key is NULL match no range, hash or value, so every strategy adds one more
+ * partition reading {@code key IS NULL} when the reader SQL returns such rows.
+ *
+ * Everything a worker needs is stored in the partition's {@link ExecutionContext}, which Spring
+ * Batch persists per partition; a restarted job re-runs only the partitions that did not complete,
+ * each from its own saved reader position. {@link #filterFor(String, ExecutionContext)} turns a
+ * partition context back into the SQL the worker reads.
+ *
+ * Workers must read through the keyset reader. Rows of one partition have no stable order
+ * (VALUE partitions share one key, RANGE and HASH keys need not be unique), so a cursor reader
+ * that restarts by skipping its saved item count could skip the wrong rows.
+ */
+public class SqlKeyPartitioner implements Partitioner {
+
+    public static final String PARTITION_INDEX_KEY = "partition.index";
+    static final String STRATEGY_KEY = "partition.strategy";
+    static final String COLUMN_KEY = "partition.column";
+    static final String COUNT_KEY = "partition.count";
+    static final String MIN_KEY = "partition.min";
+    static final String MAX_KEY = "partition.max";
+    static final String VALUE_KEY = "partition.value";
+    static final String NULLS_KEY = "partition.nulls";
+
+    private static final String KEYSET_REQUIRED =
+            "Partitioned batch jobs must be keyset-paged: set readerKeyColumns to a unique key of the reader SQL";
+
+    private static final String PARTITION_PREFIX = "partition";
+    private static final Pattern IDENTIFIER = Pattern.compile("^[A-Za-z_][A-Za-z0-9_]{0,62}$");
+
+    public enum Strategy { RANGE, HASH, VALUE }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String readerSql;
+    private final String column;
+    private final Strategy strategy;
+    private final int partitionCount;
+
+    /**
+     * @param column         key column of the reader SQL's result; null for a single partition
+     * @param strategy       RANGE when null
+     * @param partitionCount target number of partitions; ignored by VALUE
+     */
+    public SqlKeyPartitioner(JdbcTemplate jdbcTemplate, String readerSql, String column,
+                             String strategy, int partitionCount) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readerSql = readerSql;
+        this.column = column == null || column.isBlank() ? null : column.trim();
+        this.strategy = strategy == null || strategy.isBlank()
+                ? Strategy.RANGE
+                : Strategy.valueOf(strategy.trim().toUpperCase(Locale.ROOT));
+        this.partitionCount = Math.max(1, partitionCount);
+        if (this.column != null && !IDENTIFIER.matcher(this.column).matches()) {
+            throw new IllegalArgumentException("Invalid partition column name: " + column);
+        }
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        if (column == null || (partitionCount == 1 && strategy != Strategy.VALUE)) {
+            ExecutionContext single = new ExecutionContext();
+            single.putInt(PARTITION_INDEX_KEY, 0);
+            return Map.of(PARTITION_PREFIX + "0", single);
+        }
+        return switch (strategy) {
+            case RANGE -> rangePartitions();
+            case HASH -> hashPartitions();
+            case VALUE -> valuePartitions();
+        };
+    }
+
+    /**
+     * SQL and arguments for a cursor reader, which restarts by skipping the items it had read.
+     * Only the unpartitioned reader SQL qualifies; see the class comment.
+     *
+     * @throws IllegalStateException for the context of a partition
+     */
+    public static PartitionQuery queryFor(String readerSql, ExecutionContext context) {
+        if (context.containsKey(STRATEGY_KEY)) {
+            throw new IllegalStateException(KEYSET_REQUIRED);
+        }
+        return filterFor(readerSql, context);
+    }
+
+    /**
+     * SQL and arguments that read one partition, unordered: the keyset reader imposes its own
+     * order on the reader key columns.
+     */
+    public static PartitionQuery filterFor(String readerSql, ExecutionContext context) {
+        String source = stripTrailingSemicolon(readerSql);
+        if (!context.containsKey(STRATEGY_KEY)) {
+            return new PartitionQuery(source, new Object[0]);
+        }
+        String column = context.getString(COLUMN_KEY);
+        String select = "SELECT * FROM (" + source + ") beema_src WHERE ";
+        if (context.containsKey(NULLS_KEY)) {
+            return new PartitionQuery(select + column + " IS NULL", new Object[0]);
+        }
+        return switch (Strategy.valueOf(context.getString(STRATEGY_KEY))) {
+            case RANGE -> new PartitionQuery(
+                    select + column + " BETWEEN ? AND ?",
+                    new Object[]{context.getLong(MIN_KEY), context.getLong(MAX_KEY)});
+            case HASH -> new PartitionQuery(
+                    select + "(hashtext(CAST(" + column + " AS text)) & 2147483647) % ? = ?",
+                    new Object[]{context.getInt(COUNT_KEY), context.getInt(PARTITION_INDEX_KEY)});
+            case VALUE -> new PartitionQuery(
+                    select + "CAST(" + column + " AS text) = ?",
+                    new Object[]{context.getString(VALUE_KEY)});
+        };
+    }
+
+    private Map<String, ExecutionContext> rangePartitions() {
+        // Bounds are read uncast: rounding a numeric key to bigint would leave the fractional
+        // rows between two ranges
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT min(" + column + ") AS lo, " +
+                "max(" + column + ") AS hi, bool_or(" + column + " IS NULL) AS has_nulls " +
+                "FROM (" + stripTrailingSemicolon(readerSql) + ") beema_src");
+        Object lo = bounds.get("lo");
+        Object hi = bounds.get("hi");
+        if (lo != null && !(isInteger(lo) && isInteger(hi))) {
+            throw new IllegalArgumentException("RANGE partitioning needs an integer key; " + column +
+                    " is " + lo.getClass().getSimpleName() + ", use HASH instead");
+        }
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        if (lo != null) {
+            long min = ((Number) lo).longValue();
+            long max = ((Number) hi).longValue();
+            long span = Math.max(1, (max - min) / partitionCount + 1);
+            int index = 0;
+            for (long start = min; start <= max && index < partitionCount; start += span, index++) {
+                long end = index == partitionCount - 1 ? max : Math.min(max, start + span - 1);
+                partitions.put(PARTITION_PREFIX + index, range(index, start, end));
+                if (end == max) {
+                    break;
+                }
+            }
+        }
+        if (Boolean.TRUE.equals(bounds.get("has_nulls"))) {
+            addNullPartition(partitions);
+        }
+        if (partitions.isEmpty()) {
+            // No rows: one empty partition keeps the step shape the same
+            partitions.put(PARTITION_PREFIX + "0", range(0, 0, -1));
+        }
+        return partitions;
+    }
+
+    private Map<String, ExecutionContext> hashPartitions() {
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        for (int i = 0; i < partitionCount; i++) {
+            ExecutionContext context = base(i);
+            context.putInt(COUNT_KEY, partitionCount);
+            partitions.put(PARTITION_PREFIX + i, context);
+        }
+        Boolean hasNulls = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM (" +
+                stripTrailingSemicolon(readerSql) + ") beema_src WHERE " + column + " IS NULL)", Boolean.class);
+        if (Boolean.TRUE.equals(hasNulls)) {
+            addNullPartition(partitions);
+        }
+        return partitions;
+    }
+
+    private Map<String, ExecutionContext> valuePartitions() {
+        // NULLS LAST keeps the indexes of the value partitions stable whether or not NULL keys exist
+        List<String> values = jdbcTemplate.queryForList(
+                "SELECT DISTINCT CAST(" + column + " AS text) FROM (" + stripTrailingSemicolon(readerSql) + ") beema_src " +
+                "ORDER BY 1 NULLS LAST", String.class);
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        for (String value : values) {
+            if (value == null) {
+                addNullPartition(partitions);
+            } else {
+                ExecutionContext context = base(partitions.size());
+                context.putString(VALUE_KEY, value);
+                partitions.put(PARTITION_PREFIX + partitions.size(), context);
+            }
+        }
+        if (partitions.isEmpty()) {
+            // No rows, so no value matches: one empty partition keeps the step shape the same
+            ExecutionContext empty = base(0);
+            empty.putString(VALUE_KEY, "");
+            partitions.put(PARTITION_PREFIX + "0", empty);
+        }
+        return partitions;
+    }
+
+    /**
+     * Appends the partition that reads the rows whose key is NULL.
+     */
+    private void addNullPartition(Map<String, ExecutionContext> partitions) {
+        int index = partitions.size();
+        ExecutionContext context = base(index);
+        context.putString(NULLS_KEY, "true");
+        partitions.put(PARTITION_PREFIX + index, context);
+    }
+
+    private static boolean isInteger(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short;
+    }
+
+    private ExecutionContext range(int index, long min, long max) {
+        ExecutionContext context = base(index);
+        context.putLong(MIN_KEY, min);
+        context.putLong(MAX_KEY, max);
+        return context;
+    }
+
+    private ExecutionContext base(int index) {
+        ExecutionContext context = new ExecutionContext();
+        context.putInt(PARTITION_INDEX_KEY, index);
+        context.putString(STRATEGY_KEY, strategy.name());
+        context.putString(COLUMN_KEY, column);
+        return context;
+    }
+
+    private static String stripTrailingSemicolon(String sql) {
+        String trimmed = sql.strip();
+        return trimmed.endsWith(";") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+
+    /**
+     * Reader SQL for one partition, with positional arguments.
+     */
+    public record PartitionQuery(String sql, Object[] args) {
+    }
+}
@@ -1,7 +1,10 @@
 package com.beema.kernel.config;
 
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /**
  * Spring Batch configuration.
@@ -17,4 +20,37 @@ import org.springframework.context.annotation.Configuration;
 public class BatchConfig {
     // Spring Boot auto-configures JobRepository, JobLauncher, etc.
     // Custom beans can be added here if needed
+
+    /**
+     * Runs the partitions of partitioned batch jobs. Shared by all jobs, so threads bounds the
+     * total number of partitions processed at once; each running partition holds up to two
+     * pooled connections (reader and chunk transaction).
+     */
+    @Bean(name = "batchPartitionExecutor")
+    public ThreadPoolTaskExecutor batchPartitionExecutor(
+            @Value("${beema.batch.partition.threads:0}") int threads) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("batch-partition-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs batch jobs started by the Temporal batch orchestrator, so the activity that starts a
+     * job returns immediately and is completed by BatchJobTracker when the job ends. Jobs beyond
+     * max-concurrent-jobs wait in the queue with status STARTING.
+     */
+    @Bean(name = "batchJobExecutor")
+    public ThreadPoolTaskExecutor batchJobExecutor(
+            @Value("${beema.batch.orchestration.max-concurrent-jobs:4}") int maxConcurrentJobs) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentJobs);
+        executor.setMaxPoolSize(maxConcurrentJobs);
+        executor.setThreadNamePrefix("batch-job-");
+        executor.initialize();
+        return executor;
+    }
 }
@@ -1,5 +1,9 @@
 package com.beema.kernel.config;
 
+import com.beema.kernel.domain.agreement.Agreement;
+import com.beema.kernel.repository.base.BitemporalRepository;
+import com.beema.kernel.repository.base.BitemporalRepositoryImpl;
+import jakarta.persistence.EntityManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
@@ -23,4 +27,9 @@ public class DatabaseConfig {
         adapter.setGenerateDdl(false);
         return adapter;
     }
+
+    @Bean
+    public BitemporalRepository<Agreement> agreementVersionRepository(EntityManager entityManager) {
+        return new BitemporalRepositoryImpl<>(entityManager, Agreement.class);
+    }
 }
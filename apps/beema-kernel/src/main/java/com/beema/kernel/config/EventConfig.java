@@ -1,12 +1,16 @@
 package com.beema.kernel.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.reactive.function.client.WebClient;
 
-import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * Configuration for domain event publishing
@@ -20,14 +24,31 @@ public class EventConfig {
         return WebClient.builder();
     }
 
+    /**
+     * Bounded pool for {@link com.beema.kernel.event.DomainEventPublisher}. Each thread holds one
+     * Inngest request at a time, so max-size caps concurrent requests and queue-capacity caps
+     * the backlog. When both are full the executor rejects and the publisher applies its
+     * overflow policy instead of queueing without limit.
+     */
     @Bean(name = "eventPublisherExecutor")
-    public Executor eventPublisherExecutor() {
+    public ThreadPoolTaskExecutor eventPublisherExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${beema.events.publisher.executor.core-size:5}") int coreSize,
+            @Value("${beema.events.publisher.executor.max-size:10}") int maxSize,
+            @Value("${beema.events.publisher.executor.queue-capacity:100}") int queueCapacity) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);
-        executor.setMaxPoolSize(10);
-        executor.setQueueCapacity(100);
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
         executor.setThreadNamePrefix("event-publisher-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
         executor.initialize();
+
+        // executor.queued, executor.active, executor.pool.size, executor.completed, ...
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "eventPublisherExecutor", Tags.empty())
+                .bindTo(meterRegistry);
         return executor;
     }
 }
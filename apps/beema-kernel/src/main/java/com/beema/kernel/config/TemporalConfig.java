@@ -7,6 +7,8 @@ import com.beema.kernel.workflow.claim.AgentActivitiesImpl;
 import com.beema.kernel.workflow.claim.ClaimWorkflowImpl;
 import com.beema.kernel.workflow.submission.SubmissionWorkflowImpl;
 import com.beema.kernel.workflow.renewal.RenewalWorkflowImpl;
+import com.beema.kernel.workflow.batch.BatchActivitiesImpl;
+import com.beema.kernel.workflow.batch.BatchOrchestratorWorkflowImpl;
 import io.temporal.client.WorkflowClient;
 import io.temporal.client.WorkflowClientOptions;
 import io.temporal.serviceclient.WorkflowServiceStubs;
@@ -33,6 +35,7 @@ public class TemporalConfig {
     private static final Logger log = LoggerFactory.getLogger(TemporalConfig.class);
     private static final String POLICY_TASK_QUEUE = "POLICY_TASK_QUEUE";
     private static final String CLAIM_TASK_QUEUE = "CLAIM_TASK_QUEUE";
+    public static final String BATCH_TASK_QUEUE = "batch-queue";
 
     @Value("${temporal.service.host:localhost}")
     private String temporalHost;
@@ -145,6 +148,26 @@ public class TemporalConfig {
         return worker;
     }
 
+    /**
+     * Create and configure the Batch Worker for Spring Batch job orchestration
+     */
+    @Bean
+    public Worker batchWorker(WorkerFactory workerFactory,
+                              BatchActivitiesImpl batchActivities) {
+        log.info("Creating Batch Worker: taskQueue={}", BATCH_TASK_QUEUE);
+
+        Worker worker = workerFactory.newWorker(BATCH_TASK_QUEUE);
+
+        // Register workflow implementations
+        worker.registerWorkflowImplementationTypes(BatchOrchestratorWorkflowImpl.class);
+
+        // Register activity implementations
+        worker.registerActivitiesImplementations(batchActivities);
+
+        log.info("Batch Worker configured successfully with batch orchestration activities");
+        return worker;
+    }
+
     /**
      * Start all workers after bean initialization
      */
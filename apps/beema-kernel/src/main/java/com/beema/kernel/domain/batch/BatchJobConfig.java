@@ -8,9 +8,10 @@ import java.util.UUID;
  * Configuration for dynamic batch jobs.
  *
  * Each config defines:
- * - SQL query for reading data (Reader)
+ * - SQL query for reading data, optionally keyset-paged by its key columns (Reader)
  * - JEXL script for processing/transforming (Processor)
- * - Chunk size and scheduling
+ * - Writer SQL, or a target table / JSONB column to generate it from (Writer)
+ * - Chunk size, partitioning and scheduling
  */
 @Entity
 @Table(name = "sys_batch_job_config")
@@ -30,12 +31,39 @@ public class BatchJobConfig {
     @Column(name = "reader_sql", nullable = false, columnDefinition = "TEXT")
     private String readerSql;
 
+    @Column(name = "reader_key_columns")
+    private String readerKeyColumns;
+
     @Column(name = "processor_jexl", nullable = false, columnDefinition = "TEXT")
     private String processorJexl;
 
     @Column(name = "writer_sql", columnDefinition = "TEXT")
     private String writerSql;
 
+    @Column(name = "writer_table")
+    private String writerTable;
+
+    @Column(name = "writer_key_columns")
+    private String writerKeyColumns;
+
+    @Column(name = "writer_columns", columnDefinition = "TEXT")
+    private String writerColumns;
+
+    @Column(name = "writer_jsonb_column")
+    private String writerJsonbColumn;
+
+    @Column(name = "writer_upsert", nullable = false)
+    private Boolean writerUpsert = false;
+
+    @Column(name = "partition_column")
+    private String partitionColumn;
+
+    @Column(name = "partition_strategy", nullable = false)
+    private String partitionStrategy = "RANGE";
+
+    @Column(name = "partition_count", nullable = false)
+    private Integer partitionCount = 1;
+
     @Column(name = "chunk_size")
     private Integer chunkSize = 1000;
 
@@ -103,6 +131,18 @@ public class BatchJobConfig {
         this.readerSql = readerSql;
     }
 
+    public String getReaderKeyColumns() {
+        return readerKeyColumns;
+    }
+
+    public void setReaderKeyColumns(String readerKeyColumns) {
+        this.readerKeyColumns = readerKeyColumns;
+    }
+
+    public boolean isKeysetPaged() {
+        return readerKeyColumns != null && !readerKeyColumns.isBlank();
+    }
+
     public String getProcessorJexl() {
         return processorJexl;
     }
@@ -119,6 +159,87 @@ public class BatchJobConfig {
         this.writerSql = writerSql;
     }
 
+    public String getWriterTable() {
+        return writerTable;
+    }
+
+    public void setWriterTable(String writerTable) {
+        this.writerTable = writerTable;
+    }
+
+    public String getWriterKeyColumns() {
+        return writerKeyColumns;
+    }
+
+    public void setWriterKeyColumns(String writerKeyColumns) {
+        this.writerKeyColumns = writerKeyColumns;
+    }
+
+    public String getWriterColumns() {
+        return writerColumns;
+    }
+
+    public void setWriterColumns(String writerColumns) {
+        this.writerColumns = writerColumns;
+    }
+
+    public String getWriterJsonbColumn() {
+        return writerJsonbColumn;
+    }
+
+    public void setWriterJsonbColumn(String writerJsonbColumn) {
+        this.writerJsonbColumn = writerJsonbColumn;
+    }
+
+    public Boolean getWriterUpsert() {
+        return writerUpsert;
+    }
+
+    public void setWriterUpsert(Boolean writerUpsert) {
+        this.writerUpsert = writerUpsert;
+    }
+
+    public String getPartitionColumn() {
+        return partitionColumn;
+    }
+
+    public void setPartitionColumn(String partitionColumn) {
+        this.partitionColumn = partitionColumn;
+    }
+
+    public String getPartitionStrategy() {
+        return partitionStrategy;
+    }
+
+    public void setPartitionStrategy(String partitionStrategy) {
+        this.partitionStrategy = partitionStrategy;
+    }
+
+    public Integer getPartitionCount() {
+        return partitionCount;
+    }
+
+    public void setPartitionCount(Integer partitionCount) {
+        this.partitionCount = partitionCount;
+    }
+
+    /**
+     * Partitions have no stable row order, so only a keyset reader restarts them correctly.
+     *
+     * @throws IllegalArgumentException if the job is partitioned but not keyset-paged
+     */
+    public void requireRestartablePartitions() {
+        if (isPartitioned() && !isKeysetPaged()) {
+            throw new IllegalArgumentException("Partitioned batch job " + jobName
+                    + " needs readerKeyColumns (a unique key of the reader SQL)");
+        }
+    }
+
+    public boolean isPartitioned() {
+        return partitionColumn != null && !partitionColumn.isBlank()
+                && (partitionCount > 1 || "VALUE".equalsIgnoreCase(partitionStrategy));
+    }
+
     public Integer getChunkSize() {
         return chunkSize;
     }
@@ -1,18 +1,39 @@
 package com.beema.kernel.event;
 
+import com.beema.kernel.event.outbox.EventOutbox;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Publishes domain events to Inngest for webhook fan-out and processing
+ * Publishes domain events to Inngest for webhook fan-out and processing.
+ *
+ * Delivery is best effort. Events describing a database change should go through
+ * {@link com.beema.kernel.event.outbox.EventOutbox} instead, so they commit with the change.
+ *
+ * Requests run on the bounded {@code eventPublisherExecutor}, one blocking request per thread,
+ * so a slow Inngest shows up as queue depth rather than unbounded in-flight requests. When the
+ * queue is full the configured overflow policy applies: {@code spill-to-outbox} (default) hands
+ * the events to the outbox relay, {@code caller-runs} sends them on the calling thread.
  */
 @Component
 public class DomainEventPublisher {
@@ -21,6 +42,15 @@ public class DomainEventPublisher {
 
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor executor;
+    private final EventOutbox eventOutbox;
+    private final OverflowPolicy overflowPolicy;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private final Counter rejectedCounter;
+    private final Counter spilledCounter;
 
     @Value("${inngest.event-key}")
     private String inngestEventKey;
@@ -31,18 +61,48 @@ public class DomainEventPublisher {
     @Value("${beema.events.publisher.enabled}")
     private boolean publisherEnabled;
 
-    @Value("${beema.events.publisher.async}")
-    private boolean asyncPublishing;
+    @Value("${beema.events.publisher.request-timeout:PT10S}")
+    private Duration requestTimeout;
 
-    public DomainEventPublisher(WebClient.Builder webClientBuilder, ObjectMapper objectMapper) {
+    public DomainEventPublisher(WebClient.Builder webClientBuilder,
+                                ObjectMapper objectMapper,
+                                @Qualifier("eventPublisherExecutor") ThreadPoolTaskExecutor executor,
+                                EventOutbox eventOutbox,
+                                MeterRegistry meterRegistry,
+                                @Value("${beema.events.publisher.overflow:spill-to-outbox}") String overflowPolicy) {
         this.webClient = webClientBuilder.build();
         this.objectMapper = objectMapper;
+        this.executor = executor;
+        this.eventOutbox = eventOutbox;
+        this.overflowPolicy = OverflowPolicy.fromProperty(overflowPolicy);
+
+        Gauge.builder("event.publisher.in.flight", inFlight, AtomicInteger::get)
+                .description("Inngest requests currently in flight")
+                .register(meterRegistry);
+        Gauge.builder("event.publisher.queue.depth", executor,
+                        e -> e.getThreadPoolExecutor().getQueue().size())
+                .description("Publish requests waiting for an executor thread")
+                .register(meterRegistry);
+        this.successTimer = Timer.builder("event.publisher.latency")
+                .description("Inngest publish request latency")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failureTimer = Timer.builder("event.publisher.latency")
+                .description("Inngest publish request latency")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("event.publisher.rejected")
+                .description("Publish requests rejected by the full executor")
+                .tag("policy", this.overflowPolicy.property)
+                .register(meterRegistry);
+        this.spilledCounter = Counter.builder("event.publisher.spilled")
+                .description("Events handed to the outbox after rejection or a failed request")
+                .register(meterRegistry);
     }
 
     /**
      * Publish a domain event to Inngest
      */
-    @Async("eventPublisherExecutor")
     public void publish(DomainEvent event) {
         if (!publisherEnabled) {
             log.debug("Event publishing disabled, skipping event: {}", event.getEventName());
@@ -50,57 +110,135 @@ public class DomainEventPublisher {
         }
 
         log.info("Publishing event: {} (ID: {})", event.getEventName(), event.getEventId());
-
-        try {
-            // Prepare Inngest event payload
-            Map<String, Object> inngestEvent = Map.of(
-                "name", event.getEventName(),
-                "data", event.getData(),
-                "user", event.getUser(),
-                "ts", event.getTimestamp(),
-                "v", event.getVersion()
-            );
-
-            // Send to Inngest
-            webClient.post()
-                .uri(inngestBaseUrl + "/e/" + inngestEventKey)
-                .header("Content-Type", "application/json")
-                .bodyValue(inngestEvent)
-                .retrieve()
-                .bodyToMono(String.class)
-                .doOnSuccess(response ->
-                    log.info("Event published successfully: {} - Response: {}", event.getEventName(), response))
-                .doOnError(error ->
-                    log.error("Failed to publish event: {}", event.getEventName(), error))
-                .onErrorResume(error -> {
-                    // Don't fail the main operation if event publishing fails
-                    log.warn("Event publishing failed, continuing: {}", error.getMessage());
-                    return Mono.empty();
-                })
-                .subscribe();
-
-        } catch (Exception e) {
-            log.error("Error publishing event: {}", event.getEventName(), e);
-        }
+        submit(List.of(event));
     }
 
     /**
-     * Publish multiple events in batch
+     * Publish multiple events in batch. Inngest accepts an array of events on the same
+     * endpoint, so the whole batch is sent as a single request.
      */
-    @Async("eventPublisherExecutor")
     public void publishBatch(DomainEvent... events) {
-        for (DomainEvent event : events) {
-            publish(event);
+        if (!publisherEnabled) {
+            log.debug("Event publishing disabled, skipping batch of {} events", events.length);
+            return;
+        }
+        if (events.length == 0) {
+            return;
         }
+
+        log.info("Publishing batch of {} events", events.length);
+        submit(Arrays.asList(events));
     }
 
     /**
      * Publish with custom metadata
      */
-    @Async("eventPublisherExecutor")
     public void publishWithMetadata(DomainEvent event, String tenantId, String userId, String email) {
         event.withUser(userId, email);
         event.withData("tenantId", tenantId);
         publish(event);
     }
+
+    private void submit(List<DomainEvent> events) {
+        try {
+            executor.execute(() -> send(events));
+        } catch (TaskRejectedException e) {
+            rejectedCounter.increment();
+            log.warn("Event publisher saturated (queue {}), {} for {} events",
+                    executor.getThreadPoolExecutor().getQueue().size(), overflowPolicy.property, events.size());
+            if (overflowPolicy == OverflowPolicy.CALLER_RUNS) {
+                send(events);
+            } else {
+                spill(events);
+            }
+        }
+    }
+
+    private void send(List<DomainEvent> events) {
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            Object body = events.size() == 1
+                ? toInngestEvent(events.get(0))
+                : events.stream().map(this::toInngestEvent).toList();
+
+            webClient.post()
+                .uri(inngestBaseUrl + "/e/" + inngestEventKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .toBodilessEntity()
+                .block(requestTimeout);
+
+            successTimer.record(Duration.ofNanos(System.nanoTime() - start));
+            log.debug("Published {} events", events.size());
+        } catch (Exception e) {
+            failureTimer.record(Duration.ofNanos(System.nanoTime() - start));
+            log.warn("Event publishing failed for {} events: {}", events.size(), e.getMessage());
+            if (overflowPolicy == OverflowPolicy.SPILL_TO_OUTBOX) {
+                spill(events);
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Hands events to the outbox relay, which retries with backoff. Never throws: the caller
+     * of a best-effort publish must not fail because the outbox is unavailable.
+     */
+    private void spill(List<DomainEvent> events) {
+        try {
+            eventOutbox.enqueueAll(events.stream()
+                .map(event -> new EventOutbox.Entry(event, tenantOf(event), null))
+                .toList());
+            spilledCounter.increment(events.size());
+        } catch (Exception e) {
+            log.error("Failed to spill {} events to the outbox, dropping them", events.size(), e);
+        }
+    }
+
+    private static UUID tenantOf(DomainEvent event) {
+        Object tenantId = event.getData().get("tenantId");
+        if (tenantId == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(tenantId.toString());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Map<String, Object> toInngestEvent(DomainEvent event) {
+        return Map.of(
+            "id", event.getEventId(),
+            "name", event.getEventName(),
+            "data", event.getData(),
+            "user", event.getUser(),
+            "ts", event.getTimestamp(),
+            "v", event.getVersion()
+        );
+    }
+
+    enum OverflowPolicy {
+        SPILL_TO_OUTBOX("spill-to-outbox"),
+        CALLER_RUNS("caller-runs");
+
+        private final String property;
+
+        OverflowPolicy(String property) {
+            this.property = property;
+        }
+
+        static OverflowPolicy fromProperty(String value) {
+            for (OverflowPolicy policy : values()) {
+                if (policy.property.equals(value.toLowerCase(Locale.ROOT))) {
+                    return policy;
+                }
+            }
+            throw new IllegalArgumentException("Unknown beema.events.publisher.overflow: " + value
+                + " (expected spill-to-outbox or caller-runs)");
+        }
+    }
 }
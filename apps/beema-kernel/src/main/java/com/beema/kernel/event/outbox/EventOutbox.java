@@ -0,0 +1,114 @@
+package com.beema.kernel.event.outbox;
+
+import com.beema.kernel.event.DomainEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes domain events to {@code event_outbox}. Called inside a transaction, the rows commit
+ * or roll back together with the business change; the {@link EventOutboxRelay} delivers them
+ * after commit. Outside a transaction each call commits on its own.
+ */
+@Component
+public class EventOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(EventOutbox.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO event_outbox (event_id, event_name, tenant_id, payload, coalesce_key) " +
+            "VALUES (?, ?, ?, CAST(? AS jsonb), ?) ON CONFLICT (event_id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final EventOutboxRelay relay;
+    private final boolean publisherEnabled;
+
+    public EventOutbox(JdbcTemplate jdbcTemplate,
+                       ObjectMapper objectMapper,
+                       EventOutboxRelay relay,
+                       @Value("${beema.events.publisher.enabled}") boolean publisherEnabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.relay = relay;
+        this.publisherEnabled = publisherEnabled;
+    }
+
+    public void enqueue(DomainEvent event, UUID tenantId) {
+        enqueue(event, tenantId, null);
+    }
+
+    /**
+     * @param coalesceKey events pending with the same key are delivered once, as the newest;
+     *                    null for events that must each be delivered
+     */
+    public void enqueue(DomainEvent event, UUID tenantId, String coalesceKey) {
+        enqueueAll(List.of(new Entry(event, tenantId, coalesceKey)));
+    }
+
+    public void enqueueAll(List<Entry> entries) {
+        if (!publisherEnabled) {
+            log.debug("Event publishing disabled, skipping {} outbox events", entries.size());
+            return;
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            rows.add(new Object[]{
+                    entry.event().getEventId(),
+                    entry.event().getEventName(),
+                    entry.tenantId(),
+                    toPayload(entry.event()),
+                    entry.coalesceKey()
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows,
+                new int[]{Types.VARCHAR, Types.VARCHAR, Types.OTHER, Types.VARCHAR, Types.VARCHAR});
+        wakeRelayAfterCommit();
+    }
+
+    private String toPayload(DomainEvent event) {
+        try {
+            // Inngest event format; the id lets Inngest drop redelivered events
+            return objectMapper.writeValueAsString(Map.of(
+                    "id", event.getEventId(),
+                    "name", event.getEventName(),
+                    "data", event.getData(),
+                    "user", event.getUser(),
+                    "ts", event.getTimestamp(),
+                    "v", event.getVersion()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Event payload is not serializable: " + event.getEventName(), e);
+        }
+    }
+
+    private void wakeRelayAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    relay.wakeUp();
+                }
+            });
+        } else {
+            relay.wakeUp();
+        }
+    }
+
+    public record Entry(DomainEvent event, UUID tenantId, String coalesceKey) {
+    }
+}
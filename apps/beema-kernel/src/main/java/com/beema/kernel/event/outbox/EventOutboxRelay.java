@@ -0,0 +1,360 @@
+package com.beema.kernel.event.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.sql.Array;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains {@code event_outbox} to Inngest. Each round claims up to {@code batch-size} due rows
+ * by setting a lease ({@code claimed_until}) in a short transaction, collapses rows sharing a
+ * coalesce key to the newest, and sends the rest as one JSON array POST (Inngest's batch send
+ * format). The POST runs outside any transaction, so a slow Inngest holds neither a connection
+ * nor row locks; the outcome is recorded in a second short transaction. Concurrent relays on
+ * other nodes skip leased rows, and a relay that dies mid-delivery leaves rows that become
+ * claimable again once the lease runs out, so the lease must outlast {@code request-timeout}.
+ * Delivering a keyed row also coalesces older pending rows with its key that were not claimed,
+ * typically because they are backing off after a failed attempt: sent later, they would
+ * overwrite the newer event downstream.
+ *
+ * A failed batch is retried with exponential backoff per row; rows that exhaust
+ * {@code max-attempts} are marked failed and left in the table for inspection. Delivery is
+ * at-least-once, with the outbox event id sent as the Inngest event id for de-duplication.
+ */
+@Component
+public class EventOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(EventOutboxRelay.class);
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+    private static final Duration CLEANUP_INTERVAL = Duration.ofHours(1);
+
+    // SKIP LOCKED only covers concurrent claims; rows leased by an earlier claim are filtered out
+    private static final String CLAIM_SQL =
+            "UPDATE event_outbox SET claimed_until = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond' " +
+            "WHERE id IN (SELECT id FROM event_outbox " +
+            "WHERE published_at IS NULL AND failed_at IS NULL AND available_at <= CURRENT_TIMESTAMP " +
+            "AND (claimed_until IS NULL OR claimed_until < CURRENT_TIMESTAMP) " +
+            "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, coalesce_key, CAST(payload AS text) AS payload";
+
+    private static final String MARK_DELIVERED_SQL =
+            "UPDATE event_outbox SET published_at = CURRENT_TIMESTAMP, attempts = attempts + 1, last_error = NULL, " +
+            "claimed_until = NULL WHERE id = ANY(?)";
+
+    private static final String MARK_COALESCED_SQL =
+            "UPDATE event_outbox SET published_at = CURRENT_TIMESTAMP, last_error = 'coalesced', claimed_until = NULL " +
+            "WHERE id = ANY(?)";
+
+    // Rows another relay has leased are in flight already and left to it
+    private static final String MARK_OLDER_COALESCED_SQL =
+            "UPDATE event_outbox SET published_at = CURRENT_TIMESTAMP, last_error = 'coalesced' " +
+            "WHERE id IN (SELECT o.id FROM event_outbox o " +
+            "JOIN unnest(?::text[], ?::bigint[]) AS d(coalesce_key, id) " +
+            "ON o.coalesce_key = d.coalesce_key AND o.id < d.id " +
+            "WHERE o.published_at IS NULL AND o.failed_at IS NULL " +
+            "AND (o.claimed_until IS NULL OR o.claimed_until < CURRENT_TIMESTAMP) " +
+            "FOR UPDATE OF o SKIP LOCKED)";
+
+    // SET expressions see the old attempts value, so backoff is initial * 2^(attempt - 1).
+    // A row whose lease ran out may have been delivered by another relay meanwhile.
+    private static final String MARK_FAILED_SQL =
+            "UPDATE event_outbox SET attempts = attempts + 1, last_error = ?, claimed_until = NULL, " +
+            "available_at = CURRENT_TIMESTAMP + LEAST(? * power(2, attempts), ?) * INTERVAL '1 millisecond', " +
+            "failed_at = CASE WHEN attempts + 1 >= ? THEN CURRENT_TIMESTAMP END " +
+            "WHERE id = ANY(?) AND published_at IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final WebClient webClient;
+    private final String eventUrl;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long idlePollMs;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final Duration requestTimeout;
+    private final Duration claimLease;
+    private final Duration retention;
+
+    private final Counter deliveredCounter;
+    private final Counter coalescedCounter;
+    private final Counter failedBatchCounter;
+    private final Timer sendTimer;
+    private final AtomicLong pendingGauge = new AtomicLong();
+
+    private final Object signal = new Object();
+    private boolean wakeRequested;
+    private volatile boolean running;
+    private Thread relayThread;
+    private long lastCleanupNanos = System.nanoTime();
+
+    public EventOutboxRelay(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            WebClient.Builder webClientBuilder,
+                            MeterRegistry meterRegistry,
+                            @Value("${inngest.base-url}") String inngestBaseUrl,
+                            @Value("${inngest.event-key}") String inngestEventKey,
+                            @Value("${beema.events.outbox.relay-enabled:true}") boolean enabled,
+                            @Value("${beema.events.outbox.batch-size:100}") int batchSize,
+                            @Value("${beema.events.outbox.idle-poll-ms:1000}") long idlePollMs,
+                            @Value("${beema.events.outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${beema.events.outbox.initial-backoff-ms:1000}") long initialBackoffMs,
+                            @Value("${beema.events.outbox.max-backoff-ms:300000}") long maxBackoffMs,
+                            @Value("${beema.events.outbox.request-timeout:PT10S}") Duration requestTimeout,
+                            @Value("${beema.events.outbox.claim-lease:PT1M}") Duration claimLease,
+                            @Value("${beema.events.outbox.retention:P7D}") Duration retention) {
+        if (claimLease.compareTo(requestTimeout) <= 0) {
+            throw new IllegalArgumentException("beema.events.outbox.claim-lease (" + claimLease +
+                    ") must exceed request-timeout (" + requestTimeout + "), or a slow batch is claimed twice");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Claims and outcomes must commit on their own, even if a caller has a transaction open
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.webClient = webClientBuilder.build();
+        this.eventUrl = inngestBaseUrl + "/e/" + inngestEventKey;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.idlePollMs = idlePollMs;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.requestTimeout = requestTimeout;
+        this.claimLease = claimLease;
+        this.retention = retention;
+
+        this.deliveredCounter = Counter.builder("event.outbox.delivered")
+                .description("Outbox events delivered to Inngest")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("event.outbox.coalesced")
+                .description("Outbox events superseded by a newer event with the same coalesce key")
+                .register(meterRegistry);
+        this.failedBatchCounter = Counter.builder("event.outbox.batch.failures")
+                .description("Outbox batches that Inngest did not accept")
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("event.outbox.batch.send")
+                .description("Time to send one outbox batch to Inngest")
+                .register(meterRegistry);
+        Gauge.builder("event.outbox.pending", pendingGauge, AtomicLong::get)
+                .description("Pending outbox events seen at the last idle poll")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("EventOutboxRelay: relay disabled, events stay in event_outbox");
+            return;
+        }
+        running = true;
+        relayThread = new Thread(this::run, "event-outbox-relay");
+        relayThread.setDaemon(true);
+        relayThread.start();
+        log.info("EventOutboxRelay: delivering to {} in batches of {}", eventUrl, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (relayThread != null) {
+            relayThread.interrupt();
+        }
+    }
+
+    /**
+     * Ends the idle wait so newly committed events go out without waiting for the next poll.
+     */
+    public void wakeUp() {
+        synchronized (signal) {
+            wakeRequested = true;
+            signal.notifyAll();
+        }
+    }
+
+    /**
+     * Delivers one batch of due events.
+     *
+     * @return number of outbox rows claimed, delivered or not
+     */
+    public int drainOnce() {
+        List<OutboxRow> rows = transactionTemplate.execute(status -> jdbcTemplate.query(CLAIM_SQL,
+                (rs, i) -> new OutboxRow(rs.getLong("id"), rs.getString("coalesce_key"), rs.getString("payload")),
+                claimLease.toMillis(), batchSize));
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+        deliver(rows);
+        return rows.size();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                int claimed = drainOnce();
+                if (claimed < batchSize) {
+                    cleanUpIfDue();
+                    refreshPending();
+                    awaitWork();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("EventOutboxRelay: drain failed: {}", e.getMessage(), e);
+                try {
+                    awaitWork();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void deliver(List<OutboxRow> rows) {
+        // Keep only the newest row per coalesce key; RETURNING does not keep the claim's id order
+        Map<Object, OutboxRow> toSend = new LinkedHashMap<>();
+        List<OutboxRow> superseded = new ArrayList<>();
+        for (OutboxRow row : rows.stream().sorted(Comparator.comparingLong(OutboxRow::id)).toList()) {
+            Object key = row.coalesceKey() != null ? row.coalesceKey() : row.id();
+            OutboxRow previous = toSend.remove(key);
+            if (previous != null) {
+                superseded.add(previous);
+            }
+            toSend.put(key, row);
+        }
+
+        List<OutboxRow> batch = new ArrayList<>(toSend.values());
+        StringBuilder body = new StringBuilder(batch.size() * 256).append('[');
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append(batch.get(i).payload());
+        }
+        body.append(']');
+
+        String error = null;
+        long start = System.nanoTime();
+        try {
+            webClient.post()
+                    .uri(eventUrl)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(body.toString())
+                    .retrieve()
+                    .toBodilessEntity()
+                    .block(requestTimeout);
+        } catch (RuntimeException e) {
+            error = truncate(e.getMessage());
+        } finally {
+            sendTimer.record(Duration.ofNanos(System.nanoTime() - start));
+        }
+
+        String failure = error;
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!superseded.isEmpty()) {
+                jdbcTemplate.update(MARK_COALESCED_SQL, idArray(superseded));
+            }
+            if (failure == null) {
+                jdbcTemplate.update(MARK_DELIVERED_SQL, idArray(batch));
+                coalesceOlder(batch);
+            } else {
+                jdbcTemplate.update(MARK_FAILED_SQL, failure, initialBackoffMs, maxBackoffMs, maxAttempts, idArray(batch));
+            }
+        });
+        coalescedCounter.increment(superseded.size());
+        if (failure == null) {
+            deliveredCounter.increment(batch.size());
+            log.debug("EventOutboxRelay: delivered {} events ({} coalesced)", batch.size(), superseded.size());
+        } else {
+            failedBatchCounter.increment();
+            log.warn("EventOutboxRelay: batch of {} events not accepted, will retry: {}", batch.size(), failure);
+        }
+    }
+
+    /**
+     * Marks pending rows older than a delivered row with the same coalesce key as coalesced,
+     * in the transaction that records the delivery.
+     */
+    private void coalesceOlder(List<OutboxRow> delivered) {
+        List<OutboxRow> keyed = delivered.stream().filter(row -> row.coalesceKey() != null).toList();
+        if (keyed.isEmpty()) {
+            return;
+        }
+        String[] keys = keyed.stream().map(OutboxRow::coalesceKey).toArray(String[]::new);
+        Array keyArray = jdbcTemplate.execute((ConnectionCallback<Array>) conn -> conn.createArrayOf("text", keys));
+        int coalesced = jdbcTemplate.update(MARK_OLDER_COALESCED_SQL, keyArray, idArray(keyed));
+        if (coalesced > 0) {
+            coalescedCounter.increment(coalesced);
+            log.debug("EventOutboxRelay: coalesced {} older pending events", coalesced);
+        }
+    }
+
+    private void awaitWork() throws InterruptedException {
+        synchronized (signal) {
+            if (!wakeRequested) {
+                signal.wait(idlePollMs);
+            }
+            wakeRequested = false;
+        }
+    }
+
+    private void cleanUpIfDue() {
+        if (System.nanoTime() - lastCleanupNanos < CLEANUP_INTERVAL.toNanos()) {
+            return;
+        }
+        lastCleanupNanos = System.nanoTime();
+        int deleted = jdbcTemplate.update(
+                "DELETE FROM event_outbox WHERE published_at < CURRENT_TIMESTAMP - ? * INTERVAL '1 second'",
+                retention.toSeconds());
+        if (deleted > 0) {
+            log.info("EventOutboxRelay: removed {} published events older than {}", deleted, retention);
+        }
+    }
+
+    private void refreshPending() {
+        Long pending = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM event_outbox WHERE published_at IS NULL AND failed_at IS NULL", Long.class);
+        pendingGauge.set(pending == null ? 0 : pending);
+    }
+
+    private Array idArray(List<OutboxRow> rows) {
+        Long[] ids = rows.stream().map(OutboxRow::id).toArray(Long[]::new);
+        return jdbcTemplate.execute((ConnectionCallback<Array>) conn -> conn.createArrayOf("bigint", ids));
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return "unknown error";
+        }
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private record OutboxRow(long id, String coalesceKey, String payload) {
+    }
+}
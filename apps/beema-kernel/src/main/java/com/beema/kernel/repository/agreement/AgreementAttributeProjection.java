@@ -0,0 +1,25 @@
+package com.beema.kernel.repository.agreement;
+
+import com.beema.kernel.domain.agreement.AgreementStatus;
+import com.beema.kernel.domain.agreement.MarketContext;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Current agreement reduced to its header columns and a caller-chosen subset of
+ * {@code attributes}, read without hydrating {@link com.beema.kernel.domain.agreement.Agreement}.
+ *
+ * @param attributes requested attribute paths mapped to their values, in request order;
+ *                   a path absent from the document maps to null
+ */
+public record AgreementAttributeProjection(
+        UUID id,
+        String agreementNumber,
+        MarketContext marketContext,
+        AgreementStatus status,
+        LocalDate inceptionDate,
+        LocalDate expiryDate,
+        Map<String, Object> attributes) {
+}
@@ -4,7 +4,10 @@ import com.beema.kernel.domain.agreement.Agreement;
 import com.beema.kernel.domain.agreement.AgreementStatus;
 import com.beema.kernel.domain.agreement.MarketContext;
 import com.beema.kernel.domain.base.TemporalKey;
+import com.beema.kernel.repository.base.HistoryCursor;
+import com.beema.kernel.repository.base.KeysetPage;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
@@ -13,13 +16,22 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Repository
 public interface AgreementRepository extends JpaRepository<Agreement, TemporalKey>,
-        JpaSpecificationExecutor<Agreement> {
+        JpaSpecificationExecutor<Agreement>, AgreementRepositoryCustom {
+
+    /**
+     * Maximum number of ids resolved per as-of statement.
+     */
+    int AS_OF_CHUNK_SIZE = 1000;
 
     @Query("SELECT a FROM Agreement a WHERE a.agreementNumber = :agreementNumber " +
             "AND a.tenantId = :tenantId AND a.isCurrent = true AND a.validTo IS NULL")
@@ -40,11 +52,11 @@ public interface AgreementRepository extends JpaRepository<Agreement, TemporalKe
             @Param("id") UUID id,
             @Param("tenantId") String tenantId);
 
-    @Query("SELECT a FROM Agreement a WHERE a.temporalKey.id = :id " +
-            "AND a.tenantId = :tenantId " +
-            "AND a.temporalKey.validFrom <= :validAt " +
-            "AND (a.validTo IS NULL OR a.validTo > :validAt) " +
-            "ORDER BY a.temporalKey.transactionTime DESC")
+    @Query(value = "SELECT a.* FROM agreements a WHERE a.id = :id " +
+            "AND a.tenant_id = CAST(:tenantId AS uuid) " +
+            "AND a.valid_period @> CAST(:validAt AS timestamptz) " +
+            "ORDER BY a.transaction_time DESC",
+            nativeQuery = true)
     List<Agreement> findAsOf(
             @Param("id") UUID id,
             @Param("tenantId") String tenantId,
@@ -57,6 +69,43 @@ public interface AgreementRepository extends JpaRepository<Agreement, TemporalKe
             @Param("id") UUID id,
             @Param("tenantId") String tenantId);
 
+    @Query("SELECT a FROM Agreement a WHERE a.temporalKey.id = :id " +
+            "AND a.tenantId = :tenantId " +
+            "ORDER BY a.temporalKey.transactionTime ASC, a.temporalKey.validFrom ASC")
+    List<Agreement> findHistoryFirstPage(
+            @Param("id") UUID id,
+            @Param("tenantId") String tenantId,
+            Pageable pageable);
+
+    @Query("SELECT a FROM Agreement a WHERE a.temporalKey.id = :id " +
+            "AND a.tenantId = :tenantId " +
+            "AND (a.temporalKey.transactionTime > :afterTx " +
+            "OR (a.temporalKey.transactionTime = :afterTx AND a.temporalKey.validFrom > :afterValidFrom)) " +
+            "ORDER BY a.temporalKey.transactionTime ASC, a.temporalKey.validFrom ASC")
+    List<Agreement> findHistoryAfter(
+            @Param("id") UUID id,
+            @Param("tenantId") String tenantId,
+            @Param("afterTx") OffsetDateTime afterTx,
+            @Param("afterValidFrom") OffsetDateTime afterValidFrom,
+            Pageable pageable);
+
+    /**
+     * Keyset-paginated variant of {@link #findHistory} ordered by (transaction_time, valid_from),
+     * i.e. audit-trail order. Each page costs one index range scan regardless of its position.
+     *
+     * @param after decoded cursor from the previous page, or null for the first page
+     */
+    default KeysetPage<Agreement> findHistoryPage(UUID id, String tenantId, HistoryCursor after, int limit) {
+        PageRequest overfetch = PageRequest.of(0, limit + 1);
+        List<Agreement> rows;
+        if (after == null) {
+            rows = findHistoryFirstPage(id, tenantId, overfetch);
+        } else {
+            rows = findHistoryAfter(id, tenantId, after.transactionTime(), after.validFrom(), overfetch);
+        }
+        return KeysetPage.fromOverfetch(rows, limit, a -> HistoryCursor.after(a).encode());
+    }
+
     @Query("SELECT a FROM Agreement a WHERE a.tenantId = :tenantId " +
             "AND a.isCurrent = true AND a.validTo IS NULL AND a.status = :status")
     Page<Agreement> findAllCurrentByTenantAndStatus(
@@ -64,11 +113,45 @@ public interface AgreementRepository extends JpaRepository<Agreement, TemporalKe
             @Param("status") AgreementStatus status,
             Pageable pageable);
 
-    @Query(value = "SELECT a.* FROM agreements a WHERE a.tenant_id = :tenantId " +
-            "AND a.is_current = true AND a.valid_to IS NULL " +
-            "AND a.attributes @> CAST(:jsonFilter AS jsonb)",
+    /**
+     * Resolves the version of each agreement valid at {@code validTime} as recorded at
+     * {@code txTime}: one GiST probe per id via a lateral join, instead of one query per id.
+     *
+     * @param idArray PostgreSQL array literal of agreement ids, e.g. {@code {id1,id2}}
+     */
+    @Query(value = "SELECT a.* FROM unnest(CAST(:ids AS uuid[])) AS req(id) " +
+            "CROSS JOIN LATERAL (" +
+            "  SELECT v.* FROM agreements v " +
+            "  WHERE v.id = req.id " +
+            "  AND v.tenant_id = CAST(:tenantId AS uuid) " +
+            "  AND v.valid_period @> CAST(:validTime AS timestamptz) " +
+            "  AND v.transaction_period @> CAST(:txTime AS timestamptz) " +
+            "  ORDER BY v.transaction_time DESC " +
+            "  LIMIT 1" +
+            ") a",
             nativeQuery = true)
-    List<Agreement> findByAttribute(
+    List<Agreement> findAllAsOfChunk(
+            @Param("ids") String idArray,
             @Param("tenantId") String tenantId,
-            @Param("jsonFilter") String jsonFilter);
+            @Param("validTime") OffsetDateTime validTime,
+            @Param("txTime") OffsetDateTime txTime);
+
+    /**
+     * Batch variant of {@link #findAsOf}: resolves all ids in statements of at most
+     * {@link #AS_OF_CHUNK_SIZE} ids. Ids without a matching version are absent from the
+     * result; result order is unspecified.
+     */
+    default List<Agreement> findAllAsOf(Collection<UUID> ids, String tenantId,
+                                        OffsetDateTime validTime, OffsetDateTime txTime) {
+        List<UUID> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Agreement> results = new ArrayList<>(distinctIds.size());
+        for (int from = 0; from < distinctIds.size(); from += AS_OF_CHUNK_SIZE) {
+            List<UUID> chunk = distinctIds.subList(from, Math.min(from + AS_OF_CHUNK_SIZE, distinctIds.size()));
+            String idArray = chunk.stream()
+                    .map(UUID::toString)
+                    .collect(Collectors.joining(",", "{", "}"));
+            results.addAll(findAllAsOfChunk(idArray, tenantId, validTime, txTime));
+        }
+        return results;
+    }
 }
@@ -0,0 +1,46 @@
+package com.beema.kernel.repository.agreement;
+
+import com.beema.kernel.domain.agreement.Agreement;
+import com.beema.kernel.domain.agreement.AgreementStatus;
+import com.beema.kernel.domain.agreement.MarketContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Agreement queries that need SQL built at runtime and so cannot be declared with {@code @Query}.
+ */
+public interface AgreementRepositoryCustom {
+
+    /**
+     * Attribute path accepted by {@link #findCurrentProjected}: dot-separated keys, e.g.
+     * {@code vehicleMake} or {@code driver.licenceNumber}.
+     */
+    Pattern ATTRIBUTE_PATH = Pattern.compile("^[A-Za-z0-9_]+(\\.[A-Za-z0-9_]+){0,9}$");
+
+    /**
+     * Current agreements whose attribute {@code attributeName} equals {@code value}.
+     *
+     * Values are compared as typed JSON: the string {@code "2022"} does not match a stored
+     * number {@code 2022}, while {@code 2022.0} does. String lookups on attributes with a READY
+     * expression index (see {@link com.beema.kernel.service.search.AttributeIndexManager}) use
+     * the equality form {@code attributes->>'name' = value} restricted to string values;
+     * everything else uses JSONB containment served by the GIN index. Both forms return the
+     * same rows, so an index only changes the plan.
+     */
+    List<Agreement> findByAttribute(String tenantId, String attributeName, Object value);
+
+    /**
+     * Page of current agreements with only the requested attribute paths extracted in SQL
+     * ({@code attributes->'key'} or {@code attributes#>'{a,b}'}), so the rest of the JSONB
+     * document never leaves the database. Either filter may be null. Rows are ordered by
+     * agreement number; the sort of {@code pageable} is ignored.
+     *
+     * @throws IllegalArgumentException if a path does not match {@link #ATTRIBUTE_PATH}
+     */
+    Page<AgreementAttributeProjection> findCurrentProjected(String tenantId, MarketContext marketContext,
+                                                            AgreementStatus status, List<String> attributePaths,
+                                                            Pageable pageable);
+}
@@ -0,0 +1,177 @@
+package com.beema.kernel.repository.agreement;
+
+import com.beema.kernel.domain.agreement.Agreement;
+import com.beema.kernel.domain.agreement.AgreementStatus;
+import com.beema.kernel.domain.agreement.MarketContext;
+import com.beema.kernel.service.search.AttributeIndexManager;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class AgreementRepositoryCustomImpl implements AgreementRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final AttributeIndexManager attributeIndexManager;
+    private final ObjectMapper objectMapper;
+
+    public AgreementRepositoryCustomImpl(AttributeIndexManager attributeIndexManager, ObjectMapper objectMapper) {
+        this.attributeIndexManager = attributeIndexManager;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Agreement> findByAttribute(String tenantId, String attributeName, Object value) {
+        if (value instanceof String text && attributeIndexManager.isExpressionIndexed(attributeName)) {
+            // The key must be a literal for the planner to match the expression index; only names
+            // the index manager has validated and indexed reach this branch. ->> also renders
+            // numbers and booleans as text, so the type check keeps the result identical to
+            // containment: "2022" must not match a stored 2022.
+            String sql = "SELECT a.* FROM agreements a WHERE a.tenant_id = CAST(:tenantId AS uuid) " +
+                    "AND a.is_current = true AND a.valid_to IS NULL " +
+                    "AND (a.attributes ->> '" + attributeName + "') = :value " +
+                    "AND jsonb_typeof(a.attributes -> '" + attributeName + "') = 'string'";
+            return entityManager.createNativeQuery(sql, Agreement.class)
+                    .setParameter("tenantId", tenantId)
+                    .setParameter("value", text)
+                    .getResultList();
+        }
+
+        String sql = "SELECT a.* FROM agreements a WHERE a.tenant_id = CAST(:tenantId AS uuid) " +
+                "AND a.is_current = true AND a.valid_to IS NULL " +
+                "AND a.attributes @> CAST(:jsonFilter AS jsonb)";
+        return entityManager.createNativeQuery(sql, Agreement.class)
+                .setParameter("tenantId", tenantId)
+                .setParameter("jsonFilter", toJsonFilter(attributeName, value))
+                .getResultList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Page<AgreementAttributeProjection> findCurrentProjected(String tenantId, MarketContext marketContext,
+                                                                   AgreementStatus status, List<String> attributePaths,
+                                                                   Pageable pageable) {
+        for (String path : attributePaths) {
+            if (!ATTRIBUTE_PATH.matcher(path).matches()) {
+                throw new IllegalArgumentException("Invalid attribute path: " + path);
+            }
+        }
+
+        StringBuilder where = new StringBuilder(
+                " FROM agreements a WHERE a.tenant_id = CAST(:tenantId AS uuid) " +
+                "AND a.is_current = true AND a.valid_to IS NULL");
+        if (marketContext != null) {
+            where.append(" AND a.market_context = CAST(:marketContext AS market_context_type)");
+        }
+        if (status != null) {
+            where.append(" AND a.status = CAST(:status AS agreement_status_type)");
+        }
+
+        Query pageQuery = entityManager.createNativeQuery(
+                projectedSelect(attributePaths.size()) + where + " ORDER BY a.agreement_number, a.id");
+        Query countQuery = entityManager.createNativeQuery("SELECT count(*)" + where);
+        bindFilters(pageQuery, tenantId, marketContext, status);
+        bindFilters(countQuery, tenantId, marketContext, status);
+        for (int i = 0; i < attributePaths.size(); i++) {
+            pageQuery.setParameter("path" + i, pathArray(attributePaths.get(i)));
+        }
+        if (pageable.isPaged()) {
+            pageQuery.setFirstResult((int) pageable.getOffset());
+            pageQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        List<Object[]> rows = pageQuery.getResultList();
+        List<AgreementAttributeProjection> content = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Map<String, Object> attributes = new LinkedHashMap<>();
+            for (int i = 0; i < attributePaths.size(); i++) {
+                attributes.put(attributePaths.get(i), readJson((String) row[6 + i]));
+            }
+            content.add(new AgreementAttributeProjection(
+                    UUID.fromString((String) row[0]),
+                    (String) row[1],
+                    MarketContext.valueOf((String) row[2]),
+                    AgreementStatus.valueOf((String) row[3]),
+                    toLocalDate(row[4]),
+                    toLocalDate(row[5]),
+                    attributes));
+        }
+        long total = ((Number) countQuery.getSingleResult()).longValue();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Select list of the projection query over {@code agreements a}, reading attribute path
+     * {@code i} from the parameter {@code :path<i>} bound to {@link #pathArray(String)}.
+     */
+    public static String projectedSelect(int attributeCount) {
+        // Enum, uuid and jsonb columns are read as text so the driver hands back plain strings
+        StringBuilder select = new StringBuilder(
+                "SELECT CAST(a.id AS text), a.agreement_number, CAST(a.market_context AS text), " +
+                "CAST(a.status AS text), a.inception_date, a.expiry_date");
+        for (int i = 0; i < attributeCount; i++) {
+            select.append(", CAST(a.attributes #> CAST(:path").append(i).append(" AS text[]) AS text)");
+        }
+        return select.toString();
+    }
+
+    /**
+     * Postgres text[] literal for a dotted attribute path.
+     */
+    public static String pathArray(String attributePath) {
+        // Keys are restricted to [A-Za-z0-9_], so the array literal needs no quoting
+        return "{" + attributePath.replace('.', ',') + "}";
+    }
+
+    private static void bindFilters(Query query, String tenantId, MarketContext marketContext,
+                                    AgreementStatus status) {
+        query.setParameter("tenantId", tenantId);
+        if (marketContext != null) {
+            query.setParameter("marketContext", marketContext.name());
+        }
+        if (status != null) {
+            query.setParameter("status", status.name());
+        }
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof Date date) {
+            return date.toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+
+    private Object readJson(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, Object.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable attribute value returned by the database", e);
+        }
+    }
+
+    private String toJsonFilter(String attributeName, Object value) {
+        try {
+            return objectMapper.writeValueAsString(Map.of(attributeName, value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Attribute value is not JSON-serializable: " + attributeName, e);
+        }
+    }
+}
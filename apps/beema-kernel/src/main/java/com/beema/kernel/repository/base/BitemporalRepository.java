@@ -15,7 +15,23 @@ public interface BitemporalRepository<T extends BitemporalEntity> {
 
     List<T> findHistoryInRange(UUID id, OffsetDateTime validFrom, OffsetDateTime validTo, String tenantId);
 
+    /**
+     * Supersedes the current version of the entity and inserts {@code entity} as the new one.
+     *
+     * If the entity carries the temporal key of the version it was derived from, the
+     * supersession only succeeds while that version is still current.
+     *
+     * @return the stored new version, carrying the transaction time assigned by the database
+     * @throws jakarta.persistence.OptimisticLockException if the base version is no longer current
+     */
     T createNewVersion(T entity);
 
+    /**
+     * Bulk variant of {@link #createNewVersion(BitemporalEntity)}: one set-based UPDATE closes
+     * all current versions, then the new versions are inserted in JDBC batches. Concurrency
+     * failures are reported per row instead of failing the whole call.
+     */
+    BulkVersionResult<T> createNewVersions(List<T> entities);
+
     List<T> findAuditTrail(UUID id, String tenantId);
 }
@@ -5,21 +5,59 @@ import com.beema.kernel.domain.base.TemporalKey;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.Table;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 public class BitemporalRepositoryImpl<T extends BitemporalEntity> implements BitemporalRepository<T> {
 
     private final EntityManager entityManager;
     private final Class<T> entityClass;
+    private final String tableName;
+    private final String supersedeSql;
 
     public BitemporalRepositoryImpl(EntityManager entityManager, Class<T> entityClass) {
         this.entityManager = entityManager;
         this.entityClass = entityClass;
+        this.tableName = tableName(entityClass);
+        this.supersedeSql = buildSupersedeSql(tableName);
+    }
+
+    private static String tableName(Class<?> entityClass) {
+        Table table = entityClass.getAnnotation(Table.class);
+        return table != null && !table.name().isBlank() ? table.name() : entityClass.getSimpleName();
+    }
+
+    /**
+     * Closes every requested current version in one statement. Rows are matched on id and
+     * tenant and, when the caller knows which version it edited, on that version's full
+     * temporal key; a row that no longer matches is simply not returned.
+     * clock_timestamp() (not now()) keeps two versions written in one transaction distinct.
+     */
+    private static String buildSupersedeSql(String table) {
+        return "UPDATE " + table + " t SET valid_to = clock_timestamp(), is_current = FALSE " +
+                "FROM unnest(?::uuid[], ?::uuid[], ?::timestamptz[], ?::timestamptz[]) " +
+                "AS v(id, tenant_id, expected_valid_from, expected_tx) " +
+                "WHERE t.id = v.id " +
+                "AND t.tenant_id = v.tenant_id " +
+                "AND t.is_current = TRUE " +
+                "AND (v.expected_tx IS NULL " +
+                "OR (t.valid_from = v.expected_valid_from AND t.transaction_time = v.expected_tx)) " +
+                "RETURNING t.id, t.valid_to";
     }
 
     @Override
@@ -42,68 +80,179 @@ public class BitemporalRepositoryImpl<T extends BitemporalEntity> implements Bit
         }
     }
 
+    /**
+     * Range containment on the generated valid_period / transaction_period columns, served
+     * by the (id, valid_period, transaction_period) GiST index.
+     */
     @Override
     public Optional<T> findAsOf(UUID id, OffsetDateTime validAt, OffsetDateTime transactionAt, String tenantId) {
-        String jpql = "SELECT e FROM " + entityClass.getSimpleName() + " e " +
-                "WHERE e.temporalKey.id = :id " +
-                "AND e.tenantId = :tenantId " +
-                "AND e.temporalKey.validFrom <= :validAt " +
-                "AND (e.validTo IS NULL OR e.validTo > :validAt) " +
-                "AND e.temporalKey.transactionTime <= :transactionAt " +
-                "ORDER BY e.temporalKey.transactionTime DESC";
+        String sql = "SELECT * FROM " + tableName + " " +
+                "WHERE id = :id " +
+                "AND tenant_id = CAST(:tenantId AS uuid) " +
+                "AND valid_period @> CAST(:validAt AS timestamptz) " +
+                "AND transaction_period @> CAST(:transactionAt AS timestamptz) " +
+                "ORDER BY transaction_time DESC";
 
-        TypedQuery<T> query = entityManager.createQuery(jpql, entityClass)
+        List<?> results = entityManager.createNativeQuery(sql, entityClass)
                 .setParameter("id", id)
                 .setParameter("tenantId", tenantId)
                 .setParameter("validAt", validAt)
                 .setParameter("transactionAt", transactionAt)
-                .setMaxResults(1);
+                .setMaxResults(1)
+                .getResultList();
 
-        try {
-            return Optional.of(query.getSingleResult());
-        } catch (NoResultException e) {
-            return Optional.empty();
-        }
+        return results.isEmpty() ? Optional.empty() : Optional.of(entityClass.cast(results.get(0)));
     }
 
     @Override
     public List<T> findHistoryInRange(UUID id, OffsetDateTime validFrom, OffsetDateTime validTo, String tenantId) {
-        String jpql = "SELECT e FROM " + entityClass.getSimpleName() + " e " +
-                "WHERE e.temporalKey.id = :id " +
-                "AND e.tenantId = :tenantId " +
-                "AND e.temporalKey.validFrom < :validTo " +
-                "AND (e.validTo IS NULL OR e.validTo > :validFrom) " +
-                "ORDER BY e.temporalKey.validFrom ASC, e.temporalKey.transactionTime DESC";
+        String sql = "SELECT * FROM " + tableName + " " +
+                "WHERE id = :id " +
+                "AND tenant_id = CAST(:tenantId AS uuid) " +
+                "AND valid_period && tstzrange(CAST(:validFrom AS timestamptz), CAST(:validTo AS timestamptz), '[)') " +
+                "ORDER BY valid_from ASC, transaction_time DESC";
 
-        return entityManager.createQuery(jpql, entityClass)
+        List<?> results = entityManager.createNativeQuery(sql, entityClass)
                 .setParameter("id", id)
                 .setParameter("tenantId", tenantId)
                 .setParameter("validFrom", validFrom)
                 .setParameter("validTo", validTo)
                 .getResultList();
+
+        return results.stream().map(entityClass::cast).toList();
     }
 
     @Override
     public T createNewVersion(T entity) {
-        UUID id = entity.getTemporalKey().getId();
-        UUID tenantId = entity.getTenantId();
+        BulkVersionResult<T> result = createNewVersions(List.of(entity));
+        if (result.hasConflicts()) {
+            BulkVersionResult.Conflict<T> conflict = result.conflicts().get(0);
+            throw new OptimisticLockException(
+                    "Cannot create new version of " + conflict.id() + ": " + conflict.reason(), null, entity);
+        }
+        return result.created().get(0);
+    }
+
+    /**
+     * Managed instances of the superseded versions are not refreshed by the set-based
+     * UPDATE; re-read them if they are still needed in the same persistence context.
+     * The created versions returned are the stored rows, not the instances passed in.
+     */
+    @Override
+    public BulkVersionResult<T> createNewVersions(List<T> entities) {
+        List<T> candidates = new ArrayList<>(entities.size());
+        List<BulkVersionResult.Conflict<T>> conflicts = new ArrayList<>();
+        Set<UUID> seen = new HashSet<>();
 
-        // Close the current version by setting its validTo
-        Optional<T> current = findCurrent(id, tenantId.toString());
+        for (T entity : entities) {
+            TemporalKey baseKey = entity.getTemporalKey();
+            if (baseKey != null && !seen.add(baseKey.getId())) {
+                conflicts.add(new BulkVersionResult.Conflict<>(entity, baseKey.getId(),
+                        baseKey.getTransactionTime(), "duplicate id in batch"));
+                continue;
+            }
+            // The caller may pass the loaded (managed) version it edited; detach it so its
+            // changes are written as a new row instead of being flushed onto the old one
+            if (entityManager.contains(entity)) {
+                entityManager.detach(entity);
+            }
+            candidates.add(entity);
+        }
+
+        Map<UUID, OffsetDateTime> superseded = supersedeCurrentVersions(candidates);
         OffsetDateTime now = OffsetDateTime.now();
+        List<T> created = new ArrayList<>(candidates.size());
 
-        current.ifPresent(existing -> {
-            existing.setValidTo(now);
-            entityManager.merge(existing);
-        });
+        for (T entity : candidates) {
+            TemporalKey baseKey = entity.getTemporalKey();
+            UUID id = baseKey != null ? baseKey.getId() : UUID.randomUUID();
+            OffsetDateTime expected = baseKey != null ? baseKey.getTransactionTime() : null;
+            OffsetDateTime closedAt = superseded.get(id);
+
+            if (closedAt == null && expected != null) {
+                conflicts.add(new BulkVersionResult.Conflict<>(entity, id, expected,
+                        "version " + expected + " is no longer current"));
+                continue;
+            }
+
+            // The new version starts exactly where the superseded one ends
+            OffsetDateTime versionStart = closedAt != null ? closedAt : now;
+            entity.setTemporalKey(new TemporalKey(id, versionStart, versionStart));
+            entity.setValidTo(null);
+            entityManager.persist(entity);
+            created.add(entity);
+        }
+
+        // Inserts go out in hibernate.jdbc.batch_size batches
+        entityManager.flush();
+        return new BulkVersionResult<>(reloadStoredVersions(created), conflicts);
+    }
 
-        // Create the new version with a fresh temporal key
-        TemporalKey newKey = new TemporalKey(id, now, now);
-        entity.setTemporalKey(newKey);
-        entity.setValidTo(null);
+    /**
+     * The set_transaction_time trigger restamps transaction_time on insert, so the keys
+     * assigned above are not the stored ones. Swaps the written instances for the stored
+     * rows (the only current version of each id after the insert), in the same order.
+     */
+    private List<T> reloadStoredVersions(List<T> written) {
+        if (written.isEmpty()) {
+            return written;
+        }
+        written.forEach(entityManager::detach);
+
+        String ids = written.stream()
+                .map(e -> e.getTemporalKey().getId().toString())
+                .collect(Collectors.joining(",", "{", "}"));
+        List<?> rows = entityManager.createNativeQuery(
+                        "SELECT * FROM " + tableName + " WHERE id = ANY(CAST(:ids AS uuid[])) AND is_current = TRUE",
+                        entityClass)
+                .setParameter("ids", ids)
+                .getResultList();
+
+        Map<UUID, T> byId = new HashMap<>();
+        for (Object row : rows) {
+            T stored = entityClass.cast(row);
+            byId.put(stored.getTemporalKey().getId(), stored);
+        }
+        return written.stream().map(e -> byId.get(e.getTemporalKey().getId())).toList();
+    }
 
-        entityManager.persist(entity);
-        return entity;
+    private Map<UUID, OffsetDateTime> supersedeCurrentVersions(List<T> candidates) {
+        List<T> existing = candidates.stream()
+                .filter(e -> e.getTemporalKey() != null)
+                .toList();
+        if (existing.isEmpty()) {
+            return Map.of();
+        }
+
+        String[] ids = new String[existing.size()];
+        String[] tenantIds = new String[existing.size()];
+        String[] expectedValidFrom = new String[existing.size()];
+        String[] expectedTx = new String[existing.size()];
+        for (int i = 0; i < existing.size(); i++) {
+            T entity = existing.get(i);
+            ids[i] = entity.getTemporalKey().getId().toString();
+            tenantIds[i] = entity.getTenantId().toString();
+            OffsetDateTime validFrom = entity.getTemporalKey().getValidFrom();
+            OffsetDateTime txTime = entity.getTemporalKey().getTransactionTime();
+            expectedValidFrom[i] = validFrom != null ? validFrom.toString() : null;
+            expectedTx[i] = txTime != null ? txTime.toString() : null;
+        }
+
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            Map<UUID, OffsetDateTime> closed = new HashMap<>();
+            try (PreparedStatement ps = connection.prepareStatement(supersedeSql)) {
+                ps.setArray(1, connection.createArrayOf("text", ids));
+                ps.setArray(2, connection.createArrayOf("text", tenantIds));
+                ps.setArray(3, connection.createArrayOf("text", expectedValidFrom));
+                ps.setArray(4, connection.createArrayOf("text", expectedTx));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        closed.put(rs.getObject(1, UUID.class), rs.getObject(2, OffsetDateTime.class));
+                    }
+                }
+            }
+            return closed;
+        });
     }
 
     @Override
@@ -0,0 +1,40 @@
+package com.beema.kernel.repository.base;
+
+import com.beema.kernel.domain.base.BitemporalEntity;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of {@link BitemporalRepository#createNewVersions(List)}.
+ *
+ * Rows whose base version was superseded concurrently are reported in {@code conflicts}
+ * and left untouched; every other row is written and returned in {@code created}.
+ */
+public record BulkVersionResult<T extends BitemporalEntity>(List<T> created, List<Conflict<T>> conflicts) {
+
+    public BulkVersionResult {
+        created = List.copyOf(created);
+        conflicts = List.copyOf(conflicts);
+    }
+
+    public boolean hasConflicts() {
+        return !conflicts.isEmpty();
+    }
+
+    /**
+     * A row that could not be versioned.
+     *
+     * @param entity                  the requested new version, unchanged
+     * @param id                      the business identity of the row
+     * @param expectedTransactionTime transaction time of the version the change was based on
+     * @param reason                  why the version was rejected
+     */
+    public record Conflict<T extends BitemporalEntity>(
+            T entity,
+            UUID id,
+            OffsetDateTime expectedTransactionTime,
+            String reason) {
+    }
+}
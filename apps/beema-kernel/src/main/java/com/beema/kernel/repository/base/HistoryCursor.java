@@ -0,0 +1,49 @@
+package com.beema.kernel.repository.base;
+
+import com.beema.kernel.domain.base.BitemporalEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a version history ordered by (transaction_time, valid_from).
+ *
+ * All versions of an entity share the same id, so valid_from (the remaining primary key
+ * column) breaks ties between versions recorded at the same transaction time. Clients only
+ * ever see the {@link #encode() encoded} form.
+ */
+public record HistoryCursor(OffsetDateTime transactionTime, OffsetDateTime validFrom) {
+
+    private static final char SEPARATOR = '|';
+
+    public static HistoryCursor after(BitemporalEntity entity) {
+        return new HistoryCursor(
+                entity.getTemporalKey().getTransactionTime(),
+                entity.getTemporalKey().getValidFrom());
+    }
+
+    public String encode() {
+        String raw = transactionTime.toString() + SEPARATOR + validFrom.toString();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static HistoryCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.indexOf(SEPARATOR);
+            if (split < 0) {
+                throw new IllegalArgumentException("Malformed history cursor");
+            }
+            return new HistoryCursor(
+                    OffsetDateTime.parse(raw.substring(0, split)),
+                    OffsetDateTime.parse(raw.substring(split + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed history cursor", e);
+        }
+    }
+}
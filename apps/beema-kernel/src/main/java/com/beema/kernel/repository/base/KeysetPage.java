@@ -0,0 +1,34 @@
+package com.beema.kernel.repository.base;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated result. {@code nextCursor} is null on the last page.
+ */
+public record KeysetPage<T>(List<T> items, String nextCursor) {
+
+    public KeysetPage {
+        items = List.copyOf(items);
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public <R> KeysetPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new KeysetPage<>(items.stream().<R>map(mapper).toList(), nextCursor);
+    }
+
+    /**
+     * Builds a page from a query that fetched up to {@code limit + 1} rows: the extra row
+     * only signals that another page exists and is dropped.
+     */
+    public static <T> KeysetPage<T> fromOverfetch(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> page = rows.subList(0, limit);
+        return new KeysetPage<>(page, cursorOf.apply(page.get(limit - 1)));
+    }
+}
@@ -0,0 +1,176 @@
+package com.beema.kernel.service.agreement;
+
+import com.beema.kernel.domain.agreement.Agreement;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of current agreement versions keyed by (tenant, agreement id).
+ *
+ * Entries are evicted when this node writes a new version (after commit) and when any node
+ * does, via the {@code agreement_changed} NOTIFY channel ({@link AgreementChangeListener}).
+ * Each eviction is stamped with a monotonic clock; a load that started before the latest
+ * eviction of its key is returned to the caller but not cached, so a read racing a write
+ * cannot park the superseded version in the cache.
+ *
+ * Cached agreements are detached and shared between threads; callers must not modify them.
+ */
+@Component
+public class AgreementCache {
+
+    private final boolean enabled;
+    private final Cache<Key, Agreement> cache;
+    // Last eviction per key; kept long enough to outlive any in-flight load
+    private final Cache<Key, Long> evictedAt = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+
+    private volatile long allEvictedAt = System.nanoTime();
+
+    private final Counter localInvalidations;
+    private final Counter remoteInvalidations;
+    private final Timer staleness;
+
+    public AgreementCache(MeterRegistry meterRegistry,
+                          @Value("${beema.agreement-cache.enabled:true}") boolean enabled,
+                          @Value("${beema.agreement-cache.maximum-size:10000}") long maximumSize,
+                          @Value("${beema.agreement-cache.expire-after-write:PT10M}") Duration expireAfterWrite) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "agreements");
+        Gauge.builder("agreement.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of current-agreement lookups served from the cache")
+                .register(meterRegistry);
+        this.localInvalidations = Counter.builder("agreement.cache.invalidations")
+                .tag("source", "local")
+                .description("Cache entries evicted by version writes on this node")
+                .register(meterRegistry);
+        this.remoteInvalidations = Counter.builder("agreement.cache.invalidations")
+                .tag("source", "notify")
+                .description("Cache entries evicted by agreement_changed notifications")
+                .register(meterRegistry);
+        this.staleness = Timer.builder("agreement.cache.staleness")
+                .description("Time from an agreement write to eviction of the cached version it superseded")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached current version, or runs {@code loader} and caches its result.
+     * Lookups without a tenant are not cached: the key would not isolate tenants.
+     */
+    public Optional<Agreement> get(String tenantId, UUID id, Supplier<Optional<Agreement>> loader) {
+        if (!enabled || tenantId == null) {
+            return loader.get();
+        }
+        Key key = Key.of(tenantId, id);
+        Agreement cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long loadStartedAt = System.nanoTime();
+        Optional<Agreement> loaded = loader.get();
+        if (loaded.isPresent() && !evictedSince(key, loadStartedAt)) {
+            cache.put(key, loaded.get());
+            // An eviction between the check and the put would otherwise be lost
+            if (evictedSince(key, loadStartedAt)) {
+                cache.invalidate(key);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Evicts the agreement once the current transaction commits, or immediately when there
+     * is no transaction. Evicting only after commit keeps concurrent readers from re-caching
+     * the old version in the window before the new one becomes visible.
+     */
+    public void invalidateAfterCommit(String tenantId, UUID id) {
+        if (!enabled) {
+            return;
+        }
+        Key key = Key.of(tenantId, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(key);
+                    localInvalidations.increment();
+                }
+            });
+        } else {
+            evict(key);
+            localInvalidations.increment();
+        }
+    }
+
+    /**
+     * Evicts the agreement in response to a change published by any node.
+     *
+     * @param changedAt start of the writing transaction, used for the staleness metric
+     */
+    public void invalidateRemote(String tenantId, UUID id, OffsetDateTime changedAt) {
+        if (!enabled) {
+            return;
+        }
+        Agreement removed = evict(Key.of(tenantId, id));
+        remoteInvalidations.increment();
+        if (removed != null && changedAt != null) {
+            Duration age = Duration.between(changedAt, OffsetDateTime.now());
+            staleness.record(age.isNegative() ? Duration.ZERO : age);
+        }
+    }
+
+    /**
+     * Drops every entry; used when change notifications may have been missed.
+     */
+    public void invalidateAll() {
+        allEvictedAt = System.nanoTime();
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private Agreement evict(Key key) {
+        evictedAt.put(key, System.nanoTime());
+        return cache.asMap().remove(key);
+    }
+
+    private boolean evictedSince(Key key, long nanos) {
+        if (allEvictedAt - nanos > 0) {
+            return true;
+        }
+        Long evicted = evictedAt.getIfPresent(key);
+        return evicted != null && evicted - nanos >= 0;
+    }
+
+    private record Key(UUID tenantId, UUID id) {
+        // Parsing normalises the textual form so "A0..." and "a0..." share an entry
+        static Key of(String tenantId, UUID id) {
+            return new Key(UUID.fromString(tenantId), id);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.beema.kernel.service.agreement;
+
+import com.beema.kernel.service.notification.PostgresNotificationListener;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Subscribes to the {@code agreement_changed} channel (see V23) and evicts the changed
+ * agreements from this node's {@link AgreementCache}. Notifications arrive for writes made
+ * by every node, including this one.
+ *
+ * NOTIFY is not durable: anything published while the connection is down is lost, so the
+ * whole cache is dropped each time LISTEN is (re-)established.
+ */
+@Component
+public class AgreementChangeListener implements PostgresNotificationListener.Subscriber {
+
+    private static final Logger log = LoggerFactory.getLogger(AgreementChangeListener.class);
+
+    static final String CHANNEL = "agreement_changed";
+
+    private final PostgresNotificationListener notificationListener;
+    private final AgreementCache agreementCache;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    public AgreementChangeListener(PostgresNotificationListener notificationListener,
+                                   AgreementCache agreementCache,
+                                   ObjectMapper objectMapper,
+                                   @Value("${beema.agreement-cache.enabled:true}") boolean enabled) {
+        this.notificationListener = notificationListener;
+        this.agreementCache = agreementCache;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (enabled) {
+            notificationListener.subscribe(CHANNEL, this);
+        }
+    }
+
+    @Override
+    public void onListen() {
+        // Changes made while we were not listening were never delivered
+        agreementCache.invalidateAll();
+    }
+
+    @Override
+    public void onNotifications(List<String> payloads) {
+        payloads.forEach(this::handle);
+    }
+
+    private void handle(String payload) {
+        try {
+            JsonNode json = objectMapper.readTree(payload);
+            JsonNode changedAtMs = json.get("changedAtMs");
+            agreementCache.invalidateRemote(
+                    json.get("tenantId").asText(),
+                    UUID.fromString(json.get("id").asText()),
+                    changedAtMs != null
+                            ? OffsetDateTime.ofInstant(Instant.ofEpochMilli(changedAtMs.asLong()), ZoneOffset.UTC)
+                            : null);
+        } catch (Exception e) {
+            // A change we cannot attribute to one key still has to be honoured
+            log.warn("Unreadable agreement_changed payload, clearing cache: {}", payload);
+            agreementCache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.beema.kernel.service.agreement;
+
+/**
+ * Input formats accepted by {@link AgreementImportService}.
+ *
+ * NDJSON: one agreement per line, using the field names of the create-agreement request.
+ * CSV: a header row with the same field names; attributes are given either as one
+ * {@code attributes} column holding a JSON object or as {@code attributes.<name>} columns.
+ */
+public enum AgreementImportFormat {
+    NDJSON,
+    CSV
+}
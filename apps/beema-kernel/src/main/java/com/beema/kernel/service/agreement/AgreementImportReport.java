@@ -0,0 +1,29 @@
+package com.beema.kernel.service.agreement;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk agreement import.
+ *
+ * @param errors          one entry per rejected row, in input order, capped at
+ *                        {@link AgreementImportService#MAX_REPORTED_ERRORS}
+ * @param errorsTruncated true when more rows failed than are listed in {@code errors}
+ */
+public record AgreementImportReport(
+        int totalRows,
+        int imported,
+        int failed,
+        long durationMs,
+        List<RowError> errors,
+        boolean errorsTruncated) {
+
+    public double rowsPerSecond() {
+        return durationMs == 0 ? totalRows : totalRows * 1000.0 / durationMs;
+    }
+
+    /**
+     * @param row 1-based position of the record in the input, not counting a CSV header
+     */
+    public record RowError(int row, String agreementNumber, List<String> errors) {
+    }
+}
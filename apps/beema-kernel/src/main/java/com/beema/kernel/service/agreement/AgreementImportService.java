@@ -0,0 +1,694 @@
+package com.beema.kernel.service.agreement;
+
+import com.beema.kernel.domain.agreement.Agreement;
+import com.beema.kernel.domain.agreement.AgreementStatus;
+import com.beema.kernel.domain.agreement.MarketContext;
+import com.beema.kernel.domain.base.TemporalKey;
+import com.beema.kernel.domain.metadata.MetadataAgreementType;
+import com.beema.kernel.event.PolicyBoundEvent;
+import com.beema.kernel.event.outbox.EventOutbox;
+import com.beema.kernel.service.expression.ExpressionEvaluator;
+import com.beema.kernel.service.metadata.MetadataService;
+import com.beema.kernel.service.security.WriteShieldService;
+import com.beema.kernel.util.SchemaValidator;
+import com.beema.kernel.util.SchemaValidator.ValidationResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.networknt.schema.JsonSchema;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk counterpart of {@link AgreementService#createAgreement}: streams NDJSON or CSV input
+ * and imports it in chunks, so a book of several hundred thousand policies is one request
+ * instead of one request per policy.
+ *
+ * Per chunk, rows are mapped and passed through WriteShield on the calling thread, then
+ * validated in parallel (market-context rules, calculated fields and the JSON schema, compiled
+ * once per agreement type for the whole import). Valid rows are inserted with one JDBC batch
+ * in a transaction scoped to the chunk, together with their PolicyBound events in the event
+ * outbox. A failing row never fails the import; it is listed in the report instead. Column
+ * constraints (lengths, non-negative amounts) are checked while mapping, so a bad row does not
+ * fail its chunk's batch; should a batch fail anyway, the chunk is retried row by row.
+ */
+@Service
+public class AgreementImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(AgreementImportService.class);
+
+    public static final int MAX_REPORTED_ERRORS = 10_000;
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+    private static final String ATTRIBUTE_COLUMN_PREFIX = "attributes.";
+    // NUMERIC(18, 4): at most 14 digits before the decimal point
+    private static final int AMOUNT_INTEGER_DIGITS = 14;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO agreements (id, agreement_number, external_reference, market_context, agreement_type_id, " +
+            "status, tenant_id, data_residency_region, inception_date, expiry_date, currency_code, " +
+            "total_premium, total_sum_insured, attributes, valid_from, created_by, updated_by, created_at) " +
+            "VALUES (?, ?, ?, CAST(? AS market_context_type), ?, CAST(? AS agreement_status_type), ?, ?, ?, ?, ?, " +
+            "?, ?, CAST(? AS jsonb), ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MetadataService metadataService;
+    private final ExpressionEvaluator expressionEvaluator;
+    private final SchemaValidator schemaValidator;
+    private final WriteShieldService writeShieldService;
+    private final EventOutbox eventOutbox;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final ExecutorService validationExecutor;
+
+    public AgreementImportService(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  MetadataService metadataService,
+                                  ExpressionEvaluator expressionEvaluator,
+                                  SchemaValidator schemaValidator,
+                                  WriteShieldService writeShieldService,
+                                  EventOutbox eventOutbox,
+                                  ObjectMapper objectMapper,
+                                  @Value("${beema.agreement-import.chunk-size:1000}") int chunkSize,
+                                  @Value("${beema.agreement-import.validation-threads:0}") int validationThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.metadataService = metadataService;
+        this.expressionEvaluator = expressionEvaluator;
+        this.schemaValidator = schemaValidator;
+        this.writeShieldService = writeShieldService;
+        this.eventOutbox = eventOutbox;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+
+        int threads = validationThreads > 0 ? validationThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.validationExecutor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "agreement-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        validationExecutor.shutdownNow();
+    }
+
+    /**
+     * Imports every record of {@code input} into {@code tenantId}. Records carrying a
+     * different tenantId are rejected.
+     *
+     * @param userRole  role used to filter attributes through WriteShield, as for single creates
+     * @param createdBy recorded as created_by / updated_by on every imported agreement
+     */
+    public AgreementImportReport importAgreements(InputStream input, AgreementImportFormat format,
+                                                  UUID tenantId, String userRole, String createdBy) {
+        long start = System.currentTimeMillis();
+        ImportState state = new ImportState(tenantId, userRole, createdBy);
+
+        try (RowReader reader = format == AgreementImportFormat.CSV ? new CsvRowReader(input) : new NdjsonRowReader(input)) {
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            ImportRow row;
+            while ((row = reader.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    processChunk(chunk, state);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(chunk, state);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read agreement import input", e);
+        }
+
+        // Parse errors are recorded before validation errors of the same chunk
+        state.errors.sort(Comparator.comparingInt(AgreementImportReport.RowError::row));
+        long durationMs = System.currentTimeMillis() - start;
+        AgreementImportReport report = new AgreementImportReport(
+                state.totalRows, state.imported, state.failed, durationMs,
+                List.copyOf(state.errors), state.failed > state.errors.size());
+        log.info("Imported {} of {} agreements for tenant {} in {} ms ({} rejected, {} rows/s)",
+                report.imported(), report.totalRows(), tenantId, durationMs, report.failed(),
+                Math.round(report.rowsPerSecond()));
+        return report;
+    }
+
+    private void processChunk(List<ImportRow> rows, ImportState state) {
+        state.totalRows += rows.size();
+
+        // Map rows to agreements; parse errors and in-file duplicates are rejected here
+        List<Candidate> candidates = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            if (row.error() != null) {
+                state.reject(row.number(), null, List.of(row.error()));
+                continue;
+            }
+            try {
+                Agreement agreement = toAgreement(row.values(), state);
+                if (!state.seenNumbers.add(agreement.getAgreementNumber())) {
+                    state.reject(row.number(), agreement.getAgreementNumber(),
+                            List.of("Duplicate agreement number in import"));
+                    continue;
+                }
+                candidates.add(new Candidate(row.number(), agreement));
+            } catch (IllegalArgumentException e) {
+                state.reject(row.number(), stringValue(row.values().get("agreementNumber")), List.of(e.getMessage()));
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        int inserted;
+        try {
+            inserted = transactionTemplate.execute(status -> insertChunk(candidates, state)).size();
+        } catch (RuntimeException e) {
+            log.warn("Agreement import chunk of {} rows failed, retrying row by row: {}",
+                    candidates.size(), e.getMessage());
+            inserted = insertRowByRow(candidates, state);
+        }
+
+        for (Candidate candidate : candidates) {
+            if (!candidate.errors.isEmpty()) {
+                state.reject(candidate.row, candidate.agreement.getAgreementNumber(), candidate.errors);
+            }
+        }
+        state.imported += inserted;
+    }
+
+    /**
+     * Inserts the rows of a failed chunk one transaction each, so only the rows the database
+     * rejects are reported. Rows that already failed validation are not retried.
+     */
+    private int insertRowByRow(List<Candidate> candidates, ImportState state) {
+        int inserted = 0;
+        for (Candidate candidate : candidates) {
+            if (candidate.errors != null && !candidate.errors.isEmpty()) {
+                continue;
+            }
+            try {
+                inserted += transactionTemplate.execute(status -> insertChunk(List.of(candidate), state)).size();
+            } catch (RuntimeException e) {
+                log.debug("Agreement import row {} failed: {}", candidate.row, e.getMessage());
+                candidate.errors = List.of("Database error: " + e.getMessage());
+            }
+        }
+        return inserted;
+    }
+
+    private List<Agreement> insertChunk(List<Candidate> candidates, ImportState state) {
+        // RLS: the inserts must run with the importing tenant as the current tenant
+        jdbcTemplate.queryForObject("SELECT set_config('app.current_tenant', ?, true)",
+                String.class, state.tenantId.toString());
+
+        // Metadata reads go to the database on a cache miss, so resolve types and apply
+        // WriteShield here; the parallel step below is pure computation
+        List<Future<List<String>>> validations = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            Agreement agreement = candidate.agreement;
+            Optional<CompiledType> type = state.compiledTypes.computeIfAbsent(
+                    agreement.getAgreementTypeId(), this::compileType);
+            if (type.isEmpty()) {
+                candidate.errors = List.of("Agreement type not found: " + agreement.getAgreementTypeId());
+                validations.add(null);
+                continue;
+            }
+            if (type.get().error() != null) {
+                candidate.errors = List.of(type.get().error());
+                validations.add(null);
+                continue;
+            }
+            if (type.get().type().getMarketContext() != agreement.getMarketContext()) {
+                candidate.errors = List.of("Agreement type " + type.get().type().getTypeCode() +
+                        " belongs to market context " + type.get().type().getMarketContext());
+                validations.add(null);
+                continue;
+            }
+            agreement.setAttributes(writeShieldService.sanitize(agreement.getAttributes(),
+                    agreement.getAgreementTypeId(), agreement.getMarketContext(), state.userRole, state.tenantId));
+            validations.add(validationExecutor.submit(() -> validate(agreement, type.get())));
+        }
+
+        for (int i = 0; i < candidates.size(); i++) {
+            Future<List<String>> validation = validations.get(i);
+            if (validation != null) {
+                candidates.get(i).errors = await(validation);
+            }
+        }
+
+        List<Candidate> valid = candidates.stream().filter(c -> c.errors.isEmpty()).toList();
+        Set<String> existing = existingNumbers(valid, state.tenantId);
+        List<Agreement> toInsert = new ArrayList<>(valid.size());
+        for (Candidate candidate : valid) {
+            if (existing.contains(candidate.agreement.getAgreementNumber())) {
+                candidate.errors = List.of("Agreement number already exists: " + candidate.agreement.getAgreementNumber());
+            } else {
+                toInsert.add(candidate.agreement);
+            }
+        }
+
+        if (!toInsert.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, toInsert, toInsert.size(), this::bindInsert);
+            enqueueEvents(toInsert);
+        }
+        return toInsert;
+    }
+
+    private List<String> validate(Agreement agreement, CompiledType type) {
+        List<String> errors = new ArrayList<>(AgreementServiceImpl.validateMarketContextRules(agreement));
+
+        List<Map<String, Object>> calcRules = type.type().getCalculationRules();
+        if (calcRules != null && !calcRules.isEmpty()) {
+            ValidationResult calculated = expressionEvaluator.evaluateCalculations(agreement, calcRules);
+            if (!calculated.isValid()) {
+                errors.addAll(calculated.errors());
+            }
+        }
+
+        if (type.schema() != null) {
+            ValidationResult schemaResult = schemaValidator.validate(agreement.getAttributes(), type.schema());
+            if (!schemaResult.isValid()) {
+                errors.addAll(schemaResult.errors());
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Resolves an agreement type and compiles its schema once per import. A type that cannot be
+     * resolved or whose schema does not compile is cached with the error, which every row of
+     * that type reports as a validation error.
+     */
+    @SuppressWarnings("unchecked")
+    private Optional<CompiledType> compileType(UUID agreementTypeId) {
+        Optional<MetadataAgreementType> type;
+        try {
+            type = metadataService.getAgreementType(agreementTypeId);
+        } catch (RuntimeException e) {
+            log.warn("Agreement import could not resolve agreement type {}: {}", agreementTypeId, e.getMessage());
+            return Optional.of(new CompiledType(null, null,
+                    "Agreement type could not be resolved: " + agreementTypeId));
+        }
+        return type.map(found -> {
+            Map<String, Object> schema = (Map<String, Object>) found.getAttributeSchema();
+            if (schema == null || schema.isEmpty()) {
+                return new CompiledType(found, null, null);
+            }
+            try {
+                return new CompiledType(found, schemaValidator.compile(schema), null);
+            } catch (RuntimeException e) {
+                log.warn("Agreement import could not compile the schema of agreement type {}: {}",
+                        found.getTypeCode(), e.getMessage());
+                return new CompiledType(found, null,
+                        "Attribute schema of agreement type " + found.getTypeCode() + " is invalid: " + e.getMessage());
+            }
+        });
+    }
+
+    private Set<String> existingNumbers(List<Candidate> candidates, UUID tenantId) {
+        if (candidates.isEmpty()) {
+            return Set.of();
+        }
+        String[] numbers = candidates.stream()
+                .map(c -> c.agreement.getAgreementNumber())
+                .toArray(String[]::new);
+        return new HashSet<>(jdbcTemplate.query(
+                "SELECT agreement_number FROM agreements WHERE tenant_id = ? AND is_current = TRUE " +
+                "AND agreement_number = ANY(?)",
+                ps -> {
+                    ps.setObject(1, tenantId);
+                    ps.setArray(2, ps.getConnection().createArrayOf("varchar", numbers));
+                },
+                (rs, i) -> rs.getString(1)));
+    }
+
+    private void bindInsert(PreparedStatement ps, Agreement agreement) throws SQLException {
+        TemporalKey key = agreement.getTemporalKey();
+        ps.setObject(1, key.getId());
+        ps.setString(2, agreement.getAgreementNumber());
+        ps.setString(3, agreement.getExternalReference());
+        ps.setString(4, agreement.getMarketContext().name());
+        ps.setObject(5, agreement.getAgreementTypeId());
+        ps.setString(6, agreement.getStatus().name());
+        ps.setObject(7, agreement.getTenantId());
+        ps.setString(8, agreement.getDataResidencyRegion());
+        ps.setDate(9, Date.valueOf(agreement.getInceptionDate()));
+        ps.setDate(10, Date.valueOf(agreement.getExpiryDate()));
+        ps.setString(11, agreement.getCurrencyCode());
+        ps.setObject(12, agreement.getTotalPremium(), Types.NUMERIC);
+        ps.setObject(13, agreement.getTotalSumInsured(), Types.NUMERIC);
+        ps.setString(14, toJson(agreement.getAttributes()));
+        ps.setObject(15, key.getValidFrom());
+        ps.setString(16, agreement.getCreatedBy());
+        ps.setString(17, agreement.getUpdatedBy());
+        ps.setObject(18, key.getTransactionTime());
+    }
+
+    private void enqueueEvents(List<Agreement> inserted) {
+        List<EventOutbox.Entry> entries = new ArrayList<>(inserted.size());
+        for (Agreement agreement : inserted) {
+            PolicyBoundEvent event = AgreementServiceImpl.toPolicyBoundEvent(agreement);
+            AgreementServiceImpl.withSystemMetadata(event, agreement);
+            entries.add(new EventOutbox.Entry(event, agreement.getTenantId(), null));
+        }
+        eventOutbox.enqueueAll(entries);
+    }
+
+    // ---- Row mapping ----
+
+    private Agreement toAgreement(Map<String, Object> values, ImportState state) {
+        String rowTenant = stringValue(values.get("tenantId"));
+        if (rowTenant != null && !state.tenantId.equals(parseUuid(rowTenant, "tenantId"))) {
+            throw new IllegalArgumentException("Row tenantId does not match the import tenant");
+        }
+
+        Agreement agreement = new Agreement();
+        String agreementNumber = required(values, "agreementNumber");
+        if (agreementNumber.length() > 50) {
+            throw new IllegalArgumentException("Agreement number must not exceed 50 characters");
+        }
+        agreement.setAgreementNumber(agreementNumber);
+        agreement.setExternalReference(maxLength(
+                stringValue(values.get("externalReference")), 100, "externalReference"));
+        agreement.setMarketContext(parseEnum(MarketContext.class, required(values, "marketContext"), "marketContext"));
+        agreement.setAgreementTypeId(parseUuid(required(values, "agreementTypeId"), "agreementTypeId"));
+        String status = stringValue(values.get("status"));
+        agreement.setStatus(status != null ? parseEnum(AgreementStatus.class, status, "status") : AgreementStatus.DRAFT);
+        agreement.setTenantId(state.tenantId);
+        agreement.setDataResidencyRegion(maxLength(
+                orDefault(stringValue(values.get("dataResidencyRegion")), "EU"), 10, "dataResidencyRegion"));
+        agreement.setInceptionDate(parseDate(required(values, "inceptionDate"), "inceptionDate"));
+        agreement.setExpiryDate(parseDate(required(values, "expiryDate"), "expiryDate"));
+        String currencyCode = orDefault(stringValue(values.get("currencyCode")), "GBP");
+        if (currencyCode.length() != 3) {
+            throw new IllegalArgumentException("currencyCode must be a 3-letter code: " + currencyCode);
+        }
+        agreement.setCurrencyCode(currencyCode);
+        agreement.setTotalPremium(parseAmount(values.get("totalPremium"), "totalPremium"));
+        agreement.setTotalSumInsured(parseAmount(values.get("totalSumInsured"), "totalSumInsured"));
+        agreement.setAttributes(attributesOf(values));
+        agreement.setCreatedBy(state.createdBy);
+        agreement.setUpdatedBy(state.createdBy);
+
+        OffsetDateTime now = OffsetDateTime.now();
+        agreement.setTemporalKey(new TemporalKey(UUID.randomUUID(), now, now));
+        return agreement;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> attributesOf(Map<String, Object> values) {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        Object raw = values.get("attributes");
+        if (raw instanceof Map<?, ?> map) {
+            attributes.putAll((Map<String, Object>) map);
+        } else if (raw instanceof String json && !json.isBlank()) {
+            try {
+                attributes.putAll(objectMapper.readValue(json, MAP_TYPE));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("attributes is not a JSON object");
+            }
+        }
+        // CSV: attributes.<name> columns, typed as JSON scalars where they parse as one
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (entry.getKey().startsWith(ATTRIBUTE_COLUMN_PREFIX) && entry.getValue() != null
+                    && !entry.getValue().toString().isEmpty()) {
+                attributes.put(entry.getKey().substring(ATTRIBUTE_COLUMN_PREFIX.length()),
+                        csvScalar(entry.getValue().toString()));
+            }
+        }
+        return attributes;
+    }
+
+    private Object csvScalar(String value) {
+        try {
+            JsonNode node = objectMapper.readTree(value);
+            if (node != null && (node.isNumber() || node.isBoolean())) {
+                return objectMapper.treeToValue(node, Object.class);
+            }
+        } catch (JsonProcessingException e) {
+            // Not a JSON literal; keep the text
+        }
+        return value;
+    }
+
+    private String toJson(Map<String, Object> attributes) {
+        try {
+            return objectMapper.writeValueAsString(attributes != null ? attributes : Map.of());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Attributes are not serializable", e);
+        }
+    }
+
+    private static String required(Map<String, Object> values, String field) {
+        String value = stringValue(values.get(field));
+        if (value == null) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        return value;
+    }
+
+    private static String stringValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static String orDefault(String value, String defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+
+    private static UUID parseUuid(String value, String field) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(field + " is not a valid UUID: " + value);
+        }
+    }
+
+    private static LocalDate parseDate(String value, String field) {
+        try {
+            return LocalDate.parse(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(field + " is not an ISO date: " + value);
+        }
+    }
+
+    private static String maxLength(String value, int max, String field) {
+        if (value != null && value.length() > max) {
+            throw new IllegalArgumentException(field + " must not exceed " + max + " characters");
+        }
+        return value;
+    }
+
+    private static BigDecimal parseAmount(Object value, String field) {
+        String text = stringValue(value);
+        if (text == null) {
+            return null;
+        }
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " is not a number: " + text);
+        }
+        if (amount.signum() < 0) {
+            throw new IllegalArgumentException(field + " must not be negative: " + text);
+        }
+        if (amount.precision() - amount.scale() > AMOUNT_INTEGER_DIGITS) {
+            throw new IllegalArgumentException(field + " is out of range: " + text);
+        }
+        return amount;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String field) {
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(field + " has unknown value: " + value);
+        }
+    }
+
+    private static List<String> await(Future<List<String>> validation) {
+        try {
+            return validation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while validating import chunk", e);
+        } catch (ExecutionException e) {
+            return List.of("Validation error: " + e.getCause().getMessage());
+        }
+    }
+
+    // ---- Input readers ----
+
+    private record ImportRow(int number, Map<String, Object> values, String error) {
+    }
+
+    private interface RowReader extends AutoCloseable {
+        /**
+         * @return the next record, or null at end of input
+         */
+        ImportRow next() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private final class NdjsonRowReader implements RowReader {
+
+        private final BufferedReader reader;
+        private int rowNumber;
+
+        NdjsonRowReader(InputStream input) {
+            this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+
+            rowNumber++;
+            try {
+                return new ImportRow(rowNumber, objectMapper.readValue(line, MAP_TYPE), null);
+            } catch (JsonProcessingException e) {
+                return new ImportRow(rowNumber, Map.of(), "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static final class CsvRowReader implements RowReader {
+
+        private final MappingIterator<Map<String, Object>> rows;
+        private int rowNumber;
+        private boolean failed;
+
+        CsvRowReader(InputStream input) throws IOException {
+            this.rows = new CsvMapper()
+                    .readerFor(MAP_TYPE)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(new InputStreamReader(input, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            if (failed) {
+                return null;
+            }
+            try {
+                if (!rows.hasNextValue()) {
+                    return null;
+                }
+                rowNumber++;
+                return new ImportRow(rowNumber, rows.nextValue(), null);
+            } catch (IOException | RuntimeException e) {
+                // The CSV tokenizer cannot resynchronise after a structural error
+                failed = true;
+                return new ImportRow(Math.max(rowNumber, 1), Map.of(),
+                        "Unreadable CSV, remaining input skipped: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            rows.close();
+        }
+    }
+
+    // ---- Import state ----
+
+    private record CompiledType(MetadataAgreementType type, JsonSchema schema, String error) {
+    }
+
+    private static final class Candidate {
+        final int row;
+        final Agreement agreement;
+        List<String> errors;
+
+        Candidate(int row, Agreement agreement) {
+            this.row = row;
+            this.agreement = agreement;
+        }
+    }
+
+    private static final class ImportState {
+        final UUID tenantId;
+        final String userRole;
+        final String createdBy;
+        final Map<UUID, Optional<CompiledType>> compiledTypes = new HashMap<>();
+        final Set<String> seenNumbers = new HashSet<>();
+        final List<AgreementImportReport.RowError> errors = new ArrayList<>();
+        int totalRows;
+        int imported;
+        int failed;
+
+        ImportState(UUID tenantId, String userRole, String createdBy) {
+            this.tenantId = tenantId;
+            this.userRole = userRole;
+            this.createdBy = createdBy;
+        }
+
+        void reject(int row, String agreementNumber, List<String> rowErrors) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new AgreementImportReport.RowError(row, agreementNumber, rowErrors));
+            }
+        }
+    }
+}
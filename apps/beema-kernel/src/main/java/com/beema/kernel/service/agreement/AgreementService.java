@@ -3,6 +3,8 @@ package com.beema.kernel.service.agreement;
 import com.beema.kernel.domain.agreement.Agreement;
 import com.beema.kernel.domain.agreement.AgreementStatus;
 import com.beema.kernel.domain.agreement.MarketContext;
+import com.beema.kernel.repository.agreement.AgreementAttributeProjection;
+import com.beema.kernel.repository.base.KeysetPage;
 import com.beema.kernel.util.SchemaValidator;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -14,6 +16,10 @@ import java.util.UUID;
 
 public interface AgreementService {
 
+    int MAX_HISTORY_PAGE_SIZE = 500;
+
+    int MAX_PROJECTED_ATTRIBUTES = 50;
+
     Agreement createAgreement(Agreement agreement);
 
     Agreement updateAgreement(UUID id, Agreement agreement);
@@ -24,11 +30,37 @@ public interface AgreementService {
 
     Optional<Agreement> getAgreementAsOf(UUID id, String tenantId, OffsetDateTime validAt);
 
+    /**
+     * Bitemporal as-of lookup for many agreements at once. The result follows the order of
+     * {@code ids}; ids with no version at the given times are skipped.
+     */
+    List<Agreement> getAgreementsAsOf(List<UUID> ids, String tenantId,
+                                      OffsetDateTime validAt, OffsetDateTime transactionAt);
+
     List<Agreement> getAgreementHistory(UUID id, String tenantId);
 
+    /**
+     * One page of the agreement's version history in transaction-time order.
+     *
+     * @param cursor opaque cursor from the previous page, or null for the first page
+     * @param size   requested page size, capped at {@link #MAX_HISTORY_PAGE_SIZE}
+     */
+    KeysetPage<Agreement> getAgreementHistoryPage(UUID id, String tenantId, String cursor, int size);
+
     Page<Agreement> getAgreementsByTenantAndContext(String tenantId, MarketContext marketContext, Pageable pageable);
 
     Page<Agreement> getAgreementsByTenantAndStatus(String tenantId, AgreementStatus status, Pageable pageable);
 
+    /**
+     * Current agreements with only the requested attribute paths, for list views that show a
+     * handful of fields. Market context and status filters are optional.
+     *
+     * @param attributePaths dot-separated paths into {@code attributes}, at most
+     *                       {@link #MAX_PROJECTED_ATTRIBUTES}
+     */
+    Page<AgreementAttributeProjection> getAgreementProjections(String tenantId, MarketContext marketContext,
+                                                               AgreementStatus status, List<String> attributePaths,
+                                                               Pageable pageable);
+
     SchemaValidator.ValidationResult validateAgreement(Agreement agreement);
 }
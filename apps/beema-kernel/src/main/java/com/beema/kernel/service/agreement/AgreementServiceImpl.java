@@ -3,14 +3,20 @@ package com.beema.kernel.service.agreement;
 import com.beema.kernel.domain.agreement.Agreement;
 import com.beema.kernel.domain.agreement.AgreementStatus;
 import com.beema.kernel.domain.agreement.MarketContext;
-import com.beema.kernel.domain.base.TemporalKey;
 import com.beema.kernel.domain.metadata.MetadataAgreementType;
 import com.beema.kernel.event.AgreementUpdatedEvent;
-import com.beema.kernel.event.DomainEventPublisher;
+import com.beema.kernel.event.DomainEvent;
 import com.beema.kernel.event.PolicyBoundEvent;
+import com.beema.kernel.event.outbox.EventOutbox;
+import com.beema.kernel.repository.agreement.AgreementAttributeProjection;
 import com.beema.kernel.repository.agreement.AgreementRepository;
+import com.beema.kernel.repository.agreement.AgreementRepositoryCustom;
+import com.beema.kernel.repository.base.BitemporalRepository;
+import com.beema.kernel.repository.base.HistoryCursor;
+import com.beema.kernel.repository.base.KeysetPage;
 import com.beema.kernel.service.expression.ExpressionEvaluator;
 import com.beema.kernel.service.metadata.MetadataService;
+import com.beema.kernel.service.tenant.TenantContextService;
 import com.beema.kernel.util.SchemaValidator;
 import com.beema.kernel.util.SchemaValidator.ValidationResult;
 import jakarta.persistence.EntityNotFoundException;
@@ -24,6 +30,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -36,18 +43,24 @@ public class AgreementServiceImpl implements AgreementService {
     private static final Logger log = LoggerFactory.getLogger(AgreementServiceImpl.class);
 
     private final AgreementRepository agreementRepository;
+    private final BitemporalRepository<Agreement> agreementVersionRepository;
     private final MetadataService metadataService;
     private final ExpressionEvaluator expressionEvaluator;
-    private final DomainEventPublisher eventPublisher;
+    private final EventOutbox eventOutbox;
+    private final AgreementCache agreementCache;
 
     public AgreementServiceImpl(AgreementRepository agreementRepository,
+                                BitemporalRepository<Agreement> agreementVersionRepository,
                                 MetadataService metadataService,
                                 ExpressionEvaluator expressionEvaluator,
-                                DomainEventPublisher eventPublisher) {
+                                EventOutbox eventOutbox,
+                                AgreementCache agreementCache) {
         this.agreementRepository = agreementRepository;
+        this.agreementVersionRepository = agreementVersionRepository;
         this.metadataService = metadataService;
         this.expressionEvaluator = expressionEvaluator;
-        this.eventPublisher = eventPublisher;
+        this.eventOutbox = eventOutbox;
+        this.agreementCache = agreementCache;
     }
 
     @Override
@@ -81,19 +94,14 @@ public class AgreementServiceImpl implements AgreementService {
                     "Agreement attributes failed schema validation: " + String.join("; ", validation.errors()));
         }
 
-        // Close the current version
-        OffsetDateTime now = OffsetDateTime.now();
-        current.setValidTo(now);
-        current.setIsCurrent(false);
-        agreementRepository.save(current);
-
-        // Create new bitemporal version
-        update.setTemporalKey(new TemporalKey(id, now, now));
+        // Based on the version just read: if another update supersedes it first, this one
+        // fails with an OptimisticLockException instead of overwriting it
+        update.setTemporalKey(current.getTemporalKey());
         update.setAgreementNumber(current.getAgreementNumber());
         update.setIsCurrent(true);
-        update.setValidTo(null);
 
-        Agreement saved = agreementRepository.save(update);
+        Agreement saved = agreementVersionRepository.createNewVersion(update);
+        agreementCache.invalidateAfterCommit(update.getTenantId().toString(), id);
         log.info("Updated agreement {} - new version at {}",
                 saved.getAgreementNumber(), saved.getTemporalKey().getTransactionTime());
 
@@ -105,7 +113,10 @@ public class AgreementServiceImpl implements AgreementService {
 
     @Override
     public Optional<Agreement> getCurrentAgreement(UUID id) {
-        return agreementRepository.findCurrentById(id, null);
+        String tenantId = TenantContextService.getTenantContext()
+                .map(context -> context.tenantId().toString())
+                .orElse(null);
+        return agreementCache.get(tenantId, id, () -> agreementRepository.findCurrentById(id, tenantId));
     }
 
     @Override
@@ -119,11 +130,47 @@ public class AgreementServiceImpl implements AgreementService {
         return results.isEmpty() ? Optional.empty() : Optional.of(results.getFirst());
     }
 
+    @Override
+    public List<Agreement> getAgreementsAsOf(List<UUID> ids, String tenantId,
+                                             OffsetDateTime validAt, OffsetDateTime transactionAt) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, Agreement> byId = new HashMap<>();
+        for (Agreement agreement : agreementRepository.findAllAsOf(ids, tenantId, validAt, transactionAt)) {
+            byId.put(agreement.getTemporalKey().getId(), agreement);
+        }
+
+        List<Agreement> ordered = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            Agreement agreement = byId.get(id);
+            if (agreement != null) {
+                ordered.add(agreement);
+            }
+        }
+        return ordered;
+    }
+
     @Override
     public List<Agreement> getAgreementHistory(UUID id, String tenantId) {
         return agreementRepository.findHistory(id, tenantId);
     }
 
+    @Override
+    public KeysetPage<Agreement> getAgreementHistoryPage(UUID id, String tenantId, String cursor, int size) {
+        HistoryCursor after = null;
+        if (cursor != null) {
+            try {
+                after = HistoryCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Invalid history cursor");
+            }
+        }
+        int limit = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        return agreementRepository.findHistoryPage(id, tenantId, after, limit);
+    }
+
     @Override
     public Page<Agreement> getAgreementsByTenantAndContext(String tenantId, MarketContext marketContext,
                                                            Pageable pageable) {
@@ -136,6 +183,26 @@ public class AgreementServiceImpl implements AgreementService {
         return agreementRepository.findAllCurrentByTenantAndStatus(tenantId, status, pageable);
     }
 
+    @Override
+    public Page<AgreementAttributeProjection> getAgreementProjections(String tenantId, MarketContext marketContext,
+                                                                      AgreementStatus status,
+                                                                      List<String> attributePaths,
+                                                                      Pageable pageable) {
+        if (attributePaths == null || attributePaths.isEmpty()) {
+            throw new ValidationException("At least one attribute path is required");
+        }
+        if (attributePaths.size() > MAX_PROJECTED_ATTRIBUTES) {
+            throw new ValidationException("At most " + MAX_PROJECTED_ATTRIBUTES + " attribute paths may be requested");
+        }
+        List<String> paths = attributePaths.stream().map(String::trim).distinct().toList();
+        for (String path : paths) {
+            if (!AgreementRepositoryCustom.ATTRIBUTE_PATH.matcher(path).matches()) {
+                throw new ValidationException("Invalid attribute path: " + path);
+            }
+        }
+        return agreementRepository.findCurrentProjected(tenantId, marketContext, status, paths, pageable);
+    }
+
     @Override
     public ValidationResult validateAgreement(Agreement agreement) {
         List<String> errors = new ArrayList<>();
@@ -178,7 +245,7 @@ public class AgreementServiceImpl implements AgreementService {
         return result.isValid() ? List.of() : result.errors();
     }
 
-    private List<String> validateMarketContextRules(Agreement agreement) {
+    static List<String> validateMarketContextRules(Agreement agreement) {
         List<String> errors = new ArrayList<>();
 
         if (agreement.getMarketContext() == null) {
@@ -214,70 +281,63 @@ public class AgreementServiceImpl implements AgreementService {
         return errors;
     }
 
+    static PolicyBoundEvent toPolicyBoundEvent(Agreement agreement) {
+        PolicyBoundEvent event = new PolicyBoundEvent(
+            agreement.getAgreementNumber(),
+            agreement.getTemporalKey().getId().toString(),
+            agreement.getMarketContext().name()
+        );
+
+        // Add additional context
+        event.withData("agreementTypeId", agreement.getAgreementTypeId());
+        event.withData("status", agreement.getStatus().name());
+        if (agreement.getTotalPremium() != null) {
+            event.withData("premium", agreement.getTotalPremium());
+        }
+        if (agreement.getInceptionDate() != null) {
+            event.withData("inceptionDate", agreement.getInceptionDate().toString());
+        }
+        if (agreement.getExpiryDate() != null) {
+            event.withData("expiryDate", agreement.getExpiryDate().toString());
+        }
+        return event;
+    }
+
     /**
-     * Publish PolicyBound event to Inngest
+     * Queue PolicyBound event in the outbox, in the transaction that created the agreement
      */
     private void publishPolicyBoundEvent(Agreement agreement) {
-        try {
-            PolicyBoundEvent event = new PolicyBoundEvent(
-                agreement.getAgreementNumber(),
-                agreement.getTemporalKey().getId().toString(),
-                agreement.getMarketContext().name()
-            );
-
-            // Add additional context
-            event.withData("agreementTypeId", agreement.getAgreementTypeId());
-            event.withData("status", agreement.getStatus().name());
-            if (agreement.getTotalPremium() != null) {
-                event.withData("premium", agreement.getTotalPremium());
-            }
-            if (agreement.getInceptionDate() != null) {
-                event.withData("inceptionDate", agreement.getInceptionDate().toString());
-            }
-            if (agreement.getExpiryDate() != null) {
-                event.withData("expiryDate", agreement.getExpiryDate().toString());
-            }
-
-            eventPublisher.publishWithMetadata(
-                event,
-                agreement.getTenantId().toString(),
-                "system",
-                "system@beema.io"
-            );
-        } catch (Exception e) {
-            log.error("Failed to publish PolicyBound event for agreement: {}",
-                agreement.getAgreementNumber(), e);
-        }
+        PolicyBoundEvent event = toPolicyBoundEvent(agreement);
+        withSystemMetadata(event, agreement);
+        eventOutbox.enqueue(event, agreement.getTenantId());
     }
 
     /**
-     * Publish AgreementUpdated event to Inngest
+     * Queue AgreementUpdated event in the outbox. Updates to the same agreement that are still
+     * pending coalesce, so subscribers see the latest version once.
      */
     private void publishAgreementUpdatedEvent(Agreement agreement, String changeType) {
-        try {
-            Map<String, Object> changes = Map.of(
-                "status", agreement.getStatus().name(),
-                "transactionTime", agreement.getTemporalKey().getTransactionTime().toString()
-            );
-
-            AgreementUpdatedEvent event = new AgreementUpdatedEvent(
-                agreement.getTemporalKey().getId().toString(),
-                changeType,
-                changes
-            );
-
-            event.withData("agreementNumber", agreement.getAgreementNumber());
-            event.withData("marketContext", agreement.getMarketContext().name());
-
-            eventPublisher.publishWithMetadata(
-                event,
-                agreement.getTenantId().toString(),
-                "system",
-                "system@beema.io"
-            );
-        } catch (Exception e) {
-            log.error("Failed to publish AgreementUpdated event for agreement: {}",
-                agreement.getAgreementNumber(), e);
-        }
+        Map<String, Object> changes = Map.of(
+            "status", agreement.getStatus().name(),
+            "transactionTime", agreement.getTemporalKey().getTransactionTime().toString()
+        );
+
+        AgreementUpdatedEvent event = new AgreementUpdatedEvent(
+            agreement.getTemporalKey().getId().toString(),
+            changeType,
+            changes
+        );
+
+        event.withData("agreementNumber", agreement.getAgreementNumber());
+        event.withData("marketContext", agreement.getMarketContext().name());
+        withSystemMetadata(event, agreement);
+
+        eventOutbox.enqueue(event, agreement.getTenantId(),
+            event.getEventName() + ":" + agreement.getTemporalKey().getId());
+    }
+
+    static void withSystemMetadata(DomainEvent event, Agreement agreement) {
+        event.withUser("system", "system@beema.io");
+        event.withData("tenantId", agreement.getTenantId().toString());
     }
 }
@@ -40,17 +40,27 @@ public class BatchJobService {
         if (!config.getEnabled()) {
             throw new IllegalStateException("Batch job is disabled: " + jobName);
         }
+        config.requireRestartablePartitions();
 
         // Build job parameters
         JobParametersBuilder paramsBuilder = new JobParametersBuilder();
 
         // Add required parameters from config
+        paramsBuilder.addString("jobName", config.getJobName());
         paramsBuilder.addString("readerSql", config.getReaderSql());
         paramsBuilder.addString("processorScript", config.getProcessorJexl());
         paramsBuilder.addString("writerSql", config.getWriterSql() != null
                 ? config.getWriterSql()
                 : generateWriterSql(config));
         paramsBuilder.addLong("chunkSize", config.getChunkSize().longValue());
+        if (config.isKeysetPaged()) {
+            paramsBuilder.addString("readerKeyColumns", config.getReaderKeyColumns());
+        }
+        if (config.isPartitioned()) {
+            paramsBuilder.addString("partitionColumn", config.getPartitionColumn());
+            paramsBuilder.addString("partitionStrategy", config.getPartitionStrategy());
+            paramsBuilder.addLong("partitionCount", config.getPartitionCount().longValue());
+        }
 
         // Add unique run ID
         paramsBuilder.addString("runId", UUID.randomUUID().toString());
@@ -78,6 +78,30 @@ public class JexlExpressionEngine {
         }
     }
 
+    /**
+     * Validates and compiles a script once for repeated execution, e.g. by a batch item
+     * processor. Unlike {@link #evaluate}, the script may contain several statements and
+     * assignments. Execute it with a {@link RecordContext} bound to each record in turn.
+     *
+     * @param script JEXL script (e.g., "item.status = 'CLOSED'; item")
+     * @return Compiled script, safe to share between threads
+     * @throws ExpressionEvaluationException if the script is empty, blocked or has a syntax error
+     */
+    public CompiledScript compile(String script) {
+        if (script == null || script.isBlank()) {
+            throw new ExpressionEvaluationException("Expression script cannot be null or empty");
+        }
+
+        validateSafeExpression(script);
+
+        try {
+            return new CompiledScript(script, jexlEngine.createScript(script));
+        } catch (JexlException.Parsing e) {
+            throw new ExpressionEvaluationException(
+                    String.format("Syntax error in expression '%s': %s", script, e.getMessage()), e);
+        }
+    }
+
     /**
      * Evaluates expression and converts result to BigDecimal with specified scale.
      * Useful for monetary/percentage calculations.
@@ -168,7 +192,7 @@ public class JexlExpressionEngine {
      * Integers are converted to Double to ensure decimal division (e.g., 500/12 = 41.666... not 41).
      * This is important for insurance calculations which require decimal precision.
      */
-    private Object convertToJexlType(Object value) {
+    private static Object convertToJexlType(Object value) {
         if (value == null) {
             return null;
         }
@@ -264,9 +288,7 @@ public class JexlExpressionEngine {
             }
 
             // Block any variable name that looks like a Java package
-            if (name != null && (name.startsWith("java.") || name.equals("java"))) {
-                throw new IllegalAccessError("Access to java.* packages is blocked for security");
-            }
+            checkVariable(name);
             return delegate.get(name);
         }
 
@@ -277,7 +299,7 @@ public class JexlExpressionEngine {
 
         @Override
         public boolean has(String name) {
-            if (name != null && (name.startsWith("java.") || name.equals("java"))) {
+            if (isJavaPackage(name)) {
                 return false;
             }
             return delegate.has(name);
@@ -285,15 +307,114 @@ public class JexlExpressionEngine {
 
         @Override
         public Object resolveNamespace(String name) {
-            // Block namespace resolution for java.* packages
-            if (name != null && (name.startsWith("java") || name.equals("System") ||
-                    name.equals("Runtime") || name.equals("Class") || name.equals("File"))) {
-                throw new IllegalAccessError("Access to java.* packages is blocked for security");
+            return blockNamespace(name);
+        }
+    }
+
+    /**
+     * Script compiled by {@link #compile}. The script itself is immutable; all per-record
+     * state lives in the {@link RecordContext} passed to {@link #execute}.
+     */
+    public static final class CompiledScript {
+        private final String source;
+        private final JexlScript script;
+
+        private CompiledScript(String source, JexlScript script) {
+            this.source = source;
+            this.script = script;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * Executes the script against the record currently bound to the context.
+         *
+         * @return Value of the last statement
+         * @throws ExpressionEvaluationException if evaluation fails or hits a blocked namespace
+         */
+        public Object execute(RecordContext context) {
+            try {
+                return script.execute(context);
+            } catch (IllegalAccessError e) {
+                throw new ExpressionEvaluationException(
+                        String.format("Security violation in expression '%s': %s", source, e.getMessage()), e);
+            } catch (JexlException e) {
+                throw new ExpressionEvaluationException(
+                        String.format("Evaluation error for expression '%s': %s", source, e.getMessage()), e);
             }
-            return null; // No custom namespaces
         }
     }
 
+    /**
+     * Reusable, sandboxed context for {@link CompiledScript}. Reads go straight to the bound
+     * record instead of copying it: each field is a top-level variable (integers read as
+     * Double, as in {@link #evaluate}) and {@code item} is the record itself. Top-level
+     * assignments write through to the record.
+     *
+     * Not thread-safe; keep one per thread and {@link #bind} each record before executing.
+     */
+    public static final class RecordContext implements JexlContext, JexlContext.NamespaceResolver {
+        private static final String ITEM = "item";
+
+        private Map<String, Object> record = Map.of();
+
+        public RecordContext bind(Map<String, Object> record) {
+            this.record = record != null ? record : Map.of();
+            return this;
+        }
+
+        @Override
+        public Object get(String name) {
+            if ("Math".equals(name)) {
+                return Math.class;
+            }
+            checkVariable(name);
+            if (ITEM.equals(name) && !record.containsKey(ITEM)) {
+                return record;
+            }
+            return convertToJexlType(record.get(name));
+        }
+
+        @Override
+        public void set(String name, Object value) {
+            record.put(name, value);
+        }
+
+        @Override
+        public boolean has(String name) {
+            if (isJavaPackage(name)) {
+                return false;
+            }
+            return ITEM.equals(name) || record.containsKey(name);
+        }
+
+        @Override
+        public Object resolveNamespace(String name) {
+            return blockNamespace(name);
+        }
+    }
+
+    private static boolean isJavaPackage(String name) {
+        return name != null && (name.startsWith("java.") || name.equals("java"));
+    }
+
+    private static void checkVariable(String name) {
+        if (isJavaPackage(name)) {
+            throw new IllegalAccessError("Access to java.* packages is blocked for security");
+        }
+    }
+
+    private static Object blockNamespace(String name) {
+        // Block namespace resolution for java.* packages
+        if (name != null && (name.startsWith("java") || name.equals("System") ||
+                name.equals("Runtime") || name.equals("Class") || name.equals("File"))) {
+            throw new IllegalAccessError("Access to java.* packages is blocked for security");
+        }
+        return null; // No custom namespaces
+    }
+
     /**
      * Creates strict sandbox permissions blocking high-risk Java classes.
      *
@@ -0,0 +1,198 @@
+package com.beema.kernel.service.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Shares one PostgreSQL connection between every LISTEN channel of this node and hands the
+ * notifications of each channel to the component that subscribed to it.
+ *
+ * Components subscribe while the context starts (e.g. from {@code @PostConstruct}); the
+ * listener starts once the application is ready. If the connection fails, it reconnects with
+ * exponential backoff. NOTIFY is not durable: anything published while the connection is down
+ * is lost, so every subscriber's {@link Subscriber#onListen} is called each time LISTEN is
+ * (re-)established, for it to resynchronise. A subscriber that throws has the connection
+ * re-established the same way, so a failed resynchronisation is retried.
+ */
+@Component
+public class PostgresNotificationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresNotificationListener.class);
+
+    private static final Pattern CHANNEL = Pattern.compile("^[a-z_][a-z0-9_]{0,62}$");
+
+    /**
+     * Callbacks of one channel, called on the listener thread.
+     */
+    public interface Subscriber {
+
+        /**
+         * Called each time LISTEN is (re-)established, before any notification of the channel.
+         */
+        void onListen();
+
+        /**
+         * Called with the payloads of the channel's notifications received in one poll, in order.
+         */
+        void onNotifications(List<String> payloads);
+    }
+
+    private final DataSource dataSource;
+    private final int idleWaitMs;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final Map<String, Subscriber> subscribers = new LinkedHashMap<>();
+
+    private final AtomicBoolean connected = new AtomicBoolean(false);
+    private final Counter reconnects;
+
+    private volatile boolean running;
+    private ExecutorService executorService;
+
+    public PostgresNotificationListener(DataSource dataSource,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${beema.notifications.listener.idle-wait-ms:5000}") int idleWaitMs,
+                                        @Value("${beema.notifications.listener.reconnect-initial-backoff-ms:500}") long initialBackoffMs,
+                                        @Value("${beema.notifications.listener.reconnect-max-backoff-ms:30000}") long maxBackoffMs) {
+        this.dataSource = dataSource;
+        this.idleWaitMs = idleWaitMs;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+
+        this.reconnects = Counter.builder("pg.notification.listener.reconnects")
+                .description("LISTEN connection reconnect attempts")
+                .register(meterRegistry);
+        Gauge.builder("pg.notification.listener.connected", connected, c -> c.get() ? 1 : 0)
+                .description("1 while the LISTEN connection is active")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Subscribes to a channel.
+     *
+     * @throws IllegalArgumentException if the channel name is invalid or already subscribed
+     * @throws IllegalStateException    if the listener has already started
+     */
+    public synchronized void subscribe(String channel, Subscriber subscriber) {
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid notification channel name: " + channel);
+        }
+        if (running) {
+            throw new IllegalStateException("Cannot subscribe to " + channel + " after the listener has started");
+        }
+        if (subscribers.putIfAbsent(channel, subscriber) != null) {
+            throw new IllegalArgumentException("Notification channel already subscribed: " + channel);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running || subscribers.isEmpty()) {
+            return;
+        }
+        running = true;
+        executorService = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "pg-notification-listener");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executorService.submit(this::listen);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (executorService != null) {
+            executorService.shutdown();
+            try {
+                // The listener wakes up at least every idleWaitMs to observe the stop flag
+                if (!executorService.awaitTermination(idleWaitMs + 1000L, TimeUnit.MILLISECONDS)) {
+                    executorService.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executorService.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void listen() {
+        long backoffMs = initialBackoffMs;
+        while (running) {
+            try (Connection conn = dataSource.getConnection();
+                 Statement stmt = conn.createStatement()) {
+
+                PGConnection pgConn = conn.unwrap(PGConnection.class);
+                for (String channel : subscribers.keySet()) {
+                    stmt.execute("LISTEN " + channel);
+                }
+                connected.set(true);
+                backoffMs = initialBackoffMs;
+                // Changes made while we were not listening were never delivered
+                for (Subscriber subscriber : subscribers.values()) {
+                    subscriber.onListen();
+                }
+                log.info("LISTEN active for channels: {}", subscribers.keySet());
+
+                while (running) {
+                    PGNotification[] notifications = pgConn.getNotifications(idleWaitMs);
+                    if (notifications != null && notifications.length > 0) {
+                        dispatch(notifications);
+                    }
+                }
+            } catch (Exception e) {
+                connected.set(false);
+                if (!running) {
+                    break;
+                }
+                reconnects.increment();
+                log.error("Error in notification listener, reconnecting in {}ms: {}", backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+            }
+        }
+        connected.set(false);
+    }
+
+    private void dispatch(PGNotification[] notifications) {
+        Map<String, List<String>> payloads = new LinkedHashMap<>();
+        for (PGNotification notification : notifications) {
+            payloads.computeIfAbsent(notification.getName(), channel -> new ArrayList<>())
+                    .add(notification.getParameter());
+        }
+        payloads.forEach((channel, channelPayloads) -> {
+            Subscriber subscriber = subscribers.get(channel);
+            if (subscriber != null) {
+                subscriber.onNotifications(channelPayloads);
+            }
+        });
+    }
+}
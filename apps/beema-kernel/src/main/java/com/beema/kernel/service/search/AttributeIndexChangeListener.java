@@ -0,0 +1,53 @@
+package com.beema.kernel.service.search;
+
+import com.beema.kernel.service.notification.PostgresNotificationListener;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Subscribes to the {@code attribute_index_changed} channel (see V22) and reloads the READY
+ * attribute indexes of {@link AttributeIndexManager}, so indexes built or dropped by another
+ * node change this node's lookup routing too.
+ *
+ * NOTIFY is not durable: anything published while the connection is down is lost, so the
+ * registry is reloaded each time LISTEN is (re-)established.
+ */
+@Component
+public class AttributeIndexChangeListener implements PostgresNotificationListener.Subscriber {
+
+    static final String CHANNEL = "attribute_index_changed";
+
+    private final PostgresNotificationListener notificationListener;
+    private final AttributeIndexManager attributeIndexManager;
+    private final boolean enabled;
+
+    public AttributeIndexChangeListener(PostgresNotificationListener notificationListener,
+                                        AttributeIndexManager attributeIndexManager,
+                                        @Value("${beema.search.attribute-indexes.listener.enabled:true}") boolean enabled) {
+        this.notificationListener = notificationListener;
+        this.attributeIndexManager = attributeIndexManager;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (enabled) {
+            notificationListener.subscribe(CHANNEL, this);
+        }
+    }
+
+    @Override
+    public void onListen() {
+        // Changes made while we were not listening were never delivered
+        attributeIndexManager.refreshReadyAttributes();
+    }
+
+    @Override
+    public void onNotifications(List<String> payloads) {
+        // The payload is empty; one reload covers every pending notification
+        attributeIndexManager.refreshReadyAttributes();
+    }
+}
@@ -0,0 +1,294 @@
+package com.beema.kernel.service.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps B-tree expression indexes on {@code agreements.attributes->>'name'} in line with the
+ * attributes the metadata registry flags as searchable, plus the shared GIN
+ * {@code jsonb_path_ops} index used for containment queries.
+ *
+ * Indexes are built and dropped with {@code CONCURRENTLY} so agreement writes are never
+ * blocked; these statements cannot run inside a transaction, so the manager works on its own
+ * auto-commit connection rather than through JPA. Every index it owns, and the state of its
+ * last build, is recorded in {@code sys_attribute_indexes}. A build interrupted by a restart
+ * leaves an invalid index behind, which the next reconcile drops and rebuilds. Other nodes
+ * pick up registry changes through {@link AttributeIndexChangeListener}.
+ */
+@Service
+public class AttributeIndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(AttributeIndexManager.class);
+
+    static final String GIN_INDEX_NAME = "idx_agreements_attributes";
+    private static final String INDEX_PREFIX = "idx_agreements_attr_";
+    private static final int MAX_IDENTIFIER_LENGTH = 63;
+
+    // Attribute names are inlined as SQL literals in index expressions; only allow plain identifiers
+    private static final Pattern SAFE_ATTRIBUTE_NAME = Pattern.compile("^[A-Za-z][A-Za-z0-9_]{0,254}$");
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+
+    private volatile Set<String> readyAttributes = Set.of();
+
+    public AttributeIndexManager(DataSource dataSource,
+                                 @Value("${beema.search.attribute-indexes.enabled:true}") boolean enabled) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refreshReadyAttributes();
+        if (!enabled) {
+            log.info("AttributeIndexManager: automatic reconcile disabled");
+            return;
+        }
+        // Concurrent index builds can take minutes on large tables; do not hold up startup
+        Thread reconcileThread = new Thread(this::reconcileQuietly, "attribute-index-reconcile");
+        reconcileThread.setDaemon(true);
+        reconcileThread.start();
+    }
+
+    /**
+     * True when a READY expression index exists for the attribute, i.e. an equality lookup
+     * on {@code attributes->>'attributeName'} can use it.
+     */
+    public boolean isExpressionIndexed(String attributeName) {
+        return readyAttributes.contains(attributeName);
+    }
+
+    /**
+     * Creates missing indexes for searchable attributes, rebuilds failed or invalid ones, drops
+     * indexes for attributes that are no longer searchable and ensures the GIN index exists.
+     */
+    public synchronized List<AttributeIndexStatus> reconcile() {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(true);
+            try {
+                reconcile(conn);
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Attribute index reconcile failed: " + e.getMessage(), e);
+        }
+        refreshReadyAttributes();
+        return getStatus();
+    }
+
+    public List<AttributeIndexStatus> getStatus() {
+        try (Connection conn = dataSource.getConnection()) {
+            return loadStatus(conn);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to read attribute index status: " + e.getMessage(), e);
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            List<AttributeIndexStatus> status = reconcile();
+            log.info("AttributeIndexManager: reconcile complete, {} managed indexes", status.size());
+        } catch (Exception e) {
+            log.error("AttributeIndexManager: reconcile failed", e);
+        }
+    }
+
+    private void reconcile(Connection conn) throws SQLException {
+        Set<String> searchable = loadSearchableAttributes(conn);
+        Map<String, AttributeIndexStatus> tracked = loadStatus(conn).stream()
+                .collect(Collectors.toMap(AttributeIndexStatus::indexName, Function.identity()));
+
+        ensureIndex(conn, tracked.get(GIN_INDEX_NAME), GIN_INDEX_NAME, null,
+                "CREATE INDEX CONCURRENTLY " + GIN_INDEX_NAME +
+                        " ON agreements USING GIN (attributes jsonb_path_ops) WHERE is_current = TRUE");
+
+        for (String attribute : searchable) {
+            String indexName = indexNameFor(attribute);
+            ensureIndex(conn, tracked.get(indexName), indexName, attribute,
+                    "CREATE INDEX CONCURRENTLY " + indexName +
+                            " ON agreements (tenant_id, (attributes ->> '" + attribute + "'))" +
+                            " WHERE is_current = TRUE");
+        }
+
+        for (AttributeIndexStatus index : tracked.values()) {
+            if (AttributeIndexStatus.TYPE_EXPRESSION.equals(index.indexType())
+                    && !searchable.contains(index.attributeName())) {
+                dropIndex(conn, index);
+            }
+        }
+    }
+
+    private void ensureIndex(Connection conn, AttributeIndexStatus tracked, String indexName,
+                             String attributeName, String createSql) throws SQLException {
+        Boolean valid = indexValidity(conn, indexName);
+        if (Boolean.TRUE.equals(valid)) {
+            if (tracked == null || !tracked.isReady()) {
+                upsertStatus(conn, indexName, attributeName, AttributeIndexStatus.READY, null);
+            }
+            return;
+        }
+
+        upsertStatus(conn, indexName, attributeName, AttributeIndexStatus.BUILDING, null);
+        try (Statement stmt = conn.createStatement()) {
+            if (valid != null) {
+                // Left INVALID by an interrupted concurrent build
+                log.warn("Dropping invalid index {} before rebuild", indexName);
+                stmt.execute("DROP INDEX CONCURRENTLY IF EXISTS " + indexName);
+            }
+            long start = System.currentTimeMillis();
+            stmt.execute(createSql);
+            upsertStatus(conn, indexName, attributeName, AttributeIndexStatus.READY, null);
+            log.info("Built index {} in {} ms", indexName, System.currentTimeMillis() - start);
+        } catch (SQLException e) {
+            log.error("Failed to build index {}: {}", indexName, e.getMessage());
+            upsertStatus(conn, indexName, attributeName, AttributeIndexStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private void dropIndex(Connection conn, AttributeIndexStatus index) throws SQLException {
+        upsertStatus(conn, index.indexName(), index.attributeName(), AttributeIndexStatus.DROPPING, null);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP INDEX CONCURRENTLY IF EXISTS " + index.indexName());
+            try (PreparedStatement delete = conn.prepareStatement(
+                    "DELETE FROM sys_attribute_indexes WHERE index_name = ?")) {
+                delete.setString(1, index.indexName());
+                delete.executeUpdate();
+            }
+            log.info("Dropped index {} (attribute {} no longer searchable)", index.indexName(), index.attributeName());
+        } catch (SQLException e) {
+            log.error("Failed to drop index {}: {}", index.indexName(), e.getMessage());
+            upsertStatus(conn, index.indexName(), index.attributeName(), AttributeIndexStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private Set<String> loadSearchableAttributes(Connection conn) throws SQLException {
+        Set<String> names = new LinkedHashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT attribute_name FROM searchable_attribute_names()")) {
+            while (rs.next()) {
+                String name = rs.getString(1);
+                if (SAFE_ATTRIBUTE_NAME.matcher(name).matches()) {
+                    names.add(name);
+                } else {
+                    log.warn("Skipping expression index for searchable attribute with unsupported name: {}", name);
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @return TRUE if the index exists and is valid, FALSE if it exists but is invalid, null if absent
+     */
+    private Boolean indexValidity(Connection conn, String indexName) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT i.indisvalid FROM pg_class c JOIN pg_index i ON i.indexrelid = c.oid " +
+                        "WHERE c.relname = ? AND c.relnamespace = 'public'::regnamespace")) {
+            ps.setString(1, indexName);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getBoolean(1) : null;
+            }
+        }
+    }
+
+    private void upsertStatus(Connection conn, String indexName, String attributeName,
+                              String status, String errorMessage) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO sys_attribute_indexes (index_name, attribute_name, index_type, status, error_message) " +
+                        "VALUES (?, ?, ?, ?, ?) " +
+                        "ON CONFLICT (index_name) DO UPDATE SET status = EXCLUDED.status, " +
+                        "error_message = EXCLUDED.error_message, updated_at = CURRENT_TIMESTAMP")) {
+            ps.setString(1, indexName);
+            ps.setString(2, attributeName);
+            ps.setString(3, attributeName == null ? AttributeIndexStatus.TYPE_GIN : AttributeIndexStatus.TYPE_EXPRESSION);
+            ps.setString(4, status);
+            ps.setString(5, errorMessage);
+            ps.executeUpdate();
+        }
+    }
+
+    private List<AttributeIndexStatus> loadStatus(Connection conn) throws SQLException {
+        List<AttributeIndexStatus> result = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT index_name, attribute_name, index_type, status, error_message, updated_at " +
+                             "FROM sys_attribute_indexes ORDER BY index_name")) {
+            while (rs.next()) {
+                result.add(new AttributeIndexStatus(
+                        rs.getString("index_name"),
+                        rs.getString("attribute_name"),
+                        rs.getString("index_type"),
+                        rs.getString("status"),
+                        rs.getString("error_message"),
+                        rs.getObject("updated_at", OffsetDateTime.class)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reloads the attributes with a READY expression index from {@code sys_attribute_indexes}.
+     * Called after a local reconcile and by {@link AttributeIndexChangeListener} when any node
+     * changes the registry.
+     */
+    public void refreshReadyAttributes() {
+        try {
+            readyAttributes = getStatus().stream()
+                    .filter(s -> AttributeIndexStatus.TYPE_EXPRESSION.equals(s.indexType()) && s.isReady())
+                    .map(AttributeIndexStatus::attributeName)
+                    .collect(Collectors.toUnmodifiableSet());
+        } catch (Exception e) {
+            log.warn("AttributeIndexManager: could not load index status, equality routing disabled: {}",
+                    e.getMessage());
+            readyAttributes = Set.of();
+        }
+    }
+
+    /**
+     * Postgres identifiers are limited to 63 bytes and folded to lower case; long or mixed-case
+     * attribute names get a short hash suffix so distinct attributes never collide.
+     */
+    static String indexNameFor(String attributeName) {
+        String lower = attributeName.toLowerCase(Locale.ROOT);
+        String name = INDEX_PREFIX + lower;
+        if (name.length() <= MAX_IDENTIFIER_LENGTH && lower.equals(attributeName)) {
+            return name;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(attributeName.getBytes(StandardCharsets.UTF_8));
+            String suffix = "_" + HexFormat.of().formatHex(digest, 0, 4);
+            return name.substring(0, Math.min(name.length(), MAX_IDENTIFIER_LENGTH - suffix.length())) + suffix;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
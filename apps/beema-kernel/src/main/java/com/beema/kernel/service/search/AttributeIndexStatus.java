@@ -0,0 +1,32 @@
+package com.beema.kernel.service.search;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Row of {@code sys_attribute_indexes}: one index on {@code agreements.attributes}
+ * owned by {@link AttributeIndexManager}.
+ *
+ * @param attributeName null for the shared GIN index
+ * @param indexType     EXPRESSION or GIN
+ * @param status        BUILDING, READY, FAILED or DROPPING
+ */
+public record AttributeIndexStatus(
+        String indexName,
+        String attributeName,
+        String indexType,
+        String status,
+        String errorMessage,
+        OffsetDateTime updatedAt) {
+
+    public static final String TYPE_EXPRESSION = "EXPRESSION";
+    public static final String TYPE_GIN = "GIN";
+
+    public static final String BUILDING = "BUILDING";
+    public static final String READY = "READY";
+    public static final String FAILED = "FAILED";
+    public static final String DROPPING = "DROPPING";
+
+    public boolean isReady() {
+        return READY.equals(status);
+    }
+}
@@ -33,11 +33,27 @@ public class SchemaValidator {
             return ValidationResult.valid();
         }
 
+        JsonSchema jsonSchema;
         try {
-            JsonNode schemaNode = objectMapper.valueToTree(schema);
-            JsonNode dataNode = objectMapper.valueToTree(attributes);
+            jsonSchema = compile(schema);
+        } catch (Exception e) {
+            log.error("Schema validation error: {}", e.getMessage(), e);
+            return ValidationResult.invalid(List.of("Schema validation error: " + e.getMessage()));
+        }
+        return validate(attributes, jsonSchema);
+    }
+
+    /**
+     * Compiles a schema once for repeated validation. The result is immutable and may be
+     * shared between threads.
+     */
+    public JsonSchema compile(Map<String, Object> schema) {
+        return schemaFactory.getSchema(objectMapper.valueToTree(schema));
+    }
 
-            JsonSchema jsonSchema = schemaFactory.getSchema(schemaNode);
+    public ValidationResult validate(Map<String, Object> attributes, JsonSchema jsonSchema) {
+        try {
+            JsonNode dataNode = objectMapper.valueToTree(attributes);
             Set<ValidationMessage> errors = jsonSchema.validate(dataNode);
 
             if (errors.isEmpty()) {
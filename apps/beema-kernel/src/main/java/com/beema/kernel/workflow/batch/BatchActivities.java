@@ -25,6 +25,16 @@ public interface BatchActivities {
     @ActivityMethod
     Long startBatchJob(String jobName, Map<String, Object> parameters);
 
+    /**
+     * Starts a Spring Batch job and completes when the job ends. The activity returns without
+     * completing; {@link BatchJobTracker} heartbeats the job's {@link BatchProgress} while it
+     * runs and completes the activity with the result, or fails it, when the job finishes.
+     *
+     * @return Result of the finished job
+     */
+    @ActivityMethod
+    BatchExecutionResult runBatchJob(String jobName, Map<String, Object> parameters);
+
     /**
      * Checks the status of a running batch job.
      */
@@ -3,31 +3,57 @@ package com.beema.kernel.workflow.batch;
 import com.beema.kernel.domain.batch.BatchJobConfig;
 import com.beema.kernel.repository.batch.BatchJobConfigRepository;
 import com.beema.kernel.batch.DynamicBatchJob;
+import com.beema.kernel.batch.DynamicJdbcItemWriter;
+import com.beema.kernel.batch.partition.SqlKeyPartitioner;
+import io.temporal.activity.Activity;
+import io.temporal.activity.ActivityExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.*;
 import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
 import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class BatchActivitiesImpl implements BatchActivities {
 
+    private static final Logger log = LoggerFactory.getLogger(BatchActivitiesImpl.class);
+
     private final BatchJobConfigRepository configRepository;
     private final DynamicBatchJob dynamicBatchJob;
     private final JobLauncher jobLauncher;
     private final JobExplorer jobExplorer;
+    private final BatchJobTracker jobTracker;
+    private final TaskExecutorJobLauncher asyncJobLauncher;
 
     public BatchActivitiesImpl(
             BatchJobConfigRepository configRepository,
             DynamicBatchJob dynamicBatchJob,
             JobLauncher jobLauncher,
-            JobExplorer jobExplorer) {
+            JobExplorer jobExplorer,
+            JobRepository jobRepository,
+            BatchJobTracker jobTracker,
+            @Qualifier("batchJobExecutor") TaskExecutor batchJobExecutor) throws Exception {
         this.configRepository = configRepository;
         this.dynamicBatchJob = dynamicBatchJob;
         this.jobLauncher = jobLauncher;
         this.jobExplorer = jobExplorer;
+        this.jobTracker = jobTracker;
+        // Not a bean: a second JobLauncher would make the synchronous one ambiguous
+        this.asyncJobLauncher = new TaskExecutorJobLauncher();
+        this.asyncJobLauncher.setJobRepository(jobRepository);
+        this.asyncJobLauncher.setTaskExecutor(batchJobExecutor);
+        this.asyncJobLauncher.afterPropertiesSet();
     }
 
     @Override
@@ -47,7 +73,44 @@ public class BatchActivitiesImpl implements BatchActivities {
 
         Job job = dynamicBatchJob.createJob(config);
 
-        // Build job parameters
+        try {
+            JobExecution execution = jobLauncher.run(job, toJobParameters(parameters).toJobParameters());
+            return execution.getId();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to start batch job: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public BatchExecutionResult runBatchJob(String jobName, Map<String, Object> parameters) {
+        BatchJobConfig config = configRepository.findByJobName(jobName)
+                .orElseThrow(() -> new IllegalArgumentException("Batch job config not found: " + jobName));
+
+        Job job = dynamicBatchJob.createJob(config, jobTracker);
+
+        ActivityExecutionContext activity = Activity.getExecutionContext();
+        String trackingKey = UUID.randomUUID().toString();
+        JobParametersBuilder paramsBuilder = toJobParameters(parameters)
+                .addString(BatchJobTracker.TRACKING_KEY_PARAM, trackingKey, false);
+
+        // Track before launching: a short job can finish before run() returns
+        jobTracker.track(trackingKey, activity.getTaskToken(), activity.getInfo().getWorkflowId());
+        try {
+            JobExecution execution = asyncJobLauncher.run(job, paramsBuilder.toJobParameters());
+            // The job may wait for an executor thread; heartbeat it from now on
+            jobTracker.launched(trackingKey, execution.getId());
+            log.info("Launched batch job {} as execution {}, completing asynchronously", jobName, execution.getId());
+        } catch (Exception e) {
+            jobTracker.untrack(trackingKey);
+            throw new RuntimeException("Failed to start batch job: " + e.getMessage(), e);
+        }
+
+        // Completed by BatchJobTracker when the job ends
+        activity.doNotCompleteOnReturn();
+        return null;
+    }
+
+    private static JobParametersBuilder toJobParameters(Map<String, Object> parameters) {
         JobParametersBuilder paramsBuilder = new JobParametersBuilder();
         paramsBuilder.addDate("startTime", new Date());
         parameters.forEach((key, value) -> {
@@ -59,13 +122,7 @@ public class BatchActivitiesImpl implements BatchActivities {
                 paramsBuilder.addDouble(key, (Double) value);
             }
         });
-
-        try {
-            JobExecution execution = jobLauncher.run(job, paramsBuilder.toJobParameters());
-            return execution.getId();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to start batch job: " + e.getMessage(), e);
-        }
+        return paramsBuilder;
     }
 
     @Override
@@ -90,19 +147,33 @@ public class BatchActivitiesImpl implements BatchActivities {
         if (execution == null) {
             throw new IllegalArgumentException("Job execution not found: " + jobExecutionId);
         }
+        return toResult(execution);
+    }
 
+    static BatchExecutionResult toResult(JobExecution execution) {
         long readCount = 0;
         long writeCount = 0;
         long skipCount = 0;
+        long rowsWritten = 0;
+        long chunkCount = 0;
+        long writeMillis = 0;
+        long maxChunkMillis = 0;
 
-        for (StepExecution stepExecution : execution.getStepExecutions()) {
+        for (StepExecution stepExecution : countedSteps(execution)) {
             readCount += stepExecution.getReadCount();
             writeCount += stepExecution.getWriteCount();
             skipCount += stepExecution.getSkipCount();
+
+            // Written by DynamicJdbcItemWriter; absent for steps with other writers
+            ExecutionContext context = stepExecution.getExecutionContext();
+            rowsWritten += context.getLong(DynamicJdbcItemWriter.ROWS_WRITTEN_KEY, 0);
+            chunkCount += context.getLong(DynamicJdbcItemWriter.CHUNKS_KEY, 0);
+            writeMillis += context.getLong(DynamicJdbcItemWriter.WRITE_MILLIS_KEY, 0);
+            maxChunkMillis = Math.max(maxChunkMillis, context.getLong(DynamicJdbcItemWriter.MAX_CHUNK_MILLIS_KEY, 0));
         }
 
         return new BatchExecutionResult(
-                jobExecutionId,
+                execution.getId(),
                 execution.getJobInstance().getJobName(),
                 execution.getStatus().name(),
                 execution.getStartTime(),
@@ -112,7 +183,23 @@ public class BatchActivitiesImpl implements BatchActivities {
                 skipCount,
                 execution.getExitStatus().getExitCode(),
                 execution.getAllFailureExceptions().isEmpty() ? null :
-                    execution.getAllFailureExceptions().get(0).getMessage()
+                    execution.getAllFailureExceptions().get(0).getMessage(),
+                rowsWritten,
+                chunkCount,
+                writeMillis,
+                maxChunkMillis
         );
     }
+
+    /**
+     * Steps whose counts make up the job totals. A partition manager step repeats the counts
+     * of its partitions, so when the job is partitioned only the partitions are counted.
+     */
+    static List<StepExecution> countedSteps(JobExecution execution) {
+        boolean partitioned = execution.getStepExecutions().stream()
+                .anyMatch(step -> step.getExecutionContext().containsKey(SqlKeyPartitioner.PARTITION_INDEX_KEY));
+        return execution.getStepExecutions().stream()
+                .filter(step -> !partitioned || step.getExecutionContext().containsKey(SqlKeyPartitioner.PARTITION_INDEX_KEY))
+                .toList();
+    }
 }
@@ -13,12 +13,20 @@ public record BatchExecutionResult(
         long writeCount,
         long skipCount,
         String exitCode,
-        String errorMessage
+        String errorMessage,
+        long rowsWritten,
+        long chunkCount,
+        long writeMillis,
+        long maxChunkMillis
 ) {
     public boolean isSuccessful() {
         return "COMPLETED".equals(status);
     }
 
+    public double getAverageChunkMillis() {
+        return chunkCount == 0 ? 0 : (double) writeMillis / chunkCount;
+    }
+
     public long getDurationMillis() {
         if (startTime == null || endTime == null) return 0;
         return Duration.between(startTime, endTime).toMillis();
@@ -0,0 +1,239 @@
+package com.beema.kernel.workflow.batch;
+
+import io.temporal.client.ActivityCanceledException;
+import io.temporal.client.ActivityCompletionClient;
+import io.temporal.client.ActivityCompletionException;
+import io.temporal.client.ActivityNotExistsException;
+import io.temporal.client.WorkflowClient;
+import io.temporal.failure.ApplicationFailure;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobOperator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completes {@link BatchActivities#runBatchJob} asynchronously.
+ *
+ * The activity registers its task token under a tracking key, passes the key to the job as a
+ * parameter and returns without completing. From then on the tracker heartbeats the job's
+ * progress to Temporal every progress-interval, including while the job still waits for a free
+ * batchJobExecutor thread with status STARTING: a queued job must not let the activity's
+ * heartbeat timeout expire. Heartbeats are not recorded in the workflow history, signals are,
+ * so progress is signalled to the workflow only when the counts or status changed, and at most
+ * once per signal-interval. When the job ends, {@link #afterJob}
+ * completes the activity with the job result, so the workflow resumes as soon as the job
+ * finishes rather than on its next poll.
+ *
+ * Cancelling the workflow surfaces as a cancelled heartbeat; the tracker then stops the job and
+ * reports the cancellation once it has stopped.
+ */
+@Component
+public class BatchJobTracker implements JobExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchJobTracker.class);
+
+    static final String TRACKING_KEY_PARAM = "orchestrationKey";
+
+    private final WorkflowClient workflowClient;
+    private final ActivityCompletionClient completionClient;
+    private final JobExplorer jobExplorer;
+    private final JobOperator jobOperator;
+    private final ScheduledExecutorService scheduler;
+    private final long signalIntervalMillis;
+
+    private final Map<String, Tracked> tracked = new ConcurrentHashMap<>();
+
+    public BatchJobTracker(WorkflowClient workflowClient,
+                           JobExplorer jobExplorer,
+                           JobOperator jobOperator,
+                           @Value("${beema.batch.orchestration.progress-interval:PT10S}") Duration progressInterval,
+                           @Value("${beema.batch.orchestration.signal-interval:PT1M}") Duration signalInterval) {
+        this.workflowClient = workflowClient;
+        this.signalIntervalMillis = signalInterval.toMillis();
+        this.completionClient = workflowClient.newActivityCompletionClient();
+        this.jobExplorer = jobExplorer;
+        this.jobOperator = jobOperator;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "batch-job-tracker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = progressInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::reportProgress, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Registers an activity to complete when the job launched with this tracking key ends.
+     */
+    void track(String trackingKey, byte[] taskToken, String workflowId) {
+        tracked.put(trackingKey, new Tracked(taskToken, workflowId));
+    }
+
+    void untrack(String trackingKey) {
+        tracked.remove(trackingKey);
+    }
+
+    /**
+     * Records the execution launched for a tracking key. Called as soon as the launcher returns,
+     * which for a queued job is long before {@link #beforeJob}.
+     */
+    void launched(String trackingKey, long jobExecutionId) {
+        Tracked entry = tracked.get(trackingKey);
+        if (entry == null) {
+            return;
+        }
+        entry.jobExecutionId = jobExecutionId;
+        if (entry.cancelRequested) {
+            // Cancelled between tracking and launch
+            stopJob(jobExecutionId);
+        }
+    }
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        Tracked entry = lookup(jobExecution);
+        if (entry != null) {
+            entry.jobExecutionId = jobExecution.getId();
+        }
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        String key = jobExecution.getJobParameters().getString(TRACKING_KEY_PARAM);
+        Tracked entry = key == null ? null : tracked.remove(key);
+        if (entry == null) {
+            return;
+        }
+
+        // Called before the repository stores the final status, so use the in-memory execution
+        BatchExecutionResult result = BatchActivitiesImpl.toResult(jobExecution);
+        try {
+            if (entry.cancelRequested) {
+                completionClient.reportCancellation(entry.taskToken, BatchProgress.of(result));
+            } else if (jobExecution.getStatus() == BatchStatus.COMPLETED) {
+                completionClient.complete(entry.taskToken, result);
+            } else {
+                completionClient.completeExceptionally(entry.taskToken, ApplicationFailure.newNonRetryableFailure(
+                        "Batch job " + result.jobName() + " ended with status " + result.status()
+                                + (result.errorMessage() != null ? ": " + result.errorMessage() : ""),
+                        "BatchJobFailed", result));
+            }
+            log.info("Reported batch job execution {} ({}) to workflow {}",
+                    jobExecution.getId(), result.status(), entry.workflowId);
+        } catch (ActivityNotExistsException e) {
+            log.warn("Batch job execution {} finished after its activity timed out (workflow {})",
+                    jobExecution.getId(), entry.workflowId);
+        } catch (ActivityCompletionException e) {
+            log.error("Failed to complete activity for batch job execution {} (workflow {})",
+                    jobExecution.getId(), entry.workflowId, e);
+        }
+    }
+
+    private void reportProgress() {
+        long now = System.currentTimeMillis();
+        tracked.forEach((key, entry) -> {
+            Long jobExecutionId = entry.jobExecutionId;
+            try {
+                if (jobExecutionId == null) {
+                    // Still being launched
+                    heartbeat(key, entry, BatchProgress.of(BatchStatus.STARTING.name()));
+                    return;
+                }
+                JobExecution execution = jobExplorer.getJobExecution(jobExecutionId);
+                if (execution == null) {
+                    return;
+                }
+                BatchProgress progress = BatchProgress.of(execution, now);
+                heartbeat(key, entry, progress);
+                signalIfChanged(entry, progress, now);
+            } catch (Exception e) {
+                log.warn("Failed to report progress of batch job execution {}: {}", jobExecutionId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Signals the workflow when the progress moved since the last signal and the signal
+     * interval has passed; every signal adds events to the workflow history.
+     */
+    private void signalIfChanged(Tracked entry, BatchProgress progress, long now) {
+        BatchProgress last = entry.lastSignalled;
+        if (last != null && (progress.sameProgressAs(last) || now - entry.lastSignalMillis < signalIntervalMillis)) {
+            return;
+        }
+        workflowClient.newWorkflowStub(BatchOrchestratorWorkflow.class, entry.workflowId)
+                .reportProgress(progress);
+        entry.lastSignalled = progress;
+        entry.lastSignalMillis = now;
+    }
+
+    private void heartbeat(String key, Tracked entry, BatchProgress progress) {
+        try {
+            completionClient.heartbeat(entry.taskToken, progress);
+        } catch (ActivityCanceledException e) {
+            if (!entry.cancelRequested) {
+                log.info("Workflow {} cancelled, stopping batch job execution {}", entry.workflowId, entry.jobExecutionId);
+                entry.cancelRequested = true;
+                stopJob(entry.jobExecutionId);
+            }
+        } catch (ActivityNotExistsException e) {
+            // Heartbeat or start-to-close timeout: nobody is waiting for this job any more
+            log.warn("Activity for batch job execution {} no longer exists, stopping the job", entry.jobExecutionId);
+            entry.cancelRequested = true;
+            if (entry.jobExecutionId != null) {
+                tracked.remove(key);
+            }
+            stopJob(entry.jobExecutionId);
+        }
+    }
+
+    private void stopJob(Long jobExecutionId) {
+        if (jobExecutionId == null) {
+            // Not launched yet; launched() stops it
+            return;
+        }
+        try {
+            jobOperator.stop(jobExecutionId);
+        } catch (Exception e) {
+            log.warn("Could not stop batch job execution {}: {}", jobExecutionId, e.getMessage());
+        }
+    }
+
+    private Tracked lookup(JobExecution jobExecution) {
+        String key = jobExecution.getJobParameters().getString(TRACKING_KEY_PARAM);
+        return key == null ? null : tracked.get(key);
+    }
+
+    private static final class Tracked {
+        private final byte[] taskToken;
+        private final String workflowId;
+        private volatile Long jobExecutionId;
+        private volatile boolean cancelRequested;
+        // Only touched by the scheduler thread
+        private BatchProgress lastSignalled;
+        private long lastSignalMillis;
+
+        private Tracked(byte[] taskToken, String workflowId) {
+            this.taskToken = taskToken;
+            this.workflowId = workflowId;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.beema.kernel.workflow.batch;
 
+import io.temporal.workflow.QueryMethod;
+import io.temporal.workflow.SignalMethod;
 import io.temporal.workflow.WorkflowInterface;
 import io.temporal.workflow.WorkflowMethod;
 
@@ -20,4 +22,21 @@ public interface BatchOrchestratorWorkflow {
      */
     @WorkflowMethod
     BatchExecutionResult executeBatchJob(String jobName, java.util.Map<String, Object> parameters);
+
+    /**
+     * Progress update for the running job, sent by {@link BatchJobTracker}.
+     *
+     * @param progress Latest counts of the job
+     */
+    @SignalMethod
+    void reportProgress(BatchProgress progress);
+
+    /**
+     * Query the latest known progress of the job.
+     *
+     * @return Progress; status is VALIDATING or STARTING until the job reports, then the
+     *         Spring Batch status
+     */
+    @QueryMethod
+    BatchProgress getProgress();
 }
@@ -1,6 +1,7 @@
 package com.beema.kernel.workflow.batch;
 
 import io.temporal.activity.ActivityOptions;
+import io.temporal.failure.ApplicationFailure;
 import io.temporal.workflow.Workflow;
 import org.slf4j.Logger;
 
@@ -12,14 +13,22 @@ import java.util.Map;
  *
  * Flow:
  * 1. Validate batch job config exists
- * 2. Start batch job via activity
- * 3. Monitor job status (with polling)
+ * 2. Run the batch job via an asynchronously completed activity
+ * 3. Track progress from heartbeats and progress signals while the job runs
  * 4. Return results or handle failures
+ *
+ * The run activity is completed by {@link BatchJobTracker} as soon as the job ends, so the
+ * workflow does not poll. A job is bounded only by the start-to-close timeout; if the node
+ * running it dies, heartbeats stop and the activity times out within the heartbeat timeout.
  */
 public class BatchOrchestratorWorkflowImpl implements BatchOrchestratorWorkflow {
 
     private static final Logger log = Workflow.getLogger(BatchOrchestratorWorkflowImpl.class);
 
+    // Workflow state
+    private BatchProgress progress = BatchProgress.of("VALIDATING");
+    private boolean finished = false;
+
     private final BatchActivities activities = Workflow.newActivityStub(
             BatchActivities.class,
             ActivityOptions.newBuilder()
@@ -30,6 +39,18 @@ public class BatchOrchestratorWorkflowImpl implements BatchOrchestratorWorkflow
                     .build()
     );
 
+    // Not retried: a retry would launch the job again rather than resume it
+    private final BatchActivities jobActivities = Workflow.newActivityStub(
+            BatchActivities.class,
+            ActivityOptions.newBuilder()
+                    .setStartToCloseTimeout(Duration.ofDays(1))
+                    .setHeartbeatTimeout(Duration.ofMinutes(2))
+                    .setRetryOptions(io.temporal.common.RetryOptions.newBuilder()
+                            .setMaximumAttempts(1)
+                            .build())
+                    .build()
+    );
+
     @Override
     public BatchExecutionResult executeBatchJob(String jobName, Map<String, Object> parameters) {
         log.info("Starting batch job orchestration: {}", jobName);
@@ -39,44 +60,44 @@ public class BatchOrchestratorWorkflowImpl implements BatchOrchestratorWorkflow
             log.info("Validating batch job config: {}", jobName);
             activities.validateBatchJobConfig(jobName);
 
-            // Step 2: Start batch job
+            // Step 2: Run batch job; returns when the job has finished
             log.info("Starting batch job: {}", jobName);
-            Long jobExecutionId = activities.startBatchJob(jobName, parameters);
+            progress = BatchProgress.of("STARTING");
+            BatchExecutionResult result = jobActivities.runBatchJob(jobName, parameters);
 
-            // Step 3: Monitor job status
-            log.info("Monitoring batch job execution: {}", jobExecutionId);
-            BatchJobStatus status = monitorJobExecution(jobExecutionId);
-
-            // Step 4: Return results
-            BatchExecutionResult result = activities.getBatchJobResult(jobExecutionId);
-            log.info("Batch job completed: {} - Status: {}", jobName, status);
+            // Step 3: Return results
+            finished = true;
+            progress = BatchProgress.of(result);
+            log.info("Batch job completed: {} - Status: {}, {} rows written in {} chunks (avg {} ms, max {} ms)",
+                    jobName, result.status(), result.rowsWritten(), result.chunkCount(),
+                    Math.round(result.getAverageChunkMillis()), result.maxChunkMillis());
 
             return result;
 
         } catch (Exception e) {
+            finished = true;
+            progress = new BatchProgress(progress.jobExecutionId(), "FAILED", progress.readCount(),
+                    progress.writeCount(), progress.filterCount(), progress.skipCount(),
+                    progress.stepsCompleted(), progress.stepsRunning(), progress.updatedAtMillis());
             log.error("Batch job orchestration failed: {}", jobName, e);
-            throw new RuntimeException("Batch job execution failed: " + e.getMessage(), e);
+            // An ApplicationFailure fails the workflow; any other exception would only fail the
+            // workflow task and be retried indefinitely
+            throw ApplicationFailure.newFailureWithCause(
+                    "Batch job execution failed: " + e.getMessage(), "BatchJobFailed", e);
         }
     }
 
-    private BatchJobStatus monitorJobExecution(Long jobExecutionId) {
-        BatchJobStatus status;
-        int pollCount = 0;
-        int maxPolls = 120; // 2 hours max (60s interval)
-
-        do {
-            Workflow.sleep(Duration.ofSeconds(60)); // Poll every minute
-            status = activities.checkBatchJobStatus(jobExecutionId);
-            pollCount++;
-
-            log.info("Batch job status check {}/{}: {}", pollCount, maxPolls, status);
-
-            if (pollCount >= maxPolls) {
-                throw new RuntimeException("Batch job execution timeout");
-            }
-
-        } while (status == BatchJobStatus.STARTED || status == BatchJobStatus.RUNNING);
+    @Override
+    public void reportProgress(BatchProgress update) {
+        // Signals can arrive out of order, or after the result
+        if (finished || update.updatedAtMillis() < progress.updatedAtMillis()) {
+            return;
+        }
+        progress = update;
+    }
 
-        return status;
+    @Override
+    public BatchProgress getProgress() {
+        return progress;
     }
 }
@@ -0,0 +1,71 @@
+package com.beema.kernel.workflow.batch;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+
+import java.util.Objects;
+
+/**
+ * Progress of a running batch job, sent as activity heartbeat details and signalled to
+ * BatchOrchestratorWorkflow, which returns the latest one from its progress query.
+ *
+ * @param status          Spring Batch status, or VALIDATING / STARTING before the job runs
+ * @param updatedAtMillis when the counts were read, epoch millis
+ */
+public record BatchProgress(
+        Long jobExecutionId,
+        String status,
+        long readCount,
+        long writeCount,
+        long filterCount,
+        long skipCount,
+        int stepsCompleted,
+        int stepsRunning,
+        long updatedAtMillis
+) {
+    public static BatchProgress of(String status) {
+        return new BatchProgress(null, status, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    public static BatchProgress of(JobExecution execution, long updatedAtMillis) {
+        long read = 0;
+        long write = 0;
+        long filter = 0;
+        long skip = 0;
+        int completed = 0;
+        int running = 0;
+        for (StepExecution step : BatchActivitiesImpl.countedSteps(execution)) {
+            read += step.getReadCount();
+            write += step.getWriteCount();
+            filter += step.getFilterCount();
+            skip += step.getSkipCount();
+            if (step.getStatus() == BatchStatus.COMPLETED) {
+                completed++;
+            } else if (step.getStatus().isRunning()) {
+                running++;
+            }
+        }
+        return new BatchProgress(execution.getId(), execution.getStatus().name(),
+                read, write, filter, skip, completed, running, updatedAtMillis);
+    }
+
+    /**
+     * Whether both carry the same status and counts, whenever they were read.
+     */
+    public boolean sameProgressAs(BatchProgress other) {
+        return Objects.equals(jobExecutionId, other.jobExecutionId)
+                && status.equals(other.status)
+                && readCount == other.readCount
+                && writeCount == other.writeCount
+                && filterCount == other.filterCount
+                && skipCount == other.skipCount
+                && stepsCompleted == other.stepsCompleted
+                && stepsRunning == other.stepsRunning;
+    }
+
+    public static BatchProgress of(BatchExecutionResult result) {
+        return new BatchProgress(result.jobExecutionId(), result.status(), result.readCount(),
+                result.writeCount(), 0, result.skipCount(), 0, 0, 0);
+    }
+}
@@ -0,0 +1,123 @@
+-- =============================================================================
+-- V21__add_bitemporal_range_columns.sql
+-- Beema Unified Platform - Range-typed bitemporal periods with GiST indexes
+-- =============================================================================
+-- As-of lookups were written as pairs of scalar comparisons
+--   valid_from <= :t AND valid_to > :t AND transaction_time <= :tx
+-- which a B-tree on (id, valid_from, valid_to) can only bound on one side, so
+-- every older version of an entity is visited. This migration adds:
+--
+--   transaction_to      TIMESTAMPTZ  - when a later version restated this one (NULL = open)
+--   valid_period        TSTZRANGE    - GENERATED [valid_from, valid_to)
+--   transaction_period  TSTZRANGE    - GENERATED [transaction_time, transaction_to)
+--
+-- and composite GiST indexes (btree_gist) over (id, valid_period,
+-- transaction_period) and (tenant_id, valid_period, transaction_period), so
+-- that "valid_period @> :t AND transaction_period @> :tx" is answered by a
+-- single index probe regardless of history depth.
+--
+-- transaction_to cannot be a generated column (it depends on the next
+-- version), so it is stamped by a BEFORE UPDATE trigger when is_current
+-- flips from TRUE to FALSE with valid_to left as it was, i.e. when a later
+-- version restates the whole valid period. A version whose valid_to is
+-- closed in the same update (the set-based UPDATE in BitemporalRepositoryImpl,
+-- SCD-2 endorsements) is still what the system believes about its now
+-- shorter valid period, so its transaction period stays open; otherwise an
+-- as-of query for an earlier valid time at the current transaction time
+-- would find no version at all.
+--
+-- NOTE: adding STORED generated columns rewrites each table once.
+-- =============================================================================
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;  -- = on scalar columns inside GiST indexes
+
+-- close_transaction_time
+-- ----------------------
+-- Stamps transaction_to when a version stops being current without its
+-- valid period being closed. Uses the same clock as set_transaction_time()
+-- so the closed period of the old version and the open period of its
+-- successor meet exactly.
+CREATE OR REPLACE FUNCTION close_transaction_time()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF OLD.is_current AND NOT NEW.is_current AND NEW.transaction_to IS NULL
+       AND NEW.valid_to IS NOT DISTINCT FROM OLD.valid_to THEN
+        NEW.transaction_to := GREATEST(now() AT TIME ZONE 'UTC', NEW.transaction_time);
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+COMMENT ON FUNCTION close_transaction_time() IS
+    'Trigger function: sets transaction_to when a bitemporal version is restated (is_current TRUE -> FALSE, valid_to unchanged).';
+
+-- add_bitemporal_ranges
+-- ---------------------
+-- Adds transaction_to, the generated range columns, the GiST indexes and the
+-- close trigger to a bitemporal table, and backfills transaction_to from the
+-- transaction_time of the first later version that restates the row's valid
+-- period from its start.
+-- Usage: SELECT add_bitemporal_ranges('public', 'agreements');
+CREATE OR REPLACE FUNCTION add_bitemporal_ranges(schema_name TEXT, table_name TEXT)
+RETURNS VOID AS $$
+BEGIN
+    EXECUTE format('ALTER TABLE %I.%I ADD COLUMN transaction_to TIMESTAMPTZ', schema_name, table_name);
+
+    -- Backfill runs as the table owner; lift FORCE RLS so every tenant's rows are visible
+    EXECUTE format('ALTER TABLE %I.%I NO FORCE ROW LEVEL SECURITY', schema_name, table_name);
+    EXECUTE format(
+        'UPDATE %I.%I t
+            SET transaction_to = (
+                SELECT min(n.transaction_time) FROM %I.%I n
+                 WHERE n.id = t.id AND n.transaction_time > t.transaction_time
+                   AND n.valid_from <= t.valid_from)
+          WHERE t.is_current = FALSE',
+        schema_name, table_name, schema_name, table_name
+    );
+    EXECUTE format('ALTER TABLE %I.%I FORCE ROW LEVEL SECURITY', schema_name, table_name);
+
+    EXECUTE format(
+        'ALTER TABLE %I.%I
+            ADD COLUMN valid_period TSTZRANGE
+                GENERATED ALWAYS AS (tstzrange(valid_from, valid_to, ''[)'')) STORED,
+            ADD COLUMN transaction_period TSTZRANGE
+                GENERATED ALWAYS AS (tstzrange(transaction_time, transaction_to, ''[)'')) STORED',
+        schema_name, table_name
+    );
+
+    -- Single-entity as-of lookups
+    EXECUTE format(
+        'CREATE INDEX idx_%s_bitemporal_gist ON %I.%I
+            USING GIST (id, valid_period, transaction_period)',
+        table_name, schema_name, table_name
+    );
+
+    -- Tenant-wide as-of scans (reports, exports)
+    EXECUTE format(
+        'CREATE INDEX idx_%s_tenant_bitemporal_gist ON %I.%I
+            USING GIST (tenant_id, valid_period, transaction_period)',
+        table_name, schema_name, table_name
+    );
+
+    EXECUTE format(
+        'CREATE TRIGGER trg_%I_close_txn_time
+         BEFORE UPDATE ON %I.%I
+         FOR EACH ROW EXECUTE FUNCTION close_transaction_time()',
+        table_name, schema_name, table_name
+    );
+END;
+$$ LANGUAGE plpgsql;
+
+COMMENT ON FUNCTION add_bitemporal_ranges(TEXT, TEXT) IS
+    'Adds transaction_to, generated valid/transaction tstzrange columns and btree_gist indexes to a bitemporal table.';
+
+SELECT add_bitemporal_ranges('public', 'agreements');
+SELECT add_bitemporal_ranges('public', 'agreement_parties');
+SELECT add_bitemporal_ranges('public', 'agreement_coverages');
+
+COMMENT ON COLUMN agreements.transaction_to IS
+    'System time when a later version restated this one. NULL while it is still believed. Managed by trigger.';
+COMMENT ON COLUMN agreements.valid_period IS
+    'Generated [valid_from, valid_to) range; query with valid_period @> :validTime.';
+COMMENT ON COLUMN agreements.transaction_period IS
+    'Generated [transaction_time, transaction_to) range; query with transaction_period @> :txTime.';
@@ -0,0 +1,78 @@
+-- =============================================================================
+-- V22__create_attribute_index_registry.sql
+-- Beema Unified Platform - Searchable attribute index registry
+-- =============================================================================
+-- AttributeIndexManager builds one B-tree expression index per attribute that
+-- the metadata registry flags as searchable:
+--
+--   CREATE INDEX CONCURRENTLY idx_agreements_attr_<name>
+--       ON agreements (tenant_id, (attributes->>'<name>')) WHERE is_current = TRUE;
+--
+-- and keeps the shared GIN (attributes jsonb_path_ops) index from V4 in place.
+-- sys_attribute_indexes records what the manager owns and the state of each
+-- build, so interrupted CONCURRENTLY builds can be detected and retried, and so
+-- AgreementRepository can route equality lookups to indexed attributes only.
+-- =============================================================================
+
+CREATE TABLE sys_attribute_indexes (
+    index_name      VARCHAR(63)     PRIMARY KEY,
+    attribute_name  VARCHAR(255),                    -- NULL for the shared GIN index
+    index_type      VARCHAR(20)     NOT NULL,        -- 'EXPRESSION', 'GIN'
+    status          VARCHAR(20)     NOT NULL,        -- 'BUILDING', 'READY', 'FAILED', 'DROPPING'
+    error_message   TEXT,
+    created_at      TIMESTAMPTZ     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at      TIMESTAMPTZ     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT chk_attr_index_type CHECK (index_type IN ('EXPRESSION', 'GIN')),
+    CONSTRAINT chk_attr_index_status CHECK (status IN ('BUILDING', 'READY', 'FAILED', 'DROPPING'))
+);
+
+CREATE UNIQUE INDEX idx_attr_indexes_attribute
+    ON sys_attribute_indexes(attribute_name)
+    WHERE attribute_name IS NOT NULL;
+
+COMMENT ON TABLE sys_attribute_indexes IS
+    'Expression and GIN indexes on agreements.attributes managed by AttributeIndexManager, with build status.';
+
+-- The GIN index created in V4 is managed from here on
+INSERT INTO sys_attribute_indexes (index_name, attribute_name, index_type, status)
+VALUES ('idx_agreements_attributes', NULL, 'GIN', 'READY');
+
+-- searchable_attribute_names
+-- --------------------------
+-- Distinct names of active, searchable attributes across all tenants. Indexes
+-- on the shared agreements table are global, so the manager needs the union;
+-- SECURITY DEFINER lets it read past metadata_attributes RLS without exposing
+-- anything beyond the attribute names.
+CREATE OR REPLACE FUNCTION searchable_attribute_names()
+RETURNS TABLE (attribute_name VARCHAR) AS $$
+    SELECT DISTINCT m.attribute_name
+      FROM metadata_attributes m
+     WHERE m.is_searchable = TRUE
+       AND m.is_active = TRUE
+$$ LANGUAGE sql STABLE SECURITY DEFINER SET search_path = public;
+
+COMMENT ON FUNCTION searchable_attribute_names() IS
+    'Distinct active searchable attribute names across tenants, for expression index management.';
+
+-- notify_attribute_index_changed
+-- ------------------------------
+-- Every kernel node keeps the set of attributes with a READY expression index
+-- in memory to route equality lookups, so an index built or dropped by one
+-- node must reach the others: every change to sys_attribute_indexes publishes
+-- on the attribute_index_changed channel. The payload is empty; listeners
+-- reload the whole registry, which is small.
+CREATE OR REPLACE FUNCTION notify_attribute_index_changed()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM pg_notify('attribute_index_changed', '');
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+COMMENT ON FUNCTION notify_attribute_index_changed() IS
+    'Trigger function: publishes sys_attribute_indexes changes on the attribute_index_changed channel.';
+
+CREATE TRIGGER trg_attribute_indexes_notify_changed
+    AFTER INSERT OR UPDATE OR DELETE ON sys_attribute_indexes
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_attribute_index_changed();
@@ -0,0 +1,59 @@
+-- =============================================================================
+-- V23__add_agreement_change_notify.sql
+-- Beema Unified Platform - Cross-node invalidation for the agreement cache
+-- =============================================================================
+-- Every kernel node keeps an in-memory cache of current agreement versions
+-- (AgreementCache). Any write to agreements - a new version, the supersession
+-- of the old one, or a set-based UPDATE from BitemporalRepositoryImpl -
+-- publishes (tenantId, id) on the agreement_changed channel. NOTIFY is
+-- delivered on commit, so listeners never evict ahead of the change becoming
+-- visible, and rolled-back writes cause no invalidation.
+--
+-- The triggers fire per statement and read the transition tables, so a
+-- set-based UPDATE publishes each agreement once rather than once per row.
+-- changedAtMs is the transaction start (now()), which makes the payloads of
+-- one transaction identical per agreement: PostgreSQL drops duplicate
+-- notifications within a transaction, so superseding a version and inserting
+-- its successor also reach listeners once.
+-- =============================================================================
+
+CREATE OR REPLACE FUNCTION notify_agreement_changed()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('agreement_changed', json_build_object(
+            'tenantId', c.tenant_id,
+            'id', c.id,
+            'changedAtMs', (extract(epoch FROM now()) * 1000)::bigint
+        )::text)
+        FROM (SELECT DISTINCT tenant_id, id FROM old_rows) c;
+    ELSE
+        PERFORM pg_notify('agreement_changed', json_build_object(
+            'tenantId', c.tenant_id,
+            'id', c.id,
+            'changedAtMs', (extract(epoch FROM now()) * 1000)::bigint
+        )::text)
+        FROM (SELECT DISTINCT tenant_id, id FROM new_rows) c;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+COMMENT ON FUNCTION notify_agreement_changed() IS
+    'Statement trigger function: publishes each agreement changed by a statement once on the agreement_changed channel for cache invalidation.';
+
+-- A trigger with transition tables can only handle one event, hence three triggers
+CREATE TRIGGER trg_agreements_notify_inserted
+    AFTER INSERT ON agreements
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_agreement_changed();
+
+CREATE TRIGGER trg_agreements_notify_updated
+    AFTER UPDATE ON agreements
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_agreement_changed();
+
+CREATE TRIGGER trg_agreements_notify_deleted
+    AFTER DELETE ON agreements
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_agreement_changed();
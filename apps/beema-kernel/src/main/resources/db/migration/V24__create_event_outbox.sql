@@ -0,0 +1,57 @@
+-- =============================================================================
+-- V24__create_event_outbox.sql
+-- Beema Unified Platform - Transactional outbox for domain events
+-- =============================================================================
+-- Domain events are inserted here in the same transaction as the change they
+-- describe, so an event exists if and only if the change committed. The
+-- EventOutboxRelay drains pending rows in id order and delivers them to
+-- Inngest in batches, retrying failed batches with exponential backoff.
+--
+-- A relay claims rows by setting a short lease (claimed_until) and delivers
+-- them after the claim has committed, so no transaction stays open across the
+-- HTTP call. Other relays skip leased rows, so several kernel nodes can run
+-- the relay concurrently without delivering a row twice in parallel; rows of
+-- a relay that died mid-delivery are claimable again once the lease expires.
+-- Delivery is at-least-once; Inngest de-duplicates on the event id.
+--
+-- The table is not tenant-scoped by RLS: the relay drains every tenant's
+-- events, and tenant_id is kept for diagnostics only.
+-- =============================================================================
+
+CREATE TABLE event_outbox (
+    id              BIGSERIAL       PRIMARY KEY,
+    event_id        VARCHAR(64)     NOT NULL,
+    event_name      VARCHAR(255)    NOT NULL,
+    tenant_id       UUID,
+    payload         JSONB           NOT NULL,       -- Inngest event: {id, name, data, user, ts, v}
+    coalesce_key    VARCHAR(255),                   -- pending events sharing a key collapse to the newest
+    attempts        INTEGER         NOT NULL DEFAULT 0,
+    available_at    TIMESTAMPTZ     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error      TEXT,
+    created_at      TIMESTAMPTZ     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    published_at    TIMESTAMPTZ,
+    failed_at       TIMESTAMPTZ,                    -- set when max attempts are exhausted
+    claimed_until   TIMESTAMPTZ,                    -- lease of the relay delivering the row
+
+    CONSTRAINT uq_event_outbox_event_id UNIQUE (event_id)
+);
+
+-- Relay claim query: pending rows that are due, oldest first
+CREATE INDEX idx_event_outbox_pending
+    ON event_outbox(available_at, id)
+    WHERE published_at IS NULL AND failed_at IS NULL;
+
+CREATE INDEX idx_event_outbox_coalesce
+    ON event_outbox(coalesce_key, id)
+    WHERE published_at IS NULL AND failed_at IS NULL AND coalesce_key IS NOT NULL;
+
+CREATE INDEX idx_event_outbox_published
+    ON event_outbox(published_at)
+    WHERE published_at IS NOT NULL;
+
+COMMENT ON TABLE event_outbox IS
+    'Transactional outbox of domain events awaiting delivery to Inngest by EventOutboxRelay.';
+COMMENT ON COLUMN event_outbox.claimed_until IS
+    'Set by the relay that claimed the row; other relays skip the row until the lease expires.';
+COMMENT ON COLUMN event_outbox.coalesce_key IS
+    'Events with the same key that are pending together are delivered once, as the newest event.';
@@ -0,0 +1,27 @@
+-- =============================================================================
+-- V25__add_batch_writer_config.sql
+-- Beema Unified Platform - Metadata-configured writers for dynamic batch jobs
+-- =============================================================================
+-- DynamicBatchJob writes processed items with one parameterized JDBC batch per
+-- chunk. The statement is taken from writer_sql when set, otherwise generated
+-- from the columns below:
+--
+--   writer_jsonb_column set  UPDATE <table> SET <col> = <col> || :fields WHERE <keys>
+--   writer_upsert = TRUE     INSERT INTO <table> ... ON CONFLICT (<keys>) DO UPDATE
+--   otherwise                UPDATE <table> SET <columns> WHERE <keys>
+--
+-- writer_columns is optional; when empty the item's own fields, minus the key
+-- columns, are written.
+-- =============================================================================
+
+ALTER TABLE sys_batch_job_config
+    ADD COLUMN writer_table         VARCHAR(255),
+    ADD COLUMN writer_key_columns   VARCHAR(500),   -- comma-separated
+    ADD COLUMN writer_columns       TEXT,           -- comma-separated, optional
+    ADD COLUMN writer_jsonb_column  VARCHAR(255),
+    ADD COLUMN writer_upsert        BOOLEAN NOT NULL DEFAULT FALSE;
+
+COMMENT ON COLUMN sys_batch_job_config.writer_table IS
+    'Target table for the generated writer statement when writer_sql is not set.';
+COMMENT ON COLUMN sys_batch_job_config.writer_jsonb_column IS
+    'When set, item fields are merged into this JSONB column instead of written to columns.';
@@ -0,0 +1,25 @@
+-- =============================================================================
+-- V26__add_batch_partition_config.sql
+-- Beema Unified Platform - Partitioned execution for dynamic batch jobs
+-- =============================================================================
+-- With partition_column set, the reader SQL is split into partitions that run
+-- concurrently on the batch partition executor:
+--
+--   RANGE  equal-width ranges of a numeric key (partition_count partitions)
+--   HASH   hashtext(key) mod partition_count, for keys of any type
+--   VALUE  one partition per distinct value, e.g. tenant_id
+--
+-- Each partition is its own step execution, so a restart re-runs only the
+-- partitions that did not complete. A partition is read ordered by
+-- reader_key_columns, which must be unique and non-null in the reader result:
+-- the restarted reader skips the rows it had read, which is only correct in a
+-- stable order. Partitioned jobs are rejected without it.
+-- =============================================================================
+
+ALTER TABLE sys_batch_job_config
+    ADD COLUMN reader_key_columns   VARCHAR(255),
+    ADD COLUMN partition_column     VARCHAR(255),
+    ADD COLUMN partition_strategy   VARCHAR(20) NOT NULL DEFAULT 'RANGE',
+    ADD COLUMN partition_count      INTEGER NOT NULL DEFAULT 1,
+    ADD CONSTRAINT chk_batch_partition_strategy CHECK (partition_strategy IN ('RANGE', 'HASH', 'VALUE')),
+    ADD CONSTRAINT chk_batch_partition_count CHECK (partition_count BETWEEN 1 AND 256);
@@ -0,0 +1,155 @@
+package com.beema.kernel.batch;
+
+import com.beema.kernel.service.expression.JexlExpressionEngine;
+import com.beema.kernel.service.expression.JexlExpressionEngine.ExpressionEvaluationException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("JexlItemProcessor - Compiled batch item processing")
+class JexlItemProcessorTest {
+
+    private JexlExpressionEngine engine;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        engine = new JexlExpressionEngine();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Should run multi-statement scripts that update the item")
+    void shouldUpdateItemInPlace() throws Exception {
+        JexlItemProcessor processor = processor("item.status = 'CLOSED'; item.close_reason = 'EXPIRED'; item");
+
+        Map<String, Object> result = processor.process(item(1, "OPEN", 100));
+
+        assertThat(result).containsEntry("status", "CLOSED").containsEntry("close_reason", "EXPIRED");
+    }
+
+    @Test
+    @DisplayName("Should expose fields as variables with decimal arithmetic and write assignments through")
+    void shouldReadFieldsAsVariables() throws Exception {
+        JexlItemProcessor processor = processor("uplifted = premium / 8; status == 'OPEN'");
+
+        Map<String, Object> result = processor.process(item(1, "OPEN", 100));
+
+        assertThat(result.get("uplifted")).isEqualTo(12.5);
+        assertThat(result).containsEntry("premium", 100);
+    }
+
+    @Test
+    @DisplayName("Should filter items when the script returns null")
+    void shouldFilterOnNull() throws Exception {
+        JexlItemProcessor processor = processor("item.premium > 500 ? item : null");
+
+        assertThat(processor.process(item(1, "OPEN", 100))).isNull();
+        assertThat(processor.process(item(2, "OPEN", 1000))).containsEntry("id", 2);
+    }
+
+    @Test
+    @DisplayName("Should pass items through when there is no script")
+    void shouldPassThroughWithoutScript() throws Exception {
+        Map<String, Object> item = item(1, "OPEN", 100);
+
+        assertThat(processor(null).process(item)).isSameAs(item);
+        assertThat(processor("  ").process(item)).isSameAs(item);
+    }
+
+    @Test
+    @DisplayName("Should reject blocked and malformed scripts when the processor is created")
+    void shouldValidateOnCreate() {
+        assertThatThrownBy(() -> processor("java.lang.Runtime.getRuntime().exec('ls')"))
+                .isInstanceOf(ExpressionEvaluationException.class)
+                .hasMessageContaining("blocked pattern");
+        assertThatThrownBy(() -> processor("item.status = ; item"))
+                .isInstanceOf(ExpressionEvaluationException.class)
+                .hasMessageContaining("Syntax error");
+    }
+
+    @Test
+    @DisplayName("Should keep per-thread contexts independent")
+    void shouldProcessConcurrently() throws Exception {
+        JexlItemProcessor processor = processor("item.total = premium * 2; item");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int offset = t * 10_000;
+                results.add(executor.submit(() -> {
+                    for (int i = offset; i < offset + 10_000; i++) {
+                        Map<String, Object> out = processor.process(item(i, "OPEN", i));
+                        if (!Double.valueOf(i * 2.0).equals(out.get("total"))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should record per-step throughput and p99 in the execution context")
+    void shouldRecordStepMetrics() throws Exception {
+        JexlItemProcessor processor = processor("item.premium > 50 ? item : null");
+        StepExecution stepExecution = new StepExecution("premium-worker", new JobExecution(1L));
+
+        processor.beforeStep(stepExecution);
+        for (int i = 0; i < 100; i++) {
+            processor.process(item(i, "OPEN", i));
+        }
+        processor.afterStep(stepExecution);
+
+        var context = stepExecution.getExecutionContext();
+        assertThat(context.getLong(JexlItemProcessor.ITEMS_PROCESSED_KEY)).isEqualTo(100);
+        assertThat(context.getLong(JexlItemProcessor.ITEMS_PASSED_KEY)).isEqualTo(49);
+        assertThat(context.getLong(JexlItemProcessor.ITEMS_FILTERED_KEY)).isEqualTo(51);
+        assertThat(context.getLong(JexlItemProcessor.ITEMS_FAILED_KEY)).isZero();
+        assertThat(context.getDouble(JexlItemProcessor.ITEMS_PER_SECOND_KEY)).isPositive();
+        assertThat(context.getDouble(JexlItemProcessor.ROLLING_P99_MICROS_KEY)).isPositive();
+
+        Timer timer = meterRegistry.get("batch.processor.item")
+                .tag("job", "premium-job")
+                .tag("step", "premium-worker")
+                .timer();
+        assertThat(timer.count()).isEqualTo(100);
+        assertThat(meterRegistry.get("batch.processor.items").tag("outcome", "filtered").counter().count())
+                .isEqualTo(51);
+        assertThat(meterRegistry.get("batch.processor.items").tag("outcome", "passed").counter().count())
+                .isEqualTo(49);
+    }
+
+    private JexlItemProcessor processor(String script) {
+        return new JexlItemProcessor(script, engine, meterRegistry, "premium-job");
+    }
+
+    private static Map<String, Object> item(int id, String status, int premium) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("id", id);
+        item.put("status", status);
+        item.put("premium", premium);
+        return item;
+    }
+}
@@ -0,0 +1,162 @@
+package com.beema.kernel.event;
+
+import com.beema.kernel.event.outbox.EventOutbox;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for the bounded executor and overflow policies of DomainEventPublisher,
+ * against a local HTTP stub that holds requests until released.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DomainEventPublisher back-pressure Tests")
+class DomainEventPublisherBackPressureTest {
+
+    @Mock
+    private EventOutbox eventOutbox;
+
+    private HttpServer inngestStub;
+    private CountDownLatch release;
+    private CountDownLatch firstRequest;
+    private ThreadPoolTaskExecutor executor;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        release = new CountDownLatch(1);
+        firstRequest = new CountDownLatch(1);
+        inngestStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        inngestStub.setExecutor(Executors.newCachedThreadPool());
+        inngestStub.createContext("/e/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            firstRequest.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        inngestStub.start();
+
+        // One request in flight, one waiting, everything else overflows
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+        inngestStub.stop(0);
+    }
+
+    @Test
+    @DisplayName("Should spill events to the outbox when the executor is saturated")
+    void shouldSpillToOutboxWhenSaturated() throws Exception {
+        DomainEventPublisher publisher = publisher("spill-to-outbox");
+
+        publisher.publish(event("agr-1"));
+        assertThat(firstRequest.await(5, TimeUnit.SECONDS)).isTrue();
+        publisher.publish(event("agr-2"));
+        publisher.publish(event("agr-3"));
+
+        assertThat(gauge("event.publisher.in.flight")).isEqualTo(1.0);
+        assertThat(gauge("event.publisher.queue.depth")).isEqualTo(1.0);
+        assertThat(meterRegistry.get("event.publisher.rejected").counter().count()).isEqualTo(1.0);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EventOutbox.Entry>> spilled = ArgumentCaptor.forClass(List.class);
+        verify(eventOutbox).enqueueAll(spilled.capture());
+        assertThat(spilled.getValue()).singleElement()
+                .satisfies(entry -> assertThat(entry.event().getData()).containsEntry("agreementId", "agr-3"));
+
+        release.countDown();
+        awaitIdle();
+        assertThat(gauge("event.publisher.in.flight")).isZero();
+        assertThat(meterRegistry.get("event.publisher.latency").tag("outcome", "success").timer().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should send on the calling thread when configured for caller-runs")
+    void shouldRunOnCallerWhenSaturated() throws Exception {
+        DomainEventPublisher publisher = publisher("caller-runs");
+
+        publisher.publish(event("agr-1"));
+        assertThat(firstRequest.await(5, TimeUnit.SECONDS)).isTrue();
+        publisher.publish(event("agr-2"));
+
+        Thread caller = new Thread(() -> publisher.publish(event("agr-3")));
+        caller.start();
+        // The caller blocks on its own request until the stub lets go
+        caller.join(300);
+        assertThat(caller.isAlive()).isTrue();
+
+        release.countDown();
+        caller.join(5_000);
+        awaitIdle();
+        assertThat(meterRegistry.get("event.publisher.rejected").tag("policy", "caller-runs").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("event.publisher.latency").tag("outcome", "success").timer().count())
+                .isEqualTo(3);
+        verify(eventOutbox, never()).enqueueAll(anyList());
+    }
+
+    private DomainEventPublisher publisher(String overflow) {
+        DomainEventPublisher publisher = new DomainEventPublisher(
+                WebClient.builder(), new ObjectMapper(), executor, eventOutbox, meterRegistry, overflow);
+        ReflectionTestUtils.setField(publisher, "inngestBaseUrl",
+                "http://localhost:" + inngestStub.getAddress().getPort());
+        ReflectionTestUtils.setField(publisher, "inngestEventKey", "test");
+        ReflectionTestUtils.setField(publisher, "publisherEnabled", true);
+        ReflectionTestUtils.setField(publisher, "requestTimeout", Duration.ofSeconds(10));
+        return publisher;
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline
+                && (executor.getActiveCount() > 0 || !executor.getThreadPoolExecutor().getQueue().isEmpty())) {
+            Thread.sleep(20);
+        }
+    }
+
+    private static AgreementUpdatedEvent event(String agreementId) {
+        return new AgreementUpdatedEvent(agreementId, "version_update", Map.of());
+    }
+}
@@ -0,0 +1,220 @@
+package com.beema.kernel.integration;
+
+import com.beema.kernel.domain.agreement.MarketContext;
+import com.beema.kernel.domain.metadata.MetadataAgreementType;
+import com.beema.kernel.integration.config.TestSecurityConfig;
+import com.beema.kernel.repository.metadata.MetadataAgreementTypeRepository;
+import com.beema.kernel.service.agreement.AgreementImportFormat;
+import com.beema.kernel.service.agreement.AgreementImportReport;
+import com.beema.kernel.service.agreement.AgreementImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the bulk import end to end against PostgreSQL. Not transactional: the import
+ * commits per chunk, so rows are removed after each test instead.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnableAutoConfiguration(exclude = OAuth2ResourceServerAutoConfiguration.class)
+@Import(TestSecurityConfig.class)
+class AgreementBulkImportTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AgreementBulkImportTest.class);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("beema_kernel_test")
+            .withUsername("beema_test")
+            .withPassword("beema_test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.flyway.url", postgres::getJdbcUrl);
+        registry.add("spring.flyway.user", postgres::getUsername);
+        registry.add("spring.flyway.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri",
+                () -> "https://auth.test.local/realms/beema");
+    }
+
+    private static final UUID TENANT_A = UUID.fromString("a0000000-0000-0000-0000-000000000001");
+
+    private static final int ROWS = 20_000;
+
+    @Autowired
+    private AgreementImportService agreementImportService;
+
+    @Autowired
+    private MetadataAgreementTypeRepository metadataAgreementTypeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UUID retailTypeId;
+
+    @BeforeEach
+    void setUp() {
+        retailTypeId = inTenant(() -> metadataAgreementTypeRepository
+                .findByTenantIdAndTypeCodeAndMarketContext(TENANT_A, "MOTOR_PERSONAL", MarketContext.RETAIL)
+                .map(MetadataAgreementType::getId)
+                .orElseThrow());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        inTenant(() -> jdbcTemplate.update("DELETE FROM agreements WHERE agreement_number LIKE 'IMP-%'"));
+    }
+
+    @Test
+    @DisplayName("Should import NDJSON in bulk and report rejected rows")
+    void shouldImportNdjsonAndReportErrors() {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 1; i <= ROWS; i++) {
+            ndjson.append(motorRow("IMP-" + i, "COMPREHENSIVE", 2015)).append('\n');
+        }
+        // Rejections: schema violation, duplicate number, malformed line, bad date order
+        ndjson.append(motorRow("IMP-BAD-COVER", "FULLY_LOADED", 2015)).append('\n');
+        ndjson.append(motorRow("IMP-1", "COMPREHENSIVE", 2015)).append('\n');
+        ndjson.append("{not json\n");
+        ndjson.append(motorRow("IMP-BAD-DATES", "COMPREHENSIVE", 2015)
+                .replace("\"expiryDate\":\"2027-01-01\"", "\"expiryDate\":\"2025-01-01\"")).append('\n');
+
+        AgreementImportReport report = agreementImportService.importAgreements(
+                stream(ndjson.toString()), AgreementImportFormat.NDJSON, TENANT_A, "ADMIN", "import-test");
+
+        // Throughput depends on the runner, so it is logged rather than asserted
+        log.info("Imported {} agreements in {} ms ({} rows/s)",
+                report.imported(), report.durationMs(), String.format("%.0f", report.rowsPerSecond()));
+
+        assertThat(report.totalRows()).isEqualTo(ROWS + 4);
+        assertThat(report.imported()).isEqualTo(ROWS);
+        assertThat(report.failed()).isEqualTo(4);
+        assertThat(report.errors()).extracting(AgreementImportReport.RowError::row)
+                .containsExactly(ROWS + 1, ROWS + 2, ROWS + 3, ROWS + 4);
+        assertThat(report.errors().get(1).errors()).containsExactly("Duplicate agreement number in import");
+        assertThat(report.errors().get(2).errors().get(0)).startsWith("Malformed JSON");
+        assertThat(report.errors().get(3).errors())
+                .contains("Inception date must be on or before expiry date");
+
+        Integer stored = inTenant(() -> jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM agreements WHERE agreement_number LIKE 'IMP-%' AND tenant_id = ?",
+                Integer.class, TENANT_A));
+        assertThat(stored).isEqualTo(ROWS);
+    }
+
+    @Test
+    @DisplayName("Should import CSV with attribute columns and reject existing agreement numbers")
+    void shouldImportCsv() {
+        String header = "agreementNumber,marketContext,agreementTypeId,status,inceptionDate,expiryDate,"
+                + "totalPremium,attributes.vehicle_registration,attributes.vehicle_make,attributes.vehicle_year,"
+                + "attributes.cover_type\n";
+        String csv = header
+                + "IMP-CSV-1,RETAIL," + retailTypeId + ",DRAFT,2026-01-01,2027-01-01,450.00,AB12 CDE,Ford,2019,COMPREHENSIVE\n"
+                + "IMP-CSV-2,RETAIL," + retailTypeId + ",DRAFT,2026-01-01,2027-01-01,,XY99 ZZZ,Audi,2021,THIRD_PARTY_ONLY\n"
+                + "IMP-CSV-3,RETAIL,not-a-uuid,DRAFT,2026-01-01,2027-01-01,,XY99 ZZZ,Audi,2021,THIRD_PARTY_ONLY\n";
+
+        AgreementImportReport first = agreementImportService.importAgreements(
+                stream(csv), AgreementImportFormat.CSV, TENANT_A, "ADMIN", "import-test");
+        assertThat(first.imported()).isEqualTo(2);
+        assertThat(first.errors()).singleElement()
+                .satisfies(error -> assertThat(error.errors().get(0)).startsWith("agreementTypeId is not a valid UUID"));
+
+        // vehicle_year must have been typed as an integer to pass the schema
+        Integer year = inTenant(() -> jdbcTemplate.queryForObject(
+                "SELECT (attributes ->> 'vehicle_year')::int FROM agreements WHERE agreement_number = 'IMP-CSV-1'",
+                Integer.class));
+        assertThat(year).isEqualTo(2019);
+
+        AgreementImportReport second = agreementImportService.importAgreements(
+                stream(header + "IMP-CSV-1,RETAIL," + retailTypeId
+                        + ",DRAFT,2026-01-01,2027-01-01,,AB12 CDE,Ford,2019,COMPREHENSIVE\n"),
+                AgreementImportFormat.CSV, TENANT_A, "ADMIN", "import-test");
+        assertThat(second.imported()).isZero();
+        assertThat(second.errors().get(0).errors()).containsExactly("Agreement number already exists: IMP-CSV-1");
+    }
+
+    @Test
+    @DisplayName("Should reject only the rows that break a column constraint")
+    void shouldRejectConstraintViolatingRowsOneByOne() {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 1; i <= 10; i++) {
+            ndjson.append(motorRow("IMP-CHK-" + i, "COMPREHENSIVE", 2015)).append('\n');
+        }
+        // Row 11 has a negative premium (chk_agreements_premium), row 12 a 4-letter currency
+        ndjson.append(motorRow("IMP-CHK-NEGATIVE", "COMPREHENSIVE", 2015)
+                .replace("\"totalPremium\":450.00", "\"totalPremium\":-1")).append('\n');
+        ndjson.append(motorRow("IMP-CHK-CURRENCY", "COMPREHENSIVE", 2015)
+                .replace("\"status\":\"DRAFT\"", "\"status\":\"DRAFT\",\"currencyCode\":\"EURO\"")).append('\n');
+
+        AgreementImportReport report = agreementImportService.importAgreements(
+                stream(ndjson.toString()), AgreementImportFormat.NDJSON, TENANT_A, "ADMIN", "import-test");
+
+        assertThat(report.imported()).isEqualTo(10);
+        assertThat(report.failed()).isEqualTo(2);
+        assertThat(report.errors()).extracting(AgreementImportReport.RowError::agreementNumber)
+                .containsExactly("IMP-CHK-NEGATIVE", "IMP-CHK-CURRENCY");
+        assertThat(report.errors().get(0).errors()).containsExactly("totalPremium must not be negative: -1");
+        assertThat(report.errors().get(1).errors()).containsExactly("currencyCode must be a 3-letter code: EURO");
+
+        Integer stored = inTenant(() -> jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM agreements WHERE agreement_number LIKE 'IMP-CHK-%' AND tenant_id = ?",
+                Integer.class, TENANT_A));
+        assertThat(stored).isEqualTo(10);
+    }
+
+    private String motorRow(String agreementNumber, String coverType, int vehicleYear) {
+        return "{\"agreementNumber\":\"" + agreementNumber + "\",\"marketContext\":\"RETAIL\","
+                + "\"agreementTypeId\":\"" + retailTypeId + "\",\"status\":\"DRAFT\","
+                + "\"inceptionDate\":\"2026-01-01\",\"expiryDate\":\"2027-01-01\",\"totalPremium\":450.00,"
+                + "\"attributes\":{\"vehicle_registration\":\"AB12 CDE\",\"vehicle_make\":\"Ford\","
+                + "\"vehicle_model\":\"Focus\",\"vehicle_year\":" + vehicleYear + ","
+                + "\"cover_type\":\"" + coverType + "\",\"no_claims_bonus_years\":3}}";
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private <T> T inTenant(Supplier<T> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.queryForObject("SELECT set_config('app.current_tenant', ?, true)",
+                    String.class, TENANT_A.toString());
+            return work.get();
+        });
+    }
+}
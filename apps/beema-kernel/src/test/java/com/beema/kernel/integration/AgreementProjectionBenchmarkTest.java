@@ -0,0 +1,201 @@
+package com.beema.kernel.integration;
+
+import com.beema.kernel.domain.agreement.Agreement;
+import com.beema.kernel.domain.agreement.MarketContext;
+import com.beema.kernel.domain.metadata.MetadataAgreementType;
+import com.beema.kernel.integration.config.TestSecurityConfig;
+import com.beema.kernel.repository.agreement.AgreementAttributeProjection;
+import com.beema.kernel.repository.agreement.AgreementRepository;
+import com.beema.kernel.repository.agreement.AgreementRepositoryCustomImpl;
+import com.beema.kernel.repository.metadata.MetadataAgreementTypeRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares fetching full agreement entities with the attribute projection for a list view
+ * that shows a few fields out of a large attributes document. Logs the bytes each query
+ * returns and the mean latency.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnableAutoConfiguration(exclude = OAuth2ResourceServerAutoConfiguration.class)
+@Import(TestSecurityConfig.class)
+@Transactional
+class AgreementProjectionBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AgreementProjectionBenchmarkTest.class);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("beema_kernel_test")
+            .withUsername("beema_test")
+            .withPassword("beema_test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.flyway.url", postgres::getJdbcUrl);
+        registry.add("spring.flyway.user", postgres::getUsername);
+        registry.add("spring.flyway.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri",
+                () -> "https://auth.test.local/realms/beema");
+    }
+
+    private static final UUID TENANT_A = UUID.fromString("a0000000-0000-0000-0000-000000000001");
+
+    private static final int AGREEMENTS = 2000;
+    private static final int FILLER_ATTRIBUTES = 60;
+    private static final int PAGE_SIZE = 200;
+    private static final int ITERATIONS = 50;
+
+    private static final List<String> GRID_FIELDS =
+            List.of("vehicleMake", "vehicleModel", "vehicleYear", "driver.licenceNumber", "ncdYears");
+
+    private static final String CURRENT_ROWS =
+            " FROM agreements a WHERE a.tenant_id = CAST(:tenantId AS uuid) AND a.is_current = true " +
+            "AND a.valid_to IS NULL AND a.market_context = 'RETAIL' ORDER BY a.agreement_number, a.id LIMIT " + PAGE_SIZE;
+
+    private static final String FULL_SELECT = "SELECT a.*" + CURRENT_ROWS;
+
+    // The select list findCurrentProjected runs, so the byte count covers its text casts
+    private static final String PROJECTED_SELECT =
+            AgreementRepositoryCustomImpl.projectedSelect(GRID_FIELDS.size()) + CURRENT_ROWS;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AgreementRepository agreementRepository;
+
+    @Autowired
+    private MetadataAgreementTypeRepository metadataAgreementTypeRepository;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.createNativeQuery("SET LOCAL app.current_tenant = '" + TENANT_A + "'")
+                .executeUpdate();
+        UUID retailTypeId = metadataAgreementTypeRepository
+                .findByTenantIdAndTypeCodeAndMarketContext(TENANT_A, "MOTOR_PERSONAL", MarketContext.RETAIL)
+                .map(MetadataAgreementType::getId)
+                .orElseThrow();
+
+        // Five grid fields plus filler keys standing in for the rest of a realistic document
+        entityManager.createNativeQuery(
+                        "INSERT INTO agreements (id, agreement_number, market_context, agreement_type_id, " +
+                        "status, tenant_id, inception_date, expiry_date, valid_from, attributes) " +
+                        "SELECT gen_random_uuid(), 'PROJ-' || lpad(n::text, 6, '0'), 'RETAIL'::market_context_type, " +
+                        "CAST(:typeId AS uuid), 'ACTIVE'::agreement_status_type, CAST(:tenantId AS uuid), " +
+                        "DATE '2025-01-01', DATE '2026-01-01', now() - INTERVAL '1 day', " +
+                        "jsonb_build_object('vehicleMake', 'Make' || (n % 20), 'vehicleModel', 'Model' || (n % 50), " +
+                        "  'vehicleYear', 2000 + n % 25, 'ncdYears', n % 10, " +
+                        "  'driver', jsonb_build_object('licenceNumber', 'LIC' || n, 'name', 'Driver ' || n)) " +
+                        "|| (SELECT jsonb_object_agg('filler' || f, repeat(md5(n::text || f::text), 2)) " +
+                        "    FROM generate_series(1, :fillers) f) " +
+                        "FROM generate_series(1, :agreements) n")
+                .setParameter("typeId", retailTypeId.toString())
+                .setParameter("tenantId", TENANT_A.toString())
+                .setParameter("fillers", FILLER_ATTRIBUTES)
+                .setParameter("agreements", AGREEMENTS)
+                .executeUpdate();
+        entityManager.createNativeQuery("ANALYZE agreements").executeUpdate();
+    }
+
+    @Test
+    @DisplayName("Projection should return the requested attributes only")
+    void shouldProjectRequestedAttributes() {
+        Page<AgreementAttributeProjection> page = agreementRepository.findCurrentProjected(
+                TENANT_A.toString(), MarketContext.RETAIL, null, GRID_FIELDS, PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(page.getTotalElements()).isGreaterThanOrEqualTo(AGREEMENTS);
+        AgreementAttributeProjection first = page.getContent().stream()
+                .filter(p -> "PROJ-000001".equals(p.agreementNumber()))
+                .findFirst()
+                .orElseThrow();
+        assertThat(first.attributes()).containsOnlyKeys(GRID_FIELDS);
+        assertThat(first.attributes())
+                .containsEntry("vehicleMake", "Make1")
+                .containsEntry("vehicleYear", 2001)
+                .containsEntry("driver.licenceNumber", "LIC1");
+    }
+
+    @Test
+    @DisplayName("Projection should transfer a fraction of the bytes of a full entity fetch")
+    void shouldCompareProjectionWithEntityFetch() {
+        long fullBytes = resultBytes(FULL_SELECT, List.of());
+        long projectedBytes = resultBytes(PROJECTED_SELECT, GRID_FIELDS);
+
+        double entityMicros = meanLatencyMicros(() -> entityManager.createNativeQuery(FULL_SELECT, Agreement.class)
+                .setParameter("tenantId", TENANT_A.toString())
+                .getResultList());
+        double projectionMicros = meanLatencyMicros(() -> agreementRepository.findCurrentProjected(
+                TENANT_A.toString(), MarketContext.RETAIL, null, GRID_FIELDS, PageRequest.of(0, PAGE_SIZE)));
+
+        log.info("Page of {} agreements, {} of {} attributes: entity={} bytes {}us, projection={} bytes {}us",
+                PAGE_SIZE, GRID_FIELDS.size(), GRID_FIELDS.size() + FILLER_ATTRIBUTES,
+                fullBytes, String.format("%.1f", entityMicros),
+                projectedBytes, String.format("%.1f", projectionMicros));
+
+        assertThat(projectedBytes).isLessThan(fullBytes / 5);
+    }
+
+    /**
+     * Text size of the rows a query returns, a close proxy for what crosses the wire.
+     */
+    private long resultBytes(String sql, List<String> attributePaths) {
+        Query query = entityManager.createNativeQuery(
+                        "SELECT coalesce(sum(octet_length(CAST(t AS text))), 0) FROM (" + sql + ") t")
+                .setParameter("tenantId", TENANT_A.toString());
+        for (int i = 0; i < attributePaths.size(); i++) {
+            query.setParameter("path" + i, AgreementRepositoryCustomImpl.pathArray(attributePaths.get(i)));
+        }
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    private double meanLatencyMicros(Supplier<?> query) {
+        // Warm-up
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            query.get();
+            entityManager.clear();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.get();
+            // Keep the persistence context from serving later iterations
+            entityManager.clear();
+        }
+        return (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+    }
+}
@@ -0,0 +1,186 @@
+package com.beema.kernel.integration;
+
+import com.beema.kernel.domain.agreement.AgreementStatus;
+import com.beema.kernel.domain.agreement.MarketContext;
+import com.beema.kernel.domain.metadata.MetadataAgreementType;
+import com.beema.kernel.integration.config.TestSecurityConfig;
+import com.beema.kernel.repository.agreement.AgreementAttributeProjection;
+import com.beema.kernel.repository.agreement.AgreementRepository;
+import com.beema.kernel.repository.metadata.MetadataAgreementTypeRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Behaviour of {@link AgreementRepository#findCurrentProjected} against PostgreSQL: extracted
+ * values, filters and paging totals.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnableAutoConfiguration(exclude = OAuth2ResourceServerAutoConfiguration.class)
+@Import(TestSecurityConfig.class)
+@Transactional
+class AgreementProjectionIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("beema_kernel_test")
+            .withUsername("beema_test")
+            .withPassword("beema_test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.flyway.url", postgres::getJdbcUrl);
+        registry.add("spring.flyway.user", postgres::getUsername);
+        registry.add("spring.flyway.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri",
+                () -> "https://auth.test.local/realms/beema");
+    }
+
+    private static final UUID TENANT_A = UUID.fromString("a0000000-0000-0000-0000-000000000001");
+
+    private static final List<String> PATHS = List.of("vehicleMake", "driver.licenceNumber", "vehicleYear", "missing");
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AgreementRepository agreementRepository;
+
+    @Autowired
+    private MetadataAgreementTypeRepository metadataAgreementTypeRepository;
+
+    private UUID typeId;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.createNativeQuery("SET LOCAL app.current_tenant = '" + TENANT_A + "'")
+                .executeUpdate();
+        typeId = metadataAgreementTypeRepository
+                .findByTenantIdAndTypeCodeAndMarketContext(TENANT_A, "MOTOR_PERSONAL", MarketContext.RETAIL)
+                .map(MetadataAgreementType::getId)
+                .orElseThrow();
+
+        // Five current active retail rows, inserted out of agreement-number order
+        for (int n : new int[] {3, 1, 5, 2, 4}) {
+            insert("PJ-" + n, "RETAIL", "ACTIVE", true, n);
+        }
+        insert("PJ-6", "RETAIL", "DRAFT", true, 6);
+        insert("PJ-7", "COMMERCIAL", "ACTIVE", true, 7);
+        // Superseded version: never projected
+        insert("PJ-8", "RETAIL", "ACTIVE", false, 8);
+    }
+
+    @Test
+    @DisplayName("Projection should return header columns and requested paths in request order")
+    void shouldProjectRequestedPaths() {
+        Page<AgreementAttributeProjection> page = agreementRepository.findCurrentProjected(
+                TENANT_A.toString(), MarketContext.RETAIL, AgreementStatus.ACTIVE, PATHS, PageRequest.of(0, 10));
+
+        AgreementAttributeProjection first = page.getContent().get(0);
+        assertThat(first.id()).isNotNull();
+        assertThat(first.agreementNumber()).isEqualTo("PJ-1");
+        assertThat(first.marketContext()).isEqualTo(MarketContext.RETAIL);
+        assertThat(first.status()).isEqualTo(AgreementStatus.ACTIVE);
+        assertThat(first.inceptionDate()).isEqualTo(LocalDate.of(2025, 1, 1));
+        assertThat(first.expiryDate()).isEqualTo(LocalDate.of(2026, 1, 1));
+        assertThat(first.attributes()).containsExactly(
+                entry("vehicleMake", "Make1"),
+                entry("driver.licenceNumber", "LIC1"),
+                entry("vehicleYear", 2001),
+                entry("missing", null));
+    }
+
+    @Test
+    @DisplayName("Projection should page current rows in agreement-number order with exact totals")
+    void shouldPageWithTotals() {
+        Page<AgreementAttributeProjection> second = agreementRepository.findCurrentProjected(
+                TENANT_A.toString(), MarketContext.RETAIL, AgreementStatus.ACTIVE, PATHS, PageRequest.of(1, 2));
+
+        assertThat(second.getTotalElements()).isEqualTo(5);
+        assertThat(second.getTotalPages()).isEqualTo(3);
+        assertThat(second.getContent())
+                .extracting(AgreementAttributeProjection::agreementNumber)
+                .containsExactly("PJ-3", "PJ-4");
+        assertThat(second.getContent())
+                .extracting(p -> p.attributes().get("vehicleMake"))
+                .containsExactly("Make3", "Make4");
+
+        Page<AgreementAttributeProjection> last = agreementRepository.findCurrentProjected(
+                TENANT_A.toString(), MarketContext.RETAIL, AgreementStatus.ACTIVE, PATHS, PageRequest.of(2, 2));
+        assertThat(last.getContent())
+                .extracting(AgreementAttributeProjection::agreementNumber)
+                .containsExactly("PJ-5");
+        assertThat(last.isLast()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Projection should apply only the filters that are given")
+    void shouldApplyOptionalFilters() {
+        assertThat(agreementRepository.findCurrentProjected(TENANT_A.toString(), MarketContext.RETAIL, null,
+                PATHS, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(6);
+        assertThat(agreementRepository.findCurrentProjected(TENANT_A.toString(), null, AgreementStatus.ACTIVE,
+                PATHS, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(6);
+        assertThat(agreementRepository.findCurrentProjected(TENANT_A.toString(), null, null,
+                PATHS, PageRequest.of(0, 10)).getContent())
+                .extracting(AgreementAttributeProjection::agreementNumber)
+                .containsExactly("PJ-1", "PJ-2", "PJ-3", "PJ-4", "PJ-5", "PJ-6", "PJ-7");
+    }
+
+    @Test
+    @DisplayName("Projection should reject paths outside the allowed syntax")
+    void shouldRejectInvalidPath() {
+        assertThatThrownBy(() -> agreementRepository.findCurrentProjected(TENANT_A.toString(), null, null,
+                List.of("vehicleMake'); DROP TABLE agreements; --"), PageRequest.of(0, 10)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void insert(String agreementNumber, String marketContext, String status, boolean current, int n) {
+        entityManager.createNativeQuery(
+                        "INSERT INTO agreements (id, agreement_number, market_context, agreement_type_id, " +
+                        "status, tenant_id, inception_date, expiry_date, valid_from, is_current, attributes) " +
+                        "VALUES (gen_random_uuid(), :number, CAST(:market AS market_context_type), " +
+                        "CAST(:typeId AS uuid), CAST(:status AS agreement_status_type), CAST(:tenantId AS uuid), " +
+                        "DATE '2025-01-01', DATE '2026-01-01', now() - INTERVAL '1 day', :current, " +
+                        "jsonb_build_object('vehicleMake', 'Make' || :n, 'vehicleYear', 2000 + :n, " +
+                        "  'driver', jsonb_build_object('licenceNumber', 'LIC' || :n), 'filler', repeat('x', 500)))")
+                .setParameter("number", agreementNumber)
+                .setParameter("market", marketContext)
+                .setParameter("typeId", typeId.toString())
+                .setParameter("status", status)
+                .setParameter("tenantId", TENANT_A.toString())
+                .setParameter("current", current)
+                .setParameter("n", n)
+                .executeUpdate();
+    }
+}
@@ -6,6 +6,7 @@ import com.beema.kernel.domain.agreement.MarketContext;
 import com.beema.kernel.domain.metadata.MetadataAgreementType;
 import com.beema.kernel.integration.config.TestSecurityConfig;
 import com.beema.kernel.repository.agreement.AgreementRepository;
+import com.beema.kernel.repository.base.KeysetPage;
 import com.beema.kernel.repository.metadata.MetadataAgreementTypeRepository;
 import com.beema.kernel.service.agreement.AgreementService;
 import com.beema.kernel.util.SchemaValidator;
@@ -35,6 +36,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -354,6 +356,52 @@ class AgreementServiceIntegrationTest {
             }
         }
 
+        @Test
+        @DisplayName("Should page through history with a keyset cursor")
+        void shouldPageHistoryWithCursor() {
+            Agreement v1 = agreementService.createAgreement(buildRetailAgreement("RET-103"));
+            UUID agreementId = v1.getTemporalKey().getId();
+
+            entityManager.flush();
+            entityManager.clear();
+
+            for (AgreementStatus status : List.of(AgreementStatus.QUOTED, AgreementStatus.BOUND,
+                    AgreementStatus.ACTIVE, AgreementStatus.ENDORSED)) {
+                Agreement update = buildRetailAgreement("RET-103");
+                update.setTenantId(TENANT_A);
+                update.setStatus(status);
+                agreementService.updateAgreement(agreementId, update);
+                entityManager.flush();
+                entityManager.clear();
+            }
+
+            List<Agreement> paged = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                KeysetPage<Agreement> page = agreementService.getAgreementHistoryPage(
+                        agreementId, TENANT_A_STR, cursor, 2);
+                assertThat(page.items()).hasSizeLessThanOrEqualTo(2);
+                paged.addAll(page.items());
+                cursor = page.nextCursor();
+                pages++;
+            } while (cursor != null);
+
+            assertThat(pages).isEqualTo(3);
+            assertThat(paged).extracting(a -> a.getTemporalKey().getValidFrom())
+                    .doesNotHaveDuplicates()
+                    .isSorted();
+            assertThat(paged).hasSize(agreementService.getAgreementHistory(agreementId, TENANT_A_STR).size());
+        }
+
+        @Test
+        @DisplayName("Should reject a malformed history cursor")
+        void shouldRejectMalformedCursor() {
+            assertThatThrownBy(() -> agreementService.getAgreementHistoryPage(
+                    UUID.randomUUID(), TENANT_A_STR, "not-a-cursor", 10))
+                    .isInstanceOf(ValidationException.class);
+        }
+
         @Test
         @DisplayName("Should find current version after multiple updates")
         void shouldFindCurrentVersionAfterMultipleUpdates() {
@@ -422,6 +470,25 @@ class AgreementServiceIntegrationTest {
             assertThat(result).isEmpty();
         }
 
+        @Test
+        @DisplayName("Should resolve many agreements as-of in input order")
+        void shouldFindAllAsOfInInputOrder() {
+            UUID first = agreementService.createAgreement(buildRetailAgreement("RET-210")).getTemporalKey().getId();
+            UUID second = agreementService.createAgreement(buildRetailAgreement("RET-211")).getTemporalKey().getId();
+            UUID third = agreementService.createAgreement(buildRetailAgreement("RET-212")).getTemporalKey().getId();
+            OffsetDateTime afterCreate = OffsetDateTime.now(ZoneOffset.UTC).plusMinutes(1);
+
+            entityManager.flush();
+            entityManager.clear();
+
+            List<Agreement> result = agreementService.getAgreementsAsOf(
+                    List.of(third, UUID.randomUUID(), first, second), TENANT_A_STR, afterCreate, afterCreate);
+
+            assertThat(result)
+                    .extracting(Agreement::getAgreementNumber)
+                    .containsExactly("RET-212", "RET-210", "RET-211");
+        }
+
         @Test
         @DisplayName("Should find agreement by number")
         void shouldFindByAgreementNumber() {
@@ -488,7 +555,7 @@ class AgreementServiceIntegrationTest {
             entityManager.clear();
 
             List<Agreement> results = agreementRepository.findByAttribute(
-                    TENANT_A_STR, "{\"vehicle_make\": \"Mercedes\"}");
+                    TENANT_A_STR, "vehicle_make", "Mercedes");
 
             assertThat(results).isNotEmpty();
             assertThat(results).allMatch(a -> "Mercedes".equals(a.getAttribute("vehicle_make")));
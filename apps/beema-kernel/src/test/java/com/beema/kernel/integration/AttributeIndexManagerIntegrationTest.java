@@ -0,0 +1,259 @@
+package com.beema.kernel.integration;
+
+import com.beema.kernel.domain.agreement.Agreement;
+import com.beema.kernel.integration.config.TestSecurityConfig;
+import com.beema.kernel.repository.agreement.AgreementRepository;
+import com.beema.kernel.service.search.AttributeIndexManager;
+import com.beema.kernel.service.search.AttributeIndexStatus;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reconciles expression indexes against PostgreSQL and checks that
+ * {@link AgreementRepository#findByAttribute} returns the same rows once an index is READY.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnableAutoConfiguration(exclude = OAuth2ResourceServerAutoConfiguration.class)
+@Import(TestSecurityConfig.class)
+class AttributeIndexManagerIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("beema_kernel_test")
+            .withUsername("beema_test")
+            .withPassword("beema_test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.flyway.url", postgres::getJdbcUrl);
+        registry.add("spring.flyway.user", postgres::getUsername);
+        registry.add("spring.flyway.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri",
+                () -> "https://auth.test.local/realms/beema");
+        // Reconcile only when a test asks for it, not from a startup thread
+        registry.add("beema.search.attribute-indexes.enabled", () -> "false");
+    }
+
+    private static final UUID TENANT_A = UUID.fromString("a0000000-0000-0000-0000-000000000001");
+
+    private static final String INDEXED = "idx_test_model_year";
+    private static final String UNINDEXED = "idx_test_plain_year";
+    private static final String INDEX_NAME = "idx_agreements_attr_" + INDEXED;
+
+    @Autowired
+    private AttributeIndexManager attributeIndexManager;
+
+    @Autowired
+    private AgreementRepository agreementRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        // Committed, so the manager's own connection sees it
+        jdbcTemplate.update(
+                "INSERT INTO metadata_attributes (tenant_id, attribute_name, display_name, data_type, " +
+                "is_searchable, market_context) VALUES (CAST(? AS uuid), ?, 'Model year', 'NUMBER', TRUE, 'RETAIL')",
+                TENANT_A.toString(), INDEXED);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM metadata_attributes WHERE attribute_name = ?", INDEXED);
+        attributeIndexManager.reconcile();
+    }
+
+    @Test
+    @DisplayName("Should build an index for a searchable attribute and mark it READY")
+    void shouldBuildIndexForSearchableAttribute() {
+        List<AttributeIndexStatus> status = attributeIndexManager.reconcile();
+
+        assertThat(status).anySatisfy(s -> {
+            assertThat(s.indexName()).isEqualTo(INDEX_NAME);
+            assertThat(s.attributeName()).isEqualTo(INDEXED);
+            assertThat(s.status()).isEqualTo(AttributeIndexStatus.READY);
+        });
+        assertThat(indexValid(INDEX_NAME)).isTrue();
+        assertThat(attributeIndexManager.isExpressionIndexed(INDEXED)).isTrue();
+        assertThat(attributeIndexManager.isExpressionIndexed(UNINDEXED)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should drop the index once the attribute is no longer searchable")
+    void shouldDropIndexForUnsearchableAttribute() {
+        attributeIndexManager.reconcile();
+        jdbcTemplate.update("UPDATE metadata_attributes SET is_searchable = FALSE WHERE attribute_name = ?", INDEXED);
+
+        List<AttributeIndexStatus> status = attributeIndexManager.reconcile();
+
+        assertThat(status).extracting(AttributeIndexStatus::indexName).doesNotContain(INDEX_NAME);
+        assertThat(indexValid(INDEX_NAME)).isNull();
+        assertThat(attributeIndexManager.isExpressionIndexed(INDEXED)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should drop and rebuild an index left INVALID by an interrupted build")
+    void shouldRebuildInvalidIndex() {
+        attributeIndexManager.reconcile();
+        Long oidBefore = indexOid(INDEX_NAME);
+        // What an interrupted CREATE INDEX CONCURRENTLY leaves behind
+        jdbcTemplate.update("UPDATE pg_index SET indisvalid = FALSE WHERE indexrelid = CAST(? AS regclass)",
+                INDEX_NAME);
+        assertThat(indexValid(INDEX_NAME)).isFalse();
+
+        List<AttributeIndexStatus> status = attributeIndexManager.reconcile();
+
+        assertThat(indexValid(INDEX_NAME)).isTrue();
+        assertThat(indexOid(INDEX_NAME)).isNotEqualTo(oidBefore);
+        assertThat(status).filteredOn(s -> INDEX_NAME.equals(s.indexName()))
+                .singleElement()
+                .satisfies(s -> assertThat(s.status()).isEqualTo(AttributeIndexStatus.READY));
+    }
+
+    @Test
+    @DisplayName("Should pick up index registry changes made by another node")
+    void shouldRefreshReadyIndexesOnRegistryChange() throws InterruptedException {
+        // Another node's reconcile, seen only through sys_attribute_indexes
+        jdbcTemplate.update(
+                "INSERT INTO sys_attribute_indexes (index_name, attribute_name, index_type, status) " +
+                "VALUES (?, ?, 'EXPRESSION', 'READY')", "idx_agreements_attr_" + UNINDEXED, UNINDEXED);
+        try {
+            assertThat(awaitIndexed(UNINDEXED, true)).isTrue();
+        } finally {
+            jdbcTemplate.update("DELETE FROM sys_attribute_indexes WHERE attribute_name = ?", UNINDEXED);
+        }
+        assertThat(awaitIndexed(UNINDEXED, false)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should return the same rows for a lookup with and without the expression index")
+    void shouldReturnSameRowsWithAndWithoutIndex() {
+        List<Object> lookups = List.of("2022", 2022, 2022.0, true, "true");
+
+        assertThat(attributeIndexManager.isExpressionIndexed(INDEXED)).isFalse();
+        List<List<String>> withoutIndex = inTenantTransaction(() -> lookUp(lookups));
+
+        attributeIndexManager.reconcile();
+        assertThat(attributeIndexManager.isExpressionIndexed(INDEXED)).isTrue();
+        List<List<String>> withIndex = inTenantTransaction(() -> lookUp(lookups));
+
+        assertThat(withIndex).isEqualTo(withoutIndex);
+        // Values match by JSON type: strings only strings, 2022.0 the stored number 2022
+        assertThat(withIndex).containsExactly(
+                List.of("IDX-STRING"),
+                List.of("IDX-NUMBER"),
+                List.of("IDX-NUMBER"),
+                List.of("IDX-BOOLEAN"),
+                List.of("IDX-STRING-TRUE"));
+    }
+
+    /**
+     * Inserts one agreement per JSON type of the indexed attribute and runs every lookup.
+     * Called in a rolled-back transaction, since a concurrent index build waits for open writers.
+     */
+    private List<List<String>> lookUp(List<Object> lookups) {
+        insertAgreement("IDX-NUMBER", "{\"" + INDEXED + "\": 2022}");
+        insertAgreement("IDX-STRING", "{\"" + INDEXED + "\": \"2022\"}");
+        insertAgreement("IDX-BOOLEAN", "{\"" + INDEXED + "\": true}");
+        insertAgreement("IDX-STRING-TRUE", "{\"" + INDEXED + "\": \"true\"}");
+        return lookups.stream()
+                .map(value -> agreementRepository.findByAttribute(TENANT_A.toString(), INDEXED, value).stream()
+                        .map(Agreement::getAgreementNumber)
+                        .toList())
+                .toList();
+    }
+
+    /**
+     * Runs the lookup with the tenant set for RLS and rolls the inserted rows back.
+     */
+    private <T> T inTenantTransaction(Supplier<T> work) {
+        return new TransactionTemplate(transactionManager).execute(tx -> {
+            entityManager.createNativeQuery("SET LOCAL app.current_tenant = '" + TENANT_A + "'")
+                    .executeUpdate();
+            T result = work.get();
+            tx.setRollbackOnly();
+            return result;
+        });
+    }
+
+    private void insertAgreement(String agreementNumber, String attributes) {
+        entityManager.createNativeQuery(
+                        "INSERT INTO agreements (id, agreement_number, market_context, agreement_type_id, status, " +
+                        "tenant_id, inception_date, expiry_date, attributes) " +
+                        "SELECT gen_random_uuid(), :number, CAST('RETAIL' AS market_context_type), t.id, " +
+                        "CAST('ACTIVE' AS agreement_status_type), t.tenant_id, " +
+                        "DATE '2025-01-01', DATE '2026-01-01', CAST(:attributes AS jsonb) " +
+                        "FROM metadata_agreement_types t " +
+                        "WHERE t.tenant_id = CAST(:tenantId AS uuid) AND t.type_code = 'MOTOR_PERSONAL' " +
+                        "AND t.market_context = 'RETAIL' LIMIT 1")
+                .setParameter("number", agreementNumber)
+                .setParameter("attributes", attributes)
+                .setParameter("tenantId", TENANT_A.toString())
+                .executeUpdate();
+    }
+
+    /**
+     * Waits up to five seconds for the listener to apply a registry change.
+     */
+    private boolean awaitIndexed(String attributeName, boolean expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (attributeIndexManager.isExpressionIndexed(attributeName) != expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        return attributeIndexManager.isExpressionIndexed(attributeName);
+    }
+
+    /**
+     * @return TRUE if valid, FALSE if invalid, null if the index does not exist
+     */
+    private Boolean indexValid(String indexName) {
+        List<Boolean> valid = jdbcTemplate.queryForList(
+                "SELECT i.indisvalid FROM pg_class c JOIN pg_index i ON i.indexrelid = c.oid WHERE c.relname = ?",
+                Boolean.class, indexName);
+        return valid.isEmpty() ? null : valid.get(0);
+    }
+
+    private Long indexOid(String indexName) {
+        return jdbcTemplate.queryForObject(
+                "SELECT CAST(oid AS bigint) FROM pg_class WHERE relname = ?", Long.class, indexName);
+    }
+}
@@ -0,0 +1,244 @@
+package com.beema.kernel.integration;
+
+import com.beema.kernel.domain.agreement.Agreement;
+import com.beema.kernel.domain.agreement.MarketContext;
+import com.beema.kernel.domain.metadata.MetadataAgreementType;
+import com.beema.kernel.integration.config.TestSecurityConfig;
+import com.beema.kernel.repository.agreement.AgreementRepository;
+import com.beema.kernel.repository.base.BitemporalRepositoryImpl;
+import com.beema.kernel.repository.metadata.MetadataAgreementTypeRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the legacy scalar as-of predicate with tstzrange containment on an entity
+ * with a deep version history. Logs both query plans and the mean latency.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnableAutoConfiguration(exclude = OAuth2ResourceServerAutoConfiguration.class)
+@Import(TestSecurityConfig.class)
+@Transactional
+class BitemporalRangeQueryBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BitemporalRangeQueryBenchmarkTest.class);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("beema_kernel_test")
+            .withUsername("beema_test")
+            .withPassword("beema_test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.flyway.url", postgres::getJdbcUrl);
+        registry.add("spring.flyway.user", postgres::getUsername);
+        registry.add("spring.flyway.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri",
+                () -> "https://auth.test.local/realms/beema");
+    }
+
+    private static final UUID TENANT_A = UUID.fromString("a0000000-0000-0000-0000-000000000001");
+    private static final UUID DEEP_ID = UUID.fromString("d0000000-0000-0000-0000-000000000001");
+    private static final OffsetDateTime EPOCH = OffsetDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final int DEEP_VERSIONS = 5000;
+    private static final int BACKGROUND_ENTITIES = 1000;
+    private static final int BACKGROUND_VERSIONS = 20;
+    private static final int ITERATIONS = 200;
+
+    private static final String LEGACY_AS_OF =
+            "SELECT a.valid_from FROM agreements a " +
+            "WHERE a.id = CAST(:id AS uuid) " +
+            "AND a.valid_from <= CAST(:t AS timestamptz) " +
+            "AND (a.valid_to IS NULL OR a.valid_to > CAST(:t AS timestamptz)) " +
+            "AND a.transaction_time <= CAST(:t AS timestamptz) " +
+            "ORDER BY a.transaction_time DESC LIMIT 1";
+
+    private static final String RANGE_AS_OF =
+            "SELECT a.valid_from FROM agreements a " +
+            "WHERE a.id = CAST(:id AS uuid) " +
+            "AND a.valid_period @> CAST(:t AS timestamptz) " +
+            "AND a.transaction_period @> CAST(:t AS timestamptz) " +
+            "ORDER BY a.transaction_time DESC LIMIT 1";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AgreementRepository agreementRepository;
+
+    @Autowired
+    private MetadataAgreementTypeRepository metadataAgreementTypeRepository;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.createNativeQuery("SET LOCAL app.current_tenant = '" + TENANT_A + "'")
+                .executeUpdate();
+        UUID retailTypeId = metadataAgreementTypeRepository
+                .findByTenantIdAndTypeCodeAndMarketContext(TENANT_A, "MOTOR_PERSONAL", MarketContext.RETAIL)
+                .map(MetadataAgreementType::getId)
+                .orElseThrow();
+
+        // Write the synthetic history directly: the bitemporal triggers would restamp every
+        // row with the same transaction_time inside this test transaction
+        entityManager.createNativeQuery("SET LOCAL session_replication_role = replica").executeUpdate();
+        insertHistory("CAST(:deepId AS uuid)", "'BENCH-DEEP'", 1, DEEP_VERSIONS, retailTypeId);
+        insertHistory("CAST(md5('bench-' || e) AS uuid)", "'BENCH-' || e", BACKGROUND_ENTITIES,
+                BACKGROUND_VERSIONS, retailTypeId);
+        entityManager.createNativeQuery("SET LOCAL session_replication_role = origin").executeUpdate();
+        entityManager.createNativeQuery("ANALYZE agreements").executeUpdate();
+    }
+
+    /**
+     * Inserts {@code versions} hourly versions for each of {@code entities} entities. Valid
+     * and transaction times advance together; the last version of each entity is open. Each
+     * version only closes the valid period of its predecessor, so as with real updates no
+     * transaction period is closed.
+     */
+    private void insertHistory(String idExpr, String numberExpr, int entities, int versions, UUID typeId) {
+        String sql = "INSERT INTO agreements (id, agreement_number, market_context, agreement_type_id, " +
+                "status, tenant_id, inception_date, expiry_date, valid_from, valid_to, " +
+                "transaction_time, is_current) " +
+                "SELECT " + idExpr + ", " + numberExpr + ", 'RETAIL'::market_context_type, " +
+                "CAST(:typeId AS uuid), 'ENDORSED'::agreement_status_type, CAST(:tenantId AS uuid), " +
+                "DATE '2000-01-01', DATE '2040-01-01', " +
+                "CAST(:epoch AS timestamptz) + v * INTERVAL '1 hour', " +
+                "CASE WHEN v = :versions THEN 'infinity'::timestamptz " +
+                "     ELSE CAST(:epoch AS timestamptz) + (v + 1) * INTERVAL '1 hour' END, " +
+                "CAST(:epoch AS timestamptz) + v * INTERVAL '1 hour', " +
+                "v = :versions " +
+                "FROM generate_series(1, :entities) e, generate_series(1, :versions) v";
+
+        Query query = entityManager.createNativeQuery(sql)
+                .setParameter("typeId", typeId.toString())
+                .setParameter("tenantId", TENANT_A.toString())
+                .setParameter("epoch", EPOCH)
+                .setParameter("versions", versions)
+                .setParameter("entities", entities);
+        if (idExpr.contains(":deepId")) {
+            query.setParameter("deepId", DEEP_ID.toString());
+        }
+        query.executeUpdate();
+    }
+
+    @Test
+    @DisplayName("Range containment should resolve the same version as the scalar predicate")
+    void shouldCompareScalarAndRangeAsOf() {
+        // Middle of the history: half of the versions lie on either side
+        OffsetDateTime asOf = EPOCH.plusHours(DEEP_VERSIONS / 2).plusMinutes(30);
+        OffsetDateTime expectedValidFrom = EPOCH.plusHours(DEEP_VERSIONS / 2);
+
+        Object legacy = singleResult(LEGACY_AS_OF, asOf);
+        Object range = singleResult(RANGE_AS_OF, asOf);
+        assertThat(toOffsetDateTime(legacy)).isEqualTo(expectedValidFrom);
+        assertThat(toOffsetDateTime(range)).isEqualTo(expectedValidFrom);
+
+        logPlan("scalar valid_from/valid_to predicate", LEGACY_AS_OF, asOf);
+        logPlan("tstzrange @> predicate", RANGE_AS_OF, asOf);
+
+        double legacyMicros = meanLatencyMicros(LEGACY_AS_OF, asOf);
+        double rangeMicros = meanLatencyMicros(RANGE_AS_OF, asOf);
+        log.info("As-of over {} versions ({} background rows): scalar={}us range={}us",
+                DEEP_VERSIONS, BACKGROUND_ENTITIES * BACKGROUND_VERSIONS,
+                String.format("%.1f", legacyMicros), String.format("%.1f", rangeMicros));
+    }
+
+    @Test
+    @DisplayName("Repository as-of lookups should use the range columns")
+    void shouldResolveAsOfThroughRepositories() {
+        OffsetDateTime asOf = EPOCH.plusHours(DEEP_VERSIONS - 10).plusMinutes(1);
+
+        List<Agreement> batch = agreementRepository.findAllAsOf(
+                List.of(DEEP_ID), TENANT_A.toString(), asOf, asOf);
+        assertThat(batch).hasSize(1);
+        assertThat(batch.get(0).getTemporalKey().getValidFrom().toInstant())
+                .isEqualTo(EPOCH.plusHours(DEEP_VERSIONS - 10).toInstant());
+
+        BitemporalRepositoryImpl<Agreement> bitemporal =
+                new BitemporalRepositoryImpl<>(entityManager, Agreement.class);
+        Optional<Agreement> single = bitemporal.findAsOf(DEEP_ID, asOf, asOf, TENANT_A.toString());
+        assertThat(single).isPresent();
+        assertThat(single.get().getTemporalKey().getValidFrom().toInstant())
+                .isEqualTo(EPOCH.plusHours(DEEP_VERSIONS - 10).toInstant());
+
+        List<Agreement> history = bitemporal.findHistoryInRange(
+                DEEP_ID, EPOCH.plusHours(100), EPOCH.plusHours(110), TENANT_A.toString());
+        assertThat(history).hasSize(10);
+    }
+
+    private Object singleResult(String sql, OffsetDateTime asOf) {
+        return entityManager.createNativeQuery(sql)
+                .setParameter("id", DEEP_ID.toString())
+                .setParameter("t", asOf)
+                .getSingleResult();
+    }
+
+    private double meanLatencyMicros(String sql, OffsetDateTime asOf) {
+        // Warm-up
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            singleResult(sql, asOf);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            singleResult(sql, asOf);
+        }
+        return (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void logPlan(String label, String sql, OffsetDateTime asOf) {
+        List<Object> plan = entityManager.createNativeQuery("EXPLAIN (ANALYZE, BUFFERS) " + sql)
+                .setParameter("id", DEEP_ID.toString())
+                .setParameter("t", asOf)
+                .getResultList();
+        log.info("{}:\n{}", label, plan.stream().map(String::valueOf).collect(Collectors.joining("\n")));
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Object value) {
+        if (value instanceof OffsetDateTime odt) {
+            return odt.withOffsetSameInstant(ZoneOffset.UTC);
+        }
+        if (value instanceof Instant instant) {
+            return instant.atOffset(ZoneOffset.UTC);
+        }
+        return ((Timestamp) value).toInstant().atOffset(ZoneOffset.UTC);
+    }
+}
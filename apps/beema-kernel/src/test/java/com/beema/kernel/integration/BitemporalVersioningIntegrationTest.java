@@ -0,0 +1,276 @@
+package com.beema.kernel.integration;
+
+import com.beema.kernel.domain.agreement.Agreement;
+import com.beema.kernel.domain.agreement.AgreementStatus;
+import com.beema.kernel.domain.agreement.MarketContext;
+import com.beema.kernel.domain.base.TemporalKey;
+import com.beema.kernel.domain.metadata.MetadataAgreementType;
+import com.beema.kernel.integration.config.TestSecurityConfig;
+import com.beema.kernel.repository.agreement.AgreementRepository;
+import com.beema.kernel.repository.base.BitemporalRepository;
+import com.beema.kernel.repository.base.BulkVersionResult;
+import com.beema.kernel.repository.metadata.MetadataAgreementTypeRepository;
+import com.beema.kernel.service.agreement.AgreementService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Set-based version supersession of {@link BitemporalRepository#createNewVersions} against
+ * PostgreSQL, including the bitemporal triggers.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnableAutoConfiguration(exclude = OAuth2ResourceServerAutoConfiguration.class)
+@Import(TestSecurityConfig.class)
+@Transactional
+class BitemporalVersioningIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("beema_kernel_test")
+            .withUsername("beema_test")
+            .withPassword("beema_test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.flyway.url", postgres::getJdbcUrl);
+        registry.add("spring.flyway.user", postgres::getUsername);
+        registry.add("spring.flyway.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri",
+                () -> "https://auth.test.local/realms/beema");
+    }
+
+    private static final UUID TENANT_A = UUID.fromString("a0000000-0000-0000-0000-000000000001");
+    private static final String TENANT_A_STR = TENANT_A.toString();
+
+    @Autowired
+    private BitemporalRepository<Agreement> agreementVersionRepository;
+
+    @Autowired
+    private AgreementRepository agreementRepository;
+
+    @Autowired
+    private AgreementService agreementService;
+
+    @Autowired
+    private MetadataAgreementTypeRepository metadataAgreementTypeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private UUID retailTypeId;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.createNativeQuery("SET LOCAL app.current_tenant = '" + TENANT_A + "'")
+                .executeUpdate();
+        retailTypeId = metadataAgreementTypeRepository
+                .findByTenantIdAndTypeCodeAndMarketContext(TENANT_A, "MOTOR_PERSONAL", MarketContext.RETAIL)
+                .map(MetadataAgreementType::getId)
+                .orElseThrow();
+    }
+
+    @Test
+    @DisplayName("Should supersede every current version in one call and return the stored keys")
+    void shouldSupersedeInBulk() {
+        List<Agreement> originals = List.of(create("BV-1"), create("BV-2"), create("BV-3"));
+
+        BulkVersionResult<Agreement> result = agreementVersionRepository.createNewVersions(
+                originals.stream().map(a -> nextVersion(a, AgreementStatus.QUOTED)).toList());
+
+        assertThat(result.hasConflicts()).isFalse();
+        assertThat(result.created())
+                .extracting(a -> a.getTemporalKey().getId())
+                .containsExactlyElementsOf(originals.stream().map(a -> a.getTemporalKey().getId()).toList());
+        for (Agreement created : result.created()) {
+            UUID id = created.getTemporalKey().getId();
+            // The returned key is the one the transaction-time trigger stored
+            assertThat(isStoredCurrentVersion(created.getTemporalKey())).isTrue();
+            assertThat(created.getStatus()).isEqualTo(AgreementStatus.QUOTED);
+
+            entityManager.clear();
+            List<Agreement> history = agreementRepository.findHistory(id, TENANT_A_STR);
+            assertThat(history).hasSize(2);
+            Agreement closed = history.get(0);
+            assertThat(closed.getIsCurrent()).isFalse();
+            assertThat(closed.getValidTo()).isAtSameInstantAs(created.getTemporalKey().getValidFrom());
+            assertThat(history.get(1).getIsCurrent()).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a second version of the same id in one batch")
+    void shouldRejectDuplicateIdsInBatch() {
+        Agreement original = create("BV-DUP");
+        Agreement first = nextVersion(original, AgreementStatus.QUOTED);
+        Agreement second = nextVersion(original, AgreementStatus.BOUND);
+
+        BulkVersionResult<Agreement> result = agreementVersionRepository.createNewVersions(List.of(first, second));
+
+        assertThat(result.created()).singleElement()
+                .satisfies(a -> assertThat(a.getStatus()).isEqualTo(AgreementStatus.QUOTED));
+        assertThat(result.conflicts()).singleElement().satisfies(conflict -> {
+            assertThat(conflict.entity()).isSameAs(second);
+            assertThat(conflict.id()).isEqualTo(original.getTemporalKey().getId());
+            assertThat(conflict.reason()).isEqualTo("duplicate id in batch");
+        });
+        entityManager.clear();
+        assertThat(agreementRepository.findHistory(original.getTemporalKey().getId(), TENANT_A_STR)).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should report a version based on a superseded one as a conflict")
+    void shouldDetectStaleBaseVersion() {
+        Agreement original = create("BV-STALE");
+        UUID id = original.getTemporalKey().getId();
+        Agreement winner = nextVersion(original, AgreementStatus.QUOTED);
+        Agreement stale = nextVersion(original, AgreementStatus.BOUND);
+        Agreement fresh = create("BV-FRESH");
+
+        agreementVersionRepository.createNewVersion(winner);
+        entityManager.clear();
+
+        BulkVersionResult<Agreement> result = agreementVersionRepository.createNewVersions(
+                List.of(stale, nextVersion(fresh, AgreementStatus.QUOTED)));
+
+        // The stale row is reported, the other one is still written
+        assertThat(result.conflicts()).singleElement().satisfies(conflict -> {
+            assertThat(conflict.id()).isEqualTo(id);
+            assertThat(conflict.expectedTransactionTime()).isEqualTo(original.getTemporalKey().getTransactionTime());
+        });
+        assertThat(result.created()).singleElement()
+                .satisfies(a -> assertThat(a.getTemporalKey().getId()).isEqualTo(fresh.getTemporalKey().getId()));
+
+        Agreement staleAgain = nextVersion(original, AgreementStatus.BOUND);
+        assertThatThrownBy(() -> agreementVersionRepository.createNewVersion(staleAgain))
+                .isInstanceOf(OptimisticLockException.class);
+        entityManager.clear();
+        assertThat(agreementRepository.findHistory(id, TENANT_A_STR))
+                .extracting(Agreement::getStatus)
+                .containsExactly(AgreementStatus.DRAFT, AgreementStatus.QUOTED);
+    }
+
+    @Test
+    @DisplayName("Service update should go through the versioning repository")
+    void shouldUpdateThroughVersionRepository() {
+        Agreement original = create("BV-SVC");
+        UUID id = original.getTemporalKey().getId();
+
+        Agreement update = nextVersion(original, AgreementStatus.QUOTED);
+        update.setTemporalKey(null);
+        Agreement updated = agreementService.updateAgreement(id, update);
+
+        assertThat(isStoredCurrentVersion(updated.getTemporalKey())).isTrue();
+        assertThat(updated.getAgreementNumber()).isEqualTo("BV-SVC");
+        entityManager.clear();
+        assertThat(agreementRepository.findHistory(id, TENANT_A_STR))
+                .extracting(Agreement::getIsCurrent)
+                .containsExactly(false, true);
+    }
+
+    @Test
+    @DisplayName("As-of queries at the current transaction time should still see superseded versions")
+    void shouldResolveSupersededVersionAsOfNow() {
+        Agreement original = create("BV-ASOF");
+        UUID id = original.getTemporalKey().getId();
+        Agreement updated = agreementVersionRepository.createNewVersion(nextVersion(original, AgreementStatus.QUOTED));
+        entityManager.clear();
+
+        // Valid before the update, as known now: closing valid_to must not close the
+        // transaction period of the old version
+        OffsetDateTime beforeUpdate = original.getTemporalKey().getValidFrom();
+        OffsetDateTime now = OffsetDateTime.now();
+        assertThat(agreementVersionRepository.findAsOf(id, beforeUpdate, now, TENANT_A_STR))
+                .get().extracting(Agreement::getStatus).isEqualTo(AgreementStatus.DRAFT);
+        assertThat(agreementRepository.findAllAsOf(List.of(id), TENANT_A_STR, beforeUpdate, now))
+                .singleElement().extracting(Agreement::getStatus).isEqualTo(AgreementStatus.DRAFT);
+
+        OffsetDateTime afterUpdate = updated.getTemporalKey().getValidFrom();
+        assertThat(agreementVersionRepository.findAsOf(id, afterUpdate, now, TENANT_A_STR))
+                .get().extracting(Agreement::getStatus).isEqualTo(AgreementStatus.QUOTED);
+        assertThat(agreementRepository.findAllAsOf(List.of(id), TENANT_A_STR, afterUpdate, now))
+                .singleElement().extracting(Agreement::getStatus).isEqualTo(AgreementStatus.QUOTED);
+    }
+
+    /**
+     * Inserts a first version and returns it as read back, with the stored temporal key.
+     */
+    private Agreement create(String agreementNumber) {
+        Agreement agreement = new Agreement();
+        agreement.setAgreementNumber(agreementNumber);
+        agreement.setMarketContext(MarketContext.RETAIL);
+        agreement.setAgreementTypeId(retailTypeId);
+        agreement.setStatus(AgreementStatus.DRAFT);
+        agreement.setTenantId(TENANT_A);
+        agreement.setInceptionDate(LocalDate.now());
+        agreement.setExpiryDate(LocalDate.now().plusYears(1));
+        agreement.setTotalPremium(new BigDecimal("450.00"));
+        agreement.setCreatedBy("test-user");
+        agreement.setAttributes(Map.of("vehicle_make", "Toyota", "vehicle_year", 2022));
+        UUID id = agreementRepository.saveAndFlush(agreement).getTemporalKey().getId();
+        entityManager.clear();
+        return agreementRepository.findHistory(id, TENANT_A_STR).get(0);
+    }
+
+    /**
+     * Copy of {@code base} with a new status, based on the temporal key of {@code base}.
+     */
+    private Agreement nextVersion(Agreement base, AgreementStatus status) {
+        Agreement next = new Agreement();
+        next.setTemporalKey(base.getTemporalKey());
+        next.setAgreementNumber(base.getAgreementNumber());
+        next.setMarketContext(base.getMarketContext());
+        next.setAgreementTypeId(base.getAgreementTypeId());
+        next.setStatus(status);
+        next.setTenantId(base.getTenantId());
+        next.setInceptionDate(base.getInceptionDate());
+        next.setExpiryDate(base.getExpiryDate());
+        next.setTotalPremium(base.getTotalPremium());
+        next.setCreatedBy("test-user");
+        next.setAttributes(base.getAttributes());
+        return next;
+    }
+
+    private boolean isStoredCurrentVersion(TemporalKey key) {
+        Number matches = (Number) entityManager.createNativeQuery(
+                        "SELECT count(*) FROM agreements WHERE id = :id AND valid_from = :validFrom " +
+                        "AND transaction_time = :transactionTime AND is_current = TRUE")
+                .setParameter("id", key.getId())
+                .setParameter("validFrom", key.getValidFrom())
+                .setParameter("transactionTime", key.getTransactionTime())
+                .getSingleResult();
+        return matches.intValue() == 1;
+    }
+}
@@ -0,0 +1,186 @@
+package com.beema.kernel.integration;
+
+import com.beema.kernel.batch.DynamicBatchJob;
+import com.beema.kernel.batch.DynamicJdbcItemWriter;
+import com.beema.kernel.domain.batch.BatchJobConfig;
+import com.beema.kernel.integration.config.TestSecurityConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs DynamicBatchJob end to end with the metadata-configured JDBC writer, on scratch tables.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnableAutoConfiguration(exclude = OAuth2ResourceServerAutoConfiguration.class)
+@Import(TestSecurityConfig.class)
+class DynamicBatchJobWriterIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("beema_kernel_test")
+            .withUsername("beema_test")
+            .withPassword("beema_test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.flyway.url", postgres::getJdbcUrl);
+        registry.add("spring.flyway.user", postgres::getUsername);
+        registry.add("spring.flyway.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri",
+                () -> "https://auth.test.local/realms/beema");
+    }
+
+    private static final int ROWS = 2_500;
+
+    @Autowired
+    private DynamicBatchJob dynamicBatchJob;
+
+    @Autowired
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS batch_writer_src, batch_writer_dst");
+        jdbcTemplate.execute("CREATE TABLE batch_writer_src (id INT PRIMARY KEY, amount NUMERIC(12,2), label TEXT)");
+        jdbcTemplate.execute("CREATE TABLE batch_writer_dst (id INT PRIMARY KEY, amount NUMERIC(12,2), label TEXT, " +
+                "attrs JSONB NOT NULL DEFAULT '{}'::jsonb)");
+        jdbcTemplate.update("INSERT INTO batch_writer_src SELECT g, g * 1.5, 'row-' || g FROM generate_series(1, ?) g",
+                ROWS);
+    }
+
+    @Test
+    @DisplayName("Should upsert items into the target table and report rows written")
+    void shouldUpsertIntoTable() throws Exception {
+        // Half the rows already exist with stale values
+        jdbcTemplate.update("INSERT INTO batch_writer_dst (id, amount, label) " +
+                "SELECT g, 0, 'stale' FROM generate_series(1, ?) g", ROWS / 2);
+
+        BatchJobConfig config = config("writer-upsert");
+        config.setWriterTable("batch_writer_dst");
+        config.setWriterKeyColumns("id");
+        config.setWriterColumns("amount, label");
+        config.setWriterUpsert(true);
+
+        JobExecution execution = run(config);
+
+        assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM batch_writer_dst", Integer.class))
+                .isEqualTo(ROWS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM batch_writer_dst d JOIN batch_writer_src s USING (id) " +
+                "WHERE d.amount = s.amount AND d.label = s.label", Integer.class)).isEqualTo(ROWS);
+
+        StepExecution step = execution.getStepExecutions().iterator().next();
+        assertThat(step.getExecutionContext().getLong(DynamicJdbcItemWriter.ROWS_WRITTEN_KEY)).isEqualTo(ROWS);
+        assertThat(step.getExecutionContext().getLong(DynamicJdbcItemWriter.CHUNKS_KEY)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should merge item fields into a JSONB column, inferring the fields from the items")
+    void shouldMergeIntoJsonbColumn() throws Exception {
+        jdbcTemplate.update("INSERT INTO batch_writer_dst (id, attrs) " +
+                "SELECT g, '{\"keep\": true}'::jsonb FROM generate_series(1, ?) g", ROWS);
+
+        BatchJobConfig config = config("writer-jsonb");
+        config.setWriterTable("batch_writer_dst");
+        config.setWriterKeyColumns("id");
+        config.setWriterJsonbColumn("attrs");
+
+        JobExecution execution = run(config);
+
+        assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM batch_writer_dst d JOIN batch_writer_src s USING (id) " +
+                "WHERE (d.attrs ->> 'keep')::boolean AND d.attrs ->> 'label' = s.label " +
+                "AND (d.attrs ->> 'amount')::numeric = s.amount", Integer.class)).isEqualTo(ROWS);
+    }
+
+    @Test
+    @DisplayName("Should bind only the statement's columns, as null when an item lacks one")
+    void shouldBindMissingColumnsAsNull() throws Exception {
+        jdbcTemplate.update("INSERT INTO batch_writer_dst (id, amount, label) " +
+                "SELECT g, 0, 'stale' FROM generate_series(1, ?) g", ROWS);
+
+        BatchJobConfig config = config("writer-sparse");
+        // Odd items carry no label; every item carries a field the statement does not use
+        config.setProcessorJexl("id % 2 == 0 ? {'id': id, 'amount': amount, 'label': label, 'note': 'x'} " +
+                ": {'id': id, 'amount': amount, 'note': 'x'}");
+        config.setWriterTable("batch_writer_dst");
+        config.setWriterKeyColumns("id");
+        config.setWriterColumns("amount, label");
+
+        JobExecution execution = run(config);
+
+        assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM batch_writer_dst d JOIN batch_writer_src s USING (id) " +
+                "WHERE d.amount = s.amount AND d.label IS NOT DISTINCT FROM " +
+                "CASE WHEN id % 2 = 0 THEN s.label END", Integer.class)).isEqualTo(ROWS);
+    }
+
+    @Test
+    @DisplayName("Should reject writer configs with unsafe identifiers or no target")
+    void shouldRejectInvalidWriterConfig() {
+        BatchJobConfig noTarget = config("writer-none");
+        assertThatThrownBy(() -> dynamicBatchJob.createJob(noTarget))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("has no writer");
+
+        BatchJobConfig injected = config("writer-injected");
+        injected.setWriterTable("batch_writer_dst; DROP TABLE agreements");
+        injected.setWriterKeyColumns("id");
+        assertThatThrownBy(() -> dynamicBatchJob.createJob(injected))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid writer table name");
+    }
+
+    private BatchJobConfig config(String jobName) {
+        BatchJobConfig config = new BatchJobConfig();
+        config.setJobName(jobName);
+        config.setReaderSql("SELECT id, amount, label FROM batch_writer_src ORDER BY id");
+        config.setProcessorJexl("amount");
+        config.setChunkSize(1000);
+        config.setTenantId("default");
+        return config;
+    }
+
+    private JobExecution run(BatchJobConfig config) throws Exception {
+        return jobLauncher.run(dynamicBatchJob.createJob(config), new JobParametersBuilder()
+                .addString("runId", UUID.randomUUID().toString())
+                .toJobParameters());
+    }
+}
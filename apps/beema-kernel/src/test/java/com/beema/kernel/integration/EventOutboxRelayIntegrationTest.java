@@ -0,0 +1,264 @@
+package com.beema.kernel.integration;
+
+import com.beema.kernel.event.AgreementUpdatedEvent;
+import com.beema.kernel.event.outbox.EventOutbox;
+import com.beema.kernel.event.outbox.EventOutboxRelay;
+import com.beema.kernel.integration.config.TestSecurityConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the outbox relay against PostgreSQL and a local HTTP stub standing in for Inngest.
+ * The relay thread is disabled; each test drives delivery with {@link EventOutboxRelay#drainOnce()}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnableAutoConfiguration(exclude = OAuth2ResourceServerAutoConfiguration.class)
+@Import(TestSecurityConfig.class)
+class EventOutboxRelayIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("beema_kernel_test")
+            .withUsername("beema_test")
+            .withPassword("beema_test");
+
+    private static final List<String> receivedBodies = new CopyOnWriteArrayList<>();
+    private static volatile int responseStatus = 200;
+    private static final HttpServer inngestStub = startStub();
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.flyway.url", postgres::getJdbcUrl);
+        registry.add("spring.flyway.user", postgres::getUsername);
+        registry.add("spring.flyway.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri",
+                () -> "https://auth.test.local/realms/beema");
+        registry.add("inngest.base-url", () -> "http://localhost:" + inngestStub.getAddress().getPort());
+        registry.add("inngest.event-key", () -> "test-key");
+        registry.add("beema.events.outbox.relay-enabled", () -> "false");
+        registry.add("beema.events.outbox.initial-backoff-ms", () -> "200");
+        registry.add("beema.events.outbox.max-attempts", () -> "3");
+    }
+
+    private static final UUID TENANT_A = UUID.fromString("a0000000-0000-0000-0000-000000000001");
+
+    @Autowired
+    private EventOutbox eventOutbox;
+
+    @Autowired
+    private EventOutboxRelay eventOutboxRelay;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM event_outbox");
+        receivedBodies.clear();
+        responseStatus = 200;
+    }
+
+    @AfterAll
+    static void stopStub() {
+        inngestStub.stop(0);
+    }
+
+    @Test
+    @DisplayName("Should write events only when the surrounding transaction commits")
+    void shouldEnqueueWithTransaction() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> eventOutbox.enqueue(event("committed"), TENANT_A));
+        tx.executeWithoutResult(status -> {
+            eventOutbox.enqueue(event("rolled-back"), TENANT_A);
+            status.setRollbackOnly();
+        });
+
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT payload -> 'data' ->> 'agreementId' FROM event_outbox", String.class))
+                .containsExactly("committed");
+    }
+
+    @Test
+    @DisplayName("Should deliver pending events as one Inngest batch, coalescing by key")
+    void shouldDeliverCoalescedBatch() throws Exception {
+        eventOutbox.enqueue(event("a-v1"), TENANT_A, "agreement/updated:a");
+        eventOutbox.enqueue(event("b"), TENANT_A);
+        eventOutbox.enqueue(event("a-v2"), TENANT_A, "agreement/updated:a");
+
+        assertThat(eventOutboxRelay.drainOnce()).isEqualTo(3);
+
+        assertThat(receivedBodies).hasSize(1);
+        JsonNode batch = objectMapper.readTree(receivedBodies.get(0));
+        assertThat(batch.isArray()).isTrue();
+        assertThat(batch).extracting(e -> e.path("data").path("agreementId").asText())
+                .containsExactly("b", "a-v2");
+        assertThat(batch.get(0).path("id").asText()).isNotBlank();
+        assertThat(batch.get(0).path("name").asText()).isEqualTo("agreement/updated");
+
+        assertThat(pendingCount()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM event_outbox WHERE last_error = 'coalesced'", Integer.class)).isEqualTo(1);
+        assertThat(eventOutboxRelay.drainOnce()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should retry a rejected batch after backoff")
+    void shouldRetryAfterBackoff() throws Exception {
+        eventOutbox.enqueue(event("retry"), TENANT_A);
+
+        responseStatus = 500;
+        assertThat(eventOutboxRelay.drainOnce()).isEqualTo(1);
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT attempts, last_error, published_at, available_at > CURRENT_TIMESTAMP AS backing_off " +
+                "FROM event_outbox");
+        assertThat(row.get("attempts")).isEqualTo(1);
+        assertThat(row.get("last_error")).isNotNull();
+        assertThat(row.get("published_at")).isNull();
+        assertThat(row.get("backing_off")).isEqualTo(true);
+
+        // Not due yet
+        assertThat(eventOutboxRelay.drainOnce()).isZero();
+
+        responseStatus = 200;
+        Thread.sleep(400);
+        assertThat(eventOutboxRelay.drainOnce()).isEqualTo(1);
+        assertThat(pendingCount()).isZero();
+        assertThat(receivedBodies).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should not deliver a backed-off event after a newer one with the same key")
+    void shouldCoalesceBackedOffEventOnNewerDelivery() throws Exception {
+        eventOutbox.enqueue(event("a-v1"), TENANT_A, "agreement/updated:a");
+        responseStatus = 500;
+        assertThat(eventOutboxRelay.drainOnce()).isEqualTo(1);
+
+        // a-v1 is backing off, so a-v2 is claimed on its own
+        responseStatus = 200;
+        eventOutbox.enqueue(event("a-v2"), TENANT_A, "agreement/updated:a");
+        assertThat(eventOutboxRelay.drainOnce()).isEqualTo(1);
+        JsonNode batch = objectMapper.readTree(receivedBodies.get(1));
+        assertThat(batch).extracting(e -> e.path("data").path("agreementId").asText())
+                .containsExactly("a-v2");
+
+        assertThat(pendingCount()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT last_error FROM event_outbox WHERE payload -> 'data' ->> 'agreementId' = 'a-v1'",
+                String.class)).isEqualTo("coalesced");
+        Thread.sleep(400);
+        assertThat(eventOutboxRelay.drainOnce()).isZero();
+        assertThat(receivedBodies).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should skip events leased by another relay until the lease expires")
+    void shouldSkipLeasedEvents() {
+        eventOutbox.enqueue(event("leased"), TENANT_A);
+
+        // Another node claimed the row and is still delivering it
+        jdbcTemplate.update("UPDATE event_outbox SET claimed_until = CURRENT_TIMESTAMP + INTERVAL '1 hour'");
+        assertThat(eventOutboxRelay.drainOnce()).isZero();
+        assertThat(receivedBodies).isEmpty();
+
+        // That node died: the lease runs out and the row is claimable again
+        jdbcTemplate.update("UPDATE event_outbox SET claimed_until = CURRENT_TIMESTAMP - INTERVAL '1 second'");
+        assertThat(eventOutboxRelay.drainOnce()).isEqualTo(1);
+        assertThat(receivedBodies).hasSize(1);
+        assertThat(jdbcTemplate.queryForMap("SELECT published_at, claimed_until FROM event_outbox"))
+                .satisfies(row -> {
+                    assertThat(row.get("published_at")).isNotNull();
+                    assertThat(row.get("claimed_until")).isNull();
+                });
+    }
+
+    @Test
+    @DisplayName("Should mark events failed once max attempts are exhausted")
+    void shouldGiveUpAfterMaxAttempts() throws Exception {
+        eventOutbox.enqueue(event("poison"), TENANT_A);
+        responseStatus = 500;
+
+        int attempts = 0;
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (attempts < 3 && System.currentTimeMillis() < deadline) {
+            attempts += eventOutboxRelay.drainOnce();
+            Thread.sleep(50);
+        }
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT attempts, failed_at FROM event_outbox");
+        assertThat(row.get("attempts")).isEqualTo(3);
+        assertThat(row.get("failed_at")).isNotNull();
+        assertThat(eventOutboxRelay.drainOnce()).isZero();
+    }
+
+    private Integer pendingCount() {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM event_outbox WHERE published_at IS NULL", Integer.class);
+    }
+
+    private static AgreementUpdatedEvent event(String agreementId) {
+        AgreementUpdatedEvent event = new AgreementUpdatedEvent(agreementId, "version_update", Map.of());
+        event.withData("tenantId", TENANT_A.toString());
+        return event;
+    }
+
+    private static HttpServer startStub() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/e/", exchange -> {
+                receivedBodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+                byte[] response = "{\"status\":200}".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(responseStatus, response.length);
+                exchange.getResponseBody().write(response);
+                exchange.close();
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
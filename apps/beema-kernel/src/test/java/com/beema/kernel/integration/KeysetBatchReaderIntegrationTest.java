@@ -0,0 +1,154 @@
+package com.beema.kernel.integration;
+
+import com.beema.kernel.batch.DynamicBatchJob;
+import com.beema.kernel.domain.batch.BatchJobConfig;
+import com.beema.kernel.integration.config.TestSecurityConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs keyset-paged DynamicBatchJob executions against PostgreSQL: a restart must resume
+ * after the last committed key without re-reading, alone and combined with partitions.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnableAutoConfiguration(exclude = OAuth2ResourceServerAutoConfiguration.class)
+@Import(TestSecurityConfig.class)
+class KeysetBatchReaderIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("beema_kernel_test")
+            .withUsername("beema_test")
+            .withPassword("beema_test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.flyway.url", postgres::getJdbcUrl);
+        registry.add("spring.flyway.user", postgres::getUsername);
+        registry.add("spring.flyway.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri",
+                () -> "https://auth.test.local/realms/beema");
+    }
+
+    private static final int ROWS = 20_000;
+    private static final int CHUNK = 500;
+    // US id 7501: row 17,501 in (region, id) order, so 35 chunks commit before it fails
+    private static final int POISON_ROW = 15_001;
+
+    @Autowired
+    private DynamicBatchJob dynamicBatchJob;
+
+    @Autowired
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS batch_keyset_src, batch_keyset_dst");
+        jdbcTemplate.execute("CREATE TABLE batch_keyset_src (region TEXT, id INT, label TEXT, PRIMARY KEY (region, id))");
+        jdbcTemplate.execute("CREATE TABLE batch_keyset_dst (region TEXT, id INT, label TEXT, PRIMARY KEY (region, id))");
+        // Two regions share ids, so only the composite key is unique
+        jdbcTemplate.update("INSERT INTO batch_keyset_src " +
+                "SELECT CASE WHEN g % 2 = 0 THEN 'EU' ELSE 'US' END, (g + 1) / 2, 'row-' || g " +
+                "FROM generate_series(1, ?) g", ROWS);
+    }
+
+    @Test
+    @DisplayName("Should resume after the last committed key on restart")
+    void shouldResumeFromLastKey() throws Exception {
+        jdbcTemplate.execute("ALTER TABLE batch_keyset_dst ADD CONSTRAINT chk_not_poison " +
+                "CHECK (label <> 'row-" + POISON_ROW + "')");
+        BatchJobConfig config = config("keyset-restart", null, 1);
+        JobParameters params = new JobParametersBuilder()
+                .addString("runId", UUID.randomUUID().toString())
+                .toJobParameters();
+
+        JobExecution first = jobLauncher.run(dynamicBatchJob.createJob(config), params);
+        assertThat(first.getStatus()).isEqualTo(BatchStatus.FAILED);
+        StepExecution failed = first.getStepExecutions().iterator().next();
+        assertThat(failed.getExecutionContext().entrySet())
+                .anySatisfy(entry -> assertThat(entry.getKey()).endsWith("last.key"));
+        long committed = failed.getWriteCount();
+        assertThat(committed).isGreaterThan(0).isLessThan(ROWS);
+
+        jdbcTemplate.execute("ALTER TABLE batch_keyset_dst DROP CONSTRAINT chk_not_poison");
+        JobExecution restart = jobLauncher.run(dynamicBatchJob.createJob(config), params);
+
+        assertThat(restart.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        StepExecution resumed = restart.getStepExecutions().iterator().next();
+        // Nothing before the saved key is read again
+        assertThat(resumed.getReadCount()).isEqualTo(ROWS - committed);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM batch_keyset_dst", Integer.class))
+                .isEqualTo(ROWS);
+    }
+
+    @Test
+    @DisplayName("Should page within each partition")
+    void shouldPageWithinPartitions() throws Exception {
+        JobExecution execution = jobLauncher.run(dynamicBatchJob.createJob(config("keyset-hash", "id", 4)),
+                new JobParametersBuilder()
+                        .addString("runId", UUID.randomUUID().toString())
+                        .toJobParameters());
+
+        assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        List<String> copied = jdbcTemplate.queryForList(
+                "SELECT s.region || s.id FROM batch_keyset_src s " +
+                "LEFT JOIN batch_keyset_dst d USING (region, id) WHERE d.label IS DISTINCT FROM s.label",
+                String.class);
+        assertThat(copied).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM batch_keyset_dst", Integer.class))
+                .isEqualTo(ROWS);
+    }
+
+    private BatchJobConfig config(String jobName, String partitionColumn, int partitions) {
+        BatchJobConfig config = new BatchJobConfig();
+        config.setJobName(jobName + "-" + UUID.randomUUID());
+        config.setReaderSql("SELECT region, id, label FROM batch_keyset_src");
+        config.setReaderKeyColumns("region, id");
+        config.setProcessorJexl("item");
+        config.setWriterTable("batch_keyset_dst");
+        config.setWriterKeyColumns("region, id");
+        config.setWriterColumns("label");
+        config.setWriterUpsert(true);
+        config.setChunkSize(CHUNK);
+        config.setPartitionColumn(partitionColumn);
+        config.setPartitionStrategy("HASH");
+        config.setPartitionCount(partitions);
+        config.setTenantId("default");
+        return config;
+    }
+}
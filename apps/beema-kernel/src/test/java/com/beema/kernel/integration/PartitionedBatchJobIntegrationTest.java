@@ -0,0 +1,238 @@
+package com.beema.kernel.integration;
+
+import com.beema.kernel.batch.DynamicBatchJob;
+import com.beema.kernel.batch.partition.SqlKeyPartitioner;
+import com.beema.kernel.domain.batch.BatchJobConfig;
+import com.beema.kernel.integration.config.TestSecurityConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs partitioned DynamicBatchJob executions against PostgreSQL: output must match the
+ * single-partition run, and a failed partition must restart on its own.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnableAutoConfiguration(exclude = OAuth2ResourceServerAutoConfiguration.class)
+@Import(TestSecurityConfig.class)
+class PartitionedBatchJobIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionedBatchJobIntegrationTest.class);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("beema_kernel_test")
+            .withUsername("beema_test")
+            .withPassword("beema_test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.flyway.url", postgres::getJdbcUrl);
+        registry.add("spring.flyway.user", postgres::getUsername);
+        registry.add("spring.flyway.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri",
+                () -> "https://auth.test.local/realms/beema");
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "20");
+        registry.add("beema.batch.partition.threads", () -> String.valueOf(PARTITIONS));
+    }
+
+    private static final int ROWS = 120_000;
+    private static final int PARTITIONS = 4;
+
+    @Autowired
+    private DynamicBatchJob dynamicBatchJob;
+
+    @Autowired
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS batch_partition_src, batch_partition_dst");
+        jdbcTemplate.execute("CREATE TABLE batch_partition_src (id INT PRIMARY KEY, amount NUMERIC(12,2), label TEXT, bucket INT)");
+        jdbcTemplate.execute("CREATE TABLE batch_partition_dst (id INT PRIMARY KEY, amount NUMERIC(12,2), label TEXT)");
+        jdbcTemplate.update("INSERT INTO batch_partition_src " +
+                "SELECT g, round((g % 997) * 1.37, 2), 'row-' || g, NULLIF(g % 8, 0) FROM generate_series(1, ?) g", ROWS);
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Should produce the same output with partitions as serially, logging the speedup")
+    void shouldSpeedUpWithPartitions() throws Exception {
+        long serialMillis = timed(config("partition-serial", null, "RANGE", 1));
+        String serialChecksum = checksum();
+        jdbcTemplate.update("TRUNCATE batch_partition_dst");
+
+        long partitionedMillis = timed(config("partition-range", "id", "RANGE", PARTITIONS));
+        String partitionedChecksum = checksum();
+
+        double speedup = (double) serialMillis / partitionedMillis;
+        log.info("Serial: {} ms, {} partitions: {} ms, speedup {}x on {} CPUs",
+                serialMillis, PARTITIONS, partitionedMillis, String.format("%.2f", speedup),
+                Runtime.getRuntime().availableProcessors());
+
+        assertThat(partitionedChecksum).isEqualTo(serialChecksum);
+        assertTransformed();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"RANGE", "HASH", "VALUE"})
+    @DisplayName("Should read rows with a NULL partition key in their own partition")
+    void shouldPartitionNullKeys(String strategy) throws Exception {
+        // One row in eight has a NULL bucket
+        BatchJobConfig serial = config("partition-nulls-serial", null, strategy, 1);
+        serial.setReaderSql("SELECT id, amount, label, bucket FROM batch_partition_src");
+        timed(serial);
+        String serialChecksum = checksum();
+        jdbcTemplate.update("TRUNCATE batch_partition_dst");
+
+        BatchJobConfig partitioned = config("partition-nulls", "bucket", strategy, PARTITIONS);
+        partitioned.setReaderSql("SELECT id, amount, label, bucket FROM batch_partition_src");
+        timed(partitioned);
+
+        assertThat(checksum()).isEqualTo(serialChecksum);
+        assertTransformed();
+    }
+
+    @Test
+    @DisplayName("Should fail a RANGE partitioned job on a non-integer key")
+    void shouldRejectRangeOnNumericKey() throws Exception {
+        // Integer bounds would leave fractional amounts between two ranges
+        JobExecution execution = jobLauncher.run(
+                dynamicBatchJob.createJob(config("partition-numeric", "amount", "RANGE", PARTITIONS)),
+                new JobParametersBuilder().addString("runId", UUID.randomUUID().toString()).toJobParameters());
+
+        assertThat(execution.getStatus()).isEqualTo(BatchStatus.FAILED);
+        assertThat(execution.getAllFailureExceptions())
+                .anySatisfy(e -> assertThat(e).hasMessageContaining("integer key"));
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM batch_partition_dst", Integer.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should restart only the partition that failed")
+    void shouldRestartFailedPartitionOnly() throws Exception {
+        // One row fails the write, failing the partition that holds it
+        jdbcTemplate.execute("ALTER TABLE batch_partition_dst ADD CONSTRAINT chk_not_poison CHECK (label <> 'row-777')");
+        BatchJobConfig config = config("partition-restart", "id", "HASH", PARTITIONS);
+        JobParameters params = new JobParametersBuilder()
+                .addString("runId", UUID.randomUUID().toString())
+                .toJobParameters();
+
+        JobExecution first = jobLauncher.run(dynamicBatchJob.createJob(config), params);
+        assertThat(first.getStatus()).isEqualTo(BatchStatus.FAILED);
+        assertThat(workers(first)).hasSize(PARTITIONS)
+                .filteredOn(step -> step.getStatus() == BatchStatus.FAILED).hasSize(1);
+
+        jdbcTemplate.execute("ALTER TABLE batch_partition_dst DROP CONSTRAINT chk_not_poison");
+        JobExecution restart = jobLauncher.run(dynamicBatchJob.createJob(config), params);
+
+        assertThat(restart.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        assertThat(workers(restart)).singleElement()
+                .satisfies(step -> assertThat(step.getStatus()).isEqualTo(BatchStatus.COMPLETED));
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM batch_partition_dst", Integer.class))
+                .isEqualTo(ROWS);
+        assertTransformed();
+    }
+
+    @Test
+    @DisplayName("Should reject a partitioned job without reader key columns")
+    void shouldRejectPartitionedJobWithoutReaderKeyColumns() {
+        // A cursor reader restarts by skipping rows, which is only safe in a stable order
+        BatchJobConfig config = config("partition-unordered", "id", "RANGE", PARTITIONS);
+        config.setReaderKeyColumns(null);
+
+        assertThatThrownBy(() -> dynamicBatchJob.createJob(config))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("readerKeyColumns");
+    }
+
+    private BatchJobConfig config(String jobName, String partitionColumn, String strategy, int partitions) {
+        BatchJobConfig config = new BatchJobConfig();
+        config.setJobName(jobName + "-" + UUID.randomUUID());
+        config.setReaderSql("SELECT id, amount, label FROM batch_partition_src");
+        config.setReaderKeyColumns("id");
+        // Returns a changed record, so the comparison covers the processor's output
+        config.setProcessorJexl("{'id': id, 'amount': amount * 2, 'label': 'p-' + label}");
+        config.setWriterTable("batch_partition_dst");
+        config.setWriterKeyColumns("id");
+        config.setWriterColumns("amount, label");
+        config.setWriterUpsert(true);
+        config.setChunkSize(500);
+        config.setPartitionColumn(partitionColumn);
+        config.setPartitionStrategy(strategy);
+        config.setPartitionCount(partitions);
+        config.setTenantId("default");
+        return config;
+    }
+
+    private long timed(BatchJobConfig config) throws Exception {
+        long start = System.nanoTime();
+        JobExecution execution = jobLauncher.run(dynamicBatchJob.createJob(config), new JobParametersBuilder()
+                .addString("runId", UUID.randomUUID().toString())
+                .toJobParameters());
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        return elapsed;
+    }
+
+    private String checksum() {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) || ':' || md5(string_agg(id || '|' || amount || '|' || label, ',' ORDER BY id)) " +
+                "FROM batch_partition_dst", String.class);
+    }
+
+    /**
+     * Every source row was written once, as the processor changed it.
+     */
+    private void assertTransformed() {
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM batch_partition_dst d " +
+                "JOIN batch_partition_src s USING (id) " +
+                "WHERE d.amount = s.amount * 2 AND d.label = 'p-' || s.label", Integer.class))
+                .isEqualTo(ROWS);
+    }
+
+    private static List<StepExecution> workers(JobExecution execution) {
+        return execution.getStepExecutions().stream()
+                .filter(step -> step.getExecutionContext().containsKey(SqlKeyPartitioner.PARTITION_INDEX_KEY))
+                .toList();
+    }
+}
@@ -0,0 +1,113 @@
+package com.beema.kernel.service.agreement;
+
+import com.beema.kernel.domain.agreement.Agreement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("AgreementCache - read-through cache of current agreement versions")
+class AgreementCacheTest {
+
+    private static final String TENANT_A = "a0000000-0000-0000-0000-000000000001";
+    private static final String TENANT_B = "b0000000-0000-0000-0000-000000000002";
+    private static final UUID AGREEMENT_ID = UUID.randomUUID();
+
+    private SimpleMeterRegistry meterRegistry;
+    private AgreementCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new AgreementCache(meterRegistry, true, 100, Duration.ofMinutes(10));
+        loads = new AtomicInteger();
+    }
+
+    private Optional<Agreement> load(String agreementNumber) {
+        loads.incrementAndGet();
+        Agreement agreement = new Agreement();
+        agreement.setAgreementNumber(agreementNumber);
+        return Optional.of(agreement);
+    }
+
+    @Test
+    @DisplayName("Should serve repeated reads from the cache")
+    void shouldServeRepeatedReadsFromCache() {
+        cache.get(TENANT_A, AGREEMENT_ID, () -> load("AGR-1"));
+        Optional<Agreement> second = cache.get(TENANT_A, AGREEMENT_ID, () -> load("AGR-1"));
+
+        assertThat(second).map(Agreement::getAgreementNumber).contains("AGR-1");
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("agreement.cache.hit.ratio").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    @DisplayName("Should keep tenants apart for the same agreement id")
+    void shouldIsolateTenants() {
+        cache.get(TENANT_A, AGREEMENT_ID, () -> load("AGR-A"));
+        Optional<Agreement> other = cache.get(TENANT_B, AGREEMENT_ID, Optional::empty);
+
+        assertThat(other).isEmpty();
+        assertThat(cache.get(TENANT_A.toUpperCase(), AGREEMENT_ID, () -> load("AGR-A")))
+                .map(Agreement::getAgreementNumber).contains("AGR-A");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should not cache lookups without a tenant")
+    void shouldBypassWithoutTenant() {
+        cache.get(null, AGREEMENT_ID, () -> load("AGR-1"));
+        cache.get(null, AGREEMENT_ID, () -> load("AGR-1"));
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reload after a remote change and record staleness")
+    void shouldReloadAfterRemoteInvalidation() {
+        cache.get(TENANT_A, AGREEMENT_ID, () -> load("AGR-1"));
+        cache.invalidateRemote(TENANT_A, AGREEMENT_ID, OffsetDateTime.now().minusSeconds(1));
+        Optional<Agreement> reloaded = cache.get(TENANT_A, AGREEMENT_ID, () -> load("AGR-1-v2"));
+
+        assertThat(reloaded).map(Agreement::getAgreementNumber).contains("AGR-1-v2");
+        assertThat(loads).hasValue(2);
+        assertThat(meterRegistry.get("agreement.cache.staleness").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not cache a version loaded concurrently with its invalidation")
+    void shouldNotCacheLoadRacingInvalidation() {
+        // The write commits while the old version is being read
+        Optional<Agreement> stale = cache.get(TENANT_A, AGREEMENT_ID, () -> {
+            Optional<Agreement> old = load("AGR-1-old");
+            cache.invalidateAfterCommit(TENANT_A, AGREEMENT_ID);
+            return old;
+        });
+
+        assertThat(stale).map(Agreement::getAgreementNumber).contains("AGR-1-old");
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get(TENANT_A, AGREEMENT_ID, () -> load("AGR-1-new")))
+                .map(Agreement::getAgreementNumber).contains("AGR-1-new");
+    }
+
+    @Test
+    @DisplayName("Should drop everything when notifications may have been missed")
+    void shouldInvalidateAll() {
+        cache.get(TENANT_A, AGREEMENT_ID, () -> load("AGR-1"));
+        cache.get(TENANT_B, UUID.randomUUID(), () -> load("AGR-2"));
+
+        cache.invalidateAll();
+
+        assertThat(cache.size()).isZero();
+    }
+}
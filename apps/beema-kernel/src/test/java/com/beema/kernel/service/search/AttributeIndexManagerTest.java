@@ -0,0 +1,47 @@
+package com.beema.kernel.service.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("AttributeIndexManager - expression index naming")
+class AttributeIndexManagerTest {
+
+    @Test
+    @DisplayName("Should use the plain attribute name for short lower-case names")
+    void shouldUsePlainNameWhenItFits() {
+        assertThat(AttributeIndexManager.indexNameFor("vehicle_make"))
+                .isEqualTo("idx_agreements_attr_vehicle_make");
+    }
+
+    @Test
+    @DisplayName("Should keep mixed-case names apart from their lower-case form")
+    void shouldHashMixedCaseNames() {
+        String mixed = AttributeIndexManager.indexNameFor("vehicleMake");
+        String lower = AttributeIndexManager.indexNameFor("vehiclemake");
+
+        assertThat(mixed).startsWith("idx_agreements_attr_vehiclemake_").hasSize(lower.length() + 9);
+        assertThat(mixed).isNotEqualTo(lower);
+        assertThat(mixed).isEqualTo(mixed.toLowerCase());
+    }
+
+    @Test
+    @DisplayName("Should truncate long names to 63 bytes without collisions")
+    void shouldTruncateLongNames() {
+        String prefix = "a".repeat(60);
+        String first = AttributeIndexManager.indexNameFor(prefix + "_first");
+        String second = AttributeIndexManager.indexNameFor(prefix + "_second");
+
+        assertThat(first).hasSize(63).startsWith("idx_agreements_attr_aaaa");
+        assertThat(second).hasSize(63);
+        assertThat(first).isNotEqualTo(second);
+    }
+
+    @Test
+    @DisplayName("Should derive the same name on every call")
+    void shouldBeStable() {
+        assertThat(AttributeIndexManager.indexNameFor("driverLicenceNumber"))
+                .isEqualTo(AttributeIndexManager.indexNameFor("driverLicenceNumber"));
+    }
+}
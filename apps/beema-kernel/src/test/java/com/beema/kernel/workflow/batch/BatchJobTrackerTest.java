@@ -0,0 +1,141 @@
+package com.beema.kernel.workflow.batch;
+
+import io.temporal.client.ActivityCompletionClient;
+import io.temporal.client.WorkflowClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobOperator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for BatchJobTracker heartbeats while jobs wait for a batchJobExecutor thread.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("BatchJobTracker Tests")
+class BatchJobTrackerTest {
+
+    private static final int JOBS = 3;
+
+    @Mock
+    private WorkflowClient workflowClient;
+
+    @Mock
+    private ActivityCompletionClient completionClient;
+
+    @Mock
+    private BatchOrchestratorWorkflow workflow;
+
+    @Mock
+    private JobExplorer jobExplorer;
+
+    @Mock
+    private JobOperator jobOperator;
+
+    private BatchJobTracker tracker;
+    private ThreadPoolTaskExecutor executor;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        when(workflowClient.newActivityCompletionClient()).thenReturn(completionClient);
+        when(workflowClient.newWorkflowStub(eq(BatchOrchestratorWorkflow.class), anyString())).thenReturn(workflow);
+        tracker = new BatchJobTracker(workflowClient, jobExplorer, jobOperator,
+                Duration.ofMillis(50), Duration.ZERO);
+
+        // Fewer threads than jobs: all but one job wait in the queue with status STARTING
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.initialize();
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+        tracker.stop();
+    }
+
+    @Test
+    @DisplayName("Should heartbeat queued jobs before they start running")
+    void shouldHeartbeatJobsWaitingForExecutor() {
+        for (int i = 1; i <= JOBS; i++) {
+            String key = "key-" + i;
+            JobExecution execution = new JobExecution(new JobInstance((long) i, "premium-uplift"), (long) i,
+                    new JobParametersBuilder().addString(BatchJobTracker.TRACKING_KEY_PARAM, key).toJobParameters());
+            when(jobExplorer.getJobExecution((long) i)).thenReturn(execution);
+
+            // What runBatchJob and the launcher do: track, queue the job, record the execution
+            tracker.track(key, token(i), "workflow-" + i);
+            executor.execute(() -> {
+                execution.setStatus(BatchStatus.STARTED);
+                tracker.beforeJob(execution);
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            tracker.launched(key, execution.getId());
+        }
+
+        ArgumentCaptor<Object> details = ArgumentCaptor.forClass(Object.class);
+        for (int i = 1; i <= JOBS; i++) {
+            verify(completionClient, timeout(5_000).atLeastOnce()).heartbeat(eq(token(i)), details.capture());
+        }
+        assertThat(details.getAllValues())
+                .extracting(progress -> ((BatchProgress) progress).status())
+                .contains(BatchStatus.STARTING.name(), BatchStatus.STARTED.name());
+        verify(workflow, atLeastOnce()).reportProgress(any(BatchProgress.class));
+    }
+
+    @Test
+    @DisplayName("Should signal the workflow only when progress changes")
+    void shouldSignalOnlyChangedProgress() {
+        JobExecution execution = new JobExecution(new JobInstance(1L, "premium-uplift"), 1L,
+                new JobParametersBuilder().addString(BatchJobTracker.TRACKING_KEY_PARAM, "key-1").toJobParameters());
+        execution.setStatus(BatchStatus.STARTED);
+        when(jobExplorer.getJobExecution(1L)).thenReturn(execution);
+
+        tracker.track("key-1", token(1), "workflow-1");
+        tracker.launched("key-1", 1L);
+
+        // Every heartbeat carries the progress, but unchanged progress is signalled once
+        verify(completionClient, timeout(5_000).atLeast(5)).heartbeat(eq(token(1)), any());
+        verify(workflow, times(1)).reportProgress(any(BatchProgress.class));
+    }
+
+    private static byte[] token(int job) {
+        return new byte[]{(byte) job};
+    }
+}
@@ -0,0 +1,149 @@
+package com.beema.kernel.workflow.batch;
+
+import io.temporal.activity.Activity;
+import io.temporal.activity.ActivityExecutionContext;
+import io.temporal.client.ActivityCompletionClient;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowFailedException;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for BatchOrchestratorWorkflow using Temporal TestWorkflowEnvironment. The run
+ * activity is completed from the test through the activity completion client, as
+ * BatchJobTracker does when the Spring Batch job ends.
+ */
+class BatchOrchestratorWorkflowTest {
+
+    private static final String TASK_QUEUE = "test-batch-queue";
+
+    private TestWorkflowEnvironment testEnv;
+    private WorkflowClient client;
+    private AsyncBatchActivities activities;
+
+    @BeforeEach
+    void setUp() {
+        testEnv = TestWorkflowEnvironment.newInstance();
+        Worker worker = testEnv.newWorker(TASK_QUEUE);
+        worker.registerWorkflowImplementationTypes(BatchOrchestratorWorkflowImpl.class);
+
+        activities = new AsyncBatchActivities();
+        worker.registerActivitiesImplementations(activities);
+
+        testEnv.start();
+        client = testEnv.getWorkflowClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        testEnv.close();
+    }
+
+    @Test
+    @DisplayName("Should expose signalled progress and finish when the activity is completed")
+    void shouldCompleteFromActivityCompletion() throws Exception {
+        BatchOrchestratorWorkflow workflow = newWorkflow("batch-job-premium-uplift-1");
+        WorkflowClient.start(workflow::executeBatchJob, "premium-uplift", Map.of());
+
+        byte[] taskToken = activities.taskToken.get(10, TimeUnit.SECONDS);
+        assertThat(workflow.getProgress().status()).isEqualTo("STARTING");
+
+        ActivityCompletionClient completion = client.newActivityCompletionClient();
+        BatchProgress running = new BatchProgress(42L, "STARTED", 500, 400, 10, 0, 1, 3, 2_000);
+        completion.heartbeat(taskToken, running);
+        workflow.reportProgress(running);
+        // Stale update delivered late
+        workflow.reportProgress(new BatchProgress(42L, "STARTED", 100, 100, 0, 0, 0, 4, 1_000));
+
+        assertThat(workflow.getProgress()).isEqualTo(running);
+
+        BatchExecutionResult result = new BatchExecutionResult(42L, "premium-uplift", "COMPLETED",
+                LocalDateTime.of(2026, 1, 1, 2, 0), LocalDateTime.of(2026, 1, 1, 5, 0),
+                1_000, 1_000, 0, "COMPLETED", null, 1_000, 10, 900, 120);
+        completion.complete(taskToken, result);
+
+        BatchExecutionResult returned = WorkflowStub.fromTyped(workflow)
+                .getResult(10, TimeUnit.SECONDS, BatchExecutionResult.class);
+        assertThat(returned).isEqualTo(result);
+        assertThat(workflow.getProgress().status()).isEqualTo("COMPLETED");
+        assertThat(workflow.getProgress().writeCount()).isEqualTo(1_000);
+        assertThat(activities.statusChecks).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("Should fail the workflow when the job fails")
+    void shouldFailWhenJobFails() throws Exception {
+        BatchOrchestratorWorkflow workflow = newWorkflow("batch-job-premium-uplift-2");
+        WorkflowClient.start(workflow::executeBatchJob, "premium-uplift", Map.of());
+
+        byte[] taskToken = activities.taskToken.get(10, TimeUnit.SECONDS);
+        client.newActivityCompletionClient().completeExceptionally(taskToken,
+                ApplicationFailure.newNonRetryableFailure("Batch job premium-uplift ended with status FAILED",
+                        "BatchJobFailed"));
+
+        assertThatThrownBy(() -> WorkflowStub.fromTyped(workflow)
+                .getResult(10, TimeUnit.SECONDS, BatchExecutionResult.class))
+                .isInstanceOf(WorkflowFailedException.class);
+        assertThat(workflow.getProgress().status()).isEqualTo("FAILED");
+    }
+
+    private BatchOrchestratorWorkflow newWorkflow(String workflowId) {
+        return client.newWorkflowStub(BatchOrchestratorWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setWorkflowId(workflowId)
+                        .setTaskQueue(TASK_QUEUE)
+                        .build());
+    }
+
+    /**
+     * Leaves runBatchJob open and hands its task token to the test.
+     */
+    static class AsyncBatchActivities implements BatchActivities {
+        final CompletableFuture<byte[]> taskToken = new CompletableFuture<>();
+        final AtomicInteger statusChecks = new AtomicInteger();
+
+        @Override
+        public void validateBatchJobConfig(String jobName) {
+        }
+
+        @Override
+        public Long startBatchJob(String jobName, Map<String, Object> parameters) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public BatchExecutionResult runBatchJob(String jobName, Map<String, Object> parameters) {
+            ActivityExecutionContext context = Activity.getExecutionContext();
+            taskToken.complete(context.getTaskToken());
+            context.doNotCompleteOnReturn();
+            return null;
+        }
+
+        @Override
+        public BatchJobStatus checkBatchJobStatus(Long jobExecutionId) {
+            statusChecks.incrementAndGet();
+            return BatchJobStatus.RUNNING;
+        }
+
+        @Override
+        public BatchExecutionResult getBatchJobResult(Long jobExecutionId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
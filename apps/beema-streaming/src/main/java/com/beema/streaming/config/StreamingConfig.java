@@ -1,6 +1,11 @@
 package com.beema.streaming.config;
 
+import com.beema.streaming.sink.ParquetWriterProfile;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Unified configuration for the Policy Data Stream job.
@@ -26,11 +31,25 @@ public class StreamingConfig implements Serializable {
     private final int parallelism;
     private final long checkpointIntervalMs;
 
-    // Parquet rolling policy
-    private final long maxPartSizeBytes;
+    // Parquet rolling policy (the size limit is the writer profile's target file size)
     private final long rollingIntervalMs;
     private final long inactivityIntervalMs;
 
+    // Parquet small-file compaction
+    private final boolean compactionEnabled;
+    private final long compactionTargetSizeBytes;
+    private final int compactionCheckpointInterval;
+    private final int compactionThreads;
+
+    // Parquet writer tuning
+    private final ParquetWriterProfile parquetWriterProfile;
+
+    // Metadata registry (attribute definitions for typed columns)
+    private final String metadataJdbcUrl;
+    private final String metadataJdbcUser;
+    private final String metadataJdbcPassword;
+    private final List<String> metadataTenantIds;
+
     private StreamingConfig(Builder builder) {
         this.kafkaBootstrapServers = builder.kafkaBootstrapServers;
         this.kafkaGroupId = builder.kafkaGroupId;
@@ -43,9 +62,17 @@ public class StreamingConfig implements Serializable {
         this.jobName = builder.jobName;
         this.parallelism = builder.parallelism;
         this.checkpointIntervalMs = builder.checkpointIntervalMs;
-        this.maxPartSizeBytes = builder.maxPartSizeBytes;
         this.rollingIntervalMs = builder.rollingIntervalMs;
         this.inactivityIntervalMs = builder.inactivityIntervalMs;
+        this.compactionEnabled = builder.compactionEnabled;
+        this.compactionTargetSizeBytes = builder.compactionTargetSizeBytes;
+        this.compactionCheckpointInterval = builder.compactionCheckpointInterval;
+        this.compactionThreads = builder.compactionThreads;
+        this.parquetWriterProfile = builder.parquetWriterProfile;
+        this.metadataJdbcUrl = builder.metadataJdbcUrl;
+        this.metadataJdbcUser = builder.metadataJdbcUser;
+        this.metadataJdbcPassword = builder.metadataJdbcPassword;
+        this.metadataTenantIds = builder.metadataTenantIds;
     }
 
     public static StreamingConfig fromEnv() {
@@ -61,9 +88,28 @@ public class StreamingConfig implements Serializable {
                 .jobName(env("FLINK_JOB_NAME", "beema-policy-data-stream"))
                 .parallelism(Integer.parseInt(env("FLINK_PARALLELISM", "2")))
                 .checkpointIntervalMs(Long.parseLong(env("FLINK_CHECKPOINT_INTERVAL", "300000")))
-                .maxPartSizeBytes(Long.parseLong(env("PARQUET_MAX_PART_SIZE_MB", "128")) * 1024 * 1024)
                 .rollingIntervalMs(Long.parseLong(env("PARQUET_ROLLING_INTERVAL", "300000")))
                 .inactivityIntervalMs(Long.parseLong(env("PARQUET_INACTIVITY_INTERVAL", "60000")))
+                .compactionEnabled(Boolean.parseBoolean(env("PARQUET_COMPACTION_ENABLED", "true")))
+                .compactionTargetSizeBytes(Long.parseLong(env("PARQUET_COMPACTION_TARGET_SIZE_MB", "64")) * 1024 * 1024)
+                .compactionCheckpointInterval(Integer.parseInt(env("PARQUET_COMPACTION_CHECKPOINTS", "12")))
+                .compactionThreads(Integer.parseInt(env("PARQUET_COMPACTION_THREADS", "2")))
+                .parquetWriterProfile(new ParquetWriterProfile.Builder()
+                        .compressionCodec(CompressionCodecName.valueOf(env("PARQUET_COMPRESSION", "SNAPPY").toUpperCase()))
+                        .rowGroupSizeBytes(Long.parseLong(env("PARQUET_ROW_GROUP_SIZE_MB", "128")) * 1024 * 1024)
+                        .pageSizeBytes(Integer.parseInt(env("PARQUET_PAGE_SIZE_KB", "1024")) * 1024)
+                        .dictionaryPageSizeBytes(Integer.parseInt(env("PARQUET_DICTIONARY_PAGE_SIZE_KB", "1024")) * 1024)
+                        .dictionaryEncoding(Boolean.parseBoolean(env("PARQUET_DICTIONARY_ENCODING", "true")))
+                        .dictionaryDisabledColumns(csv(env("PARQUET_DICTIONARY_DISABLED_COLUMNS",
+                                "event_id,policy_id,policy_number,correlation_id")))
+                        .bloomFilterColumns(csv(env("PARQUET_BLOOM_FILTER_COLUMNS", "policy_id,policy_number")))
+                        .bloomFilterExpectedNdv(Long.parseLong(env("PARQUET_BLOOM_FILTER_NDV", "100000")))
+                        .targetFileSizeBytes(Long.parseLong(env("PARQUET_MAX_PART_SIZE_MB", "128")) * 1024 * 1024)
+                        .build())
+                .metadataJdbcUrl(env("METADATA_JDBC_URL", ""))
+                .metadataJdbcUser(env("METADATA_JDBC_USER", "beema"))
+                .metadataJdbcPassword(env("METADATA_JDBC_PASSWORD", ""))
+                .metadataTenantIds(csv(env("METADATA_TENANT_IDS", "")))
                 .build();
     }
 
@@ -71,6 +117,13 @@ public class StreamingConfig implements Serializable {
         return System.getenv().getOrDefault(key, defaultValue);
     }
 
+    private static List<String> csv(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+    }
+
     // --- Getters ---
 
     public String getKafkaBootstrapServers() { return kafkaBootstrapServers; }
@@ -84,9 +137,17 @@ public class StreamingConfig implements Serializable {
     public String getJobName() { return jobName; }
     public int getParallelism() { return parallelism; }
     public long getCheckpointIntervalMs() { return checkpointIntervalMs; }
-    public long getMaxPartSizeBytes() { return maxPartSizeBytes; }
     public long getRollingIntervalMs() { return rollingIntervalMs; }
     public long getInactivityIntervalMs() { return inactivityIntervalMs; }
+    public boolean isCompactionEnabled() { return compactionEnabled; }
+    public long getCompactionTargetSizeBytes() { return compactionTargetSizeBytes; }
+    public int getCompactionCheckpointInterval() { return compactionCheckpointInterval; }
+    public int getCompactionThreads() { return compactionThreads; }
+    public ParquetWriterProfile getParquetWriterProfile() { return parquetWriterProfile; }
+    public String getMetadataJdbcUrl() { return metadataJdbcUrl; }
+    public String getMetadataJdbcUser() { return metadataJdbcUser; }
+    public String getMetadataJdbcPassword() { return metadataJdbcPassword; }
+    public List<String> getMetadataTenantIds() { return metadataTenantIds; }
 
     @Override
     public String toString() {
@@ -97,6 +158,10 @@ public class StreamingConfig implements Serializable {
                 ", jobName='" + jobName + '\'' +
                 ", parallelism=" + parallelism +
                 ", checkpointIntervalMs=" + checkpointIntervalMs +
+                ", compactionEnabled=" + compactionEnabled +
+                ", compactionTargetSizeBytes=" + compactionTargetSizeBytes +
+                ", parquetWriterProfile=" + parquetWriterProfile +
+                ", metadataJdbcUrl='" + metadataJdbcUrl + '\'' +
                 '}';
     }
 
@@ -112,9 +177,17 @@ public class StreamingConfig implements Serializable {
         private String jobName;
         private int parallelism;
         private long checkpointIntervalMs;
-        private long maxPartSizeBytes;
         private long rollingIntervalMs;
         private long inactivityIntervalMs;
+        private boolean compactionEnabled;
+        private long compactionTargetSizeBytes;
+        private int compactionCheckpointInterval;
+        private int compactionThreads;
+        private ParquetWriterProfile parquetWriterProfile = ParquetWriterProfile.defaults();
+        private String metadataJdbcUrl;
+        private String metadataJdbcUser;
+        private String metadataJdbcPassword;
+        private List<String> metadataTenantIds = List.of();
 
         public Builder kafkaBootstrapServers(String v) { this.kafkaBootstrapServers = v; return this; }
         public Builder kafkaGroupId(String v) { this.kafkaGroupId = v; return this; }
@@ -127,9 +200,17 @@ public class StreamingConfig implements Serializable {
         public Builder jobName(String v) { this.jobName = v; return this; }
         public Builder parallelism(int v) { this.parallelism = v; return this; }
         public Builder checkpointIntervalMs(long v) { this.checkpointIntervalMs = v; return this; }
-        public Builder maxPartSizeBytes(long v) { this.maxPartSizeBytes = v; return this; }
         public Builder rollingIntervalMs(long v) { this.rollingIntervalMs = v; return this; }
         public Builder inactivityIntervalMs(long v) { this.inactivityIntervalMs = v; return this; }
+        public Builder compactionEnabled(boolean v) { this.compactionEnabled = v; return this; }
+        public Builder compactionTargetSizeBytes(long v) { this.compactionTargetSizeBytes = v; return this; }
+        public Builder compactionCheckpointInterval(int v) { this.compactionCheckpointInterval = v; return this; }
+        public Builder compactionThreads(int v) { this.compactionThreads = v; return this; }
+        public Builder parquetWriterProfile(ParquetWriterProfile v) { this.parquetWriterProfile = v; return this; }
+        public Builder metadataJdbcUrl(String v) { this.metadataJdbcUrl = v; return this; }
+        public Builder metadataJdbcUser(String v) { this.metadataJdbcUser = v; return this; }
+        public Builder metadataJdbcPassword(String v) { this.metadataJdbcPassword = v; return this; }
+        public Builder metadataTenantIds(List<String> v) { this.metadataTenantIds = v; return this; }
 
         public StreamingConfig build() {
             return new StreamingConfig(this);
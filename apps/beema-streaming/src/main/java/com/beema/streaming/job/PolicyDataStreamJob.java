@@ -4,21 +4,26 @@ import com.beema.streaming.config.StreamingConfig;
 import com.beema.streaming.mapper.PolicyEventMapper;
 import com.beema.streaming.model.PolicyEvent;
 import com.beema.streaming.model.PolicyFlatRecord;
+import com.beema.streaming.schema.AttributeDefinitionLoader;
+import com.beema.streaming.schema.PolicyRecordSchema;
 import com.beema.streaming.serde.PolicyEventDeserializer;
+import com.beema.streaming.sink.ParquetAvroCompactReader;
+import com.beema.streaming.sink.PartitionBucketAssigner;
+import com.beema.streaming.sink.ProfiledAvroParquetWriters;
+import com.beema.streaming.sink.SizeAndTimeRollingPolicy;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.flink.api.common.eventtime.WatermarkStrategy;
 import org.apache.flink.connector.kafka.source.KafkaSource;
 import org.apache.flink.connector.kafka.source.enumerator.initializer.OffsetsInitializer;
 import org.apache.flink.core.fs.Path;
-import org.apache.flink.formats.parquet.avro.AvroParquetWriters;
 import org.apache.flink.streaming.api.CheckpointingMode;
 import org.apache.flink.streaming.api.datastream.DataStream;
 import org.apache.flink.streaming.api.environment.CheckpointConfig;
 import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
 import org.apache.flink.streaming.api.functions.sink.filesystem.OutputFileConfig;
-import org.apache.flink.streaming.api.functions.sink.filesystem.bucketassigners.DateTimeBucketAssigner;
-import org.apache.flink.streaming.api.functions.sink.filesystem.rollingpolicies.OnCheckpointRollingPolicy;
 import org.apache.flink.connector.file.sink.FileSink;
+import org.apache.flink.connector.file.sink.compactor.FileCompactStrategy;
+import org.apache.flink.connector.file.sink.compactor.RecordWiseFileCompactor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,11 +37,12 @@ import org.slf4j.LoggerFactory;
  * 1. Kafka Source: beema.events.policy_change topic
  * 2. Deserialize: JSON -> PolicyEvent
  * 3. Map: PolicyEvent -> PolicyFlatRecord (flat Avro-compatible POJO)
- * 4. Convert: PolicyFlatRecord -> GenericRecord (Avro)
+ * 4. Convert: PolicyFlatRecord -> GenericRecord (Avro, typed columns from metadata_attributes)
  * 5. Parquet Sink: GenericRecord -> s3a://beema-datalake/speed/policy/{date}/{hour}/
  *
- * Rolling Policy: OnCheckpointRollingPolicy (every 5 minutes or 128 MB)
- * Partitioning: yyyy-MM-dd/HH (UTC)
+ * Rolling Policy: SizeAndTimeRollingPolicy (on checkpoint, 128 MB, 5 minutes open or 1 minute idle)
+ * Compaction: small part files of a bucket are merged until the target size is reached
+ * Partitioning: yyyy-MM-dd/HH (UTC, event time)
  */
 public class PolicyDataStreamJob {
     private static final Logger log = LoggerFactory.getLogger(PolicyDataStreamJob.class);
@@ -51,6 +57,10 @@ public class PolicyDataStreamJob {
         // Configure Hadoop for S3/MinIO access
         configureS3(config);
 
+        // Build the typed record schema from the kernel's attribute definitions
+        PolicyRecordSchema recordSchema = AttributeDefinitionLoader.load(config);
+        log.info("Record schema: {}", recordSchema);
+
         // Set up Flink execution environment
         StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
         configureEnvironment(env, config);
@@ -72,17 +82,17 @@ public class PolicyDataStreamJob {
 
         // Map PolicyEvent -> PolicyFlatRecord
         DataStream<PolicyFlatRecord> flatRecords = validEvents
-                .map(new PolicyEventMapper())
+                .map(new PolicyEventMapper(recordSchema))
                 .name("Map to Flat Record");
 
         // Convert to Avro GenericRecord for Parquet writing
         DataStream<GenericRecord> avroRecords = flatRecords
-                .map(PolicyFlatRecord::toGenericRecord)
+                .map(record -> record.toGenericRecord(recordSchema.getAvroSchema()))
                 .returns(GenericRecord.class)
                 .name("Convert to Avro GenericRecord");
 
         // Build Parquet file sink
-        FileSink<GenericRecord> parquetSink = buildParquetSink(config);
+        FileSink<GenericRecord> parquetSink = buildParquetSink(config, recordSchema);
 
         // Write to MinIO
         avroRecords.sinkTo(parquetSink).name("Parquet Sink to MinIO");
@@ -145,12 +155,15 @@ public class PolicyDataStreamJob {
         return source;
     }
 
-    private static FileSink<GenericRecord> buildParquetSink(StreamingConfig config) {
+    /**
+     * Build the Parquet file sink for the given configuration, including small-file compaction
+     * when enabled.
+     */
+    public static FileSink<GenericRecord> buildParquetSink(StreamingConfig config, PolicyRecordSchema recordSchema) {
         String outputPath = config.getS3OutputPath();
 
-        // Date/Hour bucket assigner: produces paths like 2024-01-15/14/
-        DateTimeBucketAssigner<GenericRecord> bucketAssigner =
-                new DateTimeBucketAssigner<>("yyyy-MM-dd/HH");
+        // Date/Hour bucket assigner from the record's partition columns: paths like 2024-01-15/14/
+        PartitionBucketAssigner bucketAssigner = new PartitionBucketAssigner();
 
         // Output file naming
         OutputFileConfig fileConfig = OutputFileConfig.builder()
@@ -158,17 +171,42 @@ public class PolicyDataStreamJob {
                 .withPartSuffix(".parquet")
                 .build();
 
-        FileSink<GenericRecord> sink = FileSink
+        SizeAndTimeRollingPolicy<GenericRecord, String> rollingPolicy = new SizeAndTimeRollingPolicy<>(
+                config.getParquetWriterProfile().getTargetFileSizeBytes(),
+                config.getRollingIntervalMs(),
+                config.getInactivityIntervalMs()
+        );
+
+        FileSink.DefaultBulkFormatBuilder<GenericRecord> builder = FileSink
                 .forBulkFormat(
                         new Path(outputPath),
-                        AvroParquetWriters.forGenericRecord(PolicyFlatRecord.AVRO_SCHEMA)
+                        ProfiledAvroParquetWriters.forGenericRecord(
+                                recordSchema.getAvroSchema(), config.getParquetWriterProfile())
                 )
                 .withBucketAssigner(bucketAssigner)
-                .withRollingPolicy(OnCheckpointRollingPolicy.build())
-                .withOutputFileConfig(fileConfig)
-                .build();
-
-        log.info("Parquet sink configured: outputPath='{}', rollingPolicy=OnCheckpoint", outputPath);
+                .withRollingPolicy(rollingPolicy)
+                .withOutputFileConfig(fileConfig);
+
+        if (config.isCompactionEnabled()) {
+            // Compaction only merges files within the same bucket (date/hour partition):
+            // once the pending files of a bucket reach the target size, or after N checkpoints,
+            // they are rewritten into a single file before being committed.
+            FileCompactStrategy compactStrategy = FileCompactStrategy.Builder.newBuilder()
+                    .setSizeThreshold(config.getCompactionTargetSizeBytes())
+                    .enableCompactionOnCheckpoint(config.getCompactionCheckpointInterval())
+                    .setNumCompactThreads(config.getCompactionThreads())
+                    .build();
+            builder.enableCompact(compactStrategy,
+                    new RecordWiseFileCompactor<>(new ParquetAvroCompactReader.Factory()));
+        }
+
+        FileSink<GenericRecord> sink = builder.build();
+
+        log.info("Parquet sink configured: outputPath='{}', rollingInterval={}ms, "
+                        + "inactivityInterval={}ms, compaction={}, compactionTargetSize={}B, writerProfile={}",
+                outputPath, config.getRollingIntervalMs(),
+                config.getInactivityIntervalMs(), config.isCompactionEnabled(),
+                config.getCompactionTargetSizeBytes(), config.getParquetWriterProfile());
         return sink;
     }
 }
@@ -0,0 +1,341 @@
+package com.beema.streaming.mapper;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Single-pass event timestamp parser.
+ *
+ * Sniffs the format from length and separators instead of trying DateTimeFormatters in
+ * sequence, so no exceptions are thrown for the later formats and no intermediate
+ * java.time objects are allocated on the hot path. Supported formats:
+ * <ul>
+ *   <li>Epoch millis, e.g. {@code 1718461800000}</li>
+ *   <li>ISO-8601 UTC, e.g. {@code 2024-06-15T14:30:00.123Z}</li>
+ *   <li>ISO-8601 with offset and optional region, e.g. {@code 2024-06-15T14:30:00+01:00[Europe/London]}</li>
+ *   <li>ISO-8601 local date-time or date, interpreted as UTC, e.g. {@code 2024-06-15T14:30:00}</li>
+ * </ul>
+ *
+ * The last successful format is remembered per source system, so events from a producer
+ * with a stable format skip sniffing. Instances are not thread-safe; Flink creates one
+ * mapper (and therefore one parser) per subtask.
+ */
+public final class EventTimestampParser {
+
+    /** Returned when the timestamp cannot be parsed. */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final int MAX_HINTS = 1024;
+    private static final String NO_SOURCE = "";
+    private static final String[] HOURS = new String[24];
+
+    static {
+        for (int h = 0; h < 24; h++) {
+            HOURS[h] = h < 10 ? "0" + h : String.valueOf(h);
+        }
+    }
+
+    enum Format { EPOCH_MILLIS, ISO_UTC, ISO_OFFSET, ISO_LOCAL }
+
+    private final Map<String, Format> formatHints = new HashMap<>();
+
+    /**
+     * Parse a timestamp to epoch millis (UTC).
+     *
+     * @param timestamp raw timestamp from the event
+     * @param source    source system used as the format hint key, may be null
+     * @return epoch millis, or {@link #INVALID} if the timestamp is blank or malformed
+     */
+    public long parseEpochMillis(String timestamp, String source) {
+        if (timestamp == null) {
+            return INVALID;
+        }
+        int start = 0;
+        int end = timestamp.length();
+        while (start < end && timestamp.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && timestamp.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return INVALID;
+        }
+
+        String key = source != null ? source : NO_SOURCE;
+        Format hint = formatHints.get(key);
+        if (hint != null) {
+            long millis = parse(hint, timestamp, start, end);
+            if (millis != INVALID) {
+                return millis;
+            }
+        }
+
+        Format sniffed = sniff(timestamp, start, end);
+        if (sniffed == null || sniffed == hint) {
+            return INVALID;
+        }
+        long millis = parse(sniffed, timestamp, start, end);
+        if (millis != INVALID) {
+            if (formatHints.size() >= MAX_HINTS) {
+                formatHints.clear();
+            }
+            formatHints.put(key, sniffed);
+        }
+        return millis;
+    }
+
+    Format hintFor(String source) {
+        return formatHints.get(source != null ? source : NO_SOURCE);
+    }
+
+    /**
+     * Format epoch millis as a UTC partition date (yyyy-MM-dd).
+     */
+    public static String formatDate(long epochMillis) {
+        long epochDay = Math.floorDiv(epochMillis, 86_400_000L);
+
+        // Civil-from-days (proleptic Gregorian), see H. Hinnant's date algorithms
+        long z = epochDay + 719_468;
+        long era = (z >= 0 ? z : z - 146_096) / 146_097;
+        long doe = z - era * 146_097;
+        long yoe = (doe - doe / 1_460 + doe / 36_524 - doe / 146_096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+        if (year < 0 || year > 9999) {
+            return LocalDate.ofEpochDay(epochDay).toString();
+        }
+        char[] buf = new char[10];
+        buf[0] = (char) ('0' + year / 1000);
+        buf[1] = (char) ('0' + year / 100 % 10);
+        buf[2] = (char) ('0' + year / 10 % 10);
+        buf[3] = (char) ('0' + year % 10);
+        buf[4] = '-';
+        buf[5] = (char) ('0' + month / 10);
+        buf[6] = (char) ('0' + month % 10);
+        buf[7] = '-';
+        buf[8] = (char) ('0' + day / 10);
+        buf[9] = (char) ('0' + day % 10);
+        return new String(buf);
+    }
+
+    /**
+     * Format epoch millis as a UTC partition hour (HH).
+     */
+    public static String formatHour(long epochMillis) {
+        return HOURS[(int) (Math.floorMod(epochMillis, 86_400_000L) / 3_600_000L)];
+    }
+
+    // --- Sniffing ---
+
+    static Format sniff(String s, int start, int end) {
+        int len = end - start;
+        char first = s.charAt(start);
+        if (len >= 10 && s.charAt(start + 4) == '-' && s.charAt(start + 7) == '-') {
+            char last = s.charAt(end - 1);
+            if (last == 'Z' || last == 'z') {
+                return Format.ISO_UTC;
+            }
+            int zoneEnd = end;
+            if (last == ']') {
+                zoneEnd = s.lastIndexOf('[', end - 1);
+                if (zoneEnd <= start) {
+                    return null;
+                }
+                char beforeZone = s.charAt(zoneEnd - 1);
+                if (beforeZone == 'Z' || beforeZone == 'z') {
+                    return Format.ISO_UTC;
+                }
+            }
+            // An offset sign can only appear after the time part (yyyy-MM-ddTHH:mm)
+            for (int i = start + 16; i < zoneEnd; i++) {
+                char c = s.charAt(i);
+                if (c == '+' || c == '-') {
+                    return Format.ISO_OFFSET;
+                }
+            }
+            return last == ']' ? null : Format.ISO_LOCAL;
+        }
+        if (isDigit(first) || (first == '-' && len > 1)) {
+            return Format.EPOCH_MILLIS;
+        }
+        return null;
+    }
+
+    // --- Parsing ---
+
+    static long parse(Format format, String s, int start, int end) {
+        return format == Format.EPOCH_MILLIS ? parseEpoch(s, start, end) : parseIso(format, s, start, end);
+    }
+
+    private static long parseEpoch(String s, int start, int end) {
+        boolean negative = s.charAt(start) == '-';
+        int pos = negative ? start + 1 : start;
+        if (pos == end) {
+            return INVALID;
+        }
+        long value = 0;
+        for (; pos < end; pos++) {
+            char c = s.charAt(pos);
+            if (!isDigit(c)) {
+                return INVALID;
+            }
+            int digit = c - '0';
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                return INVALID;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private static long parseIso(Format format, String s, int start, int end) {
+        int pos = start;
+        int year = digits(s, pos, 4, end);
+        if (year < 0 || pos + 4 >= end || s.charAt(pos + 4) != '-') {
+            return INVALID;
+        }
+        int month = digits(s, pos + 5, 2, end);
+        if (month < 1 || month > 12 || pos + 7 >= end || s.charAt(pos + 7) != '-') {
+            return INVALID;
+        }
+        int day = digits(s, pos + 8, 2, end);
+        if (day < 1 || day > lengthOfMonth(year, month)) {
+            return INVALID;
+        }
+        pos += 10;
+
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        int millis = 0;
+        if (pos < end && isDateTimeSeparator(s.charAt(pos))) {
+            hour = digits(s, pos + 1, 2, end);
+            if (hour < 0 || hour > 23 || pos + 3 >= end || s.charAt(pos + 3) != ':') {
+                return INVALID;
+            }
+            minute = digits(s, pos + 4, 2, end);
+            if (minute < 0 || minute > 59) {
+                return INVALID;
+            }
+            pos += 6;
+            if (pos < end && s.charAt(pos) == ':') {
+                second = digits(s, pos + 1, 2, end);
+                if (second < 0 || second > 59) {
+                    return INVALID;
+                }
+                pos += 3;
+                if (pos < end && (s.charAt(pos) == '.' || s.charAt(pos) == ',')) {
+                    pos++;
+                    int fractionDigits = 0;
+                    while (pos < end && isDigit(s.charAt(pos)) && fractionDigits < 9) {
+                        if (fractionDigits < 3) {
+                            millis = millis * 10 + (s.charAt(pos) - '0');
+                        }
+                        fractionDigits++;
+                        pos++;
+                    }
+                    for (int i = fractionDigits; i < 3; i++) {
+                        millis *= 10;
+                    }
+                }
+            }
+        } else if (format != Format.ISO_LOCAL) {
+            // A zone or offset without a time part is not ISO-8601
+            return INVALID;
+        }
+
+        int offsetSeconds = 0;
+        if (format == Format.ISO_UTC) {
+            if (pos >= end || (s.charAt(pos) != 'Z' && s.charAt(pos) != 'z')) {
+                return INVALID;
+            }
+            pos++;
+        } else if (format == Format.ISO_OFFSET) {
+            if (pos >= end || (s.charAt(pos) != '+' && s.charAt(pos) != '-')) {
+                return INVALID;
+            }
+            int sign = s.charAt(pos) == '-' ? -1 : 1;
+            int offsetHours = digits(s, pos + 1, 2, end);
+            if (offsetHours < 0 || offsetHours > 18) {
+                return INVALID;
+            }
+            pos += 3;
+            int offsetMinutes = 0;
+            if (pos < end && s.charAt(pos) == ':') {
+                offsetMinutes = digits(s, pos + 1, 2, end);
+                pos += 3;
+            } else if (pos < end && isDigit(s.charAt(pos))) {
+                offsetMinutes = digits(s, pos, 2, end);
+                pos += 2;
+            }
+            if (offsetMinutes < 0 || offsetMinutes > 59) {
+                return INVALID;
+            }
+            offsetSeconds = sign * (offsetHours * 3600 + offsetMinutes * 60);
+        }
+
+        // Region id in brackets: the offset already pins the instant
+        if (pos < end && s.charAt(pos) == '[') {
+            if (s.charAt(end - 1) != ']' || end - pos < 3) {
+                return INVALID;
+            }
+            pos = end;
+        }
+        if (pos != end) {
+            return INVALID;
+        }
+
+        long epochDay = daysFromCivil(year, month, day);
+        long epochSecond = epochDay * 86_400L + hour * 3_600L + minute * 60L + second - offsetSeconds;
+        return epochSecond * 1_000L + millis;
+    }
+
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yoe = y - era * 400;
+        long doy = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146_097 + doe - 719_468;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /**
+     * Read {@code count} decimal digits starting at {@code pos}; -1 if out of bounds or not digits.
+     */
+    private static int digits(String s, int pos, int count, int end) {
+        if (pos < 0 || pos + count > end) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = pos; i < pos + count; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDateTimeSeparator(char c) {
+        return c == 'T' || c == 't' || c == ' ';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -2,38 +2,48 @@ package com.beema.streaming.mapper;
 
 import com.beema.streaming.model.PolicyEvent;
 import com.beema.streaming.model.PolicyFlatRecord;
+import com.beema.streaming.schema.AttributeColumn;
+import com.beema.streaming.schema.PolicyRecordSchema;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.apache.flink.api.common.functions.MapFunction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Instant;
-import java.time.ZoneOffset;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Maps a PolicyEvent from Kafka to a flat PolicyFlatRecord for Parquet writing.
- * Extracts common policy attributes into typed columns and serializes remaining
- * dynamic attributes as a JSON string.
+ * Extracts common policy attributes into typed columns, promotes metadata-declared
+ * dynamic attributes to their typed "attr_*" columns, and keeps the remaining
+ * attributes in the overflow map (nested values serialized as JSON).
  * Adds partition_date (yyyy-MM-dd) and partition_hour (HH) based on event timestamp.
  */
 public class PolicyEventMapper implements MapFunction<PolicyEvent, PolicyFlatRecord> {
     private static final long serialVersionUID = 1L;
     private static final Logger log = LoggerFactory.getLogger(PolicyEventMapper.class);
 
-    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final DateTimeFormatter HOUR_FMT = DateTimeFormatter.ofPattern("HH");
-
+    private final PolicyRecordSchema recordSchema;
     private transient ObjectMapper objectMapper;
+    private transient EventTimestampParser timestampParser;
+
+    public PolicyEventMapper() {
+        this(PolicyRecordSchema.empty());
+    }
+
+    public PolicyEventMapper(PolicyRecordSchema recordSchema) {
+        this.recordSchema = recordSchema;
+    }
 
     @Override
     public PolicyFlatRecord map(PolicyEvent event) throws Exception {
         if (objectMapper == null) {
             objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
         }
+        if (timestampParser == null) {
+            timestampParser = new EventTimestampParser();
+        }
 
         PolicyFlatRecord record = new PolicyFlatRecord();
 
@@ -84,49 +94,65 @@ public class PolicyEventMapper implements MapFunction<PolicyEvent, PolicyFlatRec
         record.setSourceSystem(event.getSourceSystem());
         record.setCorrelationId(event.getCorrelationId());
 
-        // Serialize remaining attributes as JSON string
+        // Promote declared attributes to typed columns, keep the rest in the overflow map
         if (event.getAttributes() != null && !event.getAttributes().isEmpty()) {
-            try {
-                record.setAttributesJson(objectMapper.writeValueAsString(event.getAttributes()));
-            } catch (Exception e) {
-                log.warn("Failed to serialize attributes for event {}: {}", event.getEventId(), e.getMessage());
-                record.setAttributesJson("{}");
-            }
+            mapAttributes(event, record);
         }
+        record.setSchemaVersion(recordSchema.getVersion());
 
         // Compute partitioning columns from event timestamp
-        ZonedDateTime eventTime = parseTimestamp(event.getEventTimestamp());
-        record.setPartitionDate(eventTime.format(DATE_FMT));
-        record.setPartitionHour(eventTime.format(HOUR_FMT));
+        long eventTimeMillis = parseTimestamp(event.getEventTimestamp(), event.getSourceSystem());
+        record.setPartitionDate(EventTimestampParser.formatDate(eventTimeMillis));
+        record.setPartitionHour(EventTimestampParser.formatHour(eventTimeMillis));
 
         return record;
     }
 
+    private void mapAttributes(PolicyEvent event, PolicyFlatRecord record) {
+        Map<String, Object> promoted = new HashMap<>();
+        Map<String, String> overflow = new HashMap<>();
+        for (Map.Entry<String, Object> entry : event.getAttributes().entrySet()) {
+            Object value = entry.getValue();
+            if (value == null) {
+                continue;
+            }
+            AttributeColumn column = recordSchema.columnFor(entry.getKey());
+            Object typed = column != null ? column.coerce(value) : null;
+            if (typed != null) {
+                promoted.put(column.getColumnName(), typed);
+            } else {
+                overflow.put(entry.getKey(), toOverflowValue(event, entry.getKey(), value));
+            }
+        }
+        record.setPromotedAttributes(promoted.isEmpty() ? null : promoted);
+        record.setOverflowAttributes(overflow.isEmpty() ? null : overflow);
+    }
+
+    private String toOverflowValue(PolicyEvent event, String name, Object value) {
+        if (value instanceof Map || value instanceof Iterable) {
+            try {
+                return objectMapper.writeValueAsString(value);
+            } catch (Exception e) {
+                log.warn("Failed to serialize attribute '{}' for event {}: {}", name, event.getEventId(), e.getMessage());
+            }
+        }
+        return value.toString();
+    }
+
     /**
-     * Parse event timestamp. Supports ISO-8601 and epoch millis.
+     * Parse event timestamp to epoch millis (UTC). Supports ISO-8601 and epoch millis,
+     * using the per-source format hint of the single-pass parser.
      * Falls back to current time if parsing fails.
      */
-    private ZonedDateTime parseTimestamp(String timestamp) {
+    private long parseTimestamp(String timestamp, String sourceSystem) {
         if (timestamp == null || timestamp.isBlank()) {
-            return ZonedDateTime.now(ZoneOffset.UTC);
+            return System.currentTimeMillis();
+        }
+        long epochMillis = timestampParser.parseEpochMillis(timestamp, sourceSystem);
+        if (epochMillis == EventTimestampParser.INVALID) {
+            log.warn("Unable to parse timestamp '{}', using current time", timestamp);
+            return System.currentTimeMillis();
         }
-        // Try ISO-8601 first
-        try {
-            return ZonedDateTime.parse(timestamp).withZoneSameInstant(ZoneOffset.UTC);
-        } catch (DateTimeParseException ignored) {}
-
-        // Try Instant (ISO without zone)
-        try {
-            return Instant.parse(timestamp).atZone(ZoneOffset.UTC);
-        } catch (DateTimeParseException ignored) {}
-
-        // Try epoch millis
-        try {
-            long epochMillis = Long.parseLong(timestamp);
-            return Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC);
-        } catch (NumberFormatException ignored) {}
-
-        log.warn("Unable to parse timestamp '{}', using current time", timestamp);
-        return ZonedDateTime.now(ZoneOffset.UTC);
+        return epochMillis;
     }
 }
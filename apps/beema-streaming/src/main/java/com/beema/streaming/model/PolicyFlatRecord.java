@@ -1,67 +1,27 @@
 package com.beema.streaming.model;
 
+import com.beema.streaming.schema.PolicyRecordSchema;
 import org.apache.avro.Schema;
-import org.apache.avro.SchemaBuilder;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
 
 import java.io.Serializable;
+import java.util.Map;
 
 /**
  * Avro-compatible flat POJO for writing policy data as Parquet.
  * Flattens the PolicyEvent into a columnar-friendly structure.
- * Remaining dynamic attributes are stored as a JSON string column.
+ * Metadata-declared attributes are promoted to typed columns; remaining dynamic
+ * attributes are stored in an overflow map column.
  */
 public class PolicyFlatRecord implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    public static final Schema AVRO_SCHEMA = SchemaBuilder.record("PolicyFlatRecord")
-            .namespace("com.beema.streaming.model")
-            .fields()
-            // Event metadata
-            .optionalString("event_id")
-            .optionalString("event_type")
-            .optionalString("event_timestamp")
-            .optionalString("tenant_id")
-            // Policy core
-            .optionalString("policy_id")
-            .optionalString("policy_number")
-            .name("version").type().nullable().intType().noDefault()
-            .optionalString("status")
-            .optionalString("product_code")
-            .optionalString("line_of_business")
-            // Dates
-            .optionalString("effective_date")
-            .optionalString("expiry_date")
-            .optionalString("inception_date")
-            // Policyholder
-            .optionalString("policyholder_name")
-            .optionalString("policyholder_id")
-            // Vehicle
-            .optionalString("vehicle_make")
-            .optionalString("vehicle_model")
-            .name("vehicle_year").type().nullable().intType().noDefault()
-            .optionalString("vehicle_registration")
-            // Financials
-            .name("gross_premium").type().nullable().doubleType().noDefault()
-            .name("net_premium").type().nullable().doubleType().noDefault()
-            .optionalString("currency")
-            .name("sum_insured").type().nullable().doubleType().noDefault()
-            // Distribution
-            .optionalString("broker_code")
-            .optionalString("agent_code")
-            // Bitemporal
-            .optionalString("valid_from")
-            .optionalString("valid_to")
-            // Provenance
-            .optionalString("source_system")
-            .optionalString("correlation_id")
-            // Dynamic flex attributes (serialized JSON)
-            .optionalString("attributes_json")
-            // Partitioning columns
-            .optionalString("partition_date")
-            .optionalString("partition_hour")
-            .endRecord();
+    /**
+     * Schema without promoted metadata attributes. The streaming job uses the
+     * metadata-derived schema from {@link PolicyRecordSchema} instead.
+     */
+    public static final Schema AVRO_SCHEMA = PolicyRecordSchema.empty().getAvroSchema();
 
     // Fields
     private String eventId;
@@ -93,7 +53,9 @@ public class PolicyFlatRecord implements Serializable {
     private String validTo;
     private String sourceSystem;
     private String correlationId;
-    private String attributesJson;
+    private Map<String, Object> promotedAttributes;
+    private Map<String, String> overflowAttributes;
+    private String schemaVersion;
     private String partitionDate;
     private String partitionHour;
 
@@ -103,7 +65,15 @@ public class PolicyFlatRecord implements Serializable {
      * Convert this POJO to an Avro GenericRecord for Parquet serialization.
      */
     public GenericRecord toGenericRecord() {
-        GenericRecord record = new GenericData.Record(AVRO_SCHEMA);
+        return toGenericRecord(AVRO_SCHEMA);
+    }
+
+    /**
+     * Convert this POJO to an Avro GenericRecord using the given (metadata-derived) schema.
+     * Promoted attributes without a matching column in the schema are ignored.
+     */
+    public GenericRecord toGenericRecord(Schema schema) {
+        GenericRecord record = new GenericData.Record(schema);
         record.put("event_id", eventId);
         record.put("event_type", eventType);
         record.put("event_timestamp", eventTimestamp);
@@ -133,7 +103,16 @@ public class PolicyFlatRecord implements Serializable {
         record.put("valid_to", validTo);
         record.put("source_system", sourceSystem);
         record.put("correlation_id", correlationId);
-        record.put("attributes_json", attributesJson);
+        if (promotedAttributes != null) {
+            for (Map.Entry<String, Object> entry : promotedAttributes.entrySet()) {
+                if (schema.getField(entry.getKey()) != null) {
+                    record.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        record.put(PolicyRecordSchema.OVERFLOW_COLUMN, overflowAttributes);
+        record.put(PolicyRecordSchema.SCHEMA_VERSION_COLUMN,
+                schemaVersion != null ? schemaVersion : PolicyRecordSchema.BASE_VERSION);
         record.put("partition_date", partitionDate);
         record.put("partition_hour", partitionHour);
         return record;
@@ -228,8 +207,14 @@ public class PolicyFlatRecord implements Serializable {
     public String getCorrelationId() { return correlationId; }
     public void setCorrelationId(String correlationId) { this.correlationId = correlationId; }
 
-    public String getAttributesJson() { return attributesJson; }
-    public void setAttributesJson(String attributesJson) { this.attributesJson = attributesJson; }
+    public Map<String, Object> getPromotedAttributes() { return promotedAttributes; }
+    public void setPromotedAttributes(Map<String, Object> promotedAttributes) { this.promotedAttributes = promotedAttributes; }
+
+    public Map<String, String> getOverflowAttributes() { return overflowAttributes; }
+    public void setOverflowAttributes(Map<String, String> overflowAttributes) { this.overflowAttributes = overflowAttributes; }
+
+    public String getSchemaVersion() { return schemaVersion; }
+    public void setSchemaVersion(String schemaVersion) { this.schemaVersion = schemaVersion; }
 
     public String getPartitionDate() { return partitionDate; }
     public void setPartitionDate(String partitionDate) { this.partitionDate = partitionDate; }
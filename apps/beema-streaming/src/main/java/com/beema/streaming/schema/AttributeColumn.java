@@ -0,0 +1,151 @@
+package com.beema.streaming.schema;
+
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A metadata-declared attribute promoted to its own typed Parquet column.
+ * Column names are prefixed with "attr_" so they can never collide with core columns.
+ */
+public class AttributeColumn implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String COLUMN_PREFIX = "attr_";
+
+    /**
+     * Physical column type used in the Avro/Parquet schema.
+     */
+    public enum ColumnType {
+        STRING, LONG, DOUBLE, BOOLEAN, DATE;
+
+        /**
+         * Map a kernel metadata_attributes.data_type to a column type.
+         * Returns null for types that are not promoted (OBJECT, ARRAY, unknown).
+         */
+        public static ColumnType fromMetadataDataType(String dataType) {
+            if (dataType == null) {
+                return null;
+            }
+            return switch (dataType.trim().toUpperCase()) {
+                case "STRING", "TEXT", "ENUM" -> STRING;
+                case "INTEGER", "LONG" -> LONG;
+                case "NUMBER", "DECIMAL", "CURRENCY", "PERCENTAGE" -> DOUBLE;
+                case "BOOLEAN" -> BOOLEAN;
+                case "DATE" -> DATE;
+                default -> null;
+            };
+        }
+
+        Schema avroSchema() {
+            return switch (this) {
+                case STRING -> Schema.create(Schema.Type.STRING);
+                case LONG -> Schema.create(Schema.Type.LONG);
+                case DOUBLE -> Schema.create(Schema.Type.DOUBLE);
+                case BOOLEAN -> Schema.create(Schema.Type.BOOLEAN);
+                case DATE -> LogicalTypes.date().addToSchema(Schema.create(Schema.Type.INT));
+            };
+        }
+    }
+
+    private final String attributeName;
+    private final String columnName;
+    private final ColumnType type;
+
+    public AttributeColumn(String attributeName, ColumnType type) {
+        this.attributeName = attributeName;
+        this.columnName = toColumnName(attributeName);
+        this.type = type;
+    }
+
+    /**
+     * Convert a raw JSON attribute value to the column's Avro representation.
+     * Returns null when the value does not fit the declared type, in which case
+     * the caller keeps it in the overflow map instead of dropping it.
+     */
+    public Object coerce(Object value) {
+        if (value == null || value instanceof Map || value instanceof List) {
+            return null;
+        }
+        return switch (type) {
+            case STRING -> value.toString();
+            case LONG -> toLong(value);
+            case DOUBLE -> toDouble(value);
+            case BOOLEAN -> toBoolean(value);
+            case DATE -> toEpochDay(value);
+        };
+    }
+
+    static String toColumnName(String attributeName) {
+        StringBuilder sb = new StringBuilder(COLUMN_PREFIX);
+        for (int i = 0; i < attributeName.length(); i++) {
+            char c = Character.toLowerCase(attributeName.charAt(i));
+            sb.append((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_' ? c : '_');
+        }
+        return sb.toString();
+    }
+
+    private static Long toLong(Object value) {
+        if (value instanceof Number n) {
+            double d = n.doubleValue();
+            return d == Math.rint(d) ? n.longValue() : null;
+        }
+        try {
+            return Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Double toDouble(Object value) {
+        if (value instanceof Number n) {
+            return n.doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Boolean toBoolean(Object value) {
+        if (value instanceof Boolean b) {
+            return b;
+        }
+        String s = value.toString().trim();
+        if ("true".equalsIgnoreCase(s)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equalsIgnoreCase(s)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    private static Integer toEpochDay(Object value) {
+        String s = value.toString().trim();
+        if (s.length() < 10) {
+            return null;
+        }
+        try {
+            // Accept plain dates and the date part of ISO timestamps
+            return (int) LocalDate.parse(s.substring(0, 10)).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    public String getAttributeName() { return attributeName; }
+    public String getColumnName() { return columnName; }
+    public ColumnType getType() { return type; }
+
+    @Override
+    public String toString() {
+        return attributeName + "->" + columnName + ":" + type;
+    }
+}
@@ -0,0 +1,86 @@
+package com.beema.streaming.schema;
+
+import com.beema.streaming.config.StreamingConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads attribute definitions from the kernel's metadata_attributes table at job start-up
+ * and builds the typed {@link PolicyRecordSchema} from them.
+ *
+ * metadata_attributes has forced row-level security, so definitions are read once per
+ * configured tenant with app.current_tenant set. If no tenants are configured the query
+ * runs without a tenant context (requires a role with BYPASSRLS).
+ *
+ * A change to the definitions takes effect on the next job (re)start and produces a new
+ * schema version.
+ */
+public final class AttributeDefinitionLoader {
+    private static final Logger log = LoggerFactory.getLogger(AttributeDefinitionLoader.class);
+
+    private static final String SET_TENANT_SQL = "SELECT set_config('app.current_tenant', ?, false)";
+    private static final String SELECT_DEFINITIONS_SQL =
+            "SELECT attribute_name, data_type FROM metadata_attributes WHERE is_active = TRUE";
+
+    private AttributeDefinitionLoader() {}
+
+    /**
+     * Build the record schema from the metadata registry. Falls back to the base schema
+     * (all dynamic attributes in the overflow map) if no metadata database is configured
+     * or it cannot be reached, so the stream keeps flowing.
+     */
+    public static PolicyRecordSchema load(StreamingConfig config) {
+        String url = config.getMetadataJdbcUrl();
+        if (url == null || url.isBlank()) {
+            log.info("No metadata database configured, using base schema (all attributes in overflow map)");
+            return PolicyRecordSchema.empty();
+        }
+
+        try (Connection connection = DriverManager.getConnection(
+                url, config.getMetadataJdbcUser(), config.getMetadataJdbcPassword())) {
+            Map<String, List<String>> definitions = new HashMap<>();
+            List<String> tenantIds = config.getMetadataTenantIds();
+            if (tenantIds.isEmpty()) {
+                readDefinitions(connection, definitions);
+            } else {
+                for (String tenantId : tenantIds) {
+                    try (PreparedStatement ps = connection.prepareStatement(SET_TENANT_SQL)) {
+                        ps.setString(1, tenantId);
+                        ps.execute();
+                    }
+                    readDefinitions(connection, definitions);
+                }
+            }
+
+            PolicyRecordSchema schema = PolicyRecordSchema.fromDefinitions(definitions);
+            log.info("Loaded {} attribute definitions, promoted {} typed columns, schema version '{}'",
+                    definitions.size(), schema.getColumns().size(), schema.getVersion());
+            return schema;
+        } catch (SQLException e) {
+            log.error("Failed to load attribute definitions from metadata database, using base schema: {}",
+                    e.getMessage());
+            return PolicyRecordSchema.empty();
+        }
+    }
+
+    private static void readDefinitions(Connection connection, Map<String, List<String>> definitions)
+            throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(SELECT_DEFINITIONS_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                definitions.computeIfAbsent(rs.getString("attribute_name"), k -> new ArrayList<>())
+                        .add(rs.getString("data_type"));
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.beema.streaming.schema;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Avro/Parquet schema for flattened policy records.
+ *
+ * Core policy columns are fixed. Attributes declared in the kernel's metadata_attributes
+ * table are promoted to typed "attr_*" columns so analytical queries can filter on them
+ * with Parquet predicate pushdown. Attributes without a declaration (or whose value does
+ * not fit the declared type) are kept in the attributes_overflow map column.
+ *
+ * The schema version is a fingerprint of the promoted columns, so every change to the
+ * attribute definitions yields a new version that is written with each row.
+ */
+public class PolicyRecordSchema implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String OVERFLOW_COLUMN = "attributes_overflow";
+    public static final String SCHEMA_VERSION_COLUMN = "schema_version";
+    public static final String SCHEMA_VERSION_PROP = "beema.schema.version";
+    public static final String BASE_VERSION = "base";
+
+    private final Map<String, AttributeColumn> columnsByAttribute;
+    private final String version;
+    private transient Schema avroSchema;
+
+    private PolicyRecordSchema(Map<String, AttributeColumn> columnsByAttribute) {
+        this.columnsByAttribute = columnsByAttribute;
+        this.version = fingerprint(columnsByAttribute.values());
+    }
+
+    /**
+     * Schema with no promoted attributes; every dynamic attribute goes to the overflow map.
+     */
+    public static PolicyRecordSchema empty() {
+        return new PolicyRecordSchema(new LinkedHashMap<>());
+    }
+
+    /**
+     * Build the schema from attribute definitions (attribute_name -> metadata data_type).
+     * Unsupported data types (OBJECT, ARRAY) stay in the overflow map. Attributes declared
+     * with conflicting types across tenants or market contexts are promoted as strings.
+     */
+    public static PolicyRecordSchema fromDefinitions(Map<String, List<String>> dataTypesByAttribute) {
+        // Sort by attribute name so column order is stable between job restarts
+        Map<String, AttributeColumn> columns = new LinkedHashMap<>();
+        Set<String> usedColumnNames = new HashSet<>();
+        for (Map.Entry<String, List<String>> entry : new TreeMap<>(dataTypesByAttribute).entrySet()) {
+            AttributeColumn.ColumnType type = resolveType(entry.getValue());
+            if (type == null) {
+                continue;
+            }
+            AttributeColumn column = new AttributeColumn(entry.getKey(), type);
+            if (usedColumnNames.add(column.getColumnName())) {
+                columns.put(entry.getKey(), column);
+            }
+        }
+        return new PolicyRecordSchema(columns);
+    }
+
+    private static AttributeColumn.ColumnType resolveType(List<String> dataTypes) {
+        AttributeColumn.ColumnType resolved = null;
+        for (String dataType : dataTypes) {
+            AttributeColumn.ColumnType type = AttributeColumn.ColumnType.fromMetadataDataType(dataType);
+            if (type == null) {
+                return null;
+            }
+            if (resolved == null) {
+                resolved = type;
+            } else if (resolved != type) {
+                resolved = AttributeColumn.ColumnType.STRING;
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Column for a declared attribute, or null if the attribute belongs in the overflow map.
+     */
+    public AttributeColumn columnFor(String attributeName) {
+        return columnsByAttribute.get(attributeName);
+    }
+
+    public List<AttributeColumn> getColumns() {
+        return Collections.unmodifiableList(new ArrayList<>(columnsByAttribute.values()));
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public Schema getAvroSchema() {
+        if (avroSchema == null) {
+            avroSchema = buildAvroSchema();
+        }
+        return avroSchema;
+    }
+
+    private Schema buildAvroSchema() {
+        SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder.record("PolicyFlatRecord")
+                .namespace("com.beema.streaming.model")
+                .prop(SCHEMA_VERSION_PROP, version)
+                .fields()
+                // Event metadata
+                .optionalString("event_id")
+                .optionalString("event_type")
+                .optionalString("event_timestamp")
+                .optionalString("tenant_id")
+                // Policy core
+                .optionalString("policy_id")
+                .optionalString("policy_number")
+                .name("version").type().nullable().intType().noDefault()
+                .optionalString("status")
+                .optionalString("product_code")
+                .optionalString("line_of_business")
+                // Dates
+                .optionalString("effective_date")
+                .optionalString("expiry_date")
+                .optionalString("inception_date")
+                // Policyholder
+                .optionalString("policyholder_name")
+                .optionalString("policyholder_id")
+                // Vehicle
+                .optionalString("vehicle_make")
+                .optionalString("vehicle_model")
+                .name("vehicle_year").type().nullable().intType().noDefault()
+                .optionalString("vehicle_registration")
+                // Financials
+                .name("gross_premium").type().nullable().doubleType().noDefault()
+                .name("net_premium").type().nullable().doubleType().noDefault()
+                .optionalString("currency")
+                .name("sum_insured").type().nullable().doubleType().noDefault()
+                // Distribution
+                .optionalString("broker_code")
+                .optionalString("agent_code")
+                // Bitemporal
+                .optionalString("valid_from")
+                .optionalString("valid_to")
+                // Provenance
+                .optionalString("source_system")
+                .optionalString("correlation_id");
+
+        // Promoted metadata attributes (typed, nullable)
+        for (AttributeColumn column : columnsByAttribute.values()) {
+            Schema nullable = Schema.createUnion(Schema.create(Schema.Type.NULL), column.getType().avroSchema());
+            fields = fields.name(column.getColumnName())
+                    .doc("Metadata attribute '" + column.getAttributeName() + "'")
+                    .type(nullable).withDefault(null);
+        }
+
+        return fields
+                // Undeclared dynamic attributes
+                .name(OVERFLOW_COLUMN).type().nullable().map().values().stringType().noDefault()
+                .requiredString(SCHEMA_VERSION_COLUMN)
+                // Partitioning columns
+                .optionalString("partition_date")
+                .optionalString("partition_hour")
+                .endRecord();
+    }
+
+    private static String fingerprint(Iterable<AttributeColumn> columns) {
+        StringBuilder sb = new StringBuilder();
+        for (AttributeColumn column : columns) {
+            sb.append(column.getAttributeName()).append(':').append(column.getType()).append(';');
+        }
+        if (sb.length() == 0) {
+            return BASE_VERSION;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PolicyRecordSchema{version='" + version + "', columns=" + columnsByAttribute.values() + '}';
+    }
+}
@@ -0,0 +1,51 @@
+package com.beema.streaming.sink;
+
+import org.apache.avro.generic.GenericRecord;
+import org.apache.flink.connector.file.sink.compactor.RecordWiseFileCompactor;
+import org.apache.flink.core.fs.Path;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+
+import java.io.IOException;
+
+/**
+ * Reads committed Parquet part files back as Avro GenericRecords so the FileSink
+ * compactor can merge the small files of a bucket into larger ones.
+ *
+ * The Hadoop configuration is created on the task manager and picks up core-site.xml
+ * from the classpath, so s3a:// paths resolve against MinIO the same way the writer does.
+ */
+public class ParquetAvroCompactReader implements RecordWiseFileCompactor.Reader<GenericRecord> {
+
+    private final ParquetReader<GenericRecord> reader;
+
+    public ParquetAvroCompactReader(Path path, Configuration hadoopConf) throws IOException {
+        org.apache.hadoop.fs.Path hadoopPath = new org.apache.hadoop.fs.Path(path.toUri());
+        this.reader = AvroParquetReader.<GenericRecord>builder(HadoopInputFile.fromPath(hadoopPath, hadoopConf))
+                .build();
+    }
+
+    @Override
+    public GenericRecord read() throws IOException {
+        return reader.read();
+    }
+
+    @Override
+    public void close() throws Exception {
+        reader.close();
+    }
+
+    /**
+     * Serializable factory handed to {@link RecordWiseFileCompactor}.
+     */
+    public static class Factory implements RecordWiseFileCompactor.Reader.Factory<GenericRecord> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public RecordWiseFileCompactor.Reader<GenericRecord> createFor(Path path) throws IOException {
+            return new ParquetAvroCompactReader(path, new Configuration());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.beema.streaming.sink;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.flink.formats.parquet.ParquetBuilder;
+import org.apache.flink.formats.parquet.ParquetWriterFactory;
+import org.apache.parquet.avro.AvroParquetWriter;
+
+/**
+ * Replacement for {@code AvroParquetWriters.forGenericRecord} that applies a
+ * {@link ParquetWriterProfile} instead of Parquet's default writer settings.
+ */
+public final class ProfiledAvroParquetWriters {
+
+    private ProfiledAvroParquetWriters() {}
+
+    public static ParquetWriterFactory<GenericRecord> forGenericRecord(Schema schema, ParquetWriterProfile profile) {
+        // Avro schemas are shipped as strings, the same way Flink's AvroParquetWriters does
+        final String schemaString = schema.toString();
+        final ParquetBuilder<GenericRecord> builder = out -> profile.applyTo(
+                        AvroParquetWriter.<GenericRecord>builder(out)
+                                .withSchema(new Schema.Parser().parse(schemaString))
+                                .withDataModel(GenericData.get()))
+                .build();
+        return new ParquetWriterFactory<>(builder);
+    }
+}
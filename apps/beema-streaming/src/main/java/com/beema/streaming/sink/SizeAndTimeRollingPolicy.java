@@ -0,0 +1,49 @@
+package com.beema.streaming.sink;
+
+import org.apache.flink.streaming.api.functions.sink.filesystem.PartFileInfo;
+import org.apache.flink.streaming.api.functions.sink.filesystem.rollingpolicies.CheckpointRollingPolicy;
+
+import java.io.IOException;
+
+/**
+ * Rolling policy for bulk (Parquet) part files.
+ *
+ * Bulk formats must always roll on checkpoint, so this extends CheckpointRollingPolicy
+ * and additionally rolls a part file when it reaches the configured size, when it has
+ * been open longer than the rollover interval, or when it has been inactive for longer
+ * than the inactivity interval.
+ *
+ * @param <IN> element type
+ * @param <BucketID> bucket identifier type
+ */
+public class SizeAndTimeRollingPolicy<IN, BucketID> extends CheckpointRollingPolicy<IN, BucketID> {
+    private static final long serialVersionUID = 1L;
+
+    private final long maxPartSizeBytes;
+    private final long rolloverIntervalMs;
+    private final long inactivityIntervalMs;
+
+    public SizeAndTimeRollingPolicy(long maxPartSizeBytes, long rolloverIntervalMs, long inactivityIntervalMs) {
+        if (maxPartSizeBytes <= 0 || rolloverIntervalMs <= 0 || inactivityIntervalMs <= 0) {
+            throw new IllegalArgumentException("Rolling policy size and intervals must be positive");
+        }
+        this.maxPartSizeBytes = maxPartSizeBytes;
+        this.rolloverIntervalMs = rolloverIntervalMs;
+        this.inactivityIntervalMs = inactivityIntervalMs;
+    }
+
+    @Override
+    public boolean shouldRollOnEvent(PartFileInfo<BucketID> partFileState, IN element) throws IOException {
+        return partFileState.getSize() >= maxPartSizeBytes;
+    }
+
+    @Override
+    public boolean shouldRollOnProcessingTime(PartFileInfo<BucketID> partFileState, long currentTime) {
+        return currentTime - partFileState.getCreationTime() >= rolloverIntervalMs
+                || currentTime - partFileState.getLastUpdateTime() >= inactivityIntervalMs;
+    }
+
+    public long getMaxPartSizeBytes() { return maxPartSizeBytes; }
+    public long getRolloverIntervalMs() { return rolloverIntervalMs; }
+    public long getInactivityIntervalMs() { return inactivityIntervalMs; }
+}
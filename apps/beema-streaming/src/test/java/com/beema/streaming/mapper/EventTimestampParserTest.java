@@ -0,0 +1,154 @@
+package com.beema.streaming.mapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventTimestampParserTest {
+    private static final Logger log = LoggerFactory.getLogger(EventTimestampParserTest.class);
+
+    private static final String[] SAMPLES = {
+            "2024-06-15T14:30:00Z",
+            "2024-06-15T14:30:00.123Z",
+            "2024-06-15T14:30:00.123456789+01:00",
+            "2024-06-15T09:00+05:30",
+            "2024-06-15T14:30:00-08:00[America/Los_Angeles]",
+            "2024-02-29T23:59:59Z",
+            "1718461800000",
+            "0"
+    };
+
+    private EventTimestampParser parser;
+
+    @BeforeEach
+    void setUp() {
+        parser = new EventTimestampParser();
+    }
+
+    @Test
+    void shouldMatchJavaTimeForSupportedFormats() {
+        for (String sample : SAMPLES) {
+            long expected = legacyParse(sample).toInstant().toEpochMilli();
+
+            assertThat(parser.parseEpochMillis(sample, "beema-kernel"))
+                    .as(sample)
+                    .isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void shouldTreatZonelessIsoAsUtc() {
+        assertThat(parser.parseEpochMillis("2024-06-15T14:30:00", null)).isEqualTo(1718461800000L);
+        assertThat(parser.parseEpochMillis("2024-06-15", null)).isEqualTo(1718409600000L);
+    }
+
+    @Test
+    void shouldRejectMalformedTimestampsWithoutThrowing() {
+        assertThat(parser.parseEpochMillis("garbage", "src")).isEqualTo(EventTimestampParser.INVALID);
+        assertThat(parser.parseEpochMillis("2024-02-30T00:00:00Z", "src")).isEqualTo(EventTimestampParser.INVALID);
+        assertThat(parser.parseEpochMillis("2024-06-15T24:00:00Z", "src")).isEqualTo(EventTimestampParser.INVALID);
+        assertThat(parser.parseEpochMillis("2024-06-15T14:30:00+25:00", "src")).isEqualTo(EventTimestampParser.INVALID);
+        assertThat(parser.parseEpochMillis("99999999999999999999", "src")).isEqualTo(EventTimestampParser.INVALID);
+        assertThat(parser.parseEpochMillis("  ", "src")).isEqualTo(EventTimestampParser.INVALID);
+        assertThat(parser.parseEpochMillis(null, "src")).isEqualTo(EventTimestampParser.INVALID);
+    }
+
+    @Test
+    void shouldCacheFormatHintPerSource() {
+        parser.parseEpochMillis("1718461800000", "legacy-pas");
+        parser.parseEpochMillis("2024-06-15T14:30:00Z", "beema-kernel");
+
+        assertThat(parser.hintFor("legacy-pas")).isEqualTo(EventTimestampParser.Format.EPOCH_MILLIS);
+        assertThat(parser.hintFor("beema-kernel")).isEqualTo(EventTimestampParser.Format.ISO_UTC);
+
+        // A source that switches format is re-sniffed and the hint updated
+        assertThat(parser.parseEpochMillis("2024-06-15T14:30:00Z", "legacy-pas")).isEqualTo(1718461800000L);
+        assertThat(parser.hintFor("legacy-pas")).isEqualTo(EventTimestampParser.Format.ISO_UTC);
+    }
+
+    @Test
+    void shouldFormatPartitionDateAndHour() {
+        for (String sample : SAMPLES) {
+            ZonedDateTime utc = legacyParse(sample);
+            long millis = utc.toInstant().toEpochMilli();
+
+            assertThat(EventTimestampParser.formatDate(millis)).isEqualTo(utc.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            assertThat(EventTimestampParser.formatHour(millis)).isEqualTo(utc.format(DateTimeFormatter.ofPattern("HH")));
+        }
+        assertThat(EventTimestampParser.formatDate(-1L)).isEqualTo("1969-12-31");
+        assertThat(EventTimestampParser.formatHour(-1L)).isEqualTo("23");
+    }
+
+    /**
+     * Throughput comparison against the previous exception-driven approach over a mixed
+     * workload. Logs ops/ms for both; the checksums must agree, which also guards against
+     * dead-code elimination. Excluded from the default build, run with
+     * {@code mvn test -Dsurefire.excludedGroups= -Dgroups=benchmark}.
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmarkAgainstExceptionDrivenParsing() {
+        int iterations = 200_000;
+
+        // Warm-up
+        legacyChecksum(iterations / 4);
+        parserChecksum(iterations / 4);
+
+        long start = System.nanoTime();
+        long legacySum = legacyChecksum(iterations);
+        long legacyNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long parserSum = parserChecksum(iterations);
+        long parserNanos = System.nanoTime() - start;
+
+        log.info("Timestamp parsing ({} mixed-format ops): exception-driven={} ops/ms, single-pass={} ops/ms",
+                iterations, String.format("%.1f", iterations / (legacyNanos / 1e6)),
+                String.format("%.1f", iterations / (parserNanos / 1e6)));
+
+        assertThat(parserSum).isEqualTo(legacySum);
+    }
+
+    private static long legacyChecksum(int iterations) {
+        long sum = 0;
+        for (int i = 0; i < iterations; i++) {
+            sum += legacyParse(SAMPLES[i % SAMPLES.length]).toInstant().toEpochMilli();
+        }
+        return sum;
+    }
+
+    private long parserChecksum(int iterations) {
+        long sum = 0;
+        for (int i = 0; i < iterations; i++) {
+            sum += parser.parseEpochMillis(SAMPLES[i % SAMPLES.length], "src-" + (i % 4));
+        }
+        return sum;
+    }
+
+    /**
+     * The previous PolicyEventMapper implementation: formatters tried in sequence with
+     * exceptions as control flow.
+     */
+    private static ZonedDateTime legacyParse(String timestamp) {
+        try {
+            return ZonedDateTime.parse(timestamp).withZoneSameInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException ignored) {}
+        try {
+            return Instant.parse(timestamp).atZone(ZoneOffset.UTC);
+        } catch (DateTimeParseException ignored) {}
+        try {
+            return Instant.ofEpochMilli(Long.parseLong(timestamp)).atZone(ZoneOffset.UTC);
+        } catch (NumberFormatException ignored) {}
+        return ZonedDateTime.now(ZoneOffset.UTC);
+    }
+}
@@ -2,11 +2,14 @@ package com.beema.streaming.mapper;
 
 import com.beema.streaming.model.PolicyEvent;
 import com.beema.streaming.model.PolicyFlatRecord;
+import com.beema.streaming.schema.PolicyRecordSchema;
 import org.apache.avro.generic.GenericRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -43,7 +46,7 @@ class PolicyEventMapperTest {
     }
 
     @Test
-    void shouldSerializeAttributesAsJson() throws Exception {
+    void shouldKeepUndeclaredAttributesInOverflowMap() throws Exception {
         PolicyEvent event = createSampleEvent();
         Map<String, Object> attrs = new HashMap<>();
         attrs.put("excess", 500);
@@ -52,9 +55,55 @@ class PolicyEventMapperTest {
 
         PolicyFlatRecord record = mapper.map(event);
 
-        assertThat(record.getAttributesJson()).isNotNull();
-        assertThat(record.getAttributesJson()).contains("excess");
-        assertThat(record.getAttributesJson()).contains("ncd_years");
+        assertThat(record.getOverflowAttributes()).containsEntry("excess", "500");
+        assertThat(record.getOverflowAttributes()).containsEntry("ncd_years", "5");
+        assertThat(record.getPromotedAttributes()).isNull();
+        assertThat(record.getSchemaVersion()).isEqualTo(PolicyRecordSchema.BASE_VERSION);
+    }
+
+    @Test
+    void shouldPromoteDeclaredAttributesToTypedColumns() throws Exception {
+        PolicyRecordSchema schema = PolicyRecordSchema.fromDefinitions(Map.of(
+                "excess", List.of("CURRENCY"),
+                "ncd_years", List.of("INTEGER"),
+                "garaged", List.of("BOOLEAN"),
+                "licence_date", List.of("DATE")
+        ));
+        PolicyEventMapper typedMapper = new PolicyEventMapper(schema);
+
+        PolicyEvent event = createSampleEvent();
+        Map<String, Object> attrs = new HashMap<>();
+        attrs.put("excess", 500);
+        attrs.put("ncd_years", 5);
+        attrs.put("garaged", true);
+        attrs.put("licence_date", "2010-03-01");
+        attrs.put("driver", Map.of("name", "Jane"));
+        event.setAttributes(attrs);
+
+        PolicyFlatRecord record = typedMapper.map(event);
+        GenericRecord avroRecord = record.toGenericRecord(schema.getAvroSchema());
+
+        assertThat(avroRecord.get("attr_excess")).isEqualTo(500.0);
+        assertThat(avroRecord.get("attr_ncd_years")).isEqualTo(5L);
+        assertThat(avroRecord.get("attr_garaged")).isEqualTo(true);
+        assertThat(avroRecord.get("attr_licence_date")).isEqualTo((int) LocalDate.of(2010, 3, 1).toEpochDay());
+        assertThat(record.getOverflowAttributes()).containsOnlyKeys("driver");
+        assertThat(record.getOverflowAttributes().get("driver")).isEqualTo("{\"name\":\"Jane\"}");
+        assertThat(avroRecord.get("schema_version")).isEqualTo(schema.getVersion());
+    }
+
+    @Test
+    void shouldMoveValuesThatDoNotFitDeclaredTypeToOverflow() throws Exception {
+        PolicyRecordSchema schema = PolicyRecordSchema.fromDefinitions(Map.of("ncd_years", List.of("INTEGER")));
+        PolicyEventMapper typedMapper = new PolicyEventMapper(schema);
+
+        PolicyEvent event = createSampleEvent();
+        event.setAttributes(Map.of("ncd_years", "five"));
+
+        PolicyFlatRecord record = typedMapper.map(event);
+
+        assertThat(record.getPromotedAttributes()).isNull();
+        assertThat(record.getOverflowAttributes()).containsEntry("ncd_years", "five");
     }
 
     @Test
@@ -117,7 +166,7 @@ class PolicyEventMapperTest {
         assertThat(record.getPolicyId()).isEqualTo("pol-002");
         assertThat(record.getVehicleMake()).isNull();
         assertThat(record.getGrossPremium()).isNull();
-        assertThat(record.getAttributesJson()).isNull();
+        assertThat(record.getOverflowAttributes()).isNull();
     }
 
     private PolicyEvent createSampleEvent() {
@@ -0,0 +1,65 @@
+package com.beema.streaming.schema;
+
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PolicyRecordSchemaTest {
+
+    @Test
+    void shouldPromoteScalarAttributesWithTypedColumns() {
+        PolicyRecordSchema schema = PolicyRecordSchema.fromDefinitions(Map.of(
+                "vehicle_registration", List.of("STRING"),
+                "rebuild_cost", List.of("CURRENCY"),
+                "property_type", List.of("ENUM"),
+                "property_address", List.of("OBJECT"),
+                "start-date", List.of("DATE")
+        ));
+
+        Schema avro = schema.getAvroSchema();
+
+        assertThat(nonNullType(avro, "attr_vehicle_registration").getType()).isEqualTo(Schema.Type.STRING);
+        assertThat(nonNullType(avro, "attr_rebuild_cost").getType()).isEqualTo(Schema.Type.DOUBLE);
+        assertThat(nonNullType(avro, "attr_property_type").getType()).isEqualTo(Schema.Type.STRING);
+        assertThat(nonNullType(avro, "attr_start_date").getLogicalType()).isEqualTo(LogicalTypes.date());
+        assertThat(avro.getField("attr_property_address")).isNull();
+        assertThat(schema.columnFor("property_address")).isNull();
+        assertThat(nonNullType(avro, PolicyRecordSchema.OVERFLOW_COLUMN).getType()).isEqualTo(Schema.Type.MAP);
+    }
+
+    @Test
+    void shouldFallBackToStringForConflictingDeclarations() {
+        PolicyRecordSchema schema = PolicyRecordSchema.fromDefinitions(Map.of(
+                "sum_insured", List.of("NUMBER", "STRING")
+        ));
+
+        assertThat(schema.columnFor("sum_insured").getType()).isEqualTo(AttributeColumn.ColumnType.STRING);
+    }
+
+    @Test
+    void shouldVersionSchemaByAttributeDefinitions() {
+        PolicyRecordSchema v1 = PolicyRecordSchema.fromDefinitions(Map.of("excess", List.of("NUMBER")));
+        PolicyRecordSchema same = PolicyRecordSchema.fromDefinitions(Map.of("excess", List.of("CURRENCY")));
+        PolicyRecordSchema v2 = PolicyRecordSchema.fromDefinitions(Map.of(
+                "excess", List.of("NUMBER"),
+                "ncd_years", List.of("INTEGER")
+        ));
+
+        assertThat(PolicyRecordSchema.empty().getVersion()).isEqualTo(PolicyRecordSchema.BASE_VERSION);
+        assertThat(v1.getVersion()).isEqualTo(same.getVersion());
+        assertThat(v1.getVersion()).isNotEqualTo(v2.getVersion());
+        assertThat(v2.getAvroSchema().getProp(PolicyRecordSchema.SCHEMA_VERSION_PROP)).isEqualTo(v2.getVersion());
+    }
+
+    private static Schema nonNullType(Schema record, String field) {
+        return record.getField(field).schema().getTypes().stream()
+                .filter(s -> s.getType() != Schema.Type.NULL)
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,227 @@
+package com.beema.streaming.sink;
+
+import com.beema.streaming.config.StreamingConfig;
+import com.beema.streaming.job.PolicyDataStreamJob;
+import com.beema.streaming.model.PolicyFlatRecord;
+import com.beema.streaming.schema.PolicyRecordSchema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.flink.api.common.RuntimeExecutionMode;
+import org.apache.flink.api.common.serialization.BulkWriter;
+import org.apache.flink.connector.file.sink.compactor.RecordWiseFileCompactor;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.core.fs.local.LocalDataOutputStream;
+import org.apache.flink.runtime.testutils.MiniClusterResourceConfiguration;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.streaming.api.functions.sink.filesystem.PartFileInfo;
+import org.apache.flink.test.junit5.MiniClusterExtension;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.avro.AvroParquetWriter;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.hadoop.util.HadoopOutputFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParquetCompactionTest {
+
+    private static final int PARALLELISM = 4;
+    private static final int BUSY_HOUR_ROWS = 4_000;
+    private static final int QUIET_HOUR_ROWS = 8;
+
+    @RegisterExtension
+    static final MiniClusterExtension MINI_CLUSTER = new MiniClusterExtension(
+            new MiniClusterResourceConfiguration.Builder()
+                    .setNumberTaskManagers(1)
+                    .setNumberSlotsPerTaskManager(PARALLELISM)
+                    .build());
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void shouldCompactSinkOutputToTargetSizePerBucket() throws Exception {
+        // Given: a busy and a quiet hour; every sink subtask writes one part file per hour
+        List<PolicyFlatRecord> records = new ArrayList<>();
+        records.addAll(policyRecords("14", BUSY_HOUR_ROWS));
+        records.addAll(policyRecords("15", QUIET_HOUR_ROWS));
+
+        // Target between one and two of the busy hour's part files
+        long targetSize = referencePartSize(BUSY_HOUR_ROWS / PARALLELISM) * 3 / 2;
+        File outputDir = new File(tempDir, "speed");
+        StreamingConfig config = new StreamingConfig.Builder()
+                .s3OutputPath(outputDir.toURI().toString())
+                .rollingIntervalMs(300_000L)
+                .inactivityIntervalMs(60_000L)
+                .compactionEnabled(true)
+                .compactionTargetSizeBytes(targetSize)
+                .compactionCheckpointInterval(10)
+                .compactionThreads(1)
+                .build();
+
+        // When: a bounded job through the job's configured sink
+        StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        env.setRuntimeMode(RuntimeExecutionMode.BATCH);
+        env.setParallelism(PARALLELISM);
+        env.fromCollection(records)
+                .map(record -> record.toGenericRecord())
+                .returns(GenericRecord.class)
+                .sinkTo(PolicyDataStreamJob.buildParquetSink(config, PolicyRecordSchema.empty()));
+        env.execute("parquet-compaction-test");
+
+        // Then: the busy hour is cut at the target size, the quiet hour is merged into one file
+        File[] busyHour = parquetFiles(new File(outputDir, "2024-06-15/14"));
+        File[] quietHour = parquetFiles(new File(outputDir, "2024-06-15/15"));
+        assertThat(busyHour).hasSize(PARALLELISM / 2).allSatisfy(file -> {
+            assertThat(file.getName()).startsWith("compacted-policy");
+            assertThat(file.length()).isGreaterThanOrEqualTo(targetSize);
+        });
+        assertThat(quietHour).singleElement().satisfies(file -> {
+            assertThat(file.getName()).startsWith("compacted-policy");
+            assertThat(file.length()).isLessThan(targetSize);
+        });
+        assertThat(countRows(busyHour)).isEqualTo(BUSY_HOUR_ROWS);
+        assertThat(countRows(quietHour)).isEqualTo(QUIET_HOUR_ROWS);
+    }
+
+    @Test
+    void shouldCompactSmallFilesIntoOneWithSameRowCount() throws Exception {
+        File bucketDir = new File(tempDir, "2024-06-15/14");
+        assertThat(bucketDir.mkdirs()).isTrue();
+
+        // Simulate ten checkpoints of a low-volume hour: ten tiny part files
+        List<Path> smallFiles = new ArrayList<>();
+        int rowsPerFile = 7;
+        for (int i = 0; i < 10; i++) {
+            File part = new File(bucketDir, "policy-0-" + i + ".parquet");
+            writeRecords(part, i * rowsPerFile, rowsPerFile);
+            smallFiles.add(new Path(part.toURI()));
+        }
+        assertThat(parquetFiles(bucketDir)).hasSize(10);
+
+        File compacted = new File(tempDir, "compacted.parquet");
+        RecordWiseFileCompactor<GenericRecord> compactor =
+                new RecordWiseFileCompactor<>(new ParquetAvroCompactReader.Factory());
+        try (ParquetWriter<GenericRecord> writer = newWriter(compacted)) {
+            compactor.compact(smallFiles, writer::write);
+        }
+        for (Path small : smallFiles) {
+            assertThat(new File(small.toUri()).delete()).isTrue();
+        }
+        assertThat(compacted.renameTo(new File(bucketDir, "compacted-policy-0-0.parquet"))).isTrue();
+
+        assertThat(parquetFiles(bucketDir)).hasSize(1);
+        assertThat(countRows(new File(bucketDir, "compacted-policy-0-0.parquet"))).isEqualTo(10 * rowsPerFile);
+    }
+
+    @Test
+    void shouldRollOnSizeAndTime() throws Exception {
+        SizeAndTimeRollingPolicy<GenericRecord, String> policy =
+                new SizeAndTimeRollingPolicy<>(1024, 300_000L, 60_000L);
+
+        assertThat(policy.shouldRollOnCheckpoint(partFile(10, 0, 0))).isTrue();
+        assertThat(policy.shouldRollOnEvent(partFile(512, 0, 0), null)).isFalse();
+        assertThat(policy.shouldRollOnEvent(partFile(1024, 0, 0), null)).isTrue();
+        assertThat(policy.shouldRollOnProcessingTime(partFile(10, 0, 50_000L), 100_000L)).isFalse();
+        assertThat(policy.shouldRollOnProcessingTime(partFile(10, 0, 10_000L), 100_000L)).isTrue();
+        assertThat(policy.shouldRollOnProcessingTime(partFile(10, 0, 299_000L), 300_000L)).isTrue();
+    }
+
+    private static void writeRecords(File file, int offset, int count) throws IOException {
+        try (ParquetWriter<GenericRecord> writer = newWriter(file)) {
+            for (int i = 0; i < count; i++) {
+                PolicyFlatRecord record = new PolicyFlatRecord();
+                record.setPolicyId("pol-" + (offset + i));
+                record.setPolicyNumber("POL-2024-" + (offset + i));
+                record.setGrossPremium(100.0 + i);
+                record.setPartitionDate("2024-06-15");
+                record.setPartitionHour("14");
+                writer.write(record.toGenericRecord());
+            }
+        }
+    }
+
+    private static List<PolicyFlatRecord> policyRecords(String hour, int count) {
+        List<PolicyFlatRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            PolicyFlatRecord record = new PolicyFlatRecord();
+            record.setEventId(UUID.randomUUID().toString());
+            record.setPolicyId(UUID.randomUUID().toString());
+            record.setPolicyNumber("POL-2024-" + hour + "-" + i);
+            record.setGrossPremium(100.0 + i);
+            record.setPartitionDate("2024-06-15");
+            record.setPartitionHour(hour);
+            records.add(record);
+        }
+        return records;
+    }
+
+    private long referencePartSize(int rows) throws IOException {
+        File file = new File(tempDir, "reference.parquet");
+        BulkWriter<GenericRecord> writer = ProfiledAvroParquetWriters
+                .forGenericRecord(PolicyFlatRecord.AVRO_SCHEMA, ParquetWriterProfile.defaults())
+                .create(new LocalDataOutputStream(file));
+        for (PolicyFlatRecord record : policyRecords("14", rows)) {
+            writer.addElement(record.toGenericRecord());
+        }
+        writer.finish();
+        return file.length();
+    }
+
+    private static ParquetWriter<GenericRecord> newWriter(File file) throws IOException {
+        return AvroParquetWriter.<GenericRecord>builder(
+                        HadoopOutputFile.fromPath(new org.apache.hadoop.fs.Path(file.toURI()), new Configuration()))
+                .withSchema(PolicyFlatRecord.AVRO_SCHEMA)
+                .build();
+    }
+
+    private static long countRows(File file) throws IOException {
+        long rows = 0;
+        try (ParquetReader<GenericRecord> reader = AvroParquetReader.<GenericRecord>builder(
+                HadoopInputFile.fromPath(new org.apache.hadoop.fs.Path(file.toURI()), new Configuration())).build()) {
+            while (reader.read() != null) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static long countRows(File[] files) throws IOException {
+        long rows = 0;
+        for (File file : files) {
+            rows += countRows(file);
+        }
+        return rows;
+    }
+
+    private static File[] parquetFiles(File dir) {
+        // In-progress and cleaned-up part files are hidden (dot-prefixed)
+        return dir.listFiles((d, name) -> !name.startsWith(".") && name.endsWith(".parquet"));
+    }
+
+    private static PartFileInfo<String> partFile(long size, long creationTime, long lastUpdateTime) {
+        return new PartFileInfo<>() {
+            @Override
+            public String getBucketId() { return "2024-06-15/14"; }
+
+            @Override
+            public long getCreationTime() { return creationTime; }
+
+            @Override
+            public long getSize() { return size; }
+
+            @Override
+            public long getLastUpdateTime() { return lastUpdateTime; }
+        };
+    }
+}
@@ -0,0 +1,75 @@
+package com.beema.streaming.sink;
+
+import com.beema.streaming.model.PolicyFlatRecord;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.flink.api.common.serialization.BulkWriter;
+import org.apache.flink.core.fs.local.LocalDataOutputStream;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParquetWriterProfileTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void shouldWriteFileMetadataFromProfile() throws Exception {
+        ParquetWriterProfile profile = new ParquetWriterProfile.Builder()
+                .compressionCodec(CompressionCodecName.GZIP)
+                .rowGroupSizeBytes(32L * 1024 * 1024)
+                .pageSizeBytes(256 * 1024)
+                .dictionaryDisabledColumns(List.of("policy_id", "policy_number"))
+                .bloomFilterColumns(List.of("policy_number"))
+                .bloomFilterExpectedNdv(10_000)
+                .build();
+
+        File file = new File(tempDir, "policy-0-0.parquet");
+        BulkWriter<GenericRecord> writer = ProfiledAvroParquetWriters
+                .forGenericRecord(PolicyFlatRecord.AVRO_SCHEMA, profile)
+                .create(new LocalDataOutputStream(file));
+        for (int i = 0; i < 1_000; i++) {
+            PolicyFlatRecord record = new PolicyFlatRecord();
+            record.setPolicyId("pol-" + i);
+            record.setPolicyNumber(String.format("POL-2024-%06d", i));
+            record.setStatus(i % 2 == 0 ? "ACTIVE" : "CANCELLED");
+            writer.addElement(record.toGenericRecord());
+        }
+        writer.finish();
+
+        try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(
+                new org.apache.hadoop.fs.Path(file.toURI()), new Configuration()))) {
+            BlockMetaData rowGroup = reader.getFooter().getBlocks().get(0);
+            ColumnChunkMetaData policyId = column(rowGroup, "policy_id");
+            ColumnChunkMetaData policyNumber = column(rowGroup, "policy_number");
+            ColumnChunkMetaData status = column(rowGroup, "status");
+
+            assertThat(reader.getRecordCount()).isEqualTo(1_000);
+            assertThat(policyNumber.getCodec()).isEqualTo(CompressionCodecName.GZIP);
+            assertThat(policyId.getEncodings()).doesNotContain(Encoding.PLAIN_DICTIONARY, Encoding.RLE_DICTIONARY);
+            assertThat(policyNumber.getEncodings()).doesNotContain(Encoding.PLAIN_DICTIONARY, Encoding.RLE_DICTIONARY);
+            assertThat(status.getEncodings()).containsAnyOf(Encoding.PLAIN_DICTIONARY, Encoding.RLE_DICTIONARY);
+            assertThat(policyNumber.getBloomFilterOffset()).isGreaterThanOrEqualTo(0);
+            assertThat(reader.readBloomFilter(policyNumber)).isNotNull();
+            assertThat(policyId.getBloomFilterOffset()).isLessThan(0);
+        }
+    }
+
+    private static ColumnChunkMetaData column(BlockMetaData rowGroup, String name) {
+        return rowGroup.getColumns().stream()
+                .filter(c -> c.getPath().toDotString().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+}
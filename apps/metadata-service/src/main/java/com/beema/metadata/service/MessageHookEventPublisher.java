@@ -3,6 +3,11 @@ package com.beema.metadata.service;
 import com.beema.metadata.dto.MessageHookMetadata;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.postgresql.PGConnection;
 import org.postgresql.PGNotification;
 import org.slf4j.Logger;
@@ -16,14 +21,35 @@ import jakarta.annotation.PreDestroy;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.Statement;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Listens to PostgreSQL NOTIFY events for message hook changes
  * and publishes MessageHookMetadata to Kafka control stream.
+ *
+ * The listener blocks on the notification socket ({@code getNotifications(timeout)})
+ * instead of polling with a sleep. Notifications for the same hook arriving within the
+ * coalesce window are merged (last change wins) and the window's changes are sent to
+ * Kafka together and flushed as one producer batch. A lost connection is re-established
+ * with exponential backoff.
+ *
+ * Metrics:
+ * - message_hook.listener.lag: time from the change in PostgreSQL to the Kafka send
+ * - message_hook.listener.reconnects: connection (re)establish attempts after a failure
+ * - message_hook.listener.connected: 1 while LISTEN is active
+ * - message_hook.listener.notifications / .coalesced: received and merged notifications
+ * - message_hook.listener.batch.size: changes published per batch
  */
 @Service
 public class MessageHookEventPublisher {
@@ -35,32 +61,76 @@ public class MessageHookEventPublisher {
     private final KafkaTemplate<String, Object> kafkaTemplate;
     private final ObjectMapper objectMapper;
     private final String controlTopicName;
+    private final long coalesceWindowMs;
+    private final int maxBatchSize;
+    private final int idleWaitMs;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
 
-    private ScheduledExecutorService executorService;
+    private final Timer listenerLag;
+    private final Counter reconnects;
+    private final Counter notificationsReceived;
+    private final Counter notificationsCoalesced;
+    private final DistributionSummary batchSize;
+    private final AtomicBoolean connected = new AtomicBoolean(false);
+
+    private ExecutorService executorService;
     private volatile boolean running = false;
 
     public MessageHookEventPublisher(
             DataSource dataSource,
             KafkaTemplate<String, Object> kafkaTemplate,
             ObjectMapper objectMapper,
-            @Value("${beema.kafka.control-topic:message-hooks-control}") String controlTopicName) {
+            MeterRegistry meterRegistry,
+            @Value("${beema.kafka.control-topic:message-hooks-control}") String controlTopicName,
+            @Value("${beema.kafka.notify-listener.coalesce-window-ms:200}") long coalesceWindowMs,
+            @Value("${beema.kafka.notify-listener.max-batch-size:500}") int maxBatchSize,
+            @Value("${beema.kafka.notify-listener.idle-wait-ms:5000}") int idleWaitMs,
+            @Value("${beema.kafka.notify-listener.reconnect-initial-backoff-ms:500}") long initialBackoffMs,
+            @Value("${beema.kafka.notify-listener.reconnect-max-backoff-ms:30000}") long maxBackoffMs) {
         this.dataSource = dataSource;
         this.kafkaTemplate = kafkaTemplate;
         this.objectMapper = objectMapper;
         this.controlTopicName = controlTopicName;
+        this.coalesceWindowMs = coalesceWindowMs;
+        this.maxBatchSize = maxBatchSize;
+        this.idleWaitMs = idleWaitMs;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+
+        this.listenerLag = Timer.builder("message_hook.listener.lag")
+                .description("Time from message hook change in PostgreSQL to Kafka publish")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.reconnects = Counter.builder("message_hook.listener.reconnects")
+                .description("PostgreSQL NOTIFY listener reconnect attempts")
+                .register(meterRegistry);
+        this.notificationsReceived = Counter.builder("message_hook.listener.notifications")
+                .description("PostgreSQL NOTIFY events received")
+                .register(meterRegistry);
+        this.notificationsCoalesced = Counter.builder("message_hook.listener.coalesced")
+                .description("NOTIFY events merged into a newer change of the same hook")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("message_hook.listener.batch.size")
+                .description("Hook changes published to Kafka per batch")
+                .register(meterRegistry);
+        Gauge.builder("message_hook.listener.connected", connected, c -> c.get() ? 1 : 0)
+                .description("1 while the PostgreSQL LISTEN connection is active")
+                .register(meterRegistry);
     }
 
     @PostConstruct
     public void startListening() {
         this.running = true;
-        this.executorService = Executors.newSingleThreadScheduledExecutor(r -> {
+        this.executorService = Executors.newSingleThreadExecutor(r -> {
             Thread thread = new Thread(r, "PostgreSQL-NOTIFY-Listener");
             thread.setDaemon(true);
             return thread;
         });
 
         executorService.submit(this::listenToNotifications);
-        log.info("Started PostgreSQL NOTIFY listener for channel: {}", NOTIFICATION_CHANNEL);
+        log.info("Started PostgreSQL NOTIFY listener for channel: {} (coalesceWindow={}ms)",
+                NOTIFICATION_CHANNEL, coalesceWindowMs);
     }
 
     @PreDestroy
@@ -69,7 +139,8 @@ public class MessageHookEventPublisher {
         if (executorService != null) {
             executorService.shutdown();
             try {
-                if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
+                // The listener wakes up at least every idleWaitMs to observe the stop flag
+                if (!executorService.awaitTermination(idleWaitMs + 1000L, TimeUnit.MILLISECONDS)) {
                     executorService.shutdownNow();
                 }
             } catch (InterruptedException e) {
@@ -81,6 +152,7 @@ public class MessageHookEventPublisher {
     }
 
     private void listenToNotifications() {
+        long backoffMs = initialBackoffMs;
         while (running) {
             try (Connection conn = dataSource.getConnection();
                  Statement stmt = conn.createStatement()) {
@@ -89,42 +161,89 @@ public class MessageHookEventPublisher {
 
                 // Listen to the notification channel
                 stmt.execute("LISTEN " + NOTIFICATION_CHANNEL);
-                log.debug("LISTEN command executed for channel: {}", NOTIFICATION_CHANNEL);
-
-                while (running && !conn.isClosed()) {
-                    // Check for notifications with a timeout
-                    PGNotification[] notifications = pgConn.getNotifications(5000);
-
-                    if (notifications != null && notifications.length > 0) {
-                        for (PGNotification notification : notifications) {
-                            processNotification(notification);
-                        }
-                    }
+                connected.set(true);
+                backoffMs = initialBackoffMs;
+                log.info("LISTEN active for channel: {}", NOTIFICATION_CHANNEL);
 
-                    // Sleep briefly to avoid tight loop
-                    Thread.sleep(100);
-                }
+                receiveLoop(pgConn);
 
-            } catch (InterruptedException e) {
-                log.warn("PostgreSQL NOTIFY listener interrupted");
-                Thread.currentThread().interrupt();
-                break;
             } catch (Exception e) {
-                log.error("Error in PostgreSQL NOTIFY listener: {}", e.getMessage(), e);
-                // Retry after a delay
+                connected.set(false);
+                if (!running) {
+                    break;
+                }
+                reconnects.increment();
+                log.error("Error in PostgreSQL NOTIFY listener, reconnecting in {}ms: {}", backoffMs, e.getMessage(), e);
                 try {
-                    Thread.sleep(5000);
+                    Thread.sleep(backoffMs);
                 } catch (InterruptedException ie) {
                     Thread.currentThread().interrupt();
                     break;
                 }
+                backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
             }
         }
+        connected.set(false);
         log.info("PostgreSQL NOTIFY listener stopped");
     }
 
-    private void processNotification(PGNotification notification) {
+    /**
+     * Blocks on the LISTEN socket until notifications arrive. The first notification opens a
+     * coalesce window; the loop keeps waiting only for the remainder of that window, then
+     * publishes the merged changes as one batch. Changes still pending when the loop ends,
+     * on shutdown or because the connection failed, are published before it returns.
+     */
+    private void receiveLoop(PGConnection pgConn) throws Exception {
+        Map<String, MessageHookMetadata> pending = new LinkedHashMap<>();
+        long windowDeadline = 0;
+
         try {
+            while (running) {
+                int waitMs = idleWaitMs;
+                if (!pending.isEmpty()) {
+                    waitMs = (int) Math.max(1, windowDeadline - System.currentTimeMillis());
+                }
+
+                PGNotification[] notifications = pgConn.getNotifications(waitMs);
+                if (notifications != null) {
+                    for (PGNotification notification : notifications) {
+                        MessageHookMetadata metadata = parseNotification(notification);
+                        if (metadata == null) {
+                            continue;
+                        }
+                        if (pending.isEmpty()) {
+                            windowDeadline = System.currentTimeMillis() + coalesceWindowMs;
+                        }
+                        // Last change for a hook wins; re-insert so batch order follows the latest change
+                        if (pending.remove(metadata.getHookId()) != null) {
+                            notificationsCoalesced.increment();
+                        }
+                        pending.put(metadata.getHookId(), metadata);
+                    }
+                }
+
+                if (!pending.isEmpty()
+                        && (System.currentTimeMillis() >= windowDeadline || pending.size() >= maxBatchSize)) {
+                    publishBatch(drain(pending));
+                }
+            }
+        } finally {
+            // Received changes do not need the connection: do not drop them on shutdown or reconnect
+            if (!pending.isEmpty()) {
+                publishBatch(drain(pending));
+            }
+        }
+    }
+
+    private static List<MessageHookMetadata> drain(Map<String, MessageHookMetadata> pending) {
+        List<MessageHookMetadata> batch = new ArrayList<>(pending.values());
+        pending.clear();
+        return batch;
+    }
+
+    private MessageHookMetadata parseNotification(PGNotification notification) {
+        try {
+            notificationsReceived.increment();
             String payload = notification.getParameter();
             log.debug("Received notification: channel={}, payload={}", notification.getName(), payload);
 
@@ -137,14 +256,45 @@ public class MessageHookEventPublisher {
             metadata.setScript(jsonNode.has("script") ? jsonNode.get("script").asText() : null);
             metadata.setEnabled(jsonNode.get("enabled").asBoolean());
             metadata.setOperation(jsonNode.get("operation").asText());
-            metadata.setUpdatedAt(Instant.now());
-
-            // Publish to Kafka control stream
-            publishToKafka(metadata);
+            metadata.setUpdatedAt(parseChangeTime(jsonNode));
+            return metadata;
 
         } catch (Exception e) {
             log.error("Failed to process notification: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * The trigger stamps each payload with the change time; fall back to now if absent.
+     */
+    private Instant parseChangeTime(JsonNode jsonNode) {
+        JsonNode updatedAt = jsonNode.get("updatedAt");
+        if (updatedAt != null && updatedAt.isTextual()) {
+            try {
+                return OffsetDateTime.parse(updatedAt.asText()).toInstant();
+            } catch (DateTimeParseException e) {
+                log.debug("Unparseable updatedAt in notification payload: {}", updatedAt.asText());
+            }
+        }
+        return Instant.now();
+    }
+
+    /**
+     * Sends a window of coalesced hook changes to the control topic and flushes them
+     * together, recording listener lag per change.
+     */
+    private void publishBatch(List<MessageHookMetadata> batch) {
+        Instant now = Instant.now();
+        for (MessageHookMetadata metadata : batch) {
+            publishToKafka(metadata);
+            if (metadata.getUpdatedAt() != null) {
+                listenerLag.record(Duration.between(metadata.getUpdatedAt(), now).abs());
+            }
         }
+        kafkaTemplate.flush();
+        batchSize.record(batch.size());
+        log.debug("Published batch of {} message hook changes to {}", batch.size(), controlTopicName);
     }
 
     /**
@@ -0,0 +1,202 @@
+package com.beema.metadata.service;
+
+import com.beema.metadata.dto.MessageHookMetadata;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the NOTIFY listener against PostgreSQL with a mocked Kafka template: coalescing of
+ * bursts, publishing pending changes and reconnecting with backoff after the LISTEN
+ * connection is lost.
+ */
+@Testcontainers
+@DisplayName("MessageHookEventPublisher - PostgreSQL NOTIFY listener")
+class MessageHookEventPublisherTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final String TOPIC = "message-hooks-control";
+    private static final String LISTENER_APP_NAME = "hook-notify-listener";
+    private static final long COALESCE_WINDOW_MS = 500;
+    private static final long INITIAL_BACKOFF_MS = 200;
+
+    private FlakyDataSource dataSource;
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private MessageHookEventPublisher publisher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        dataSource = new FlakyDataSource();
+        dataSource.setUrl(postgres.getJdbcUrl());
+        dataSource.setUser(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+        dataSource.setApplicationName(LISTENER_APP_NAME);
+
+        kafkaTemplate = mock(KafkaTemplate.class);
+        CompletableFuture<SendResult<String, Object>> pendingSend = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(pendingSend);
+
+        meterRegistry = new SimpleMeterRegistry();
+        publisher = new MessageHookEventPublisher(dataSource, kafkaTemplate, new ObjectMapper(), meterRegistry,
+                TOPIC, COALESCE_WINDOW_MS, 500, 1000, INITIAL_BACKOFF_MS, 5000);
+        publisher.startListening();
+        awaitTrue(this::isConnected, Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.stopListening();
+    }
+
+    @Test
+    @DisplayName("Should coalesce a burst of changes to one hook into a single publish")
+    void shouldCoalesceBurstIntoSingleRefresh() throws Exception {
+        // Five separate NOTIFY statements, well inside one coalesce window
+        notifyChanges("hook-1", List.of("script-v1", "script-v2", "script-v3", "script-v4", "script-v5"));
+
+        verify(kafkaTemplate, timeout(5000)).flush();
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(kafkaTemplate, times(1)).send(eq(TOPIC), eq("POLICY_UPDATE"), sent.capture());
+        MessageHookMetadata metadata = (MessageHookMetadata) sent.getValue();
+        assertThat(metadata.getHookId()).isEqualTo("hook-1");
+        assertThat(metadata.getScript()).isEqualTo("script-v5");
+
+        assertThat(meterRegistry.get("message_hook.listener.notifications").counter().count()).isEqualTo(5);
+        assertThat(meterRegistry.get("message_hook.listener.coalesced").counter().count()).isEqualTo(4);
+        assertThat(meterRegistry.get("message_hook.listener.batch.size").summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reconnect with exponential backoff after the LISTEN connection is dropped")
+    void shouldReconnectWithBackoff() throws Exception {
+        // The first two reconnect attempts fail as well
+        dataSource.failuresLeft.set(2);
+        int attemptsBefore = dataSource.attempts.size();
+
+        terminateListenerConnection();
+
+        awaitTrue(() -> !isConnected(), Duration.ofSeconds(5));
+        awaitTrue(this::isConnected, Duration.ofSeconds(10));
+        List<Long> attempts = dataSource.attempts.subList(attemptsBefore, dataSource.attempts.size());
+        assertThat(attempts).hasSize(3);
+        long firstGapMs = TimeUnit.NANOSECONDS.toMillis(attempts.get(1) - attempts.get(0));
+        long secondGapMs = TimeUnit.NANOSECONDS.toMillis(attempts.get(2) - attempts.get(1));
+        assertThat(firstGapMs).isGreaterThanOrEqualTo(INITIAL_BACKOFF_MS * 2);
+        assertThat(secondGapMs).isGreaterThanOrEqualTo(INITIAL_BACKOFF_MS * 4);
+        assertThat(meterRegistry.get("message_hook.listener.reconnects").counter().count()).isEqualTo(3);
+
+        // LISTEN is active again on the new connection
+        notifyChanges("hook-2", List.of("after-reconnect"));
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(kafkaTemplate, timeout(5000)).send(eq(TOPIC), eq("POLICY_UPDATE"), sent.capture());
+        assertThat(((MessageHookMetadata) sent.getValue()).getHookId()).isEqualTo("hook-2");
+    }
+
+    @Test
+    @DisplayName("Should publish changes still pending in the coalesce window when the connection is lost")
+    void shouldPublishPendingChangesOnConnectionLoss() throws Exception {
+        notifyChanges("hook-3", List.of("before-disconnect"));
+        awaitTrue(() -> meterRegistry.get("message_hook.listener.notifications").counter().count() == 1,
+                Duration.ofSeconds(5));
+
+        // Dropped well inside the coalesce window, before the batch is due
+        terminateListenerConnection();
+
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(kafkaTemplate, timeout(5000)).send(eq(TOPIC), eq("POLICY_UPDATE"), sent.capture());
+        assertThat(((MessageHookMetadata) sent.getValue()).getScript()).isEqualTo("before-disconnect");
+        awaitTrue(this::isConnected, Duration.ofSeconds(10));
+        assertThat(meterRegistry.get("message_hook.listener.reconnects").counter().count()).isEqualTo(1);
+    }
+
+    private boolean isConnected() {
+        return meterRegistry.get("message_hook.listener.connected").gauge().value() == 1.0;
+    }
+
+    private void notifyChanges(String hookId, List<String> scripts) throws SQLException {
+        try (Connection conn = postgres.createConnection("");
+             PreparedStatement ps = conn.prepareStatement("SELECT pg_notify('message_hook_changed', ?)")) {
+            for (String script : scripts) {
+                ps.setString(1, "{\"hookId\":\"" + hookId + "\",\"messageType\":\"POLICY_UPDATE\"," +
+                        "\"script\":\"" + script + "\",\"enabled\":true,\"operation\":\"UPDATE\"}");
+                ps.execute();
+            }
+        }
+    }
+
+    private void terminateListenerConnection() throws SQLException {
+        try (Connection conn = postgres.createConnection("");
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE application_name = ?")) {
+            ps.setString(1, LISTENER_APP_NAME);
+            ps.execute();
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within " + timeout);
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError("Interrupted while waiting", e);
+            }
+        }
+    }
+
+    /**
+     * Records every connection attempt and fails a configurable number of them.
+     */
+    static class FlakyDataSource extends PGSimpleDataSource {
+        final List<Long> attempts = new CopyOnWriteArrayList<>();
+        final AtomicInteger failuresLeft = new AtomicInteger();
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            attempts.add(System.nanoTime());
+            if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new SQLException("Simulated database outage");
+            }
+            return super.getConnection();
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.beema.kernel.api.v1.batch;
 
 import com.beema.kernel.api.v1.batch.dto.ParquetExportRequest;
+import com.beema.kernel.api.v1.batch.dto.ParquetExportRunRequest;
+import com.beema.kernel.batch.export.ExportRunManifest;
+import com.beema.kernel.batch.export.ParquetExportOrchestrator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -12,6 +15,8 @@ import org.springframework.batch.core.JobParametersBuilder;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -32,10 +37,13 @@ public class BatchController {
 
     private final JobLauncher jobLauncher;
     private final Job universalParquetExportJob;
+    private final ParquetExportOrchestrator exportOrchestrator;
 
-    public BatchController(JobLauncher jobLauncher, Job universalParquetExportJob) {
+    public BatchController(JobLauncher jobLauncher, Job universalParquetExportJob,
+                           ParquetExportOrchestrator exportOrchestrator) {
         this.jobLauncher = jobLauncher;
         this.universalParquetExportJob = universalParquetExportJob;
+        this.exportOrchestrator = exportOrchestrator;
     }
 
     @PostMapping("/export/parquet")
@@ -81,4 +89,71 @@ public class BatchController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
         }
     }
+
+    @PostMapping("/export/parquet/runs")
+    @Operation(summary = "Start a parallel Parquet export run",
+            description = "Exports every (tenant, agreement type) partition in parallel and records the outcome in a run manifest. "
+                    + "Incremental runs export only the versions recorded since each partition's last export.")
+    public ResponseEntity<Map<String, Object>> startExportRun(@RequestBody ParquetExportRunRequest request) {
+        try {
+            ExportRunManifest manifest = exportOrchestrator.plan(request.getTenantIds(), request.getExportDate(),
+                    request.isIncremental(), request.isCompact());
+            Map<String, Object> response = runResponse(manifest);
+            exportOrchestrator.executeAsync(manifest);
+
+            log.info("Started Parquet export run {} with {} partitions",
+                    manifest.getRunId(), manifest.getPartitions().size());
+            return ResponseEntity.accepted().body(response);
+
+        } catch (Exception e) {
+            log.error("Failed to start Parquet export run", e);
+            return error("Failed to start export run", e, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PostMapping("/export/parquet/runs/{runId}/retry")
+    @Operation(summary = "Retry the failed partitions of a Parquet export run")
+    public ResponseEntity<Map<String, Object>> retryExportRun(@PathVariable String runId) {
+        try {
+            ExportRunManifest manifest = exportOrchestrator.loadManifest(runId);
+            Map<String, Object> response = runResponse(manifest);
+            exportOrchestrator.executeAsync(manifest);
+
+            log.info("Retrying Parquet export run {}", runId);
+            return ResponseEntity.accepted().body(response);
+
+        } catch (IllegalStateException e) {
+            return error("Export run is already running", e, HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            log.error("Failed to retry Parquet export run {}", runId, e);
+            return error("Failed to retry export run", e, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping("/export/parquet/runs/{runId}")
+    @Operation(summary = "Get the manifest of a Parquet export run")
+    public ResponseEntity<?> getExportRun(@PathVariable String runId) {
+        try {
+            return ResponseEntity.ok(exportOrchestrator.loadManifest(runId));
+        } catch (Exception e) {
+            return error("Export run not found", e, HttpStatus.NOT_FOUND);
+        }
+    }
+
+    private static Map<String, Object> runResponse(ExportRunManifest manifest) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("runId", manifest.getRunId());
+        response.put("exportDate", manifest.getExportDate().toString());
+        response.put("partitions", manifest.getPartitions().size());
+        response.put("changedUpTo", String.valueOf(manifest.getChangedUpTo()));
+        response.put("manifestPath", ParquetExportOrchestrator.manifestPath(manifest.getRunId()));
+        return response;
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(String message, Exception e, HttpStatus status) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("error", message);
+        error.put("message", e.getMessage());
+        return ResponseEntity.status(status).body(error);
+    }
 }
@@ -0,0 +1,54 @@
+package com.beema.kernel.api.v1.batch.dto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParquetExportRunRequest {
+
+    /** Tenants to export; empty exports every tenant with current agreements. */
+    private List<String> tenantIds = new ArrayList<>();
+
+    private LocalDate exportDate;
+
+    /** Export only the changes since each (tenant, type)'s last export where possible. */
+    private boolean incremental;
+
+    /** Export full snapshots even in an incremental run. */
+    private boolean compact;
+
+    public ParquetExportRunRequest() {
+    }
+
+    public List<String> getTenantIds() {
+        return tenantIds;
+    }
+
+    public void setTenantIds(List<String> tenantIds) {
+        this.tenantIds = tenantIds;
+    }
+
+    public LocalDate getExportDate() {
+        return exportDate;
+    }
+
+    public void setExportDate(LocalDate exportDate) {
+        this.exportDate = exportDate;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+}
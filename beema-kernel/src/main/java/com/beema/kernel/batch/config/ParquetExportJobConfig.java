@@ -1,61 +1,76 @@
 package com.beema.kernel.batch.config;
 
+import com.beema.kernel.batch.export.AgreementAvroSchemaRegistry;
 import com.beema.kernel.batch.export.AgreementItemReader;
 import com.beema.kernel.batch.export.JsonToAvroProcessor;
 import com.beema.kernel.batch.export.ParquetBlobWriter;
+import com.beema.kernel.config.ParquetExportProperties;
+import com.beema.kernel.config.multitenant.TenantRoutingDataSource;
 import com.beema.kernel.domain.agreement.Agreement;
 import com.beema.kernel.service.storage.BlobStorageService;
 import org.apache.avro.generic.GenericRecord;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.batch.item.ItemReader;
-import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
 
 /**
  * Spring Batch configuration for the universal Parquet export job.
  *
  * Job: universalParquetExport
  *   Step: exportAgreementsStep
- *     Reader: AgreementItemReader (JDBC cursor, tenant-filtered)
- *     Processor: JsonToAvroProcessor (Agreement -> Avro GenericRecord)
- *     Writer: ParquetBlobWriter (Parquet file -> BlobStorageService)
+ *     Reader: AgreementItemReader (keyset-paged, tenant-filtered, on the tenant's own datasource)
+ *     Processor: JsonToAvroProcessor (Agreement -> Avro GenericRecord, schema from metadata)
+ *     Writer: ParquetBlobWriter (Parquet files streamed to BlobStorageService, "agreement" writer profile)
  *     Chunk size: 1000
  *
  * Job parameters:
  *   - tenantId (required): tenant to export
+ *   - agreementType (optional): only export this agreement type
+ *   - exportDate (optional, yyyy-MM-dd): date partition of the output, defaults to today
+ *   - changedUpTo (optional, ISO offset date-time): export every version recorded up to this
+ *     transaction time instead of the current versions
+ *   - changedAfter (optional, with changedUpTo): only versions recorded after this transaction time
+ *
+ * Reader, processor and writer are step scoped, so executions for different partitions can
+ * run concurrently (see ParquetExportOrchestrator).
  */
 @Configuration
 public class ParquetExportJobConfig {
 
-    private static final Logger log = LoggerFactory.getLogger(ParquetExportJobConfig.class);
-
     private static final int CHUNK_SIZE = 1000;
 
     private final JobRepository jobRepository;
     private final PlatformTransactionManager transactionManager;
     private final DataSource dataSource;
     private final BlobStorageService blobStorageService;
+    private final ParquetExportProperties parquetExportProperties;
+    private final AgreementAvroSchemaRegistry schemaRegistry;
 
     public ParquetExportJobConfig(
             JobRepository jobRepository,
             PlatformTransactionManager transactionManager,
             DataSource dataSource,
-            BlobStorageService blobStorageService) {
+            BlobStorageService blobStorageService,
+            ParquetExportProperties parquetExportProperties,
+            AgreementAvroSchemaRegistry schemaRegistry) {
         this.jobRepository = jobRepository;
         this.transactionManager = transactionManager;
         this.dataSource = dataSource;
         this.blobStorageService = blobStorageService;
+        this.parquetExportProperties = parquetExportProperties;
+        this.schemaRegistry = schemaRegistry;
     }
 
     @Bean
@@ -68,32 +83,44 @@ public class ParquetExportJobConfig {
 
     @Bean
     public Step exportAgreementsStep() {
-        // Use a default tenant for bean creation; actual tenant comes from job parameters at runtime
-        // The real reader/writer are created per-execution in BatchController
-        JsonToAvroProcessor processor = new JsonToAvroProcessor();
+        // Step-scoped proxies; the real reader/writer are created per execution from the job parameters
         return new StepBuilder("exportAgreementsStep", jobRepository)
                 .<Agreement, GenericRecord>chunk(CHUNK_SIZE, transactionManager)
-                .reader(defaultAgreementReader())
-                .processor(processor)
-                .writer(defaultParquetWriter(processor))
+                .reader(agreementReader(null, null, null, null))
+                .processor(agreementAvroProcessor())
+                .writer(agreementParquetWriter(null, null))
                 .build();
     }
 
     @Bean
-    public ItemReader<Agreement> defaultAgreementReader() {
-        return new AgreementItemReader(dataSource, "default");
+    @StepScope
+    public AgreementItemReader agreementReader(
+            @Value("#{jobParameters['tenantId']}") String tenantId,
+            @Value("#{jobParameters['agreementType']}") String agreementType,
+            @Value("#{jobParameters['changedAfter']}") String changedAfter,
+            @Value("#{jobParameters['changedUpTo']}") String changedUpTo) {
+        // Read straight from the tenant's database; the step thread has no tenant context
+        DataSource tenantDataSource = dataSource instanceof TenantRoutingDataSource routing
+                ? routing.dataSourceFor(tenantId)
+                : dataSource;
+        return new AgreementItemReader(tenantDataSource, tenantId, agreementType,
+                changedAfter != null ? OffsetDateTime.parse(changedAfter) : null,
+                changedUpTo != null ? OffsetDateTime.parse(changedUpTo) : null);
+    }
+
+    @Bean
+    @StepScope
+    public JsonToAvroProcessor agreementAvroProcessor() {
+        return new JsonToAvroProcessor(schemaRegistry);
     }
 
     @Bean
-    public ItemWriter<GenericRecord> defaultParquetWriter(JsonToAvroProcessor processor) {
-        // Schema will be built lazily on first record processed
-        return chunk -> {
-            if (processor.getSchema() == null) {
-                log.warn("No schema available yet - skipping empty chunk write");
-                return;
-            }
-            ParquetBlobWriter writer = new ParquetBlobWriter(blobStorageService, "default", processor.getSchema());
-            writer.write(chunk);
-        };
+    @StepScope
+    public ParquetBlobWriter agreementParquetWriter(
+            @Value("#{jobParameters['tenantId']}") String tenantId,
+            @Value("#{jobParameters['exportDate']}") String exportDate) {
+        return new ParquetBlobWriter(blobStorageService, tenantId,
+                exportDate != null ? LocalDate.parse(exportDate) : null,
+                parquetExportProperties.profileFor(ParquetExportProperties.AGREEMENT_DATASET));
     }
 }
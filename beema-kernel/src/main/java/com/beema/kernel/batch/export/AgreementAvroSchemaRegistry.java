@@ -0,0 +1,184 @@
+package com.beema.kernel.batch.export;
+
+import com.beema.kernel.domain.metadata.AttributeDataType;
+import com.beema.kernel.domain.metadata.MarketContext;
+import com.beema.kernel.domain.metadata.MetadataAgreementType;
+import com.beema.kernel.domain.metadata.MetadataAttribute;
+import com.beema.kernel.service.metadata.MetadataService;
+import org.apache.avro.JsonProperties;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the Avro schema of exported agreements from the metadata registry.
+ *
+ * Each attribute declared in the agreement type's attribute schema becomes an optional
+ * {@code attr_<key>} column. Its type comes from the attribute catalog entry for the market
+ * context when there is one, otherwise from the JSON Schema {@code type} and {@code format}:
+ *
+ * <pre>
+ *   STRING,   "string"                    -&gt; string
+ *   INTEGER,  "integer"                   -&gt; long
+ *   "number"                              -&gt; double
+ *   DECIMAL                               -&gt; decimal(38, 6)
+ *   BOOLEAN,  "boolean"                   -&gt; boolean
+ *   DATE,     "string" + format date      -&gt; date
+ *   DATETIME, "string" + format date-time -&gt; timestamp-micros
+ *   ARRAY, OBJECT, "array", "object"      -&gt; string (JSON)
+ * </pre>
+ *
+ * Attributes the type does not declare, and declared values that do not convert to their
+ * column type, go to the {@code extra_attributes} map column as strings.
+ *
+ * Schemas are cached per (tenant, agreement type, market context) and versioned by the
+ * agreement type's schema version, which is recorded in the {@code beema.schema.version}
+ * schema property. Registering a new version of a type yields a new schema on the next lookup.
+ */
+@Component
+public class AgreementAvroSchemaRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(AgreementAvroSchemaRegistry.class);
+
+    public static final String EXTRA_ATTRIBUTES_FIELD = "extra_attributes";
+    public static final String ATTRIBUTE_PREFIX = "attr_";
+    public static final String SCHEMA_VERSION_PROP = "beema.schema.version";
+
+    static final int DECIMAL_PRECISION = 38;
+    static final int DECIMAL_SCALE = 6;
+
+    private static final Pattern AVRO_NAME = Pattern.compile("^[A-Za-z_][A-Za-z0-9_]*$");
+
+    private final MetadataService metadataService;
+    private final Map<String, Schema> schemas = new ConcurrentHashMap<>();
+
+    public AgreementAvroSchemaRegistry(MetadataService metadataService) {
+        this.metadataService = metadataService;
+    }
+
+    /**
+     * Schema for the latest active version of an agreement type. Types unknown to the
+     * registry get version 0: fixed columns only, every attribute in extra_attributes.
+     */
+    public Schema schemaFor(String tenantId, String agreementTypeCode, MarketContext marketContext) {
+        Optional<MetadataAgreementType> type = metadataService.getAgreementType(agreementTypeCode, marketContext);
+        int version = type.map(MetadataAgreementType::getSchemaVersion).orElse(0);
+        String key = tenantId + ':' + agreementTypeCode + ':' + marketContext + ":v" + version;
+        return schemas.computeIfAbsent(key, k -> buildSchema(tenantId, agreementTypeCode, marketContext,
+                version, type.map(MetadataAgreementType::getAttributeSchema).orElse(Map.of())));
+    }
+
+    private Schema buildSchema(String tenantId, String agreementTypeCode, MarketContext marketContext,
+                               int version, Map<String, Object> attributeSchema) {
+        List<Schema.Field> fields = new ArrayList<>();
+        fields.add(new Schema.Field("id", LogicalTypes.uuid().addToSchema(Schema.create(Schema.Type.STRING))));
+        fields.add(new Schema.Field("agreement_number", Schema.create(Schema.Type.STRING)));
+        fields.add(new Schema.Field("agreement_type_code", Schema.create(Schema.Type.STRING)));
+        fields.add(new Schema.Field("market_context", Schema.create(Schema.Type.STRING)));
+        fields.add(new Schema.Field("status", Schema.create(Schema.Type.STRING)));
+        fields.add(new Schema.Field("valid_from", timestamp()));
+        fields.add(new Schema.Field("valid_to", timestamp()));
+        fields.add(new Schema.Field("transaction_time", timestamp()));
+        fields.add(new Schema.Field("tenant_id", Schema.create(Schema.Type.STRING)));
+        fields.add(optional("data_residency_region", Schema.create(Schema.Type.STRING)));
+        fields.add(new Schema.Field("created_by", Schema.create(Schema.Type.STRING)));
+        fields.add(new Schema.Field("updated_by", Schema.create(Schema.Type.STRING)));
+        fields.add(new Schema.Field("version", Schema.create(Schema.Type.LONG)));
+        fields.add(new Schema.Field("created_at", timestamp()));
+        fields.add(new Schema.Field("updated_at", timestamp()));
+
+        Map<String, AttributeDataType> catalog = new HashMap<>();
+        for (MetadataAttribute attribute : metadataService.getAttributesByMarket(marketContext)) {
+            catalog.put(attribute.getAttributeKey(), attribute.getDataType());
+        }
+
+        int declared = 0;
+        for (Map.Entry<String, Map<?, ?>> property : properties(attributeSchema).entrySet()) {
+            String key = property.getKey();
+            if (!AVRO_NAME.matcher(key).matches()) {
+                log.warn("Attribute {} of {} is not a valid column name, exporting it in {}",
+                        key, agreementTypeCode, EXTRA_ATTRIBUTES_FIELD);
+                continue;
+            }
+            Schema type = catalog.containsKey(key)
+                    ? avroType(catalog.get(key))
+                    : avroType(property.getValue());
+            fields.add(optional(ATTRIBUTE_PREFIX + key, type));
+            declared++;
+        }
+
+        fields.add(new Schema.Field(EXTRA_ATTRIBUTES_FIELD, Schema.createMap(Schema.create(Schema.Type.STRING)),
+                "Attributes not declared by the agreement type", Map.of()));
+
+        Schema schema = Schema.createRecord("Agreement", null, "com.beema.kernel.export", false, fields);
+        schema.addProp(SCHEMA_VERSION_PROP, String.valueOf(version));
+        schema.addProp("beema.agreement_type", agreementTypeCode);
+        schema.addProp("beema.market_context", marketContext.name());
+        log.info("Built Avro schema v{} for tenant {} type {} ({}) with {} attribute columns",
+                version, tenantId, agreementTypeCode, marketContext, declared);
+        return schema;
+    }
+
+    private static Map<String, Map<?, ?>> properties(Map<String, Object> attributeSchema) {
+        Map<String, Map<?, ?>> properties = new TreeMap<>();
+        if (attributeSchema.get("properties") instanceof Map<?, ?> declared) {
+            declared.forEach((key, definition) ->
+                    properties.put(String.valueOf(key), definition instanceof Map<?, ?> map ? map : Map.of()));
+        }
+        return properties;
+    }
+
+    private static Schema avroType(AttributeDataType dataType) {
+        return switch (dataType) {
+            case INTEGER -> Schema.create(Schema.Type.LONG);
+            case DECIMAL -> LogicalTypes.decimal(DECIMAL_PRECISION, DECIMAL_SCALE)
+                    .addToSchema(Schema.create(Schema.Type.BYTES));
+            case BOOLEAN -> Schema.create(Schema.Type.BOOLEAN);
+            case DATE -> LogicalTypes.date().addToSchema(Schema.create(Schema.Type.INT));
+            case DATETIME -> timestamp();
+            case STRING, ARRAY, OBJECT -> Schema.create(Schema.Type.STRING);
+        };
+    }
+
+    private static Schema avroType(Map<?, ?> definition) {
+        Object type = definition.get("type");
+        Object format = definition.get("format");
+        if ("integer".equals(type)) {
+            return avroType(AttributeDataType.INTEGER);
+        }
+        if ("number".equals(type)) {
+            // Plain JSON numbers stay floating point; DECIMAL comes from the attribute catalog
+            return Schema.create(Schema.Type.DOUBLE);
+        }
+        if ("boolean".equals(type)) {
+            return avroType(AttributeDataType.BOOLEAN);
+        }
+        if ("date".equals(format)) {
+            return avroType(AttributeDataType.DATE);
+        }
+        if ("date-time".equals(format)) {
+            return avroType(AttributeDataType.DATETIME);
+        }
+        return Schema.create(Schema.Type.STRING);
+    }
+
+    private static Schema timestamp() {
+        return LogicalTypes.timestampMicros().addToSchema(Schema.create(Schema.Type.LONG));
+    }
+
+    private static Schema.Field optional(String name, Schema type) {
+        return new Schema.Field(name, Schema.createUnion(Schema.create(Schema.Type.NULL), type),
+                null, JsonProperties.NULL_VALUE);
+    }
+}
@@ -5,36 +5,87 @@ import com.beema.kernel.domain.agreement.AgreementStatus;
 import com.beema.kernel.domain.base.TemporalKey;
 import com.beema.kernel.domain.metadata.MarketContext;
 import com.beema.kernel.util.JsonbConverter;
-import org.springframework.batch.item.database.JdbcCursorItemReader;
 import org.springframework.jdbc.core.RowMapper;
 
 import javax.sql.DataSource;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 /**
- * Reads current agreements from the database for a specific tenant.
- * Uses a JDBC cursor for memory-efficient streaming of large datasets.
+ * Reads agreements from the database for a specific tenant, optionally of one agreement type:
+ * either the current version of each agreement (a full snapshot), or every version recorded
+ * within a transaction-time window (the changes since an earlier export).
+ * Pages through them by a unique key (see {@link KeysetItemReader}), so an export does not hold
+ * a connection for its whole run and a restart resumes after the last committed agreement:
+ * the primary key for a snapshot, and (transaction_time, id, valid_from) for a window, so the
+ * export change index serves both the window filter and the page order.
  */
-public class AgreementItemReader extends JdbcCursorItemReader<Agreement> {
+public class AgreementItemReader extends KeysetItemReader<Agreement> {
+
+    private static final int PAGE_SIZE = 1000;
 
     private static final String SQL =
             "SELECT id, valid_from, transaction_time, valid_to, is_current, " +
             "agreement_number, agreement_type_code, market_context, status, " +
             "attributes, data_residency_region, tenant_id, " +
             "created_by, updated_by, version, created_at, updated_at " +
-            "FROM agreements WHERE is_current = true AND tenant_id = ?";
+            "FROM agreements WHERE tenant_id = ?";
 
     public AgreementItemReader(DataSource dataSource, String tenantId) {
-        setName("agreementItemReader");
-        setDataSource(dataSource);
-        setSql(SQL);
-        setPreparedStatementSetter(ps -> ps.setString(1, tenantId));
-        setRowMapper(new AgreementRowMapper());
-        setFetchSize(1000);
+        this(dataSource, tenantId, null);
+    }
+
+    /**
+     * @param agreementTypeCode only read agreements of this type, or all types when null
+     */
+    public AgreementItemReader(DataSource dataSource, String tenantId, String agreementTypeCode) {
+        this(dataSource, tenantId, agreementTypeCode, null, null);
+    }
+
+    /**
+     * @param changedAfter only read versions recorded after this transaction time, or from the
+     *                     beginning when null
+     * @param changedUpTo  when set, read every version recorded up to and including this
+     *                     transaction time instead of the current versions
+     */
+    public AgreementItemReader(DataSource dataSource, String tenantId, String agreementTypeCode,
+                               OffsetDateTime changedAfter, OffsetDateTime changedUpTo) {
+        this(dataSource, query(tenantId, agreementTypeCode, changedAfter, changedUpTo));
+    }
+
+    private AgreementItemReader(DataSource dataSource, Query query) {
+        super("agreementItemReader", dataSource, query.sql(), query.args(),
+                query.keyColumns(), PAGE_SIZE, new AgreementRowMapper());
+    }
+
+    private static Query query(String tenantId, String agreementTypeCode,
+                               OffsetDateTime changedAfter, OffsetDateTime changedUpTo) {
+        StringBuilder sql = new StringBuilder(SQL);
+        List<Object> args = new ArrayList<>();
+        args.add(tenantId);
+        if (agreementTypeCode != null) {
+            sql.append(" AND agreement_type_code = ?");
+            args.add(agreementTypeCode);
+        }
+        if (changedUpTo == null) {
+            sql.append(" AND is_current = true");
+            return new Query(sql.toString(), args.toArray(), List.of("id", "valid_from", "transaction_time"));
+        }
+        if (changedAfter != null) {
+            sql.append(" AND transaction_time > ?");
+            args.add(changedAfter);
+        }
+        sql.append(" AND transaction_time <= ?");
+        args.add(changedUpTo);
+        return new Query(sql.toString(), args.toArray(), List.of("transaction_time", "id", "valid_from"));
+    }
+
+    private record Query(String sql, Object[] args, List<String> keyColumns) {
     }
 
     private static class AgreementRowMapper implements RowMapper<Agreement> {
@@ -0,0 +1,269 @@
+package com.beema.kernel.batch.export;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Record of one orchestrated Parquet export run, stored as JSON next to the exported files.
+ *
+ * Lists every (tenant, agreement type) partition of the run with its status and the files it
+ * produced. Consumers should read the files listed here rather than list the date
+ * directories: a partition that failed part-way may have left finished files behind. Those
+ * are deleted when the attempt fails and listed under {@code orphanedFiles} for as long as
+ * they could not be; a retry deletes them before it starts. Failed partitions can be re-run
+ * on their own ({@link ParquetExportOrchestrator#retryFailed}); each attempt is a new job
+ * execution.
+ *
+ * A partition is either a SNAPSHOT of the current agreement versions or INCREMENTAL: every
+ * version recorded in the transaction-time window (changedAfter, changedUpTo]. The window's
+ * upper bound is the watermark the next incremental run starts from. Consumers merge
+ * incremental files into the latest snapshot by the agreement key (id, valid_from,
+ * transaction_time); a snapshot and the increment after it may both contain versions
+ * recorded around the snapshot's cutoff.
+ *
+ * changedUpTo is the run's start minus {@code beema.export.parquet.watermark-lag}. A version's
+ * transaction_time is stamped before its transaction commits, so a window only holds every
+ * version stamped inside it if no writer transaction on agreements runs longer than the lag;
+ * a version committed later than that is missed by every incremental run and only reaches
+ * consumers with the next snapshot.
+ */
+public class ExportRunManifest {
+
+    public enum PartitionStatus {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public enum ExportMode {
+        SNAPSHOT,
+        INCREMENTAL
+    }
+
+    private String runId;
+    private LocalDate exportDate;
+    private OffsetDateTime changedUpTo;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private List<Partition> partitions = new ArrayList<>();
+
+    public ExportRunManifest() {
+    }
+
+    public ExportRunManifest(String runId, LocalDate exportDate) {
+        this.runId = runId;
+        this.exportDate = exportDate;
+        this.createdAt = Instant.now();
+        this.updatedAt = createdAt;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public void setRunId(String runId) {
+        this.runId = runId;
+    }
+
+    public LocalDate getExportDate() {
+        return exportDate;
+    }
+
+    public void setExportDate(LocalDate exportDate) {
+        this.exportDate = exportDate;
+    }
+
+    public OffsetDateTime getChangedUpTo() {
+        return changedUpTo;
+    }
+
+    public void setChangedUpTo(OffsetDateTime changedUpTo) {
+        this.changedUpTo = changedUpTo;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public List<Partition> getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(List<Partition> partitions) {
+        this.partitions = partitions;
+    }
+
+    /**
+     * One export partition: the agreements of one type for one tenant.
+     */
+    public static class Partition {
+        private String tenantId;
+        private String agreementType;
+        private String datasource;
+        private ExportMode mode = ExportMode.SNAPSHOT;
+        private OffsetDateTime changedAfter;
+        private OffsetDateTime changedUpTo;
+        private PartitionStatus status = PartitionStatus.PENDING;
+        private int attempts;
+        private Long jobExecutionId;
+        private long recordsWritten;
+        private List<String> files = new ArrayList<>();
+        private List<String> orphanedFiles = new ArrayList<>();
+        private String error;
+        private Instant startedAt;
+        private Instant finishedAt;
+
+        public Partition() {
+        }
+
+        public Partition(String tenantId, String agreementType, String datasource) {
+            this.tenantId = tenantId;
+            this.agreementType = agreementType;
+            this.datasource = datasource;
+        }
+
+        public String getTenantId() {
+            return tenantId;
+        }
+
+        public void setTenantId(String tenantId) {
+            this.tenantId = tenantId;
+        }
+
+        public String getAgreementType() {
+            return agreementType;
+        }
+
+        public void setAgreementType(String agreementType) {
+            this.agreementType = agreementType;
+        }
+
+        public String getDatasource() {
+            return datasource;
+        }
+
+        public void setDatasource(String datasource) {
+            this.datasource = datasource;
+        }
+
+        public ExportMode getMode() {
+            return mode;
+        }
+
+        public void setMode(ExportMode mode) {
+            this.mode = mode;
+        }
+
+        public OffsetDateTime getChangedAfter() {
+            return changedAfter;
+        }
+
+        public void setChangedAfter(OffsetDateTime changedAfter) {
+            this.changedAfter = changedAfter;
+        }
+
+        public OffsetDateTime getChangedUpTo() {
+            return changedUpTo;
+        }
+
+        public void setChangedUpTo(OffsetDateTime changedUpTo) {
+            this.changedUpTo = changedUpTo;
+        }
+
+        public PartitionStatus getStatus() {
+            return status;
+        }
+
+        public void setStatus(PartitionStatus status) {
+            this.status = status;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public void setAttempts(int attempts) {
+            this.attempts = attempts;
+        }
+
+        public Long getJobExecutionId() {
+            return jobExecutionId;
+        }
+
+        public void setJobExecutionId(Long jobExecutionId) {
+            this.jobExecutionId = jobExecutionId;
+        }
+
+        public long getRecordsWritten() {
+            return recordsWritten;
+        }
+
+        public void setRecordsWritten(long recordsWritten) {
+            this.recordsWritten = recordsWritten;
+        }
+
+        public List<String> getFiles() {
+            return files;
+        }
+
+        public void setFiles(List<String> files) {
+            this.files = files;
+        }
+
+        /**
+         * Files finished by failed attempts that have not been deleted yet.
+         */
+        public List<String> getOrphanedFiles() {
+            return orphanedFiles;
+        }
+
+        public void setOrphanedFiles(List<String> orphanedFiles) {
+            this.orphanedFiles = orphanedFiles;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+
+        public Instant getStartedAt() {
+            return startedAt;
+        }
+
+        public void setStartedAt(Instant startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        public Instant getFinishedAt() {
+            return finishedAt;
+        }
+
+        public void setFinishedAt(Instant finishedAt) {
+            this.finishedAt = finishedAt;
+        }
+
+        @Override
+        public String toString() {
+            return tenantId + "/" + agreementType;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.beema.kernel.batch.export;
+
+import com.beema.kernel.service.storage.BlobStorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+/**
+ * High-water marks of the agreement export per (tenant, agreement type), stored as JSON in
+ * blob storage next to the run manifests.
+ *
+ * The watermark is the transaction time up to which every recorded version has been
+ * exported; the next incremental export reads the versions recorded after it. A watermark
+ * only moves forward, so retrying an old run cannot rewind it. A watermark that cannot be
+ * read is treated as missing, which makes the next export a full snapshot.
+ */
+@Component
+public class ExportWatermarkStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportWatermarkStore.class);
+
+    static final String WATERMARK_PATH = "manifests/object=agreement/watermarks/tenant=%s/type=%s.json";
+
+    private final BlobStorageService blobStorageService;
+    private final ObjectMapper objectMapper;
+
+    public ExportWatermarkStore(BlobStorageService blobStorageService, ObjectMapper objectMapper) {
+        this.blobStorageService = blobStorageService;
+        this.objectMapper = objectMapper;
+    }
+
+    public Optional<Watermark> find(String tenantId, String agreementType) {
+        try (InputStream in = blobStorageService.download(path(tenantId, agreementType))) {
+            return Optional.of(objectMapper.readValue(in, Watermark.class));
+        } catch (IOException e) {
+            log.debug("No export watermark for tenant {} type {}: {}", tenantId, agreementType, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Record a completed export of all versions recorded up to {@code changedUpTo}.
+     *
+     * @param snapshot whether the export was a full snapshot
+     */
+    public synchronized void advance(String tenantId, String agreementType, OffsetDateTime changedUpTo,
+                                     boolean snapshot, String runId) throws IOException {
+        Watermark watermark = find(tenantId, agreementType).orElseGet(Watermark::new);
+        if (watermark.getChangedUpTo() != null && !changedUpTo.isAfter(watermark.getChangedUpTo())) {
+            log.info("Keeping export watermark {} for tenant {} type {}, run {} ended at {}",
+                    watermark.getChangedUpTo(), tenantId, agreementType, runId, changedUpTo);
+            return;
+        }
+        watermark.setChangedUpTo(changedUpTo);
+        watermark.setRunId(runId);
+        if (snapshot) {
+            watermark.setLastSnapshotAt(changedUpTo);
+        }
+        blobStorageService.upload(path(tenantId, agreementType),
+                new ByteArrayInputStream(objectMapper.writeValueAsBytes(watermark)));
+    }
+
+    private static String path(String tenantId, String agreementType) {
+        return String.format(WATERMARK_PATH, tenantId, agreementType);
+    }
+
+    public static class Watermark {
+        private OffsetDateTime changedUpTo;
+        private OffsetDateTime lastSnapshotAt;
+        private String runId;
+
+        public OffsetDateTime getChangedUpTo() {
+            return changedUpTo;
+        }
+
+        public void setChangedUpTo(OffsetDateTime changedUpTo) {
+            this.changedUpTo = changedUpTo;
+        }
+
+        public OffsetDateTime getLastSnapshotAt() {
+            return lastSnapshotAt;
+        }
+
+        public void setLastSnapshotAt(OffsetDateTime lastSnapshotAt) {
+            this.lastSnapshotAt = lastSnapshotAt;
+        }
+
+        public String getRunId() {
+            return runId;
+        }
+
+        public void setRunId(String runId) {
+            this.runId = runId;
+        }
+    }
+}
@@ -2,37 +2,69 @@ package com.beema.kernel.batch.export;
 
 import com.beema.kernel.domain.agreement.Agreement;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.avro.Conversions;
+import org.apache.avro.LogicalType;
+import org.apache.avro.LogicalTypes;
 import org.apache.avro.Schema;
-import org.apache.avro.SchemaBuilder;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.item.ItemProcessor;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static com.beema.kernel.batch.export.AgreementAvroSchemaRegistry.ATTRIBUTE_PREFIX;
+import static com.beema.kernel.batch.export.AgreementAvroSchemaRegistry.EXTRA_ATTRIBUTES_FIELD;
+
 /**
  * Converts Agreement entities to Avro GenericRecords.
  *
- * Handles dynamic JSONB attributes by building an Avro schema that includes
- * both fixed agreement fields and flattened attribute fields.
- * The schema is built dynamically based on the first record's attributes,
- * then cached for the remainder of the batch.
+ * The schema comes from {@link AgreementAvroSchemaRegistry}, typed from the metadata registry's
+ * attribute definitions. Each (tenant, agreement type, market context) is pinned to the schema
+ * version it first resolves to for the rest of the step, so a metadata change mid-export
+ * cannot split one partition's output across schemas.
+ *
+ * Declared attributes are converted to their column type; undeclared attributes, and values
+ * that do not fit their column (e.g. an unparseable date, or a decimal with more places than
+ * the column's scale), are kept as strings in the extra_attributes map instead of being
+ * dropped or rounded.
  */
-public class JsonToAvroProcessor implements ItemProcessor<Agreement, GenericRecord> {
+public class JsonToAvroProcessor implements ItemProcessor<Agreement, GenericRecord>, StepExecutionListener {
 
     private static final Logger log = LoggerFactory.getLogger(JsonToAvroProcessor.class);
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Conversions.DecimalConversion DECIMAL_CONVERSION = new Conversions.DecimalConversion();
 
-    private final ConcurrentHashMap<String, Schema> schemaCache = new ConcurrentHashMap<>();
-    private volatile Schema currentSchema;
+    private final AgreementAvroSchemaRegistry schemaRegistry;
+    private final Map<String, Schema> pinnedSchemas = new ConcurrentHashMap<>();
+
+    public JsonToAvroProcessor(AgreementAvroSchemaRegistry schemaRegistry) {
+        this.schemaRegistry = schemaRegistry;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        pinnedSchemas.clear();
+    }
 
     @Override
     public GenericRecord process(Agreement agreement) throws Exception {
-        Schema schema = getOrBuildSchema(agreement);
+        Schema schema = schemaFor(agreement);
         GenericRecord record = new GenericData.Record(schema);
 
         // Fixed fields
@@ -41,87 +73,120 @@ public class JsonToAvroProcessor implements ItemProcessor<Agreement, GenericReco
         record.put("agreement_type_code", agreement.getAgreementTypeCode());
         record.put("market_context", agreement.getMarketContext().name());
         record.put("status", agreement.getStatus().name());
-        record.put("valid_from", agreement.getValidFrom().toString());
-        record.put("valid_to", agreement.getValidTo().toString());
-        record.put("transaction_time", agreement.getTransactionTime().toString());
+        record.put("valid_from", micros(agreement.getValidFrom()));
+        record.put("valid_to", micros(agreement.getValidTo()));
+        record.put("transaction_time", micros(agreement.getTransactionTime()));
         record.put("tenant_id", agreement.getTenantId());
-        record.put("data_residency_region",
-                agreement.getDataResidencyRegion() != null ? agreement.getDataResidencyRegion() : "");
+        record.put("data_residency_region", agreement.getDataResidencyRegion());
         record.put("created_by", agreement.getCreatedBy());
         record.put("updated_by", agreement.getUpdatedBy());
         record.put("version", agreement.getVersion());
-        record.put("created_at", agreement.getCreatedAt().toString());
-        record.put("updated_at", agreement.getUpdatedAt().toString());
+        record.put("created_at", micros(agreement.getCreatedAt()));
+        record.put("updated_at", micros(agreement.getUpdatedAt()));
 
-        // Flatten JSONB attributes
+        // Typed attribute columns, everything else in the extra map
+        Map<String, String> extra = new HashMap<>();
         Map<String, Object> attributes = agreement.getAttributes();
         if (attributes != null) {
             for (Map.Entry<String, Object> entry : attributes.entrySet()) {
-                String fieldName = "attr_" + entry.getKey();
-                if (schema.getField(fieldName) != null) {
-                    record.put(fieldName, convertValue(entry.getValue()));
+                Object value = entry.getValue();
+                Schema.Field field = schema.getField(ATTRIBUTE_PREFIX + entry.getKey());
+                Object converted = field != null && value != null ? convert(value, field.schema()) : null;
+                if (field != null && (value == null || converted != null)) {
+                    record.put(field.pos(), converted);
+                } else if (value != null) {
+                    extra.put(entry.getKey(), stringValue(value));
                 }
             }
         }
+        record.put(EXTRA_ATTRIBUTES_FIELD, extra);
 
         return record;
     }
 
-    public Schema getSchema() {
-        return currentSchema;
+    private Schema schemaFor(Agreement agreement) {
+        String key = agreement.getTenantId() + ':' + agreement.getAgreementTypeCode() + ':'
+                + agreement.getMarketContext();
+        return pinnedSchemas.computeIfAbsent(key, k -> schemaRegistry.schemaFor(agreement.getTenantId(),
+                agreement.getAgreementTypeCode(), agreement.getMarketContext()));
     }
 
-    private Schema getOrBuildSchema(Agreement agreement) {
-        if (currentSchema != null) {
-            return currentSchema;
+    /**
+     * Converts an attribute value to the physical Avro representation of its column, or
+     * returns null when it does not fit.
+     */
+    static Object convert(Object value, Schema fieldSchema) {
+        Schema type = nonNull(fieldSchema);
+        LogicalType logicalType = type.getLogicalType();
+        try {
+            if (logicalType instanceof LogicalTypes.Decimal decimal) {
+                // Padding only: a value with more decimal places than the column is not rounded,
+                // it goes to extra_attributes like one with too many digits
+                BigDecimal number = new BigDecimal(value.toString()).setScale(decimal.getScale(), RoundingMode.UNNECESSARY);
+                return number.precision() <= decimal.getPrecision()
+                        ? DECIMAL_CONVERSION.toBytes(number, type, decimal)
+                        : null;
+            }
+            if (logicalType instanceof LogicalTypes.Date) {
+                return (int) LocalDate.parse(value.toString()).toEpochDay();
+            }
+            if (logicalType instanceof LogicalTypes.TimestampMicros) {
+                return micros(instant(value.toString()));
+            }
+            return switch (type.getType()) {
+                case LONG -> value instanceof Number number
+                        ? new BigDecimal(number.toString()).longValueExact()
+                        : Long.parseLong(value.toString().trim());
+                case DOUBLE -> value instanceof Number number
+                        ? number.doubleValue()
+                        : Double.parseDouble(value.toString().trim());
+                case BOOLEAN -> value instanceof Boolean bool ? bool : parseBoolean(value.toString());
+                case STRING -> stringValue(value);
+                default -> null;
+            };
+        } catch (ArithmeticException | NumberFormatException | DateTimeParseException e) {
+            return null;
         }
-        currentSchema = buildSchema(agreement);
-        return currentSchema;
     }
 
-    private Schema buildSchema(Agreement agreement) {
-        SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder.record("Agreement")
-                .namespace("com.beema.kernel.export")
-                .fields();
-
-        // Fixed fields
-        fields.requiredString("id");
-        fields.requiredString("agreement_number");
-        fields.requiredString("agreement_type_code");
-        fields.requiredString("market_context");
-        fields.requiredString("status");
-        fields.requiredString("valid_from");
-        fields.requiredString("valid_to");
-        fields.requiredString("transaction_time");
-        fields.requiredString("tenant_id");
-        fields.requiredString("data_residency_region");
-        fields.requiredString("created_by");
-        fields.requiredString("updated_by");
-        fields.requiredLong("version");
-        fields.requiredString("created_at");
-        fields.requiredString("updated_at");
-
-        // Dynamic attribute fields (flattened from JSONB)
-        Map<String, Object> attributes = agreement.getAttributes();
-        if (attributes != null) {
-            for (Map.Entry<String, Object> entry : attributes.entrySet()) {
-                String fieldName = "attr_" + entry.getKey();
-                // All attribute values stored as strings for schema stability
-                fields.requiredString(fieldName);
-            }
+    private static Schema nonNull(Schema schema) {
+        if (schema.getType() != Schema.Type.UNION) {
+            return schema;
         }
+        return schema.getTypes().stream()
+                .filter(s -> s.getType() != Schema.Type.NULL)
+                .findFirst()
+                .orElse(schema);
+    }
 
-        Schema schema = fields.endRecord();
-        log.info("Built Avro schema with {} fields ({} from attributes)",
-                schema.getFields().size(),
-                attributes != null ? attributes.size() : 0);
-        return schema;
+    private static Boolean parseBoolean(String value) {
+        if ("true".equalsIgnoreCase(value.trim())) {
+            return Boolean.TRUE;
+        }
+        if ("false".equalsIgnoreCase(value.trim())) {
+            return Boolean.FALSE;
+        }
+        return null;
     }
 
-    private String convertValue(Object value) {
-        if (value == null) {
-            return "";
+    private static Instant instant(String value) {
+        try {
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException e) {
+            // Local date-times are taken as UTC
+            return LocalDateTime.parse(value).toInstant(ZoneOffset.UTC);
         }
+    }
+
+    private static long micros(OffsetDateTime value) {
+        return micros(value.toInstant());
+    }
+
+    private static long micros(Instant value) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, value);
+    }
+
+    private static String stringValue(Object value) {
         if (value instanceof String) {
             return (String) value;
         }
@@ -0,0 +1,170 @@
+package com.beema.kernel.batch.export;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset-paged reader over arbitrary SQL. Each page is one short query
+ *
+ * <pre>
+ *   SELECT * FROM (&lt;sql&gt;) beema_keyset WHERE (k1, k2) &gt; (?, ?) ORDER BY k1, k2 LIMIT ?
+ * </pre>
+ *
+ * on a connection borrowed for that query only, so a long job neither holds a cursor open nor
+ * pins a connection between chunks. The key columns must be non-null and unique across the
+ * result; with an index on them every page starts with an index seek.
+ *
+ * The key of the last item read is saved in the step {@link ExecutionContext} at each commit,
+ * so a restart resumes after it directly instead of re-reading and skipping the items already
+ * processed, as a cursor reader must.
+ */
+public class KeysetItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> {
+
+    static final String LAST_KEY = "last.key";
+
+    private static final Pattern IDENTIFIER = Pattern.compile("^[A-Za-z_][A-Za-z0-9_]{0,62}$");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sql;
+    private final Object[] args;
+    private final List<String> keyColumns;
+    private final int pageSize;
+    private final RowMapper<T> rowMapper;
+    private final String firstPageSql;
+    private final String nextPageSql;
+
+    private final Deque<Keyed<T>> page = new ArrayDeque<>();
+    private Object[] lastKey;
+    private boolean exhausted;
+
+    /**
+     * @param sql        source query; its result is wrapped, so it may contain joins and filters
+     * @param args       positional arguments of the source query
+     * @param keyColumns unique sort key of the source query's result
+     */
+    public KeysetItemReader(String name, DataSource dataSource, String sql, Object[] args,
+                            List<String> keyColumns, int pageSize, RowMapper<T> rowMapper) {
+        if (keyColumns == null || keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("Keyset reader needs at least one key column");
+        }
+        for (String column : keyColumns) {
+            if (!IDENTIFIER.matcher(column).matches()) {
+                throw new IllegalArgumentException("Invalid reader key column name: " + column);
+            }
+        }
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        setName(name);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.sql = stripTrailingSemicolon(sql);
+        this.args = args != null ? args : new Object[0];
+        this.keyColumns = List.copyOf(keyColumns);
+        this.pageSize = pageSize;
+        this.rowMapper = rowMapper;
+
+        String keys = String.join(", ", this.keyColumns);
+        String params = this.keyColumns.stream().map(column -> "?").collect(Collectors.joining(", "));
+        String select = "SELECT * FROM (" + this.sql + ") beema_keyset ";
+        String order = " ORDER BY " + keys + " LIMIT ?";
+        this.firstPageSql = select + order;
+        this.nextPageSql = select + "WHERE (" + keys + ") > (" + params + ")" + order;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        // Restore before super.open so jumpToItem can skip re-reading
+        if (isSaveState() && executionContext.containsKey(getExecutionContextKey(LAST_KEY))) {
+            List<?> saved = (List<?>) executionContext.get(getExecutionContextKey(LAST_KEY));
+            lastKey = saved.toArray();
+        }
+        super.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        super.update(executionContext);
+        if (isSaveState() && lastKey != null) {
+            executionContext.put(getExecutionContextKey(LAST_KEY), new ArrayList<>(Arrays.asList(lastKey)));
+        }
+    }
+
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        if (lastKey == null) {
+            super.jumpToItem(itemIndex);
+        }
+    }
+
+    @Override
+    protected T doRead() {
+        if (page.isEmpty()) {
+            if (exhausted) {
+                return null;
+            }
+            readPage();
+            if (page.isEmpty()) {
+                return null;
+            }
+        }
+        Keyed<T> next = page.poll();
+        lastKey = next.key();
+        return next.item();
+    }
+
+    @Override
+    protected void doOpen() {
+        page.clear();
+        exhausted = false;
+    }
+
+    @Override
+    protected void doClose() {
+        page.clear();
+        lastKey = null;
+    }
+
+    private void readPage() {
+        Object[] pageArgs;
+        String pageSql;
+        if (lastKey == null) {
+            pageSql = firstPageSql;
+            pageArgs = Arrays.copyOf(args, args.length + 1);
+        } else {
+            pageSql = nextPageSql;
+            pageArgs = Arrays.copyOf(args, args.length + lastKey.length + 1);
+            System.arraycopy(lastKey, 0, pageArgs, args.length, lastKey.length);
+        }
+        pageArgs[pageArgs.length - 1] = pageSize;
+
+        List<Keyed<T>> rows = jdbcTemplate.query(pageSql, (rs, rowNum) -> {
+            Object[] key = new Object[keyColumns.size()];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = rs.getObject(keyColumns.get(i));
+            }
+            return new Keyed<>(rowMapper.mapRow(rs, rowNum), key);
+        }, pageArgs);
+
+        page.addAll(rows);
+        exhausted = rows.size() < pageSize;
+    }
+
+    private static String stripTrailingSemicolon(String sql) {
+        String trimmed = sql.trim();
+        return trimmed.endsWith(";") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+
+    private record Keyed<T>(T item, Object[] key) {
+    }
+}
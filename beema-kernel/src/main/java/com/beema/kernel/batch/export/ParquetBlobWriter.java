@@ -1,104 +1,468 @@
 package com.beema.kernel.batch.export;
 
+import com.beema.kernel.service.storage.BlobOutputStream;
 import com.beema.kernel.service.storage.BlobStorageService;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.Path;
 import org.apache.parquet.avro.AvroParquetWriter;
 import org.apache.parquet.hadoop.ParquetWriter;
-import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.item.Chunk;
-import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.io.ByteArrayInputStream;
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
- * Writes Avro GenericRecords to Parquet format and uploads to blob storage.
+ * Writes Avro GenericRecords to Parquet files in blob storage.
  *
- * Output path pattern: tenant={tenantId}/object=agreement/date={yyyy-MM-dd}/{uuid}.parquet
+ * Output path pattern: tenant={tenantId}/object=agreement/date={yyyy-MM-dd}/{writerId}-{sequence}.parquet
  *
- * Process:
- * 1. Write records to a local temp Parquet file (Parquet requires random access)
- * 2. Read the temp file into bytes
- * 3. Upload to BlobStorageService
- * 4. Clean up temp file
+ * The date is the export date the writer was created with, or the day the step starts. The
+ * paths of the files finished so far are kept in the step execution context under
+ * {@link #FILES}, for run manifests.
+ *
+ * One writer serves one export partition and keeps a Parquet file open across chunks for
+ * each record schema it sees, i.e. per agreement type and schema version. Each file is
+ * written straight into {@link BlobStorageService#openUploadStream}, which uploads it in
+ * parts while it is being written: nothing is spooled to local disk and heap use is bounded
+ * by the current row group plus the storage's in-flight parts. Once a chunk that takes a file
+ * past the profile's target file size has committed, all open files are finished together:
+ * their footers are written, their uploads are completed and the next records start new files.
+ * Finishing a file publishes it, so it never happens before the chunk commits: a rolled-back
+ * chunk whose retry would write its records again must not leave them in a visible file.
+ *
+ * Open files are finished when the step ends, before the step's execution context is saved.
+ * If a write fails or its chunk rolls back, the open files' uploads are aborted instead, so
+ * no blob is created, and later writes are refused: the step would not finish the files they
+ * opened. Records of earlier chunks in those files were already committed by the step, so a
+ * restart that carried on from the last commit would skip them.
+ *
+ * Each time no file is left open, every record read so far is in a published file. The
+ * reader's and processor's state of that commit is kept under {@link #RESUME_STATE}, and when
+ * a restarted step finds records of unfinished files, {@link #beforeStep} puts that state back
+ * before the streams are opened: the restart reads again from the end of the last published
+ * file. The step's own read and write counts are not rewound. Files finished after the last
+ * saved commit are only known to {@link #afterStep}; if the process dies first, they are left
+ * out of {@link #FILES} and their records are exported again.
+ *
+ * Row-group size, page size, compression, dictionary encoding, bloom filters and the target
+ * file size come from the dataset's {@link ParquetWriterProfile}.
  */
-public class ParquetBlobWriter implements ItemWriter<GenericRecord> {
+public class ParquetBlobWriter implements ItemStreamWriter<GenericRecord>, StepExecutionListener {
 
     private static final Logger log = LoggerFactory.getLogger(ParquetBlobWriter.class);
 
+    static final String FILES_WRITTEN = "parquet.files.written";
+    static final String RECORDS_WRITTEN = "parquet.records.written";
+    static final String OPEN_FILE_RECORDS = "parquet.open.file.records";
+    static final String FILES = "parquet.files";
+    static final String RESUME_STATE = "parquet.resume.state";
+
+    /** Spring Batch's own entries of the step execution context, which a rewind leaves alone. */
+    private static final String BATCH_KEY_PREFIX = "batch.";
+    private static final String WRITER_KEY_PREFIX = "parquet.";
+
     private final BlobStorageService blobStorageService;
     private final String tenantId;
-    private final Schema schema;
+    private final ParquetWriterProfile profile;
+    private final LocalDate exportDate;
+    private final Configuration conf = new Configuration();
+
+    private String writerId = UUID.randomUUID().toString();
+    private String date = LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE);
+    private final Map<Schema, OpenFile> openFiles = new LinkedHashMap<>();
+    private int fileSequence;
+    private boolean aborted;
+    private boolean completionRegistered;
+    private IOException finishFailure;
+    private int filesWritten;
+    private long recordsWritten;
+    private List<String> files = new ArrayList<>();
+    /** Reader and processor state of the last commit that left no file open. */
+    private HashMap<String, Object> resumeState = new HashMap<>();
+    /** Reader and processor state of the current chunk, until it commits. */
+    private HashMap<String, Object> chunkState;
+
+    public ParquetBlobWriter(BlobStorageService blobStorageService, String tenantId) {
+        this(blobStorageService, tenantId, ParquetWriterProfile.defaults());
+    }
+
+    public ParquetBlobWriter(BlobStorageService blobStorageService, String tenantId, ParquetWriterProfile profile) {
+        this(blobStorageService, tenantId, null, profile);
+    }
 
-    public ParquetBlobWriter(BlobStorageService blobStorageService, String tenantId, Schema schema) {
+    /**
+     * @param exportDate date partition of the output paths, or null for the day the step starts
+     */
+    public ParquetBlobWriter(BlobStorageService blobStorageService, String tenantId, LocalDate exportDate,
+                             ParquetWriterProfile profile) {
         this.blobStorageService = blobStorageService;
         this.tenantId = tenantId;
-        this.schema = schema;
+        this.exportDate = exportDate;
+        this.profile = profile;
+    }
+
+    /**
+     * Rewinds the reader and processor of a restarted step to the end of the last published
+     * file, if the previous execution left records in unfinished files. Listeners run before
+     * the step opens its streams, so they restore from the rewound state.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void beforeStep(StepExecution stepExecution) {
+        ExecutionContext executionContext = stepExecution.getExecutionContext();
+        long unfinished = executionContext.getLong(OPEN_FILE_RECORDS, 0L);
+        if (unfinished == 0 || !executionContext.containsKey(RESUME_STATE)) {
+            return;
+        }
+        Map<String, Object> state = (Map<String, Object>) executionContext.get(RESUME_STATE);
+        for (Map.Entry<String, Object> entry : List.copyOf(executionContext.entrySet())) {
+            if (isStreamState(entry.getKey())) {
+                executionContext.remove(entry.getKey());
+            }
+        }
+        state.forEach(executionContext::put);
+        // A deserialized count may come back as an Integer
+        executionContext.putLong(RECORDS_WRITTEN, ((Number) state.get(RECORDS_WRITTEN)).longValue());
+        executionContext.putLong(OPEN_FILE_RECORDS, 0L);
+        log.info("Resuming Parquet export for tenant {} after its last published file: {} committed records"
+                + " of unfinished files are read again", tenantId, unfinished);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void open(ExecutionContext executionContext) {
+        long unfinished = executionContext.getLong(OPEN_FILE_RECORDS, 0L);
+        if (unfinished > 0) {
+            // Not rewound by beforeStep: the writer is not a listener of the step, or the
+            // context predates the resume state
+            throw new ItemStreamException("Previous execution aborted unfinished Parquet files holding "
+                    + unfinished + " committed records; rerun the export with new job parameters");
+        }
+        // A writer bean may serve several executions; each gets its own file names
+        writerId = UUID.randomUUID().toString();
+        date = (exportDate != null ? exportDate : LocalDate.now()).format(DateTimeFormatter.ISO_LOCAL_DATE);
+        openFiles.clear();
+        fileSequence = 0;
+        aborted = false;
+        completionRegistered = false;
+        finishFailure = null;
+        filesWritten = executionContext.getInt(FILES_WRITTEN, 0);
+        recordsWritten = executionContext.getLong(RECORDS_WRITTEN, 0L);
+        files = executionContext.containsKey(FILES)
+                ? new ArrayList<>((List<String>) executionContext.get(FILES))
+                : new ArrayList<>();
+        // Nothing is open yet, so the state the streams were opened with is a resume point
+        resumeState = executionContext.containsKey(RESUME_STATE)
+                ? new HashMap<>((Map<String, Object>) executionContext.get(RESUME_STATE))
+                : streamState(executionContext);
+        chunkState = null;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        // The step updates its streams in order, so the reader's state of this chunk is in place
+        executionContext.putLong(RECORDS_WRITTEN, recordsWritten);
+        if (openFiles.isEmpty()) {
+            resumeState = streamState(executionContext);
+            chunkState = null;
+        } else {
+            chunkState = streamState(executionContext);
+        }
+        executionContext.putInt(FILES_WRITTEN, filesWritten);
+        executionContext.put(FILES, new ArrayList<>(files));
+        executionContext.put(RESUME_STATE, new HashMap<>(resumeState));
+        long unfinished = 0;
+        for (OpenFile file : openFiles.values()) {
+            unfinished += file.records;
+        }
+        executionContext.putLong(OPEN_FILE_RECORDS, unfinished);
     }
 
     @Override
     public void write(Chunk<? extends GenericRecord> chunk) throws Exception {
+        if (aborted) {
+            throw new ItemStreamException("Parquet export for tenant " + tenantId
+                    + " was aborted by an earlier failed chunk");
+        }
         if (chunk.isEmpty()) {
             return;
         }
 
-        File tempFile = File.createTempFile("parquet-export-", ".parquet");
         try {
-            writeParquetFile(tempFile, chunk);
-            String blobPath = buildBlobPath();
-            uploadToStorage(tempFile, blobPath);
-            log.info("Exported {} records to {}", chunk.size(), blobPath);
-        } finally {
-            if (tempFile.exists() && !tempFile.delete()) {
-                log.warn("Failed to delete temp file: {}", tempFile.getAbsolutePath());
+            for (GenericRecord record : chunk) {
+                OpenFile file = openFiles.get(record.getSchema());
+                if (file == null) {
+                    file = startFile(record.getSchema());
+                    openFiles.put(record.getSchema(), file);
+                }
+                file.writer.write(record);
+                file.records++;
             }
+        } catch (IOException | RuntimeException e) {
+            abortFiles();
+            throw e;
+        }
+        recordsWritten += chunk.size();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            afterChunkCompletion();
+        } else {
+            // Outside a transaction the chunk is as good as committed
+            finishFullFiles();
         }
     }
 
-    private void writeParquetFile(File outputFile, Chunk<? extends GenericRecord> chunk) throws IOException {
-        Configuration conf = new Configuration();
-        Path path = new Path(outputFile.getAbsolutePath());
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        // Files finished since the last chunk's update are published too; a failed run's
+        // orchestrator deletes them, a restart resumes after them
+        stepExecution.getExecutionContext().put(FILES, new ArrayList<>(files));
+        stepExecution.getExecutionContext().put(RESUME_STATE, new HashMap<>(resumeState));
+        if (finishFailure != null) {
+            return fail(stepExecution, finishFailure);
+        }
+        if (aborted) {
+            return null;
+        }
+        try {
+            finishFiles();
+            update(stepExecution.getExecutionContext());
+            return null;
+        } catch (IOException e) {
+            return fail(stepExecution, e);
+        }
+    }
 
-        // Delete the temp file so ParquetWriter can create it fresh
-        if (outputFile.exists() && !outputFile.delete()) {
-            throw new IOException("Cannot delete temp file for ParquetWriter: " + outputFile);
+    @Override
+    public void close() {
+        // Only reached with open files when used outside a step
+        if (!aborted) {
+            try {
+                finishFiles();
+            } catch (IOException e) {
+                throw new ItemStreamException("Failed to finish Parquet export for tenant " + tenantId, e);
+            }
         }
+    }
 
-        try (ParquetWriter<GenericRecord> writer = AvroParquetWriter.<GenericRecord>builder(path)
-                .withSchema(schema)
-                .withConf(conf)
-                .withCompressionCodec(CompressionCodecName.SNAPPY)
-                .withPageSize(1024 * 1024)       // 1MB page size
-                .withRowGroupSize(128L * 1024 * 1024) // 128MB row group
-                .build()) {
+    /**
+     * Finishes full files once the chunk transaction commits, or aborts the open files if it
+     * rolls back: the rolled-back records are already in them and cannot be taken out again.
+     */
+    private void afterChunkCompletion() {
+        if (completionRegistered) {
+            return;
+        }
+        completionRegistered = true;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                completionRegistered = false;
+                if (status != STATUS_COMMITTED) {
+                    chunkState = null;
+                    abortFiles();
+                    return;
+                }
+                try {
+                    finishFullFiles();
+                    if (openFiles.isEmpty() && chunkState != null) {
+                        resumeState = chunkState;
+                    }
+                    chunkState = null;
+                } catch (IOException e) {
+                    // The chunk is committed, so the failure can only surface in afterStep
+                    finishFailure = e;
+                }
+            }
+        });
+    }
 
-            for (GenericRecord record : chunk) {
-                writer.write(record);
+    private ExitStatus fail(StepExecution stepExecution, IOException e) {
+        log.error("Failed to finish Parquet export for tenant {}", tenantId, e);
+        stepExecution.addFailureException(e);
+        stepExecution.setStatus(BatchStatus.FAILED);
+        return ExitStatus.FAILED.addExitDescription(e);
+    }
+
+    /**
+     * Finishes all open files once one of them reaches the target size, so that the export
+     * regularly reaches a point with no file open for a restart to resume from.
+     */
+    private void finishFullFiles() throws IOException {
+        long targetFileSize = profile.getTargetFileSize().toBytes();
+        for (OpenFile file : openFiles.values()) {
+            if (file.writer.getDataSize() >= targetFileSize) {
+                finishFiles();
+                return;
             }
         }
     }
 
-    private String buildBlobPath() {
-        String date = LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE);
-        String fileId = UUID.randomUUID().toString();
-        return String.format("tenant=%s/object=agreement/date=%s/%s.parquet",
-                tenantId, date, fileId);
+    /**
+     * The reader's and processor's entries of the step execution context, with the records
+     * written up to them.
+     */
+    private HashMap<String, Object> streamState(ExecutionContext executionContext) {
+        HashMap<String, Object> state = new HashMap<>();
+        for (Map.Entry<String, Object> entry : executionContext.entrySet()) {
+            if (isStreamState(entry.getKey())) {
+                state.put(entry.getKey(), entry.getValue());
+            }
+        }
+        state.put(RECORDS_WRITTEN, recordsWritten);
+        return state;
+    }
+
+    private static boolean isStreamState(String key) {
+        return !key.startsWith(WRITER_KEY_PREFIX) && !key.startsWith(BATCH_KEY_PREFIX);
+    }
+
+    private OpenFile startFile(Schema schema) throws IOException {
+        String blobPath = String.format("tenant=%s/object=agreement/date=%s/%s-%05d.parquet",
+                tenantId, date, writerId, fileSequence++);
+        BlobOutputStream out = blobStorageService.openUploadStream(blobPath);
+        try {
+            ParquetWriter<GenericRecord> writer = profile.applyTo(
+                            AvroParquetWriter.<GenericRecord>builder(new StreamOutputFile(out, blobPath))
+                                    .withSchema(schema)
+                                    .withConf(conf))
+                    .build();
+            return new OpenFile(blobPath, out, writer);
+        } catch (IOException | RuntimeException e) {
+            out.abort();
+            throw e;
+        }
+    }
+
+    private void finishFiles() throws IOException {
+        for (OpenFile file : List.copyOf(openFiles.values())) {
+            finishFile(file);
+        }
+    }
+
+    private void finishFile(OpenFile file) throws IOException {
+        openFiles.values().remove(file);
+        try {
+            // Writes the footer and closes the stream, completing the upload
+            file.writer.close();
+        } catch (IOException | RuntimeException e) {
+            file.out.abort();
+            abortFiles();
+            throw e;
+        }
+        filesWritten++;
+        files.add(file.blobPath);
+        log.info("Exported {} records to {}", file.records, file.blobPath);
+    }
+
+    private void abortFiles() {
+        aborted = true;
+        for (OpenFile file : openFiles.values()) {
+            file.out.abort();
+            log.warn("Aborted Parquet export to {} after {} records", file.blobPath, file.records);
+        }
+        openFiles.clear();
+    }
+
+    private static final class OpenFile {
+        private final String blobPath;
+        private final BlobOutputStream out;
+        private final ParquetWriter<GenericRecord> writer;
+        private long records;
+
+        private OpenFile(String blobPath, BlobOutputStream out, ParquetWriter<GenericRecord> writer) {
+            this.blobPath = blobPath;
+            this.out = out;
+            this.writer = writer;
+        }
     }
 
-    private void uploadToStorage(File file, String blobPath) throws IOException {
-        byte[] bytes = Files.readAllBytes(file.toPath());
-        try (ByteArrayInputStream stream = new ByteArrayInputStream(bytes)) {
-            blobStorageService.upload(blobPath, stream);
+    /**
+     * Parquet output over a plain stream, tracking the position Parquet records in its footer.
+     */
+    private static final class StreamOutputFile implements OutputFile {
+        private final OutputStream out;
+        private final String path;
+
+        private StreamOutputFile(OutputStream out, String path) {
+            this.out = out;
+            this.path = path;
+        }
+
+        @Override
+        public PositionOutputStream create(long blockSizeHint) {
+            return new PositionOutputStream() {
+                private long position;
+
+                @Override
+                public long getPos() {
+                    return position;
+                }
+
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    position++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    position += len;
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    out.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    out.close();
+                }
+            };
+        }
+
+        @Override
+        public PositionOutputStream createOrOverwrite(long blockSizeHint) {
+            return create(blockSizeHint);
+        }
+
+        @Override
+        public boolean supportsBlockSize() {
+            return false;
+        }
+
+        @Override
+        public long defaultBlockSize() {
+            return 0;
+        }
+
+        @Override
+        public String getPath() {
+            return path;
         }
     }
 }
@@ -0,0 +1,472 @@
+package com.beema.kernel.batch.export;
+
+import com.beema.kernel.batch.export.ExportRunManifest.ExportMode;
+import com.beema.kernel.batch.export.ExportRunManifest.Partition;
+import com.beema.kernel.batch.export.ExportRunManifest.PartitionStatus;
+import com.beema.kernel.config.ParquetExportProperties;
+import com.beema.kernel.config.multitenant.TenantDatasourceMappingService;
+import com.beema.kernel.config.multitenant.TenantRoutingDataSource;
+import com.beema.kernel.service.storage.BlobStorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs Parquet exports as independent (tenant, agreement type, date) partitions in parallel.
+ *
+ * A run is planned by finding the tenants and agreement types with current agreements in
+ * every tenant database, and recorded in an {@link ExportRunManifest} at
+ * {@code manifests/object=agreement/run=<runId>.json}. Each partition is one execution of the
+ * universalParquetExport job. At most {@code maxConcurrentPartitions} run at once, and at most
+ * {@code maxConcurrentPartitionsPerDatasource} against the same tenant database, so one large
+ * tenant database cannot take all the slots or exhaust its connection pool. A partition
+ * failure does not stop the others; the manifest is rewritten as each partition finishes and
+ * {@link #retryFailed} re-runs only the partitions that did not complete. Files a failed
+ * attempt had already finished are recorded as orphaned and deleted, at the latest before
+ * the partition runs again, so a retry never leaves two copies of the same records.
+ *
+ * Runs are full snapshots of the current agreements unless planned as incremental. Then each
+ * partition exports only the versions recorded since its (tenant, type) watermark in
+ * {@link ExportWatermarkStore}, up to the run's cutoff, and becomes a snapshot again when it
+ * has no watermark, its last snapshot is older than {@code snapshotInterval}, or compaction
+ * is requested. The watermark advances to the cutoff when a partition completes.
+ *
+ * Partitions are launched with the application's synchronous JobLauncher from this class's
+ * own worker threads.
+ */
+@Service
+public class ParquetExportOrchestrator {
+
+    private static final Logger log = LoggerFactory.getLogger(ParquetExportOrchestrator.class);
+
+    static final String MANIFEST_PATH = "manifests/object=agreement/run=%s.json";
+
+    private static final String PARTITIONS_SQL =
+            "SELECT DISTINCT tenant_id, agreement_type_code FROM agreements WHERE is_current = true";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final ExecutorService RUNS = Executors.newCachedThreadPool(daemonThreads("parquet-export-run"));
+
+    private final JobLauncher jobLauncher;
+    private final Job universalParquetExportJob;
+    private final DataSource dataSource;
+    private final TenantDatasourceMappingService mappingService;
+    private final BlobStorageService blobStorageService;
+    private final ParquetExportProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ExportWatermarkStore watermarkStore;
+    private final Set<String> activeRuns = ConcurrentHashMap.newKeySet();
+
+    public ParquetExportOrchestrator(
+            JobLauncher jobLauncher,
+            Job universalParquetExportJob,
+            DataSource dataSource,
+            TenantDatasourceMappingService mappingService,
+            BlobStorageService blobStorageService,
+            ParquetExportProperties properties,
+            ObjectMapper objectMapper,
+            ExportWatermarkStore watermarkStore) {
+        this.jobLauncher = jobLauncher;
+        this.universalParquetExportJob = universalParquetExportJob;
+        this.dataSource = dataSource;
+        this.mappingService = mappingService;
+        this.blobStorageService = blobStorageService;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.watermarkStore = watermarkStore;
+    }
+
+    /**
+     * Plan a full snapshot run and store its manifest with every partition pending.
+     *
+     * @param tenantIds  tenants to export, or empty for every tenant with current agreements
+     * @param exportDate date partition of the output, or null for today
+     */
+    public ExportRunManifest plan(Collection<String> tenantIds, LocalDate exportDate) throws IOException {
+        return plan(tenantIds, exportDate, false, false);
+    }
+
+    /**
+     * Plan a run and store its manifest with every partition pending.
+     *
+     * @param tenantIds   tenants to export, or empty for every tenant with current agreements
+     * @param exportDate  date partition of the output, or null for today
+     * @param incremental export the changes since each partition's watermark where possible
+     * @param compact     export every partition as a full snapshot, resetting the snapshot interval
+     */
+    public ExportRunManifest plan(Collection<String> tenantIds, LocalDate exportDate,
+                                  boolean incremental, boolean compact) throws IOException {
+        ExportRunManifest manifest = new ExportRunManifest(UUID.randomUUID().toString(),
+                exportDate != null ? exportDate : LocalDate.now());
+        OffsetDateTime changedUpTo = OffsetDateTime.now(ZoneOffset.UTC).minus(properties.getWatermarkLag());
+        manifest.setChangedUpTo(changedUpTo);
+
+        for (Map.Entry<String, DataSource> source : tenantDataSources().entrySet()) {
+            List<Map<String, Object>> rows = new JdbcTemplate(source.getValue()).queryForList(PARTITIONS_SQL);
+            for (Map<String, Object> row : rows) {
+                String tenantId = (String) row.get("tenant_id");
+                String agreementType = (String) row.get("agreement_type_code");
+                if (tenantIds != null && !tenantIds.isEmpty() && !tenantIds.contains(tenantId)) {
+                    continue;
+                }
+                if (dataSource instanceof TenantRoutingDataSource
+                        && !source.getKey().equals(mappingService.resolveDatasource(tenantId))) {
+                    // Left behind by a tenant migration; the tenant is served from elsewhere
+                    log.debug("Skipping tenant {} in datasource {}, it is routed to {}",
+                            tenantId, source.getKey(), mappingService.resolveDatasource(tenantId));
+                    continue;
+                }
+                Partition partition = new Partition(tenantId, agreementType, source.getKey());
+                partition.setChangedUpTo(changedUpTo);
+                if (incremental && !compact) {
+                    planIncrement(partition);
+                }
+                manifest.getPartitions().add(partition);
+            }
+        }
+        manifest.getPartitions().sort(Comparator.comparing(Partition::getTenantId)
+                .thenComparing(Partition::getAgreementType));
+
+        writeManifest(manifest);
+        log.info("Planned Parquet export run {} for {} with {} partitions ({} incremental), changes up to {}",
+                manifest.getRunId(), manifest.getExportDate(), manifest.getPartitions().size(),
+                manifest.getPartitions().stream().filter(p -> p.getMode() == ExportMode.INCREMENTAL).count(),
+                changedUpTo);
+        return manifest;
+    }
+
+    private void planIncrement(Partition partition) {
+        Optional<ExportWatermarkStore.Watermark> watermark =
+                watermarkStore.find(partition.getTenantId(), partition.getAgreementType());
+        OffsetDateTime snapshotDue = partition.getChangedUpTo().minus(properties.getSnapshotInterval());
+        if (watermark.isEmpty() || watermark.get().getChangedUpTo() == null
+                || watermark.get().getLastSnapshotAt() == null
+                || watermark.get().getLastSnapshotAt().isBefore(snapshotDue)) {
+            log.info("Exporting {} as a snapshot: no watermark or last snapshot before {}", partition, snapshotDue);
+            return;
+        }
+        partition.setMode(ExportMode.INCREMENTAL);
+        partition.setChangedAfter(watermark.get().getChangedUpTo());
+    }
+
+    /**
+     * Run the partitions of a run that have not completed, and return the updated manifest.
+     *
+     * @throws IllegalStateException if the run is already executing
+     */
+    public ExportRunManifest execute(ExportRunManifest manifest) throws IOException {
+        register(manifest);
+        try {
+            return runPartitions(manifest);
+        } finally {
+            activeRuns.remove(manifest.getRunId());
+        }
+    }
+
+    /**
+     * Like {@link #execute}, in the background.
+     *
+     * @throws IllegalStateException if the run is already executing
+     */
+    public CompletableFuture<ExportRunManifest> executeAsync(ExportRunManifest manifest) {
+        register(manifest);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return runPartitions(manifest);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                activeRuns.remove(manifest.getRunId());
+            }
+        }, RUNS);
+    }
+
+    /**
+     * Re-run the partitions of a stored run that failed or never finished.
+     */
+    public ExportRunManifest retryFailed(String runId) throws IOException {
+        return execute(loadManifest(runId));
+    }
+
+    public ExportRunManifest loadManifest(String runId) throws IOException {
+        try (InputStream in = blobStorageService.download(manifestPath(runId))) {
+            return objectMapper.readValue(in, ExportRunManifest.class);
+        }
+    }
+
+    public static String manifestPath(String runId) {
+        return String.format(MANIFEST_PATH, runId);
+    }
+
+    private void register(ExportRunManifest manifest) {
+        if (!activeRuns.add(manifest.getRunId())) {
+            throw new IllegalStateException("Export run " + manifest.getRunId() + " is already running");
+        }
+    }
+
+    private ExportRunManifest runPartitions(ExportRunManifest manifest) throws IOException {
+        Deque<Partition> pending = new ArrayDeque<>();
+        for (Partition partition : manifest.getPartitions()) {
+            if (partition.getStatus() == PartitionStatus.COMPLETED) {
+                continue;
+            }
+            if (deleteOrphanedFiles(partition)) {
+                pending.add(partition);
+            } else {
+                partition.setStatus(PartitionStatus.FAILED);
+                partition.setError("Files of an earlier attempt could not be deleted: " + partition.getOrphanedFiles());
+            }
+        }
+        if (pending.isEmpty()) {
+            writeManifest(manifest);
+            log.info("Parquet export run {} has no partitions left to run", manifest.getRunId());
+            return manifest;
+        }
+
+        int maxConcurrent = Math.max(1, properties.getMaxConcurrentPartitions());
+        int maxPerDatasource = Math.max(1, properties.getMaxConcurrentPartitionsPerDatasource());
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(maxConcurrent, pending.size()),
+                daemonThreads("parquet-export-" + manifest.getRunId().substring(0, 8)));
+        CompletionService<PartitionResult> completion = new ExecutorCompletionService<>(workers);
+        Map<String, Integer> runningPerDatasource = new HashMap<>();
+        int running = 0;
+
+        log.info("Running {} partitions of Parquet export run {} ({} at a time, {} per datasource)",
+                pending.size(), manifest.getRunId(), maxConcurrent, maxPerDatasource);
+        try {
+            while (!pending.isEmpty() || running > 0) {
+                // Start every pending partition the global and per-datasource limits allow
+                for (Iterator<Partition> it = pending.iterator(); it.hasNext() && running < maxConcurrent; ) {
+                    Partition partition = it.next();
+                    if (runningPerDatasource.getOrDefault(partition.getDatasource(), 0) >= maxPerDatasource) {
+                        continue;
+                    }
+                    it.remove();
+                    runningPerDatasource.merge(partition.getDatasource(), 1, Integer::sum);
+                    running++;
+                    partition.setStatus(PartitionStatus.RUNNING);
+                    partition.setAttempts(partition.getAttempts() + 1);
+                    partition.setStartedAt(Instant.now());
+                    partition.setFinishedAt(null);
+                    JobParameters parameters = jobParameters(manifest, partition);
+                    completion.submit(() -> launch(partition, parameters));
+                }
+
+                PartitionResult result = completion.take().get();
+                runningPerDatasource.merge(result.partition().getDatasource(), -1, Integer::sum);
+                running--;
+                record(manifest, result);
+                try {
+                    writeManifest(manifest);
+                } catch (IOException e) {
+                    log.warn("Failed to update manifest of Parquet export run {}: {}",
+                            manifest.getRunId(), e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while running Parquet export run " + manifest.getRunId());
+        } catch (ExecutionException e) {
+            // launch() reports failures in its result, so this is a bug
+            throw new IllegalStateException("Parquet export partition failed unexpectedly", e.getCause());
+        } finally {
+            workers.shutdown();
+        }
+
+        writeManifest(manifest);
+        long failed = manifest.getPartitions().stream()
+                .filter(partition -> partition.getStatus() != PartitionStatus.COMPLETED)
+                .count();
+        if (failed > 0) {
+            log.warn("Parquet export run {} finished with {} of {} partitions failed",
+                    manifest.getRunId(), failed, manifest.getPartitions().size());
+        } else {
+            log.info("Parquet export run {} completed all {} partitions",
+                    manifest.getRunId(), manifest.getPartitions().size());
+        }
+        return manifest;
+    }
+
+    private static JobParameters jobParameters(ExportRunManifest manifest, Partition partition) {
+        // Each attempt is a new job instance; a failed attempt's execution is not restarted
+        JobParametersBuilder parameters = new JobParametersBuilder()
+                .addString("tenantId", partition.getTenantId())
+                .addString("agreementType", partition.getAgreementType())
+                .addString("exportDate", manifest.getExportDate().toString())
+                .addString("runId", manifest.getRunId())
+                .addLong("attempt", (long) partition.getAttempts());
+        if (partition.getMode() == ExportMode.INCREMENTAL) {
+            // A retry reads the same window as the first attempt
+            parameters.addString("changedAfter", partition.getChangedAfter().toString())
+                    .addString("changedUpTo", partition.getChangedUpTo().toString());
+        }
+        return parameters.toJobParameters();
+    }
+
+    private PartitionResult launch(Partition partition, JobParameters parameters) {
+        try {
+            return new PartitionResult(partition, jobLauncher.run(universalParquetExportJob, parameters), null);
+        } catch (Exception e) {
+            return new PartitionResult(partition, null, e);
+        }
+    }
+
+    private void record(ExportRunManifest manifest, PartitionResult result) {
+        Partition partition = result.partition();
+        partition.setFinishedAt(Instant.now());
+        partition.setRecordsWritten(0);
+        partition.setFiles(new ArrayList<>());
+        partition.setError(null);
+
+        JobExecution execution = result.execution();
+        if (execution == null) {
+            partition.setStatus(PartitionStatus.FAILED);
+            partition.setError(truncate(String.valueOf(result.error())));
+            log.error("Failed to launch Parquet export of {}", partition, result.error());
+            return;
+        }
+        partition.setJobExecutionId(execution.getId());
+        if (execution.getStatus() != BatchStatus.COMPLETED) {
+            partition.setStatus(PartitionStatus.FAILED);
+            partition.setError(truncate(execution.getExitStatus().getExitCode() + ": "
+                    + execution.getExitStatus().getExitDescription()));
+            log.warn("Parquet export of {} ended {} (job execution {})",
+                    partition, execution.getStatus(), execution.getId());
+            // Finished files of the failed attempt hold records the retry writes again
+            for (String file : finishedFiles(execution)) {
+                if (!partition.getOrphanedFiles().contains(file)) {
+                    partition.getOrphanedFiles().add(file);
+                }
+            }
+            deleteOrphanedFiles(partition);
+            return;
+        }
+
+        for (StepExecution step : execution.getStepExecutions()) {
+            partition.setRecordsWritten(partition.getRecordsWritten()
+                    + step.getExecutionContext().getLong(ParquetBlobWriter.RECORDS_WRITTEN, 0L));
+        }
+        partition.getFiles().addAll(finishedFiles(execution));
+        partition.setStatus(PartitionStatus.COMPLETED);
+        log.info("Exported {} records of {} ({}) to {} files", partition.getRecordsWritten(), partition,
+                partition.getMode(), partition.getFiles().size());
+
+        if (partition.getChangedUpTo() != null) {
+            try {
+                watermarkStore.advance(partition.getTenantId(), partition.getAgreementType(),
+                        partition.getChangedUpTo(), partition.getMode() == ExportMode.SNAPSHOT, manifest.getRunId());
+            } catch (IOException e) {
+                // The next incremental run exports this window again, which consumers' merge absorbs
+                log.warn("Failed to advance export watermark of {}: {}", partition, e.getMessage());
+            }
+        }
+    }
+
+    private static List<String> finishedFiles(JobExecution execution) {
+        List<String> finished = new ArrayList<>();
+        for (StepExecution step : execution.getStepExecutions()) {
+            if (step.getExecutionContext().get(ParquetBlobWriter.FILES) instanceof List<?> files) {
+                files.forEach(file -> finished.add(String.valueOf(file)));
+            }
+        }
+        return finished;
+    }
+
+    /**
+     * Deletes the partition's orphaned files, keeping those that could not be deleted listed.
+     *
+     * @return true if none are left
+     */
+    private boolean deleteOrphanedFiles(Partition partition) {
+        for (Iterator<String> it = partition.getOrphanedFiles().iterator(); it.hasNext(); ) {
+            String file = it.next();
+            try {
+                blobStorageService.delete(file);
+                it.remove();
+                log.info("Deleted {} left by a failed export attempt of {}", file, partition);
+            } catch (IOException e) {
+                log.warn("Failed to delete {} left by a failed export attempt of {}: {}",
+                        file, partition, e.getMessage());
+            }
+        }
+        return partition.getOrphanedFiles().isEmpty();
+    }
+
+    private void writeManifest(ExportRunManifest manifest) throws IOException {
+        manifest.setUpdatedAt(Instant.now());
+        blobStorageService.upload(manifestPath(manifest.getRunId()),
+                new ByteArrayInputStream(objectMapper.writeValueAsBytes(manifest)));
+    }
+
+    /**
+     * Tenant databases by datasource key, or the single database when routing is disabled.
+     */
+    private Map<String, DataSource> tenantDataSources() {
+        Map<String, DataSource> sources = new LinkedHashMap<>();
+        if (dataSource instanceof TenantRoutingDataSource routing) {
+            routing.getResolvedDataSources().forEach((key, target) -> sources.put(String.valueOf(key), target));
+        } else {
+            sources.put(mappingService.getDefaultDatasource(), dataSource);
+        }
+        return sources;
+    }
+
+    private static String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record PartitionResult(Partition partition, JobExecution execution, Exception error) {
+    }
+}
@@ -0,0 +1,149 @@
+package com.beema.kernel.batch.export;
+
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parquet writer tuning for one export dataset.
+ *
+ * Bound from {@code beema.export.parquet.profiles.<dataset>}. Column-level settings use
+ * Parquet column paths (the Avro field names, e.g. {@code agreement_number}). The streaming
+ * job's {@code com.beema.streaming.sink.ParquetWriterProfile} takes the same parameters.
+ *
+ * High-cardinality identifiers gain nothing from dictionary encoding (the dictionary
+ * overflows and Parquet falls back to plain encoding after wasting a page), but benefit
+ * from bloom filters, which let readers skip row groups on point lookups.
+ *
+ * The target file size is where ParquetBlobWriter rolls to a new file; it is checked after
+ * each chunk, so files overshoot it by up to one chunk.
+ */
+public class ParquetWriterProfile {
+
+    private CompressionCodecName compressionCodec = CompressionCodecName.SNAPPY;
+    private DataSize rowGroupSize = DataSize.ofMegabytes(128);
+    private DataSize pageSize = DataSize.ofMegabytes(1);
+    private DataSize dictionaryPageSize = DataSize.ofMegabytes(1);
+    private boolean dictionaryEncoding = true;
+    private List<String> dictionaryDisabledColumns = new ArrayList<>();
+    private List<String> bloomFilterColumns = new ArrayList<>();
+    private long bloomFilterExpectedNdv = 0;
+    private DataSize targetFileSize = DataSize.ofMegabytes(512);
+
+    /**
+     * Profile matching the writer settings used before profiles were introduced.
+     */
+    public static ParquetWriterProfile defaults() {
+        return new ParquetWriterProfile();
+    }
+
+    /**
+     * Apply this profile to a Parquet writer builder.
+     */
+    public <T, B extends ParquetWriter.Builder<T, B>> B applyTo(B builder) {
+        builder.withCompressionCodec(compressionCodec)
+                .withRowGroupSize(rowGroupSize.toBytes())
+                .withPageSize(Math.toIntExact(pageSize.toBytes()))
+                .withDictionaryPageSize(Math.toIntExact(dictionaryPageSize.toBytes()))
+                .withDictionaryEncoding(dictionaryEncoding);
+
+        for (String column : dictionaryDisabledColumns) {
+            builder.withDictionaryEncoding(column, false);
+        }
+        for (String column : bloomFilterColumns) {
+            builder.withBloomFilterEnabled(column, true);
+            if (bloomFilterExpectedNdv > 0) {
+                builder.withBloomFilterNDV(column, bloomFilterExpectedNdv);
+            }
+        }
+        return builder;
+    }
+
+    public CompressionCodecName getCompressionCodec() {
+        return compressionCodec;
+    }
+
+    public void setCompressionCodec(CompressionCodecName compressionCodec) {
+        this.compressionCodec = compressionCodec;
+    }
+
+    public DataSize getRowGroupSize() {
+        return rowGroupSize;
+    }
+
+    public void setRowGroupSize(DataSize rowGroupSize) {
+        this.rowGroupSize = rowGroupSize;
+    }
+
+    public DataSize getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(DataSize pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public DataSize getDictionaryPageSize() {
+        return dictionaryPageSize;
+    }
+
+    public void setDictionaryPageSize(DataSize dictionaryPageSize) {
+        this.dictionaryPageSize = dictionaryPageSize;
+    }
+
+    public boolean isDictionaryEncoding() {
+        return dictionaryEncoding;
+    }
+
+    public void setDictionaryEncoding(boolean dictionaryEncoding) {
+        this.dictionaryEncoding = dictionaryEncoding;
+    }
+
+    public List<String> getDictionaryDisabledColumns() {
+        return dictionaryDisabledColumns;
+    }
+
+    public void setDictionaryDisabledColumns(List<String> dictionaryDisabledColumns) {
+        this.dictionaryDisabledColumns = dictionaryDisabledColumns;
+    }
+
+    public List<String> getBloomFilterColumns() {
+        return bloomFilterColumns;
+    }
+
+    public void setBloomFilterColumns(List<String> bloomFilterColumns) {
+        this.bloomFilterColumns = bloomFilterColumns;
+    }
+
+    public long getBloomFilterExpectedNdv() {
+        return bloomFilterExpectedNdv;
+    }
+
+    public void setBloomFilterExpectedNdv(long bloomFilterExpectedNdv) {
+        this.bloomFilterExpectedNdv = bloomFilterExpectedNdv;
+    }
+
+    public DataSize getTargetFileSize() {
+        return targetFileSize;
+    }
+
+    public void setTargetFileSize(DataSize targetFileSize) {
+        this.targetFileSize = targetFileSize;
+    }
+
+    @Override
+    public String toString() {
+        return "ParquetWriterProfile{" +
+                "compressionCodec=" + compressionCodec +
+                ", rowGroupSize=" + rowGroupSize +
+                ", pageSize=" + pageSize +
+                ", dictionaryEncoding=" + dictionaryEncoding +
+                ", dictionaryDisabledColumns=" + dictionaryDisabledColumns +
+                ", bloomFilterColumns=" + bloomFilterColumns +
+                ", targetFileSize=" + targetFileSize +
+                '}';
+    }
+}
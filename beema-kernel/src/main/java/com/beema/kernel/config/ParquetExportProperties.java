@@ -0,0 +1,84 @@
+package com.beema.kernel.config;
+
+import com.beema.kernel.batch.export.ParquetWriterProfile;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parquet writer profiles per export dataset (prefix: beema.export.parquet).
+ *
+ * Datasets without an explicit profile use {@link ParquetWriterProfile#defaults()}.
+ *
+ * Orchestrated runs execute at most {@code maxConcurrentPartitions} export partitions at
+ * once, and at most {@code maxConcurrentPartitionsPerDatasource} against any one tenant
+ * database so a run cannot drain a single pool.
+ *
+ * Incremental runs export the versions recorded up to {@code watermarkLag} before the run
+ * starts, leaving time for transactions still in flight to commit, and fall back to a full
+ * snapshot once the last one is older than {@code snapshotInterval}. A version's
+ * transaction_time is stamped before its writing transaction commits, and the version only
+ * becomes visible at commit, so {@code watermarkLag} must exceed the longest writer transaction
+ * on agreements: a version committed after a run's cutoff but stamped before it is never
+ * exported incrementally.
+ */
+@Component
+@ConfigurationProperties(prefix = "beema.export.parquet")
+public class ParquetExportProperties {
+
+    public static final String AGREEMENT_DATASET = "agreement";
+
+    private Map<String, ParquetWriterProfile> profiles = new HashMap<>();
+    private int maxConcurrentPartitions = 8;
+    private int maxConcurrentPartitionsPerDatasource = 4;
+    private Duration watermarkLag = Duration.ofMinutes(5);
+    private Duration snapshotInterval = Duration.ofDays(7);
+
+    public ParquetWriterProfile profileFor(String dataset) {
+        ParquetWriterProfile profile = profiles.get(dataset);
+        return profile != null ? profile : ParquetWriterProfile.defaults();
+    }
+
+    public Map<String, ParquetWriterProfile> getProfiles() {
+        return profiles;
+    }
+
+    public void setProfiles(Map<String, ParquetWriterProfile> profiles) {
+        this.profiles = profiles;
+    }
+
+    public int getMaxConcurrentPartitions() {
+        return maxConcurrentPartitions;
+    }
+
+    public void setMaxConcurrentPartitions(int maxConcurrentPartitions) {
+        this.maxConcurrentPartitions = maxConcurrentPartitions;
+    }
+
+    public int getMaxConcurrentPartitionsPerDatasource() {
+        return maxConcurrentPartitionsPerDatasource;
+    }
+
+    public void setMaxConcurrentPartitionsPerDatasource(int maxConcurrentPartitionsPerDatasource) {
+        this.maxConcurrentPartitionsPerDatasource = maxConcurrentPartitionsPerDatasource;
+    }
+
+    public Duration getWatermarkLag() {
+        return watermarkLag;
+    }
+
+    public void setWatermarkLag(Duration watermarkLag) {
+        this.watermarkLag = watermarkLag;
+    }
+
+    public Duration getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    public void setSnapshotInterval(Duration snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+}
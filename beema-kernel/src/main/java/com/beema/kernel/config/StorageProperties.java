@@ -2,6 +2,7 @@ package com.beema.kernel.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
 @Component
 @ConfigurationProperties(prefix = "beema.storage")
@@ -11,6 +12,7 @@ public class StorageProperties {
     private S3Properties s3 = new S3Properties();
     private AzureProperties azure = new AzureProperties();
     private FileSystemProperties filesystem = new FileSystemProperties();
+    private MultipartProperties multipart = new MultipartProperties();
 
     public String getType() {
         return type;
@@ -44,6 +46,14 @@ public class StorageProperties {
         this.filesystem = filesystem;
     }
 
+    public MultipartProperties getMultipart() {
+        return multipart;
+    }
+
+    public void setMultipart(MultipartProperties multipart) {
+        this.multipart = multipart;
+    }
+
     public static class S3Properties {
         private String bucket;
         private String region = "us-east-1";
@@ -106,4 +116,29 @@ public class StorageProperties {
             this.basePath = basePath;
         }
     }
+
+    /**
+     * Streaming uploads to S3 (multipart) and Azure (blocks). S3 requires parts of at
+     * least 5MB except the last; each upload stream buffers up to concurrency + 1 parts.
+     */
+    public static class MultipartProperties {
+        private DataSize partSize = DataSize.ofMegabytes(8);
+        private int concurrency = 4;
+
+        public DataSize getPartSize() {
+            return partSize;
+        }
+
+        public void setPartSize(DataSize partSize) {
+            this.partSize = partSize;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+    }
 }
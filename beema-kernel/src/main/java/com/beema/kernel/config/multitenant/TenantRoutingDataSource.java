@@ -5,6 +5,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
 
+import javax.sql.DataSource;
+
 /**
  * Routing DataSource that selects the target database based on the
  * current tenant context.
@@ -37,4 +39,16 @@ public class TenantRoutingDataSource extends AbstractRoutingDataSource {
         log.trace("Routing tenant '{}' → datasource '{}'", tenantId, datasourceKey);
         return datasourceKey;
     }
+
+    /**
+     * The DataSource a tenant is routed to, regardless of the current thread's tenant context.
+     * Lets background jobs that work on several tenants read each tenant's database directly.
+     *
+     * @param tenantId the tenant identifier
+     * @return the tenant's DataSource, or the default DataSource if its key is not configured
+     */
+    public DataSource dataSourceFor(String tenantId) {
+        DataSource target = getResolvedDataSources().get(mappingService.resolveDatasource(tenantId));
+        return target != null ? target : getResolvedDefaultDataSource();
+    }
 }
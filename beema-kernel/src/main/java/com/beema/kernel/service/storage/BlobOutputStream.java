@@ -0,0 +1,18 @@
+package com.beema.kernel.service.storage;
+
+import java.io.OutputStream;
+
+/**
+ * Upload stream returned by {@link BlobStorageService#openUploadStream}.
+ *
+ * {@link #close()} completes the upload and throws if it fails. {@link #abort()} discards
+ * everything written so far without creating or replacing the blob; closing an aborted
+ * stream does nothing.
+ */
+public abstract class BlobOutputStream extends OutputStream {
+
+    /**
+     * Discard the upload. Never throws; cleanup failures are logged.
+     */
+    public abstract void abort();
+}
@@ -8,9 +8,13 @@ import java.time.Duration;
  * Abstraction for blob/object storage operations.
  *
  * Implementations:
- * - S3 (AWS)
- * - Azure Blob Storage
+ * - S3 (AWS), multipart upload
+ * - Azure Blob Storage, block upload
  * - Local filesystem (default, for dev/testing)
+ *
+ * Uploads stream: the cloud implementations send fixed-size parts in parallel as they fill
+ * (beema.storage.multipart), so heap use depends on the part size and concurrency, not on
+ * the blob size.
  */
 public interface BlobStorageService {
 
@@ -21,7 +25,28 @@ public interface BlobStorageService {
      * @param stream the data to upload
      * @throws IOException if the upload fails
      */
-    void upload(String path, InputStream stream) throws IOException;
+    default void upload(String path, InputStream stream) throws IOException {
+        BlobOutputStream out = openUploadStream(path);
+        try {
+            stream.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            out.abort();
+            throw e;
+        }
+        out.close();
+    }
+
+    /**
+     * Open a stream that uploads everything written to it to the given path.
+     *
+     * The blob is created, or replaced, only when the stream is closed successfully;
+     * {@link BlobOutputStream#abort()} discards what was written.
+     *
+     * @param path the storage path/key
+     * @return the upload stream
+     * @throws IOException if the upload cannot be started
+     */
+    BlobOutputStream openUploadStream(String path) throws IOException;
 
     /**
      * Download a blob from the given path.
@@ -32,6 +57,35 @@ public interface BlobStorageService {
      */
     InputStream download(String path) throws IOException;
 
+    /**
+     * Download a byte range of a blob, e.g. a Parquet footer.
+     *
+     * @param path   the storage path/key
+     * @param offset first byte to read
+     * @param length maximum number of bytes to read, at least one; fewer are returned past the end of the blob
+     * @return an InputStream of the requested range
+     * @throws IOException if the download fails
+     * @throws IllegalArgumentException if the offset is negative or the length is not positive
+     */
+    InputStream download(String path, long offset, long length) throws IOException;
+
+    /**
+     * Validates a range for {@link #download(String, long, long)}.
+     */
+    static void checkRange(long offset, long length) {
+        if (offset < 0 || length <= 0) {
+            throw new IllegalArgumentException("Invalid blob range: offset " + offset + ", length " + length);
+        }
+    }
+
+    /**
+     * Delete a blob. Deleting a blob that does not exist is not an error.
+     *
+     * @param path the storage path/key
+     * @throws IOException if the delete fails
+     */
+    void delete(String path) throws IOException;
+
     /**
      * Generate a time-limited signed URL for direct access to a blob.
      *
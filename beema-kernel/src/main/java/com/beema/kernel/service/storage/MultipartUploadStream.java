@@ -0,0 +1,217 @@
+package com.beema.kernel.service.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Upload stream that cuts the written bytes into fixed-size parts and uploads them in
+ * parallel as they fill, for S3 multipart and Azure block uploads.
+ *
+ * At most {@code concurrency} parts are in flight per stream; a writer that gets ahead of
+ * the uploads blocks, so a stream holds at most {@code concurrency + 1} part buffers. A blob
+ * that never fills one part is sent with a single request on close.
+ */
+public abstract class MultipartUploadStream extends BlobOutputStream {
+
+    private static final Logger log = LoggerFactory.getLogger(MultipartUploadStream.class);
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final String path;
+    private final int partSize;
+    private final Semaphore inFlight;
+    private final ExecutorService executor;
+    private final List<CompletableFuture<Void>> parts = new ArrayList<>();
+    private volatile boolean partFailed;
+
+    private byte[] buffer;
+    private int count;
+    private int partCount;
+    private boolean started;
+    private boolean closed;
+    private boolean aborted;
+
+    protected MultipartUploadStream(String path, int partSize, int concurrency, ExecutorService executor) {
+        if (partSize < 1 || concurrency < 1) {
+            throw new IllegalArgumentException("Part size and concurrency must be positive");
+        }
+        this.path = path;
+        this.partSize = partSize;
+        this.inFlight = new Semaphore(concurrency);
+        this.executor = executor;
+        this.buffer = new byte[Math.min(partSize, INITIAL_BUFFER_SIZE)];
+    }
+
+    /**
+     * Shared pool for part uploads; concurrency is bounded per stream, not by the pool.
+     */
+    public static ExecutorService newUploadExecutor(String name) {
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Start the multipart upload, before the first part is sent. */
+    protected abstract void startUpload() throws IOException;
+
+    /** Upload one full part; called concurrently. Part numbers start at 1. */
+    protected abstract void uploadPart(int partNumber, byte[] data, int length) throws IOException;
+
+    /** Assemble parts 1..partCount into the blob. */
+    protected abstract void completeUpload(int partCount) throws IOException;
+
+    /** Upload a blob smaller than one part in a single request. */
+    protected abstract void uploadSingle(byte[] data, int length) throws IOException;
+
+    /** Discard the parts of a started upload. */
+    protected abstract void abortUpload() throws IOException;
+
+    protected String getPath() {
+        return path;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        ensureCapacity(count + 1);
+        buffer[count++] = (byte) b;
+        if (count == partSize) {
+            sendPart();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            int n = Math.min(len, partSize - count);
+            ensureCapacity(count + n);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == partSize) {
+                sendPart();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed || aborted) {
+            return;
+        }
+        closed = true;
+        try {
+            if (!started) {
+                uploadSingle(buffer, count);
+            } else {
+                if (count > 0) {
+                    sendPart();
+                }
+                awaitParts();
+                completeUpload(partCount);
+            }
+            buffer = null;
+        } catch (IOException | RuntimeException e) {
+            discard();
+            throw e instanceof IOException io ? io : new IOException("Failed to upload " + path, e);
+        }
+    }
+
+    @Override
+    public void abort() {
+        if (closed || aborted) {
+            return;
+        }
+        discard();
+    }
+
+    private void discard() {
+        aborted = true;
+        buffer = null;
+        if (!started) {
+            return;
+        }
+        try {
+            // Let in-flight parts settle so none lands after the abort
+            awaitParts();
+        } catch (IOException e) {
+            log.debug("Part upload failed while aborting {}: {}", path, e.getMessage());
+        }
+        try {
+            abortUpload();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to abort upload of {}: {}", path, e.getMessage());
+        }
+    }
+
+    private void sendPart() throws IOException {
+        failIfPartFailed();
+        if (!started) {
+            startUpload();
+            started = true;
+        }
+        int partNumber = ++partCount;
+        byte[] data = buffer;
+        int length = count;
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while uploading " + path);
+        }
+        parts.add(CompletableFuture.runAsync(() -> {
+            try {
+                uploadPart(partNumber, data, length);
+            } catch (IOException | RuntimeException e) {
+                partFailed = true;
+                throw new CompletionException(e);
+            } finally {
+                inFlight.release();
+            }
+        }, executor));
+        buffer = new byte[partSize];
+        count = 0;
+    }
+
+    private void awaitParts() throws IOException {
+        try {
+            CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw cause instanceof IOException io ? io : new IOException("Failed to upload part of " + path, cause);
+        }
+    }
+
+    private void failIfPartFailed() throws IOException {
+        if (partFailed) {
+            awaitParts();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed || aborted) {
+            throw new IOException("Upload stream for " + path + " is " + (aborted ? "aborted" : "closed"));
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(partSize, Math.max(required, buffer.length * 2)));
+        }
+    }
+}
@@ -3,19 +3,30 @@ package com.beema.kernel.service.storage.impl;
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.BlobServiceClientBuilder;
+import com.azure.storage.blob.models.BlobRange;
 import com.azure.storage.blob.sas.BlobSasPermission;
 import com.azure.storage.blob.sas.BlobServiceSasSignatureValues;
+import com.azure.storage.blob.specialized.BlockBlobClient;
 import com.beema.kernel.config.StorageProperties;
+import com.beema.kernel.service.storage.BlobOutputStream;
 import com.beema.kernel.service.storage.BlobStorageService;
+import com.beema.kernel.service.storage.MultipartUploadStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @ConditionalOnProperty(name = "beema.storage.type", havingValue = "azure")
@@ -24,6 +35,9 @@ public class AzureBlobStorageService implements BlobStorageService {
     private static final Logger log = LoggerFactory.getLogger(AzureBlobStorageService.class);
 
     private final BlobContainerClient containerClient;
+    private final int blockSize;
+    private final int uploadConcurrency;
+    private final ExecutorService uploadExecutor = MultipartUploadStream.newUploadExecutor("azure-upload");
 
     public AzureBlobStorageService(StorageProperties properties) {
         StorageProperties.AzureProperties azureProps = properties.getAzure();
@@ -31,27 +45,44 @@ public class AzureBlobStorageService implements BlobStorageService {
                 .connectionString(azureProps.getConnectionString())
                 .buildClient()
                 .getBlobContainerClient(azureProps.getContainerName());
+        this.blockSize = Math.toIntExact(properties.getMultipart().getPartSize().toBytes());
+        this.uploadConcurrency = properties.getMultipart().getConcurrency();
         log.info("Azure blob storage initialized for container: {}", azureProps.getContainerName());
     }
 
     @Override
-    public void upload(String path, InputStream stream) throws IOException {
+    public BlobOutputStream openUploadStream(String path) {
+        return new AzureUploadStream(path);
+    }
+
+    @Override
+    public InputStream download(String path) throws IOException {
         try {
             BlobClient blobClient = containerClient.getBlobClient(path);
-            blobClient.upload(stream, true);
-            log.debug("Uploaded blob to Azure: {}", path);
+            return blobClient.openInputStream();
         } catch (Exception e) {
-            throw new IOException("Failed to upload to Azure: " + path, e);
+            throw new IOException("Failed to download from Azure: " + path, e);
         }
     }
 
     @Override
-    public InputStream download(String path) throws IOException {
+    public InputStream download(String path, long offset, long length) throws IOException {
+        BlobStorageService.checkRange(offset, length);
         try {
             BlobClient blobClient = containerClient.getBlobClient(path);
-            return blobClient.openInputStream();
+            return blobClient.openInputStream(new BlobRange(offset, length), null);
         } catch (Exception e) {
-            throw new IOException("Failed to download from Azure: " + path, e);
+            throw new IOException("Failed to download range from Azure: " + path, e);
+        }
+    }
+
+    @Override
+    public void delete(String path) throws IOException {
+        try {
+            containerClient.getBlobClient(path).deleteIfExists();
+            log.debug("Deleted blob from Azure: {}", path);
+        } catch (Exception e) {
+            throw new IOException("Failed to delete from Azure: " + path, e);
         }
     }
 
@@ -69,4 +100,58 @@ public class AzureBlobStorageService implements BlobStorageService {
             throw new IOException("Failed to generate signed URL for Azure: " + path, e);
         }
     }
+
+    /**
+     * Block upload: blocks are staged in parallel and committed on close. Blobs smaller than
+     * one block go in a single upload.
+     */
+    private final class AzureUploadStream extends MultipartUploadStream {
+        private final BlockBlobClient blockBlobClient;
+        // Uncommitted blocks of an earlier upload to the same blob stay staged for a week; a
+        // per-stream prefix keeps this upload's commit from picking one of them up
+        private final String blockIdPrefix = UUID.randomUUID().toString();
+
+        private AzureUploadStream(String path) {
+            super(path, blockSize, uploadConcurrency, uploadExecutor);
+            this.blockBlobClient = containerClient.getBlobClient(path).getBlockBlobClient();
+        }
+
+        @Override
+        protected void startUpload() {
+            // Blocks are staged against the blob name; nothing to create up front
+        }
+
+        @Override
+        protected void uploadPart(int partNumber, byte[] data, int length) {
+            blockBlobClient.stageBlock(blockId(partNumber), new ByteArrayInputStream(data, 0, length), length);
+        }
+
+        @Override
+        protected void completeUpload(int partCount) {
+            List<String> blockIds = new ArrayList<>(partCount);
+            for (int i = 1; i <= partCount; i++) {
+                blockIds.add(blockId(i));
+            }
+            blockBlobClient.commitBlockList(blockIds, true);
+            log.debug("Uploaded blob to Azure in {} blocks: {}", partCount, getPath());
+        }
+
+        @Override
+        protected void uploadSingle(byte[] data, int length) {
+            blockBlobClient.upload(new ByteArrayInputStream(data, 0, length), length, true);
+            log.debug("Uploaded blob to Azure: {}", getPath());
+        }
+
+        @Override
+        protected void abortUpload() {
+            // Uncommitted blocks never become part of the blob and are discarded by the service
+            log.debug("Discarded staged blocks for Azure blob: {}", getPath());
+        }
+
+        private String blockId(int partNumber) {
+            // Block ids of one blob must all have the same length
+            return Base64.getEncoder().encodeToString(
+                    String.format("%s-%08d", blockIdPrefix, partNumber).getBytes(StandardCharsets.UTF_8));
+        }
+    }
 }
@@ -1,15 +1,21 @@
 package com.beema.kernel.service.storage.impl;
 
 import com.beema.kernel.config.StorageProperties;
+import com.beema.kernel.service.storage.BlobOutputStream;
 import com.beema.kernel.service.storage.BlobStorageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedOutputStream;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -30,11 +36,12 @@ public class FileSystemStorageService implements BlobStorageService {
     }
 
     @Override
-    public void upload(String path, InputStream stream) throws IOException {
+    public BlobOutputStream openUploadStream(String path) throws IOException {
         Path target = resolve(path);
         Files.createDirectories(target.getParent());
-        Files.copy(stream, target, StandardCopyOption.REPLACE_EXISTING);
-        log.debug("Uploaded blob to filesystem: {}", target);
+        // Stage next to the target so a failed or aborted upload never leaves a partial blob behind
+        Path staging = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".upload");
+        return new FileSystemUploadStream(target, staging);
     }
 
     @Override
@@ -46,6 +53,24 @@ public class FileSystemStorageService implements BlobStorageService {
         return new FileInputStream(target.toFile());
     }
 
+    @Override
+    public InputStream download(String path, long offset, long length) throws IOException {
+        BlobStorageService.checkRange(offset, length);
+        Path target = resolve(path);
+        if (!Files.exists(target)) {
+            throw new IOException("Blob not found: " + path);
+        }
+        SeekableByteChannel channel = Files.newByteChannel(target);
+        channel.position(offset);
+        return new RangeInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public void delete(String path) throws IOException {
+        Files.deleteIfExists(resolve(path));
+        log.debug("Deleted blob from filesystem: {}", path);
+    }
+
     @Override
     public String getSignedUrl(String path, Duration expiration) throws IOException {
         Path target = resolve(path);
@@ -62,4 +87,106 @@ public class FileSystemStorageService implements BlobStorageService {
         }
         return resolved;
     }
+
+    private static final class FileSystemUploadStream extends BlobOutputStream {
+        private final Path target;
+        private final Path staging;
+        private final OutputStream out;
+        private boolean done;
+
+        private FileSystemUploadStream(Path target, Path staging) throws IOException {
+            this.target = target;
+            this.staging = staging;
+            this.out = new BufferedOutputStream(Files.newOutputStream(staging));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (done) {
+                return;
+            }
+            done = true;
+            try {
+                out.close();
+                Files.move(staging, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(staging);
+            }
+            log.debug("Uploaded blob to filesystem: {}", target);
+        }
+
+        @Override
+        public void abort() {
+            if (done) {
+                return;
+            }
+            done = true;
+            try {
+                out.close();
+                Files.deleteIfExists(staging);
+            } catch (IOException e) {
+                log.warn("Failed to discard staged upload {}: {}", staging, e.getMessage());
+            }
+        }
+    }
+
+    private static final class RangeInputStream extends FilterInputStream {
+        private long remaining;
+
+        private RangeInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+    }
 }
@@ -1,7 +1,9 @@
 package com.beema.kernel.service.storage.impl;
 
 import com.beema.kernel.config.StorageProperties;
+import com.beema.kernel.service.storage.BlobOutputStream;
 import com.beema.kernel.service.storage.BlobStorageService;
+import com.beema.kernel.service.storage.MultipartUploadStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -10,15 +12,27 @@ import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @ConditionalOnProperty(name = "beema.storage.type", havingValue = "s3")
@@ -26,13 +40,25 @@ public class S3BlobStorageService implements BlobStorageService {
 
     private static final Logger log = LoggerFactory.getLogger(S3BlobStorageService.class);
 
+    // S3 rejects multipart parts below 5MB, except the last one
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
     private final S3Client s3Client;
     private final S3Presigner presigner;
     private final String bucket;
+    private final int partSize;
+    private final int uploadConcurrency;
+    private final ExecutorService uploadExecutor = MultipartUploadStream.newUploadExecutor("s3-upload");
 
     public S3BlobStorageService(StorageProperties properties) {
         StorageProperties.S3Properties s3Props = properties.getS3();
         this.bucket = s3Props.getBucket();
+        long configuredPartSize = properties.getMultipart().getPartSize().toBytes();
+        if (configuredPartSize < MIN_PART_SIZE || configuredPartSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("beema.storage.multipart.part-size must be between 5MB and 2GB for S3");
+        }
+        this.partSize = (int) configuredPartSize;
+        this.uploadConcurrency = properties.getMultipart().getConcurrency();
 
         var clientBuilder = S3Client.builder()
                 .region(Region.of(s3Props.getRegion()))
@@ -54,30 +80,51 @@ public class S3BlobStorageService implements BlobStorageService {
     }
 
     @Override
-    public void upload(String path, InputStream stream) throws IOException {
+    public BlobOutputStream openUploadStream(String path) {
+        return new S3UploadStream(path);
+    }
+
+    @Override
+    public InputStream download(String path) throws IOException {
         try {
-            byte[] bytes = stream.readAllBytes();
-            PutObjectRequest request = PutObjectRequest.builder()
+            GetObjectRequest request = GetObjectRequest.builder()
                     .bucket(bucket)
                     .key(path)
                     .build();
-            s3Client.putObject(request, RequestBody.fromBytes(bytes));
-            log.debug("Uploaded blob to S3: s3://{}/{}", bucket, path);
+            return s3Client.getObject(request);
         } catch (Exception e) {
-            throw new IOException("Failed to upload to S3: " + path, e);
+            throw new IOException("Failed to download from S3: " + path, e);
         }
     }
 
     @Override
-    public InputStream download(String path) throws IOException {
+    public InputStream download(String path, long offset, long length) throws IOException {
+        // An empty range would read as "bytes=offset-(offset-1)", which S3 ignores, returning
+        // the whole object
+        BlobStorageService.checkRange(offset, length);
         try {
             GetObjectRequest request = GetObjectRequest.builder()
                     .bucket(bucket)
                     .key(path)
+                    .range("bytes=" + offset + "-" + (offset + length - 1))
                     .build();
             return s3Client.getObject(request);
         } catch (Exception e) {
-            throw new IOException("Failed to download from S3: " + path, e);
+            throw new IOException("Failed to download range from S3: " + path, e);
+        }
+    }
+
+    @Override
+    public void delete(String path) throws IOException {
+        try {
+            // S3 reports success for a key that does not exist
+            s3Client.deleteObject(DeleteObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(path)
+                    .build());
+            log.debug("Deleted blob from S3: {}", path);
+        } catch (Exception e) {
+            throw new IOException("Failed to delete from S3: " + path, e);
         }
     }
 
@@ -93,4 +140,75 @@ public class S3BlobStorageService implements BlobStorageService {
             throw new IOException("Failed to generate signed URL for S3: " + path, e);
         }
     }
+
+    /**
+     * Multipart upload; blobs smaller than one part go in a single put.
+     */
+    private final class S3UploadStream extends MultipartUploadStream {
+        private final Map<Integer, String> etags = new ConcurrentSkipListMap<>();
+        private String uploadId;
+
+        private S3UploadStream(String path) {
+            super(path, partSize, uploadConcurrency, uploadExecutor);
+        }
+
+        @Override
+        protected void startUpload() throws IOException {
+            try {
+                uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(getPath())
+                        .build()).uploadId();
+            } catch (Exception e) {
+                throw new IOException("Failed to start multipart upload to S3: " + getPath(), e);
+            }
+        }
+
+        @Override
+        protected void uploadPart(int partNumber, byte[] data, int length) {
+            UploadPartRequest request = UploadPartRequest.builder()
+                    .bucket(bucket)
+                    .key(getPath())
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .contentLength((long) length)
+                    .build();
+            String etag = s3Client.uploadPart(request,
+                    RequestBody.fromInputStream(new ByteArrayInputStream(data, 0, length), length)).eTag();
+            etags.put(partNumber, etag);
+        }
+
+        @Override
+        protected void completeUpload(int partCount) {
+            List<CompletedPart> parts = etags.entrySet().stream()
+                    .map(e -> CompletedPart.builder().partNumber(e.getKey()).eTag(e.getValue()).build())
+                    .toList();
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(getPath())
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+            log.debug("Uploaded blob to S3 in {} parts: s3://{}/{}", partCount, bucket, getPath());
+        }
+
+        @Override
+        protected void uploadSingle(byte[] data, int length) {
+            PutObjectRequest request = PutObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(getPath())
+                    .build();
+            s3Client.putObject(request, RequestBody.fromInputStream(new ByteArrayInputStream(data, 0, length), length));
+            log.debug("Uploaded blob to S3: s3://{}/{}", bucket, getPath());
+        }
+
+        @Override
+        protected void abortUpload() {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(getPath())
+                    .uploadId(uploadId)
+                    .build());
+        }
+    }
 }
@@ -0,0 +1,15 @@
+-- =============================================================================
+-- V11: Index for incremental exports
+-- =============================================================================
+-- Incremental Parquet exports read the versions a tenant recorded for one
+-- agreement type since the previous export's high-water mark:
+--   WHERE tenant_id = ? AND agreement_type_code = ?
+--     AND transaction_time > ? AND transaction_time <= ?
+-- and page through them in keyset order (transaction_time, id, valid_from),
+-- which the trailing index columns serve without a sort.
+-- =============================================================================
+
+CREATE INDEX idx_agreements_export_changes
+    ON agreements(tenant_id, agreement_type_code, transaction_time, id, valid_from);
+
+COMMENT ON INDEX idx_agreements_export_changes IS 'Optimizes incremental export change windows';
@@ -0,0 +1,374 @@
+package com.beema.kernel.batch.export;
+
+import com.beema.kernel.config.StorageProperties;
+import com.beema.kernel.service.storage.impl.FileSystemStorageService;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParquetBlobWriterTest {
+
+    private static final Schema SCHEMA = SchemaBuilder.record("Agreement")
+            .namespace("com.beema.kernel.export")
+            .fields()
+            .requiredString("id")
+            .requiredString("agreement_number")
+            .requiredString("status")
+            .endRecord();
+
+    /** Stands in for the reader's position in the step execution context. */
+    private static final String READER_KEY = "agreementItemReader.read.count";
+
+    @TempDir
+    Path tempDir;
+
+    private FileSystemStorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.getFilesystem().setBasePath(tempDir.toString());
+        storageService = new FileSystemStorageService(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldApplyWriterProfileToFileMetadata() throws Exception {
+        ParquetWriterProfile profile = new ParquetWriterProfile();
+        profile.setCompressionCodec(CompressionCodecName.GZIP);
+        profile.setRowGroupSize(DataSize.ofMegabytes(64));
+        profile.setPageSize(DataSize.ofKilobytes(256));
+        profile.setDictionaryDisabledColumns(List.of("id", "agreement_number"));
+        profile.setBloomFilterColumns(List.of("agreement_number"));
+        profile.setBloomFilterExpectedNdv(10_000);
+
+        export(new ParquetBlobWriter(storageService, "tenant-a", profile), sampleChunk(2_000));
+
+        try (ParquetFileReader reader = openSingleExport()) {
+            BlockMetaData rowGroup = reader.getFooter().getBlocks().get(0);
+            ColumnChunkMetaData id = column(rowGroup, "id");
+            ColumnChunkMetaData agreementNumber = column(rowGroup, "agreement_number");
+            ColumnChunkMetaData status = column(rowGroup, "status");
+
+            assertThat(reader.getRecordCount()).isEqualTo(2_000);
+            assertThat(id.getCodec()).isEqualTo(CompressionCodecName.GZIP);
+
+            // High-cardinality ids are plain encoded, low-cardinality status keeps its dictionary
+            assertThat(id.getEncodings()).doesNotContain(Encoding.PLAIN_DICTIONARY, Encoding.RLE_DICTIONARY);
+            assertThat(agreementNumber.getEncodings()).doesNotContain(Encoding.PLAIN_DICTIONARY, Encoding.RLE_DICTIONARY);
+            assertThat(status.getEncodings()).containsAnyOf(Encoding.PLAIN_DICTIONARY, Encoding.RLE_DICTIONARY);
+
+            // Bloom filter only where configured
+            assertThat(agreementNumber.getBloomFilterOffset()).isGreaterThanOrEqualTo(0);
+            assertThat(reader.readBloomFilter(agreementNumber)).isNotNull();
+            assertThat(id.getBloomFilterOffset()).isLessThan(0);
+        }
+    }
+
+    @Test
+    void shouldKeepPreviousSettingsWithDefaultProfile() throws Exception {
+        export(new ParquetBlobWriter(storageService, "tenant-a"), sampleChunk(100));
+
+        try (ParquetFileReader reader = openSingleExport()) {
+            ColumnChunkMetaData id = column(reader.getFooter().getBlocks().get(0), "id");
+
+            assertThat(id.getCodec()).isEqualTo(CompressionCodecName.SNAPPY);
+            assertThat(id.getBloomFilterOffset()).isLessThan(0);
+        }
+    }
+
+    @Test
+    void shouldKeepOneFileOpenAcrossChunks() throws Exception {
+        ParquetBlobWriter writer = new ParquetBlobWriter(storageService, "tenant-a");
+        StepExecution stepExecution = new StepExecution("exportAgreementsStep", new JobExecution(1L));
+        ExecutionContext context = stepExecution.getExecutionContext();
+
+        writer.open(context);
+        for (int i = 0; i < 5; i++) {
+            writer.write(sampleChunk(500));
+            writer.update(context);
+            assertThat(exportedFiles()).isEmpty();
+            assertThat(context.getLong(ParquetBlobWriter.OPEN_FILE_RECORDS)).isEqualTo(500L * (i + 1));
+        }
+        writer.afterStep(stepExecution);
+        writer.close();
+
+        try (ParquetFileReader reader = openSingleExport()) {
+            assertThat(reader.getRecordCount()).isEqualTo(2_500);
+        }
+        assertThat(context.getInt(ParquetBlobWriter.FILES_WRITTEN)).isEqualTo(1);
+        assertThat(context.getLong(ParquetBlobWriter.RECORDS_WRITTEN)).isEqualTo(2_500);
+        assertThat(context.getLong(ParquetBlobWriter.OPEN_FILE_RECORDS)).isZero();
+    }
+
+    @Test
+    void shouldRollToNewFileAtTargetSize() throws Exception {
+        ParquetWriterProfile profile = new ParquetWriterProfile();
+        profile.setTargetFileSize(DataSize.ofBytes(1));
+
+        export(new ParquetBlobWriter(storageService, "tenant-a", profile),
+                sampleChunk(300), sampleChunk(300), sampleChunk(300));
+
+        List<Path> files = exportedFiles();
+        assertThat(files).hasSize(3);
+        for (Path file : files) {
+            try (ParquetFileReader reader = open(file)) {
+                assertThat(reader.getRecordCount()).isEqualTo(300);
+            }
+        }
+    }
+
+    @Test
+    void shouldKeepOneFilePerRecordSchema() throws Exception {
+        Schema commercial = SchemaBuilder.record("Agreement")
+                .namespace("com.beema.kernel.export")
+                .prop(AgreementAvroSchemaRegistry.SCHEMA_VERSION_PROP, "2")
+                .fields()
+                .requiredString("id")
+                .requiredString("agreement_number")
+                .requiredString("status")
+                .optionalLong("attr_employee_count")
+                .endRecord();
+        List<GenericRecord> mixed = new ArrayList<>(sampleChunk(100).getItems());
+        for (int i = 0; i < 50; i++) {
+            GenericRecord record = new GenericData.Record(commercial);
+            record.put("id", UUID.randomUUID().toString());
+            record.put("agreement_number", String.format("COM-%08d", i));
+            record.put("status", "ACTIVE");
+            record.put("attr_employee_count", (long) i);
+            mixed.add(i * 2, record);
+        }
+
+        export(new ParquetBlobWriter(storageService, "tenant-a"), new Chunk<>(mixed), sampleChunk(100));
+
+        List<Long> counts = new ArrayList<>();
+        for (Path file : exportedFiles()) {
+            try (ParquetFileReader reader = open(file)) {
+                counts.add(reader.getRecordCount());
+            }
+        }
+        assertThat(counts).containsExactlyInAnyOrder(200L, 50L);
+    }
+
+    @Test
+    void shouldNotPublishAbortedFile() throws Exception {
+        ParquetBlobWriter writer = new ParquetBlobWriter(storageService, "tenant-a");
+        StepExecution stepExecution = new StepExecution("export", new JobExecution(1L));
+        ExecutionContext context = stepExecution.getExecutionContext();
+        GenericRecord invalid = new GenericData.Record(SCHEMA);
+
+        writer.open(context);
+        writer.write(sampleChunk(100));
+        context.putLong(READER_KEY, 100L);
+        writer.update(context);
+        assertThatThrownBy(() -> writer.write(new Chunk<>(List.of(invalid))))
+                .isInstanceOf(RuntimeException.class);
+        writer.close();
+
+        // Neither the file nor a partial upload is left in storage
+        try (Stream<Path> walk = Files.walk(tempDir)) {
+            assertThat(walk.filter(Files::isRegularFile).toList()).isEmpty();
+        }
+        // The committed chunk went down with the file, so a restart reads it again from the start
+        StepExecution restart = restartOf(stepExecution);
+        ParquetBlobWriter restarted = new ParquetBlobWriter(storageService, "tenant-a");
+        restarted.beforeStep(restart);
+        restarted.open(restart.getExecutionContext());
+        assertThat(restart.getExecutionContext().containsKey(READER_KEY)).isFalse();
+        assertThat(restart.getExecutionContext().getLong(ParquetBlobWriter.RECORDS_WRITTEN)).isZero();
+        assertThat(restart.getExecutionContext().getLong(ParquetBlobWriter.OPEN_FILE_RECORDS)).isZero();
+    }
+
+    @Test
+    void shouldResumeAfterLastPublishedFile() throws Exception {
+        ParquetWriterProfile profile = new ParquetWriterProfile();
+        profile.setTargetFileSize(DataSize.ofBytes(1));
+        ParquetBlobWriter writer = new ParquetBlobWriter(storageService, "tenant-a", profile);
+        StepExecution stepExecution = new StepExecution("export", new JobExecution(1L));
+        ExecutionContext context = stepExecution.getExecutionContext();
+
+        writer.open(context);
+        TransactionSynchronizationManager.initSynchronization();
+        writer.write(sampleChunk(300));
+        context.putLong(READER_KEY, 300L);
+        writer.update(context);
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        // The next chunk commits, but the process dies before its file is finished
+        TransactionSynchronizationManager.initSynchronization();
+        writer.write(sampleChunk(200));
+        context.putLong(READER_KEY, 500L);
+        writer.update(context);
+        assertThat(context.getLong(ParquetBlobWriter.OPEN_FILE_RECORDS)).isEqualTo(200L);
+
+        StepExecution restart = restartOf(stepExecution);
+        ParquetBlobWriter restarted = new ParquetBlobWriter(storageService, "tenant-a", profile);
+        restarted.beforeStep(restart);
+        restarted.open(restart.getExecutionContext());
+
+        ExecutionContext resumed = restart.getExecutionContext();
+        assertThat(resumed.getLong(READER_KEY)).isEqualTo(300L);
+        assertThat(resumed.getLong(ParquetBlobWriter.RECORDS_WRITTEN)).isEqualTo(300L);
+        assertThat((List<?>) resumed.get(ParquetBlobWriter.FILES)).hasSize(1);
+        assertThat(exportedFiles()).hasSize(1);
+    }
+
+    @Test
+    void shouldRefuseWritesAfterAbort() throws Exception {
+        ParquetBlobWriter writer = new ParquetBlobWriter(storageService, "tenant-a");
+        ExecutionContext context = new ExecutionContext();
+        GenericRecord invalid = new GenericData.Record(SCHEMA);
+
+        writer.open(context);
+        assertThatThrownBy(() -> writer.write(new Chunk<>(List.of(invalid))))
+                .isInstanceOf(RuntimeException.class);
+        // A later chunk must not start an upload that the step would never finish
+        assertThatThrownBy(() -> writer.write(sampleChunk(10)))
+                .isInstanceOf(ItemStreamException.class)
+                .hasMessageContaining("aborted");
+        writer.afterStep(new StepExecution("export", new JobExecution(1L)));
+        writer.close();
+
+        try (Stream<Path> walk = Files.walk(tempDir)) {
+            assertThat(walk.filter(Files::isRegularFile).toList()).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldFinishFullFileOnlyAfterChunkCommits() throws Exception {
+        ParquetWriterProfile profile = new ParquetWriterProfile();
+        profile.setTargetFileSize(DataSize.ofBytes(1));
+        ParquetBlobWriter writer = new ParquetBlobWriter(storageService, "tenant-a", profile);
+        StepExecution stepExecution = new StepExecution("export", new JobExecution(1L));
+
+        writer.open(stepExecution.getExecutionContext());
+        TransactionSynchronizationManager.initSynchronization();
+        writer.write(sampleChunk(300));
+        assertThat(exportedFiles()).isEmpty();
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(exportedFiles()).hasSize(1);
+        writer.afterStep(stepExecution);
+        writer.close();
+        assertThat(stepExecution.getExecutionContext().getInt(ParquetBlobWriter.FILES_WRITTEN)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldAbortOpenFileWhenChunkRollsBack() throws Exception {
+        ParquetWriterProfile profile = new ParquetWriterProfile();
+        profile.setTargetFileSize(DataSize.ofBytes(1));
+        ParquetBlobWriter writer = new ParquetBlobWriter(storageService, "tenant-a", profile);
+
+        writer.open(new ExecutionContext());
+        TransactionSynchronizationManager.initSynchronization();
+        writer.write(sampleChunk(300));
+        // The retry of the chunk writes these records again, so none of them may be published
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThatThrownBy(() -> writer.write(sampleChunk(300)))
+                .isInstanceOf(ItemStreamException.class)
+                .hasMessageContaining("aborted");
+        writer.close();
+        try (Stream<Path> walk = Files.walk(tempDir)) {
+            assertThat(walk.filter(Files::isRegularFile).toList()).isEmpty();
+        }
+    }
+
+    private static StepExecution restartOf(StepExecution failed) {
+        StepExecution restart = new StepExecution(failed.getStepName(), new JobExecution(2L));
+        restart.setExecutionContext(new ExecutionContext(failed.getExecutionContext()));
+        return restart;
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    @SafeVarargs
+    private static void export(ParquetBlobWriter writer, Chunk<GenericRecord>... chunks) throws Exception {
+        ExecutionContext context = new ExecutionContext();
+        writer.open(context);
+        for (Chunk<GenericRecord> chunk : chunks) {
+            writer.write(chunk);
+            writer.update(context);
+        }
+        writer.close();
+    }
+
+    private static Chunk<GenericRecord> sampleChunk(int size) {
+        List<GenericRecord> records = new ArrayList<>(size);
+        String[] statuses = {"DRAFT", "ACTIVE", "CANCELLED"};
+        for (int i = 0; i < size; i++) {
+            GenericRecord record = new GenericData.Record(SCHEMA);
+            record.put("id", UUID.randomUUID().toString());
+            record.put("agreement_number", String.format("POL-%08d", i));
+            record.put("status", statuses[i % statuses.length]);
+            records.add(record);
+        }
+        return new Chunk<>(records);
+    }
+
+    private ParquetFileReader openSingleExport() throws IOException {
+        List<Path> files = exportedFiles();
+        assertThat(files).hasSize(1);
+        assertThat(tempDir.relativize(files.get(0)).toString()).startsWith("tenant=tenant-a/object=agreement/");
+        return open(files.get(0));
+    }
+
+    private List<Path> exportedFiles() throws IOException {
+        try (Stream<Path> walk = Files.walk(tempDir)) {
+            return walk.filter(p -> p.toString().endsWith(".parquet")).sorted().toList();
+        }
+    }
+
+    private static ParquetFileReader open(Path file) throws IOException {
+        return ParquetFileReader.open(HadoopInputFile.fromPath(
+                new org.apache.hadoop.fs.Path(file.toUri()), new Configuration()));
+    }
+
+    private static ColumnChunkMetaData column(BlockMetaData rowGroup, String name) {
+        return rowGroup.getColumns().stream()
+                .filter(c -> c.getPath().toDotString().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -4,6 +4,8 @@ import com.beema.kernel.domain.agreement.Agreement;
 import com.beema.kernel.domain.agreement.AgreementStatus;
 import com.beema.kernel.domain.metadata.MarketContext;
 import com.beema.kernel.service.agreement.AgreementService;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.parquet.avro.AvroParquetReader;
@@ -158,7 +160,7 @@ class ParquetExportJobIntegrationTest {
                     .hasSize(TEST_RECORD_COUNT);
 
             // Assert schema includes all fixed agreement fields
-            org.apache.avro.Schema schema = records.get(0).getSchema();
+            Schema schema = records.get(0).getSchema();
             assertThat(schema.getField("id")).isNotNull();
             assertThat(schema.getField("agreement_number")).isNotNull();
             assertThat(schema.getField("agreement_type_code")).isNotNull();
@@ -179,6 +181,16 @@ class ParquetExportJobIntegrationTest {
             assertThat(schema.getField("attr_vehicle_model")).isNotNull();
             assertThat(schema.getField("attr_primary_driver_age")).isNotNull();
 
+            // Assert column types follow the metadata registry instead of the first record
+            assertThat(schema.getProp(AgreementAvroSchemaRegistry.SCHEMA_VERSION_PROP)).isEqualTo("1");
+            assertThat(schema.getField("valid_from").schema().getLogicalType())
+                    .isEqualTo(LogicalTypes.timestampMicros());
+            assertThat(nonNullType(schema.getField("attr_vehicle_year").schema()))
+                    .isEqualTo(Schema.Type.LONG);
+            assertThat(nonNullType(schema.getField("attr_vehicle_value").schema()))
+                    .isEqualTo(Schema.Type.DOUBLE);
+            assertThat(schema.getField("attr_referral_code")).isNull();
+
             // Assert data values are correct
             GenericRecord firstRecord = records.get(0);
             assertThat(firstRecord.get("tenant_id").toString()).isEqualTo(TENANT_ID);
@@ -186,6 +198,12 @@ class ParquetExportJobIntegrationTest {
             assertThat(firstRecord.get("agreement_type_code").toString()).isEqualTo("AUTO_POLICY");
             assertThat(firstRecord.get("status").toString()).isEqualTo("DRAFT");
             assertThat(firstRecord.get("attr_vehicle_vin").toString()).isNotBlank();
+            assertThat(firstRecord.get("attr_vehicle_year")).isInstanceOf(Long.class);
+
+            // Undeclared attributes are kept in the extra map
+            assertThat(records).allSatisfy(r -> assertThat(((Map<?, ?>) r.get("extra_attributes")).keySet())
+                    .extracting(Object::toString)
+                    .containsExactly("referral_code"));
 
             // Assert all records have correct tenant
             assertThat(records)
@@ -219,13 +237,22 @@ class ParquetExportJobIntegrationTest {
                     "vehicle_make", makes[i],
                     "vehicle_model", models[i],
                     "primary_driver_age", driverAges[i],
-                    "annual_mileage", 10000 + (i * 2000)
+                    "annual_mileage", 10000 + (i * 2000),
+                    "referral_code", "REF-" + (i + 1)
             ));
 
             agreementService.createAgreement(agreement);
         }
     }
 
+    private static Schema.Type nonNullType(Schema union) {
+        return union.getTypes().stream()
+                .map(Schema::getType)
+                .filter(type -> type != Schema.Type.NULL)
+                .findFirst()
+                .orElseThrow();
+    }
+
     @SuppressWarnings("deprecation")
     private List<GenericRecord> readParquetFile(File file) throws Exception {
         List<GenericRecord> records = new ArrayList<>();
@@ -0,0 +1,208 @@
+package com.beema.kernel.batch.export;
+
+import com.beema.kernel.batch.export.ExportRunManifest.ExportMode;
+import com.beema.kernel.batch.export.ExportRunManifest.Partition;
+import com.beema.kernel.batch.export.ExportRunManifest.PartitionStatus;
+import com.beema.kernel.domain.agreement.Agreement;
+import com.beema.kernel.domain.agreement.AgreementStatus;
+import com.beema.kernel.domain.metadata.MarketContext;
+import com.beema.kernel.service.agreement.AgreementService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Orchestrated export run over two tenants, against PostgreSQL (Testcontainers JDBC) and
+ * filesystem blob storage.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ParquetExportOrchestratorIntegrationTest {
+
+    private static final Path STORAGE_DIR = createStorageDir();
+    private static final LocalDate EXPORT_DATE = LocalDate.of(2026, 1, 15);
+
+    @DynamicPropertySource
+    static void overrideProperties(DynamicPropertyRegistry registry) {
+        registry.add("beema.storage.type", () -> "filesystem");
+        registry.add("beema.storage.filesystem.base-path", STORAGE_DIR::toString);
+        // Rows inserted just before planning fall inside the run's window
+        registry.add("beema.export.parquet.watermark-lag", () -> "0s");
+    }
+
+    @Autowired
+    private ParquetExportOrchestrator orchestrator;
+
+    @Autowired
+    private AgreementService agreementService;
+
+    private String tenantA;
+    private String tenantB;
+
+    @BeforeEach
+    void setup() {
+        // Fresh tenants per test, so rows of other tests and classes never reach these partitions
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        tenantA = "orchestrator-a-" + suffix;
+        tenantB = "orchestrator-b-" + suffix;
+        insertAgreements(tenantA, 3);
+        insertAgreements(tenantB, 2);
+    }
+
+    @Test
+    void shouldExportTenantsAsSeparatePartitionsAndRecordManifest() throws Exception {
+        // Given
+        ExportRunManifest planned = orchestrator.plan(List.of(tenantA, tenantB), EXPORT_DATE);
+        assertThat(planned.getPartitions())
+                .extracting(Partition::getTenantId, Partition::getAgreementType, Partition::getStatus)
+                .containsExactlyInAnyOrder(
+                        tuple(tenantA, "AUTO_POLICY", PartitionStatus.PENDING),
+                        tuple(tenantB, "AUTO_POLICY", PartitionStatus.PENDING));
+
+        // When
+        ExportRunManifest finished = orchestrator.execute(planned);
+
+        // Then: every partition completed with its own files
+        assertThat(finished.getPartitions()).allSatisfy(partition -> {
+            assertThat(partition.getStatus()).isEqualTo(PartitionStatus.COMPLETED);
+            assertThat(partition.getAttempts()).isEqualTo(1);
+            assertThat(partition.getJobExecutionId()).isNotNull();
+            assertThat(partition.getFiles()).isNotEmpty().allSatisfy(file -> {
+                assertThat(file).startsWith("tenant=" + partition.getTenantId() + "/object=agreement/date=2026-01-15/");
+                assertThat(STORAGE_DIR.resolve(file)).exists();
+            });
+        });
+        assertThat(finished.getPartitions())
+                .extracting(Partition::getTenantId, Partition::getRecordsWritten)
+                .containsExactlyInAnyOrder(
+                        tuple(tenantA, 3L),
+                        tuple(tenantB, 2L));
+
+        // And: the stored manifest matches
+        ExportRunManifest stored = orchestrator.loadManifest(planned.getRunId());
+        assertThat(stored.getExportDate()).isEqualTo(EXPORT_DATE);
+        assertThat(stored.getPartitions())
+                .extracting(Partition::getStatus)
+                .containsOnly(PartitionStatus.COMPLETED);
+    }
+
+    @Test
+    void shouldNotRerunCompletedPartitionsOnRetry() throws Exception {
+        // Given
+        ExportRunManifest planned = orchestrator.plan(List.of(tenantA), EXPORT_DATE);
+        orchestrator.execute(planned);
+
+        // When
+        ExportRunManifest retried = orchestrator.retryFailed(planned.getRunId());
+
+        // Then
+        assertThat(retried.getPartitions()).singleElement().satisfies(partition -> {
+            assertThat(partition.getStatus()).isEqualTo(PartitionStatus.COMPLETED);
+            assertThat(partition.getAttempts()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void shouldDeleteOrphanedFilesBeforeRetry() throws Exception {
+        // Given: a failed attempt left a finished file behind
+        ExportRunManifest planned = orchestrator.plan(List.of(tenantA), EXPORT_DATE);
+        String orphan = "tenant=" + tenantA + "/object=agreement/date=2026-01-15/failed-attempt-00000.parquet";
+        Files.createDirectories(STORAGE_DIR.resolve(orphan).getParent());
+        Files.write(STORAGE_DIR.resolve(orphan), new byte[]{1});
+        Partition partition = planned.getPartitions().get(0);
+        partition.setStatus(PartitionStatus.FAILED);
+        partition.setAttempts(1);
+        partition.getOrphanedFiles().add(orphan);
+
+        // When
+        ExportRunManifest retried = orchestrator.execute(planned);
+
+        // Then: only the retry's files remain
+        assertThat(retried.getPartitions()).singleElement().satisfies(retry -> {
+            assertThat(retry.getStatus()).isEqualTo(PartitionStatus.COMPLETED);
+            assertThat(retry.getAttempts()).isEqualTo(2);
+            assertThat(retry.getOrphanedFiles()).isEmpty();
+            assertThat(retry.getFiles()).isNotEmpty().doesNotContain(orphan);
+        });
+        assertThat(STORAGE_DIR.resolve(orphan)).doesNotExist();
+    }
+
+    @Test
+    void shouldExportOnlyNewVersionsInIncrementalRun() throws Exception {
+        // Given: without a watermark the first incremental run is a snapshot
+        ExportRunManifest first = orchestrator.execute(
+                orchestrator.plan(List.of(tenantA), EXPORT_DATE, true, false));
+        assertThat(first.getPartitions()).singleElement().satisfies(partition -> {
+            assertThat(partition.getMode()).isEqualTo(ExportMode.SNAPSHOT);
+            assertThat(partition.getRecordsWritten()).isEqualTo(3L);
+        });
+        insertAgreements(tenantA, 1);
+
+        // When
+        ExportRunManifest second = orchestrator.execute(
+                orchestrator.plan(List.of(tenantA), EXPORT_DATE, true, false));
+
+        // Then: only the version recorded since the first run's cutoff
+        assertThat(second.getPartitions()).singleElement().satisfies(partition -> {
+            assertThat(partition.getStatus()).isEqualTo(PartitionStatus.COMPLETED);
+            assertThat(partition.getMode()).isEqualTo(ExportMode.INCREMENTAL);
+            assertThat(partition.getChangedAfter()).isAtSameInstantAs(first.getChangedUpTo());
+            assertThat(partition.getChangedUpTo()).isAtSameInstantAs(second.getChangedUpTo());
+            assertThat(partition.getRecordsWritten()).isEqualTo(1L);
+        });
+
+        // And: compaction exports a full snapshot again
+        ExportRunManifest compacted = orchestrator.execute(
+                orchestrator.plan(List.of(tenantA), EXPORT_DATE, true, true));
+        assertThat(compacted.getPartitions()).singleElement().satisfies(partition -> {
+            assertThat(partition.getMode()).isEqualTo(ExportMode.SNAPSHOT);
+            assertThat(partition.getRecordsWritten()).isEqualTo(4L);
+        });
+    }
+
+    private void insertAgreements(String tenantId, int count) {
+        for (int i = 0; i < count; i++) {
+            Agreement agreement = new Agreement();
+            agreement.setAgreementNumber(tenantId + "-" + (i + 1));
+            agreement.setAgreementTypeCode("AUTO_POLICY");
+            agreement.setMarketContext(MarketContext.RETAIL);
+            agreement.setStatus(AgreementStatus.DRAFT);
+            agreement.setTenantId(tenantId);
+            agreement.setDataResidencyRegion("US");
+            agreement.setCreatedBy("test-user");
+            agreement.setUpdatedBy("test-user");
+            agreement.setAttributes(Map.of(
+                    "vehicle_vin", "1HGCM82633A" + String.format("%06d", i + 1),
+                    "vehicle_year", 2024,
+                    "vehicle_make", "Honda",
+                    "vehicle_model", "Accord",
+                    "primary_driver_age", 35,
+                    "annual_mileage", 12000
+            ));
+            agreementService.createAgreement(agreement);
+        }
+    }
+
+    private static Path createStorageDir() {
+        try {
+            return Files.createTempDirectory("parquet-export-runs-");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
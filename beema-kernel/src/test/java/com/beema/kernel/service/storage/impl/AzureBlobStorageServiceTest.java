@@ -1,6 +1,7 @@
 package com.beema.kernel.service.storage.impl;
 
 import com.beema.kernel.config.StorageProperties;
+import com.beema.kernel.service.storage.BlobOutputStream;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +18,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -167,4 +170,26 @@ class AzureBlobStorageServiceTest {
             assertThat(downloaded.readAllBytes()).isEmpty();
         }
     }
+
+    @Test
+    void shouldUploadLargeBlobInBlocks() throws IOException {
+        // Given: more than two 8MB blocks, the last one short
+        String path = "blocks/large.bin";
+        byte[] data = new byte[17 * 1024 * 1024 + 7];
+        new Random(7).nextBytes(data);
+
+        // When
+        try (BlobOutputStream out = storageService.openUploadStream(path)) {
+            out.write(data);
+        }
+
+        // Then
+        try (InputStream downloaded = storageService.download(path)) {
+            assertThat(downloaded.readAllBytes()).isEqualTo(data);
+        }
+        try (InputStream downloaded = storageService.download(path, 16 * 1024 * 1024, 7)) {
+            assertThat(downloaded.readAllBytes())
+                    .isEqualTo(Arrays.copyOfRange(data, 16 * 1024 * 1024, 16 * 1024 * 1024 + 7));
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.beema.kernel.service.storage.impl;
 
 import com.beema.kernel.config.StorageProperties;
+import com.beema.kernel.service.storage.BlobOutputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -9,8 +10,10 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -151,4 +154,75 @@ class FileSystemStorageServiceTest {
             assertThat(downloaded.readAllBytes()).isEmpty();
         }
     }
+
+    @Test
+    void shouldStreamUploadAndPublishOnClose() throws IOException {
+        // Given
+        String path = "streamed/part.txt";
+        BlobOutputStream out = storageService.openUploadStream(path);
+        out.write("streamed ".getBytes(StandardCharsets.UTF_8));
+        out.write("content".getBytes(StandardCharsets.UTF_8));
+        assertThat(tempDir.resolve(path)).doesNotExist();
+
+        // When
+        out.close();
+
+        // Then
+        assertThat(tempDir.resolve(path)).hasContent("streamed content");
+        try (Stream<Path> files = Files.list(tempDir.resolve("streamed"))) {
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    @Test
+    void shouldDiscardAbortedUpload() throws IOException {
+        // Given
+        String path = "aborted/part.txt";
+        storageService.upload(path, new ByteArrayInputStream("original".getBytes(StandardCharsets.UTF_8)));
+        BlobOutputStream out = storageService.openUploadStream(path);
+        out.write("partial".getBytes(StandardCharsets.UTF_8));
+
+        // When
+        out.abort();
+        out.close();
+
+        // Then
+        assertThat(tempDir.resolve(path)).hasContent("original");
+        try (Stream<Path> files = Files.list(tempDir.resolve("aborted"))) {
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    @Test
+    void shouldDownloadRange() throws IOException {
+        // Given
+        String path = "range.txt";
+        storageService.upload(path, new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.UTF_8)));
+
+        // When/Then
+        try (InputStream downloaded = storageService.download(path, 3, 4)) {
+            assertThat(new String(downloaded.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("3456");
+        }
+        try (InputStream downloaded = storageService.download(path, 8, 100)) {
+            assertThat(new String(downloaded.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("89");
+        }
+    }
+
+    @Test
+    void shouldThrowOnRangeDownloadNonExistentBlob() {
+        assertThatThrownBy(() -> storageService.download("nonexistent.txt", 0, 10))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Blob not found");
+    }
+
+    @Test
+    void shouldRejectEmptyRange() throws IOException {
+        storageService.upload("range.txt", new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.UTF_8)));
+
+        assertThatThrownBy(() -> storageService.download("range.txt", 3, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("length 0");
+        assertThatThrownBy(() -> storageService.download("range.txt", -1, 4))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
 }
@@ -1,9 +1,11 @@
 package com.beema.kernel.service.storage.impl;
 
 import com.beema.kernel.config.StorageProperties;
+import com.beema.kernel.service.storage.BlobOutputStream;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.wait.strategy.HttpWaitStrategy;
 import org.testcontainers.junit.jupiter.Container;
@@ -20,6 +22,8 @@ import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -164,4 +168,55 @@ class S3BlobStorageServiceTest {
             assertThat(result).isEqualTo(content);
         }
     }
+
+    @Test
+    void shouldUploadLargeBlobInParts() throws IOException {
+        // Given: more than two 8MB parts, the last one short
+        String path = "multipart/large.bin";
+        byte[] data = new byte[20 * 1024 * 1024 + 123];
+        new Random(42).nextBytes(data);
+
+        // When
+        try (BlobOutputStream out = storageService.openUploadStream(path)) {
+            for (int off = 0; off < data.length; off += 100_000) {
+                out.write(data, off, Math.min(100_000, data.length - off));
+            }
+        }
+
+        // Then
+        try (InputStream downloaded = storageService.download(path)) {
+            assertThat(downloaded.readAllBytes()).isEqualTo(data);
+        }
+        try (InputStream downloaded = storageService.download(path, 8 * 1024 * 1024 - 10, 20)) {
+            assertThat(downloaded.readAllBytes())
+                    .isEqualTo(Arrays.copyOfRange(data, 8 * 1024 * 1024 - 10, 8 * 1024 * 1024 + 10));
+        }
+    }
+
+    @Test
+    void shouldNotCreateBlobForAbortedMultipartUpload() throws IOException {
+        // Given
+        String path = "multipart/aborted.bin";
+        BlobOutputStream out = storageService.openUploadStream(path);
+        out.write(new byte[9 * 1024 * 1024]);
+
+        // When
+        out.abort();
+
+        // Then
+        assertThatThrownBy(() -> storageService.download(path))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void shouldRejectPartSizeBelowS3Minimum() {
+        StorageProperties properties = new StorageProperties();
+        properties.setType("s3");
+        properties.getS3().setBucket(TEST_BUCKET);
+        properties.getS3().setRegion("us-east-1");
+        properties.getMultipart().setPartSize(DataSize.ofMegabytes(1));
+
+        assertThatThrownBy(() -> new S3BlobStorageService(properties))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
 }